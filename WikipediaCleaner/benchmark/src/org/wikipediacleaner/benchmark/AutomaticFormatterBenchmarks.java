@@ -0,0 +1,89 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wikipediacleaner.api.check.CheckError;
+import org.wikipediacleaner.api.data.AutomaticFormatter;
+import org.wikipediacleaner.api.data.Page;
+
+
+/**
+ * Benchmarks for automatic formatting of pages.
+ */
+public class AutomaticFormatterBenchmarks {
+
+  /**
+   * Add automatic formatting benchmarks.
+   *
+   * @param corpus Corpus.
+   * @param benchmarks List of benchmarks.
+   */
+  public static void addBenchmarks(BenchmarkCorpus corpus, List<Benchmark> benchmarks) {
+    for (int index = 0; index < corpus.size(); index++) {
+      benchmarks.add(new TidyArticleBenchmark(corpus, index, false));
+      benchmarks.add(new TidyArticleBenchmark(corpus, index, true));
+    }
+  }
+
+  /**
+   * Benchmark of the automatic formatting of a page.
+   */
+  private static class TidyArticleBenchmark extends Benchmark {
+
+    /** Corpus */
+    private final BenchmarkCorpus corpus;
+
+    /** Page index in the corpus */
+    private final int index;
+
+    /** True for bot fixes */
+    private final boolean botFix;
+
+    /** Page */
+    private Page page;
+
+    /** Page contents */
+    private String contents;
+
+    /**
+     * @param corpus Corpus.
+     * @param index Page index in the corpus.
+     * @param botFix True for bot fixes.
+     */
+    TidyArticleBenchmark(BenchmarkCorpus corpus, int index, boolean botFix) {
+      super("tidy." + (botFix ? "bot" : "automatic") + "." + corpus.getName(index));
+      this.corpus = corpus;
+      this.index = index;
+      this.botFix = botFix;
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#setUp()
+     */
+    @Override
+    public void setUp() {
+      page = corpus.createPage(index);
+      contents = corpus.getContents(index);
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#run()
+     */
+    @Override
+    public Object run() {
+      // Discard the analysis kept by the previous execution
+      page.getAnalysis("", true);
+      List<CheckError.Progress> usedAlgorithms = new ArrayList<CheckError.Progress>();
+      return AutomaticFormatter.tidyArticle(
+          page, contents, corpus.getAlgorithms(), botFix, usedAlgorithms);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.benchmark;
+
+
+/**
+ * A micro benchmark: an operation repeatedly executed by {@link BenchmarkRunner}.
+ */
+public abstract class Benchmark {
+
+  /** Name of the benchmark */
+  private final String name;
+
+  /**
+   * @param name Name of the benchmark.
+   */
+  protected Benchmark(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @return Name of the benchmark.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Prepare the benchmark before its first execution.
+   *
+   * @throws Exception Error preparing the benchmark.
+   */
+  public void setUp() throws Exception {
+    // Nothing by default
+  }
+
+  /**
+   * Execute the measured operation once.
+   *
+   * The result is consumed by the runner so that the operation
+   * can't be removed by the JIT compiler.
+   *
+   * @return Result of the operation.
+   */
+  public abstract Object run();
+
+  /**
+   * @return Textual representation of the object.
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
+import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithms;
+import org.wikipediacleaner.api.constants.CWConfiguration;
+import org.wikipediacleaner.api.constants.CWConfigurationError;
+import org.wikipediacleaner.api.constants.EnumCaseSensitiveness;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.constants.WikiConfiguration;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Interwiki;
+import org.wikipediacleaner.api.data.Language;
+import org.wikipediacleaner.api.data.MagicWord;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageAnalysis;
+
+
+/**
+ * Corpus of wikitext pages used by the benchmarks.
+ *
+ * Each file of the corpus directory with a <code>.txt</code> extension
+ * is a page, named after the file.
+ * Benchmarks run offline: a minimal site configuration is used for the wiki
+ * (main name spaces, a few languages and magic words), and when no Check Wiki
+ * configuration file is given, every algorithm available in WPCleaner
+ * is activated with a default configuration.
+ */
+public class BenchmarkCorpus {
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** Names of the pages */
+  private final List<String> names;
+
+  /** Contents of the pages */
+  private final List<String> contents;
+
+  /** Fully analyzed pages, shared by the benchmarks which don't modify them */
+  private final List<PageAnalysis> analysis;
+
+  /** Check Wiki algorithms */
+  private List<CheckErrorAlgorithm> algorithms;
+
+  /**
+   * @param wiki Wiki.
+   */
+  private BenchmarkCorpus(EnumWikipedia wiki) {
+    this.wiki = wiki;
+    this.names = new ArrayList<String>();
+    this.contents = new ArrayList<String>();
+    this.analysis = new ArrayList<PageAnalysis>();
+  }
+
+  /**
+   * Load a corpus.
+   *
+   * @param wiki Wiki.
+   * @param directory Directory containing the pages.
+   * @param configuration Check Wiki configuration file (may be null).
+   * @return Corpus.
+   * @throws IOException Error reading the corpus.
+   * @throws APIException Error reading the Check Wiki configuration.
+   */
+  public static BenchmarkCorpus load(
+      EnumWikipedia wiki, File directory, File configuration)
+      throws IOException, APIException {
+    BenchmarkCorpus corpus = new BenchmarkCorpus(wiki);
+    File[] files = directory.listFiles(new FilenameFilter() {
+
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.endsWith(".txt");
+      }
+    });
+    if ((files == null) || (files.length == 0)) {
+      throw new IOException("No page in corpus " + directory.getAbsolutePath());
+    }
+    Arrays.sort(files);
+    for (File file : files) {
+      String name = file.getName();
+      corpus.names.add(name.substring(0, name.length() - 4));
+      corpus.contents.add(readFile(file));
+      corpus.analysis.add(null);
+    }
+    corpus.initializeSiteInformation();
+    corpus.initializeAlgorithms(configuration);
+    return corpus;
+  }
+
+  /**
+   * @param file File.
+   * @return Contents of the file, with MediaWiki line endings.
+   * @throws IOException Error reading the file.
+   */
+  private static String readFile(File file) throws IOException {
+    Reader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+      StringBuilder buffer = new StringBuilder((int) file.length());
+      char[] chars = new char[8192];
+      int count;
+      while ((count = reader.read(chars)) >= 0) {
+        buffer.append(chars, 0, count);
+      }
+      return buffer.toString().replace("\r\n", "\n");
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          //
+        }
+      }
+    }
+  }
+
+  /** Name spaces: id, title, canonical title, aliases */
+  private final static String[][] NAMESPACES = {
+    { "-2", "Media", "Media" },
+    { "-1", "Special", "Special" },
+    { "0", "", null },
+    { "1", "Talk", "Talk" },
+    { "2", "User", "User" },
+    { "3", "User talk", "User talk" },
+    { "4", "Wikipedia", "Project", "WP" },
+    { "5", "Wikipedia talk", "Project talk", "WT" },
+    { "6", "File", "File", "Image" },
+    { "7", "File talk", "File talk", "Image talk" },
+    { "8", "MediaWiki", "MediaWiki" },
+    { "9", "MediaWiki talk", "MediaWiki talk" },
+    { "10", "Template", "Template" },
+    { "11", "Template talk", "Template talk" },
+    { "12", "Help", "Help" },
+    { "13", "Help talk", "Help talk" },
+    { "14", "Category", "Category" },
+    { "15", "Category talk", "Category talk" },
+  };
+
+  /** Languages: code, name */
+  private final static String[][] LANGUAGES = {
+    { "de", "Deutsch" },
+    { "en", "English" },
+    { "es", "espa\u00F1ol" },
+    { "fr", "fran\u00E7ais" },
+    { "it", "italiano" },
+    { "nl", "Nederlands" },
+    { "pl", "polski" },
+    { "pt", "portugu\u00EAs" },
+  };
+
+  /** Magic words: name, aliases */
+  private final static String[][] MAGIC_WORDS = {
+    { MagicWord.DEFAULT_SORT, "DEFAULTSORT:", "DEFAULTSORTKEY:", "DEFAULTCATEGORYSORT:" },
+    { MagicWord.DISPLAY_TITLE, "DISPLAYTITLE" },
+    { MagicWord.FORCE_TOC, "__FORCETOC__" },
+    { MagicWord.INDEX, "__INDEX__" },
+    { MagicWord.NO_INDEX, "__NOINDEX__" },
+    { MagicWord.NO_NEW_SECTION_LINK, "__NONEWSECTIONLINK__" },
+    { MagicWord.PAGE_NAME, "PAGENAME" },
+    { MagicWord.REDIRECT, "#REDIRECT" },
+    { MagicWord.SAFE_SUBST, "SAFESUBST:" },
+    { MagicWord.SUBST, "SUBST:" },
+    { MagicWord.TOC, "__TOC__" },
+    { MagicWord.IMG_ALT, "alt=$1" },
+    { MagicWord.IMG_CENTER, "center", "centre" },
+    { MagicWord.IMG_FRAMED, "framed", "enframed", "frame" },
+    { MagicWord.IMG_FRAMELESS, "frameless" },
+    { MagicWord.IMG_LEFT, "left" },
+    { MagicWord.IMG_LINK, "link=$1" },
+    { MagicWord.IMG_NONE, "none" },
+    { MagicWord.IMG_PAGE, "page=$1", "page $1" },
+    { MagicWord.IMG_RIGHT, "right" },
+    { MagicWord.IMG_THUMBNAIL, "thumbnail", "thumb" },
+    { MagicWord.IMG_UPRIGHT, "upright", "upright=$1", "upright $1" },
+    { MagicWord.IMG_WIDTH, "$1px" },
+  };
+
+  /**
+   * Initialize a minimal site configuration, normally retrieved from the wiki.
+   */
+  private void initializeSiteInformation() {
+    WikiConfiguration wikiConfiguration = wiki.getWikiConfiguration();
+    if (wikiConfiguration.getNamespaces() == null) {
+      List<Namespace> namespaces = new ArrayList<Namespace>();
+      for (String[] values : NAMESPACES) {
+        Namespace namespace = new Namespace(
+            values[0], values[1], values[2],
+            EnumCaseSensitiveness.FIRST_LETTER, false);
+        for (int i = 3; i < values.length; i++) {
+          namespace.addAlias(values[i]);
+        }
+        namespaces.add(namespace);
+      }
+      wikiConfiguration.setNamespaces(namespaces);
+    }
+    if (wikiConfiguration.getLanguages() == null) {
+      List<Language> languages = new ArrayList<Language>();
+      List<Interwiki> interwikis = new ArrayList<Interwiki>();
+      for (String[] values : LANGUAGES) {
+        languages.add(new Language(values[0], values[1]));
+        interwikis.add(new Interwiki(
+            values[0], false, values[1],
+            "https://" + values[0] + ".wikipedia.org/wiki/$1"));
+      }
+      wikiConfiguration.setLanguages(languages);
+      wikiConfiguration.setInterwikis(interwikis);
+    }
+    if (wikiConfiguration.getMagicWordByName(MagicWord.DEFAULT_SORT) == null) {
+      Map<String, MagicWord> magicWords = new HashMap<String, MagicWord>();
+
+      // Every known magic word is defined, as the analysis expects them
+      for (Field field : MagicWord.class.getFields()) {
+        if (Modifier.isStatic(field.getModifiers()) &&
+            String.class.equals(field.getType())) {
+          try {
+            String name = (String) field.get(null);
+            magicWords.put(name, new MagicWord(
+                name, Collections.singletonList(name.toUpperCase()), false));
+          } catch (IllegalAccessException e) {
+            // Nothing to do
+          }
+        }
+      }
+      for (String[] values : MAGIC_WORDS) {
+        List<String> aliases = new ArrayList<String>();
+        for (int i = 1; i < values.length; i++) {
+          aliases.add(values[i]);
+        }
+        magicWords.put(values[0], new MagicWord(values[0], aliases, false));
+      }
+      wikiConfiguration.setMagicWords(magicWords);
+    }
+  }
+
+  /**
+   * Initialize Check Wiki algorithms.
+   *
+   * @param configuration Check Wiki configuration file (may be null).
+   * @throws IOException Error reading the configuration.
+   * @throws APIException Error reading the configuration.
+   */
+  private void initializeAlgorithms(File configuration)
+      throws IOException, APIException {
+    CWConfiguration cwConfiguration = wiki.getCWConfiguration();
+    if (configuration != null) {
+      cwConfiguration.setGeneralConfiguration(new StringReader(readFile(configuration)));
+    } else {
+      StringBuilder buffer = new StringBuilder();
+      for (int errorNumber = 1; errorNumber <= CWConfiguration.MAX_ERROR_NUMBER; errorNumber++) {
+        buffer.append(String.format(
+            "error_%03d_prio_script=%d END\n",
+            Integer.valueOf(errorNumber),
+            Integer.valueOf(CWConfigurationError.PRIORITY_TOP)));
+      }
+      cwConfiguration.setGeneralConfiguration(new StringReader(buffer.toString()));
+    }
+    CheckErrorAlgorithms.initializeAlgorithms(wiki);
+    algorithms = CheckErrorAlgorithms.getAlgorithms(wiki);
+    if (algorithms == null) {
+      algorithms = Collections.emptyList();
+    }
+  }
+
+  /**
+   * @return Wiki.
+   */
+  public EnumWikipedia getWiki() {
+    return wiki;
+  }
+
+  /**
+   * @return Number of pages.
+   */
+  public int size() {
+    return names.size();
+  }
+
+  /**
+   * @param index Page index.
+   * @return Page name.
+   */
+  public String getName(int index) {
+    return names.get(index);
+  }
+
+  /**
+   * @param index Page index.
+   * @return Page contents.
+   */
+  public String getContents(int index) {
+    return contents.get(index);
+  }
+
+  /**
+   * Create a new page object, so that no analysis is shared between benchmarks.
+   *
+   * @param index Page index.
+   * @return Page.
+   */
+  public Page createPage(int index) {
+    return DataManager.createPage(wiki, names.get(index), null, null);
+  }
+
+  /**
+   * @param index Page index.
+   * @return Fully analyzed page, shared between callers.
+   */
+  public PageAnalysis getAnalysis(int index) {
+    PageAnalysis result = analysis.get(index);
+    if (result == null) {
+      result = createPage(index).getAnalysis(contents.get(index), true);
+      result.performFullPageAnalysis(null);
+      analysis.set(index, result);
+    }
+    return result;
+  }
+
+  /**
+   * @return Check Wiki algorithms.
+   */
+  public List<CheckErrorAlgorithm> getAlgorithms() {
+    return algorithms;
+  }
+}
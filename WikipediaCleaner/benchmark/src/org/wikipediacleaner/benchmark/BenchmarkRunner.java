@@ -0,0 +1,323 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.benchmark;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+
+
+/**
+ * Runner for the benchmarks.
+ *
+ * Each benchmark is executed during a few warm up iterations,
+ * then during measurement iterations of a fixed duration.
+ * The average time of an operation is reported for each benchmark,
+ * and can be saved and compared to a previous run to detect regressions.
+ *
+ * <pre>
+ * BenchmarkRunner [-corpus &lt;dir&gt;] [-wiki &lt;code&gt;] [-config &lt;file&gt;]
+ *                 [-filter &lt;regexp&gt;] [-warmup &lt;n&gt;] [-iterations &lt;n&gt;] [-time &lt;ms&gt;]
+ *                 [-output &lt;file&gt;] [-baseline &lt;file&gt;] [-threshold &lt;percent&gt;]
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+  /** Separator between fields of a result */
+  private final static char SEPARATOR = '\t';
+
+  /** Number of warm up iterations */
+  private int warmupIterations = 2;
+
+  /** Number of measurement iterations */
+  private int measureIterations = 5;
+
+  /** Duration of an iteration in milliseconds */
+  private long iterationTime = 200;
+
+  /** Sink for the results of the operations */
+  private volatile int sink;
+
+  /**
+   * Result of a benchmark.
+   */
+  private static class Result {
+
+    /** Name of the benchmark */
+    final String name;
+
+    /** Average time of an operation in nanoseconds */
+    final double mean;
+
+    /** Standard deviation of the iterations in nanoseconds */
+    final double error;
+
+    /** Number of operations */
+    final long operations;
+
+    /**
+     * @param name Name of the benchmark.
+     * @param mean Average time of an operation in nanoseconds.
+     * @param error Standard deviation of the iterations in nanoseconds.
+     * @param operations Number of operations.
+     */
+    Result(String name, double mean, double error, long operations) {
+      this.name = name;
+      this.mean = mean;
+      this.error = error;
+      this.operations = operations;
+    }
+  }
+
+  /**
+   * Run a benchmark.
+   *
+   * @param benchmark Benchmark.
+   * @return Result of the benchmark.
+   * @throws Exception Error preparing the benchmark.
+   */
+  private Result run(Benchmark benchmark) throws Exception {
+    benchmark.setUp();
+    for (int i = 0; i < warmupIterations; i++) {
+      iterate(benchmark);
+    }
+    double[] times = new double[measureIterations];
+    long operations = 0;
+    for (int i = 0; i < measureIterations; i++) {
+      long[] iteration = iterate(benchmark);
+      times[i] = (double) iteration[0] / iteration[1];
+      operations += iteration[1];
+    }
+    double mean = 0;
+    for (double time : times) {
+      mean += time;
+    }
+    mean /= times.length;
+    double variance = 0;
+    for (double time : times) {
+      variance += (time - mean) * (time - mean);
+    }
+    double error = (times.length > 1) ? Math.sqrt(variance / (times.length - 1)) : 0;
+    return new Result(benchmark.getName(), mean, error, operations);
+  }
+
+  /**
+   * Execute a benchmark during one iteration.
+   *
+   * @param benchmark Benchmark.
+   * @return Elapsed time in nanoseconds and number of operations.
+   */
+  private long[] iterate(Benchmark benchmark) {
+    long duration = iterationTime * 1000000L;
+    long operations = 0;
+    int hash = 0;
+    long beginTime = System.nanoTime();
+    long elapsed;
+    do {
+      Object result = benchmark.run();
+      hash += System.identityHashCode(result);
+      operations++;
+      elapsed = System.nanoTime() - beginTime;
+    } while (elapsed < duration);
+    sink += hash;
+    return new long[] { elapsed, operations };
+  }
+
+  /**
+   * Format a duration.
+   *
+   * @param nanos Duration in nanoseconds.
+   * @return Duration in microseconds.
+   */
+  private static String formatTime(double nanos) {
+    return String.format(Locale.ENGLISH, "%.3f", Double.valueOf(nanos / 1000));
+  }
+
+  /**
+   * Save results.
+   *
+   * @param results Results.
+   * @param file Output file.
+   * @throws IOException Error writing the file.
+   */
+  private static void saveResults(List<Result> results, File file) throws IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(file), "UTF-8"));
+    try {
+      for (Result result : results) {
+        writer.write(result.name);
+        writer.write(SEPARATOR);
+        writer.write(String.format(Locale.ENGLISH, "%.1f", Double.valueOf(result.mean)));
+        writer.write(SEPARATOR);
+        writer.write(String.format(Locale.ENGLISH, "%.1f", Double.valueOf(result.error)));
+        writer.write(SEPARATOR);
+        writer.write(Long.toString(result.operations));
+        writer.write('\n');
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Load results saved by a previous run.
+   *
+   * @param file Result file.
+   * @return Average time of an operation in nanoseconds indexed by benchmark name.
+   * @throws IOException Error reading the file.
+   */
+  private static Map<String, Double> loadResults(File file) throws IOException {
+    Map<String, Double> results = new HashMap<String, Double>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(
+        new FileInputStream(file), "UTF-8"));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split(String.valueOf(SEPARATOR));
+        if (fields.length >= 2) {
+          try {
+            results.put(fields[0], Double.valueOf(fields[1]));
+          } catch (NumberFormatException e) {
+            // Ignore line
+          }
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return results;
+  }
+
+  /**
+   * Run benchmarks.
+   *
+   * @param args Command line arguments.
+   */
+  public static void main(String[] args) {
+    PrintStream out = System.out;
+    File corpusDir = new File("benchmark/corpus");
+    File configuration = null;
+    EnumWikipedia wiki = EnumWikipedia.EN;
+    Pattern filter = null;
+    File output = null;
+    File baseline = null;
+    double threshold = 10;
+    BenchmarkRunner runner = new BenchmarkRunner();
+    try {
+      int index = 0;
+      while (index < args.length) {
+        String arg = args[index++];
+        if (index >= args.length) {
+          out.println("Missing value for " + arg);
+          System.exit(1);
+        }
+        String value = args[index++];
+        if ("-corpus".equals(arg)) {
+          corpusDir = new File(value);
+        } else if ("-wiki".equals(arg)) {
+          wiki = EnumWikipedia.getWikipedia(value);
+        } else if ("-config".equals(arg)) {
+          configuration = new File(value);
+        } else if ("-filter".equals(arg)) {
+          filter = Pattern.compile(value);
+        } else if ("-warmup".equals(arg)) {
+          runner.warmupIterations = Integer.parseInt(value);
+        } else if ("-iterations".equals(arg)) {
+          runner.measureIterations = Math.max(1, Integer.parseInt(value));
+        } else if ("-time".equals(arg)) {
+          runner.iterationTime = Math.max(1, Long.parseLong(value));
+        } else if ("-output".equals(arg)) {
+          output = new File(value);
+        } else if ("-baseline".equals(arg)) {
+          baseline = new File(value);
+        } else if ("-threshold".equals(arg)) {
+          threshold = Double.parseDouble(value);
+        } else {
+          out.println("Unknown argument " + arg);
+          System.exit(1);
+        }
+      }
+    } catch (NumberFormatException e) {
+      out.println("Invalid number: " + e.getMessage());
+      System.exit(1);
+    }
+
+    try {
+      // Create benchmarks
+      BenchmarkCorpus corpus = BenchmarkCorpus.load(wiki, corpusDir, configuration);
+      List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+      PageAnalysisBenchmarks.addBenchmarks(corpus, benchmarks);
+      CheckErrorBenchmarks.addBenchmarks(corpus, benchmarks);
+      AutomaticFormatterBenchmarks.addBenchmarks(corpus, benchmarks);
+      Map<String, Double> previous = null;
+      if (baseline != null) {
+        previous = loadResults(baseline);
+      }
+      out.println(
+          "Corpus: " + corpus.size() + " pages, " +
+          corpus.getAlgorithms().size() + " Check Wiki algorithms");
+      out.println("Benchmark" + SEPARATOR + "us/op" + SEPARATOR + "error" + SEPARATOR + "baseline");
+
+      // Run benchmarks
+      List<Result> results = new ArrayList<Result>();
+      int regressions = 0;
+      for (Benchmark benchmark : benchmarks) {
+        if ((filter == null) || filter.matcher(benchmark.getName()).find()) {
+          Result result = runner.run(benchmark);
+          results.add(result);
+          StringBuilder line = new StringBuilder();
+          line.append(result.name);
+          line.append(SEPARATOR);
+          line.append(formatTime(result.mean));
+          line.append(SEPARATOR);
+          line.append(formatTime(result.error));
+          Double reference = (previous != null) ? previous.get(result.name) : null;
+          if ((reference != null) && (reference.doubleValue() > 0)) {
+            double delta = (result.mean - reference.doubleValue()) * 100 / reference.doubleValue();
+            line.append(SEPARATOR);
+            line.append(String.format(Locale.ENGLISH, "%+.1f%%", Double.valueOf(delta)));
+            if (delta > threshold) {
+              line.append(" REGRESSION");
+              regressions++;
+            }
+          }
+          out.println(line.toString());
+        }
+      }
+
+      // Save results
+      if (output != null) {
+        saveResults(results, output);
+      }
+      if (regressions > 0) {
+        out.println(regressions + " regression(s) above " + threshold + "%");
+        System.exit(2);
+      }
+    } catch (Exception e) {
+      out.println("Error running benchmarks: " + e.getMessage());
+      e.printStackTrace(out);
+      System.exit(1);
+    }
+    System.exit(0);
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.wikipediacleaner.api.check.CheckError;
+import org.wikipediacleaner.api.check.CheckErrorResult;
+import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
+import org.wikipediacleaner.api.data.PageAnalysis;
+
+
+/**
+ * Benchmarks for Check Wiki algorithms.
+ *
+ * The page is fully analyzed before the measures,
+ * so that only the algorithms are measured.
+ * Errors memorized in the analysis are forgotten before each execution,
+ * so that the algorithms are really executed.
+ */
+public class CheckErrorBenchmarks {
+
+  /**
+   * Add Check Wiki benchmarks.
+   *
+   * @param corpus Corpus.
+   * @param benchmarks List of benchmarks.
+   */
+  public static void addBenchmarks(BenchmarkCorpus corpus, List<Benchmark> benchmarks) {
+    for (int index = 0; index < corpus.size(); index++) {
+      benchmarks.add(new AllAlgorithmsBenchmark(corpus, index));
+    }
+    for (CheckErrorAlgorithm algorithm : corpus.getAlgorithms()) {
+      for (int index = 0; index < corpus.size(); index++) {
+        benchmarks.add(new AlgorithmBenchmark(corpus, index, algorithm));
+      }
+    }
+  }
+
+  /**
+   * Benchmark of all algorithms on a page.
+   */
+  private static class AllAlgorithmsBenchmark extends Benchmark {
+
+    /** Corpus */
+    private final BenchmarkCorpus corpus;
+
+    /** Page index in the corpus */
+    private final int index;
+
+    /** Page analysis */
+    private PageAnalysis analysis;
+
+    /**
+     * @param corpus Corpus.
+     * @param index Page index in the corpus.
+     */
+    AllAlgorithmsBenchmark(BenchmarkCorpus corpus, int index) {
+      super("checkwiki.all." + corpus.getName(index));
+      this.corpus = corpus;
+      this.index = index;
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#setUp()
+     */
+    @Override
+    public void setUp() {
+      analysis = corpus.getAnalysis(index);
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#run()
+     */
+    @Override
+    public Object run() {
+      analysis.clearCheckWikiErrors();
+      return CheckError.analyzeErrors(corpus.getAlgorithms(), analysis, false);
+    }
+  }
+
+  /**
+   * Benchmark of one algorithm on a page.
+   */
+  private static class AlgorithmBenchmark extends Benchmark {
+
+    /** Corpus */
+    private final BenchmarkCorpus corpus;
+
+    /** Page index in the corpus */
+    private final int index;
+
+    /** Algorithm */
+    private final CheckErrorAlgorithm algorithm;
+
+    /** Page analysis */
+    private PageAnalysis analysis;
+
+    /**
+     * @param corpus Corpus.
+     * @param index Page index in the corpus.
+     * @param algorithm Algorithm.
+     */
+    AlgorithmBenchmark(BenchmarkCorpus corpus, int index, CheckErrorAlgorithm algorithm) {
+      super("checkwiki." + algorithm.getErrorNumberString() + "." + corpus.getName(index));
+      this.corpus = corpus;
+      this.index = index;
+      this.algorithm = algorithm;
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#setUp()
+     */
+    @Override
+    public void setUp() {
+      analysis = corpus.getAnalysis(index);
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#run()
+     */
+    @Override
+    public Object run() {
+      List<CheckErrorResult> errors = new ArrayList<CheckErrorResult>();
+      algorithm.analyze(analysis, errors, false);
+      return errors;
+    }
+  }
+}
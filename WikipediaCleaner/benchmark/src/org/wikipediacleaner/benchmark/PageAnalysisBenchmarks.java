@@ -0,0 +1,129 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.benchmark;
+
+import java.util.List;
+
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageAnalysis;
+
+
+/**
+ * Benchmarks for page analysis.
+ *
+ * Each operation analyzes the page from scratch.
+ * Analysis levels depend on the previous ones, so the benchmark of a level
+ * measures the cumulated time of all levels up to it.
+ */
+public class PageAnalysisBenchmarks {
+
+  /**
+   * Analysis levels.
+   */
+  private static enum Level {
+    LEVEL1("level1.comments"),
+    LEVEL2("level2.tags"),
+    LEVEL3("level3.links"),
+    LEVEL4("level4.externallinks"),
+    LEVEL5("level5.areas"),
+    FULL("full");
+
+    /** Name of the level */
+    final String name;
+
+    /**
+     * @param name Name of the level.
+     */
+    Level(String name) {
+      this.name = name;
+    }
+  }
+
+  /**
+   * Add page analysis benchmarks.
+   *
+   * @param corpus Corpus.
+   * @param benchmarks List of benchmarks.
+   */
+  public static void addBenchmarks(BenchmarkCorpus corpus, List<Benchmark> benchmarks) {
+    for (Level level : Level.values()) {
+      for (int index = 0; index < corpus.size(); index++) {
+        benchmarks.add(new AnalysisBenchmark(corpus, index, level));
+      }
+    }
+  }
+
+  /**
+   * Benchmark of an analysis level on a page.
+   */
+  private static class AnalysisBenchmark extends Benchmark {
+
+    /** Corpus */
+    private final BenchmarkCorpus corpus;
+
+    /** Page index in the corpus */
+    private final int index;
+
+    /** Analysis level */
+    private final Level level;
+
+    /** Page */
+    private Page page;
+
+    /** Page contents */
+    private String contents;
+
+    /**
+     * @param corpus Corpus.
+     * @param index Page index in the corpus.
+     * @param level Analysis level.
+     */
+    AnalysisBenchmark(BenchmarkCorpus corpus, int index, Level level) {
+      super("analysis." + level.name + "." + corpus.getName(index));
+      this.corpus = corpus;
+      this.index = index;
+      this.level = level;
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#setUp()
+     */
+    @Override
+    public void setUp() {
+      page = corpus.createPage(index);
+      contents = corpus.getContents(index);
+
+      // Keep an other analysis in the page so that a new one is created each time
+      page.getAnalysis("", true);
+    }
+
+    /**
+     * @see org.wikipediacleaner.benchmark.Benchmark#run()
+     */
+    @Override
+    public Object run() {
+      PageAnalysis analysis = page.getAnalysis(contents, false);
+      switch (level) {
+      case LEVEL1:
+        return analysis.getComments();
+      case LEVEL2:
+        return analysis.getTags();
+      case LEVEL3:
+        return analysis.getInternalLinks();
+      case LEVEL4:
+        return analysis.getExternalLinks();
+      case LEVEL5:
+        return analysis.getAreas();
+      case FULL:
+        analysis.performFullPageAnalysis(null);
+        return analysis;
+      }
+      return analysis;
+    }
+  }
+}
@@ -21,9 +21,14 @@ import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.APIFactory;
+import org.wikipediacleaner.api.HttpConnectionPool;
+import org.wikipediacleaner.api.check.CheckErrorProfiler;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithms;
 import org.wikipediacleaner.api.constants.EnumLanguage;
@@ -32,7 +37,9 @@ import org.wikipediacleaner.api.data.ISBNRange;
 import org.wikipediacleaner.gui.swing.basic.BasicWorker;
 import org.wikipediacleaner.gui.swing.basic.BasicWorkerListener;
 import org.wikipediacleaner.gui.swing.bot.AutomaticCWWorker;
+import org.wikipediacleaner.gui.swing.bot.LinkGraphWorker;
 import org.wikipediacleaner.gui.swing.bot.ListCWWorker;
+import org.wikipediacleaner.gui.swing.bot.TrigramIndexWorker;
 import org.wikipediacleaner.gui.swing.worker.LoginWorker;
 import org.wikipediacleaner.gui.swing.worker.UpdateDabWarningWorker;
 import org.wikipediacleaner.gui.swing.worker.UpdateDuplicateArgsWarningWorker;
@@ -43,6 +50,7 @@ import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationConstants;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 import org.wikipediacleaner.utils.ConfigurationValueString;
+import org.wikipediacleaner.utils.JobJournal;
 
 
 /**
@@ -101,6 +109,12 @@ public class Bot implements BasicWorkerListener {
   /** Actions to be executed */
   private String[] actions;
 
+  /** Maximum number of actions executed at the same time */
+  private int maxConcurrent;
+
+  /** Journals of the actions */
+  private final List<JobJournal> journals = new ArrayList<JobJournal>();
+
   /**
    * @param args Command line arguments
    */
@@ -112,6 +126,7 @@ public class Bot implements BasicWorkerListener {
     // Process general command line arguments
     boolean done = false;
     timeLimit = null;
+    maxConcurrent = 1;
     String credentials = null;
     while (!done) {
       if (args.length > currentArg) {
@@ -120,9 +135,19 @@ public class Bot implements BasicWorkerListener {
         if ("-timelimit".equals(arg)) {
           timeLimit = Integer.valueOf(args[currentArg + 1]);
           currentArg += 2;
+        } else if ("-concurrent".equals(arg)) {
+          maxConcurrent = Integer.parseInt(args[currentArg + 1]);
+          currentArg += 2;
         } else if ("-credentials".equals(arg)) {
           credentials = args[currentArg + 1];
           currentArg += 2;
+        } else if ("-profile".equals(arg)) {
+          try {
+            CheckErrorProfiler.start(new File(args[currentArg + 1]));
+          } catch (IOException e) {
+            log.warn("Unable to open profiling file " + args[currentArg + 1]);
+          }
+          currentArg += 2;
         } else {
           done = true;
         }
@@ -190,22 +215,57 @@ public class Bot implements BasicWorkerListener {
   }
 
   /**
-   * Execute an action.
+   * Execute the actions.
+   * 
+   * Actions are separated by a "+" argument, each action may start
+   * with a "-priority" argument.
+   * 
+   * @param args Actions and arguments.
+   */
+  private void executeActions(String[] args) {
+    BotScheduler scheduler = new BotScheduler(this, maxConcurrent);
+    int begin = 0;
+    while (begin < args.length) {
+      int end = begin;
+      while ((end < args.length) && !"+".equals(args[end])) {
+        end++;
+      }
+      String[] actionArgs = Arrays.copyOfRange(args, begin, end);
+      begin = end + 1;
+      int priority = 0;
+      if ((actionArgs.length > 1) && "-priority".equals(actionArgs[0])) {
+        priority = Integer.parseInt(actionArgs[1]);
+        actionArgs = Arrays.copyOfRange(actionArgs, 2, actionArgs.length);
+      }
+      BasicWorker worker = createWorker(actionArgs);
+      if (worker != null) {
+        scheduler.addAction(worker, Arrays.toString(actionArgs), priority);
+      } else {
+        log.warn("Unable to execute action " + Arrays.toString(actionArgs));
+      }
+    }
+    scheduler.start();
+  }
+
+  /**
+   * Create the worker for an action.
    * 
    * @param args Action and arguments.
+   * @return Worker executing the action (null if the action is incorrect).
    */
-  void executeAction(String[] args) {
+  private BasicWorker createWorker(String[] args) {
 
     // Retrieve action
     int currentArg = 0;
     if (currentArg >= args.length) {
-      return;
+      return null;
     }
     String action = args[currentArg];
     currentArg++;
 
     // Execute action depending on the parameters
     BasicWorker worker = null;
+    String jobDetail = null;
     if ("UpdateDabWarnings".equalsIgnoreCase(action)) {
       Configuration config = Configuration.getConfiguration();
       String start = config.getString(null, ConfigurationValueString.LAST_DAB_WARNING);
@@ -246,6 +306,7 @@ public class Bot implements BasicWorkerListener {
     } else if ("ListCheckWiki".equalsIgnoreCase(action)) {
       boolean check = true;
       boolean onlyRecheck = false;
+      Pattern pattern = null;
       boolean optionsFinished = false;
       while (!optionsFinished && (args.length > currentArg)) {
         if ("-nocheck".equalsIgnoreCase(args[currentArg])) {
@@ -254,32 +315,84 @@ public class Bot implements BasicWorkerListener {
         } else if ("-onlyRecheck".equalsIgnoreCase(args[currentArg])) {
           onlyRecheck = true;
           currentArg++;
+        } else if ("-pattern".equalsIgnoreCase(args[currentArg]) &&
+                   (args.length > currentArg + 1)) {
+          try {
+            pattern = Pattern.compile(args[currentArg + 1]);
+          } catch (PatternSyntaxException e) {
+            log.warn("Invalid pattern " + args[currentArg + 1] + ": " + e.getMessage());
+            return null;
+          }
+          currentArg += 2;
         } else {
           optionsFinished = true;
         }
       }
       if (args.length > currentArg + 2) {
         File dumpFile = getDumpFile(args[currentArg]);
+        jobDetail = (dumpFile != null) ? dumpFile.getName() : null;
         List<CheckErrorAlgorithm> algorithms = new ArrayList<CheckErrorAlgorithm>();
         extractAlgorithms(algorithms, null, args, currentArg + 2);
+        ListCWWorker listWorker = null;
         if (args[currentArg + 1].startsWith("wiki:")) {
+          if (pattern != null) {
+            // Lists on the wiki must contain all the pages of the dump
+            log.warn("Option -pattern can't be used with an output on the wiki");
+            return null;
+          }
           String pageName = args[currentArg + 1].substring(5);
-          worker = new ListCWWorker(
+          listWorker = new ListCWWorker(
               wiki, null, dumpFile, pageName,
               algorithms, check, onlyRecheck);
         } else {
           File output = new File(args[currentArg + 1]);
-          worker = new ListCWWorker(
+          listWorker = new ListCWWorker(
               wiki, null, dumpFile, output,
               algorithms, check);
         }
+        listWorker.setCandidatePattern(pattern);
+        worker = listWorker;
+      }
+    } else if ("BuildLinkGraph".equalsIgnoreCase(action)) {
+      if (args.length == currentArg + 1) {
+        File dumpFile = getDumpFile(args[currentArg]);
+        if (dumpFile != null) {
+          worker = new LinkGraphWorker(wiki, null, dumpFile);
+        }
+      } else if (args.length > currentArg + 1) {
+        File pageFile = getDumpFile(args[currentArg]);
+        File pageLinksFile = getDumpFile(args[currentArg + 1]);
+        File redirectFile = (args.length > currentArg + 2) ? getDumpFile(args[currentArg + 2]) : null;
+        File linkTargetFile = (args.length > currentArg + 3) ? getDumpFile(args[currentArg + 3]) : null;
+        if ((pageFile != null) && (pageLinksFile != null)) {
+          worker = new LinkGraphWorker(
+              wiki, null, pageFile, pageLinksFile, redirectFile, linkTargetFile);
+        }
+      }
+    } else if ("BuildTrigramIndex".equalsIgnoreCase(action)) {
+      if (args.length > currentArg) {
+        File dumpFile = getDumpFile(args[currentArg]);
+        if (dumpFile != null) {
+          jobDetail = dumpFile.getName();
+          worker = new TrigramIndexWorker(wiki, null, dumpFile);
+        }
       }
     }
     if (worker != null) {
-      worker.setListener(this);
+      StringBuilder job = new StringBuilder();
+      for (String arg : args) {
+        job.append(arg);
+        job.append(' ');
+      }
+      if (jobDetail != null) {
+        job.append(jobDetail);
+      }
+      JobJournal journal = JobJournal.open(wiki, job.toString().trim());
+      journals.add(journal);
+      worker.setJournal(journal);
       worker.setTimeLimit(timeLimit);
-      worker.start();
     }
+    return worker;
   }
 
   /**
@@ -398,12 +511,28 @@ public class Bot implements BasicWorkerListener {
   @Override
   public void afterFinished(BasicWorker worker, boolean ok) {
     if (!ok) {
-      System.exit(1);
+      exit(1);
     }
     if (loginDone) {
-      System.exit(0);
+      exit(0);
     }
     loginDone = true;
-    executeAction(actions);
+    executeActions(actions);
+  }
+
+  /**
+   * Terminate the bot.
+   * 
+   * @param status Exit status.
+   */
+  void exit(int status) {
+    for (JobJournal journal : journals) {
+      journal.close();
+    }
+    CheckErrorProfiler.stop();
+    for (HttpConnectionPool.HostStatistics statistics : APIFactory.getHttpStatistics()) {
+      log.info("HTTP " + statistics);
+    }
+    System.exit(status);
   }
 }
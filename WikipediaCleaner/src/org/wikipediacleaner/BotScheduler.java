@@ -0,0 +1,182 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.gui.swing.basic.BasicWorker;
+import org.wikipediacleaner.gui.swing.basic.BasicWorkerListener;
+
+
+/**
+ * Scheduler for running several bot actions on a wiki.
+ *
+ * Actions are started by decreasing priority (then in the order they were
+ * given), with a maximum number of actions running at the same time.
+ * Actions run in the same process, so they share the caches (contents,
+ * disambiguation pages, ...) and the control of the rate of requests.
+ * Edits of the same page by different actions are serialized by the API.
+ */
+class BotScheduler implements BasicWorkerListener {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(BotScheduler.class);
+
+  /**
+   * Action waiting to be executed.
+   */
+  private static class Action {
+
+    /** Worker executing the action */
+    final BasicWorker worker;
+
+    /** Description of the action */
+    final String description;
+
+    /** Priority of the action */
+    final int priority;
+
+    /** Order of the action */
+    final int order;
+
+    /**
+     * @param worker Worker executing the action.
+     * @param description Description of the action.
+     * @param priority Priority of the action.
+     * @param order Order of the action.
+     */
+    Action(BasicWorker worker, String description, int priority, int order) {
+      this.worker = worker;
+      this.description = description;
+      this.priority = priority;
+      this.order = order;
+    }
+  }
+
+  /** Bot */
+  private final Bot bot;
+
+  /** Maximum number of actions running at the same time */
+  private final int maxConcurrent;
+
+  /** Actions waiting to be started */
+  private final List<Action> pending;
+
+  /** Actions running */
+  private final List<Action> running;
+
+  /** True if all actions have been successful */
+  private boolean ok;
+
+  /**
+   * @param bot Bot.
+   * @param maxConcurrent Maximum number of actions running at the same time.
+   */
+  BotScheduler(Bot bot, int maxConcurrent) {
+    this.bot = bot;
+    this.maxConcurrent = Math.max(1, maxConcurrent);
+    this.pending = new ArrayList<Action>();
+    this.running = new ArrayList<Action>();
+    this.ok = true;
+  }
+
+  /**
+   * @param worker Worker executing the action.
+   * @param description Description of the action.
+   * @param priority Priority of the action (higher first).
+   */
+  synchronized void addAction(BasicWorker worker, String description, int priority) {
+    pending.add(new Action(worker, description, priority, pending.size()));
+  }
+
+  /**
+   * Start executing the actions.
+   */
+  synchronized void start() {
+    Collections.sort(pending, new Comparator<Action>() {
+
+      @Override
+      public int compare(Action o1, Action o2) {
+        if (o1.priority != o2.priority) {
+          return (o1.priority > o2.priority) ? -1 : 1;
+        }
+        return o1.order - o2.order;
+      }
+    });
+    startActions();
+  }
+
+  /**
+   * Start as many actions as possible, or terminate the bot when all are done.
+   */
+  private void startActions() {
+    while (!pending.isEmpty() && (running.size() < maxConcurrent)) {
+      Action action = pending.remove(0);
+      running.add(action);
+      log.info("Starting action " + action.description);
+      action.worker.setListener(this);
+      action.worker.start();
+    }
+    if (pending.isEmpty() && running.isEmpty()) {
+      bot.exit(ok ? 0 : 1);
+    }
+  }
+
+  /**
+   * @param worker
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorkerListener#beforeStart(org.wikipediacleaner.gui.swing.basic.BasicWorker)
+   */
+  @Override
+  public void beforeStart(BasicWorker worker) {
+    // Do nothing
+  }
+
+  /**
+   * @param worker
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorkerListener#afterStart(org.wikipediacleaner.gui.swing.basic.BasicWorker)
+   */
+  @Override
+  public void afterStart(BasicWorker worker) {
+    // Do nothing
+  }
+
+  /**
+   * @param worker
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorkerListener#beforeFinished(org.wikipediacleaner.gui.swing.basic.BasicWorker)
+   */
+  @Override
+  public void beforeFinished(BasicWorker worker) {
+    // Do nothing
+  }
+
+  /**
+   * @param worker
+   * @param workerOk
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorkerListener#afterFinished(org.wikipediacleaner.gui.swing.basic.BasicWorker, boolean)
+   */
+  @Override
+  public synchronized void afterFinished(BasicWorker worker, boolean workerOk) {
+    for (int i = 0; i < running.size(); i++) {
+      Action action = running.get(i);
+      if (action.worker == worker) {
+        running.remove(i);
+        log.info("Action " + action.description + (workerOk ? " finished" : " failed"));
+        break;
+      }
+    }
+    if (!workerOk) {
+      ok = false;
+    }
+    startActions();
+  }
+}
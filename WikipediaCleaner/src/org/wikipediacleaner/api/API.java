@@ -270,6 +270,22 @@ public interface API {
   public void retrieveLinks(
       EnumWikipedia wiki, Collection<Page> pages) throws APIException;
 
+  /**
+   * Retrieves the contents and the internal links of a list of pages,
+   * with information about the links (redirects, disambiguation).
+   * (<code>action=query</code>, <code>prop=revisions|links</code>).
+   * 
+   * @param wiki Wiki.
+   * @param pages List of pages.
+   * @param namespace Restrict the links to a given namespace.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#revisions_.2F_rv">API:Properties#revisions</a>
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#links_.2F_pl">API:Properties#links</a>
+   */
+  public void retrieveContentsAndLinks(
+      EnumWikipedia wiki, Collection<Page> pages,
+      Integer namespace) throws APIException;
+
   /**
    * Retrieves links to the <code>page</code> and initialize redirect status.
    * (<code>action=query</code>, <code>prop=linkshere</code>).
@@ -317,6 +333,20 @@ public interface API {
   public String getLanguageLink(
       EnumWikipedia from, EnumWikipedia to, String title) throws APIException;
 
+  /**
+   * Retrieve language links in a list of pages.
+   * (<code>action=query</code>, <code>prop=langlinks</code>).
+   * 
+   * @param from Wiki in which the articles are.
+   * @param to Wiki to which the links are searched.
+   * @param titles Page titles.
+   * @return Page titles in the destination wiki, indexed by page titles in the original wiki.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#langlinks_.2F_ll">API:Properties#langlinks</a>
+   */
+  public Map<String, String> getLanguageLinks(
+      EnumWikipedia from, EnumWikipedia to, Collection<String> titles) throws APIException;
+
   // ==========================================================================
   // API : Queries / Lists
   // ==========================================================================
@@ -406,6 +436,20 @@ public interface API {
       EnumWikipedia wiki,
       String property, boolean limit) throws APIException;
 
+  /**
+   * Retrieves the pages which have a given property, part by part.
+   * (<code>action=query</code>, <code>list=pageswithprop</code>).
+   * 
+   * @param wiki Wiki.
+   * @param property Property name.
+   * @param listener Listener for the pages, as they are retrieved.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Pageswithprop">API:Pageswithprop</a>
+   */
+  public void retrievePagesWithProp(
+      EnumWikipedia wiki,
+      String property, PagesListener listener) throws APIException;
+
   /**
    * Retrieves the pages which are protected in creation indefinitely.
    * (<code>action=query</code>, <code>list=protectedtitles</code>).
@@ -462,6 +506,22 @@ public interface API {
       EnumWikipedia wiki,
       String start, List<RecentChange> recentChanges) throws APIException;
 
+  /**
+   * Retrieves recent changes in a name space since a given time.
+   * (<code>action=query</code>, <code>list=recentchanges</code>).
+   * 
+   * @param wiki Wiki.
+   * @param start The timestamp to start listing from (only the last change if null).
+   * @param namespace Name space.
+   * @param recentChanges The list of recent changes to be filled.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Recentchanges">API:Recentchanges</a>
+   */
+  public void getRecentChanges(
+      EnumWikipedia wiki,
+      String start, int namespace,
+      List<RecentChange> recentChanges) throws APIException;
+
   /**
    * Retrieves similar pages.
    * (<code>action=query</code>, <code>list=search</code>).
@@ -7,12 +7,16 @@
 
 package org.wikipediacleaner.api;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpConnectionManager;
-import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.params.HttpMethodParams;
 import org.wikipediacleaner.api.check.CheckWiki;
 import org.wikipediacleaner.api.impl.MediaWikiAPI;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
 
 
 /**
@@ -30,20 +34,39 @@ public class APIFactory {
    */
   private static CheckWiki checkWiki;
 
+  /**
+   * Batching of requests for page contents.
+   */
+  private static ContentsBatcher contentsBatcher;
+
+  /**
+   * Pool of connections for MediaWiki API.
+   */
+  private static HttpConnectionPool apiPool;
+
+  /**
+   * Pool of connections for WMF Labs.
+   */
+  private static HttpConnectionPool labsPool;
+
   // Initialize static members
   static {
 
     // Initialize MediaWiki API
-    HttpConnectionManager connectionManger = new MultiThreadedHttpConnectionManager();
-    HttpClient httpClient = createHttpClient(connectionManger);
+    apiPool = new HttpConnectionPool();
+    HttpClient httpClient = createHttpClient(apiPool);
     httpClient.getParams().setParameter("http.protocol.single-cookie-header", Boolean.TRUE);
     api = new MediaWikiAPI(httpClient);
+    contentsBatcher = new ContentsBatcher(api);
 
     // Initialize WMF Labs access
-    connectionManger = new MultiThreadedHttpConnectionManager();
-    httpClient = createHttpClient(connectionManger);
+    labsPool = new HttpConnectionPool();
+    httpClient = createHttpClient(labsPool);
     HttpServer labs = new HttpServer(httpClient, "http://tools.wmflabs.org/");
 
+    // Configure connection pools
+    updateConfiguration();
+
     // Initialize Check Wiki project
     checkWiki = new CheckWiki(labs);
   }
@@ -55,6 +78,13 @@ public class APIFactory {
     return api;
   }
 
+  /**
+   * @return Batching of requests for page contents.
+   */
+  public static ContentsBatcher getContentsBatcher() {
+    return contentsBatcher;
+  }
+
   /**
    * @return Access to Check Wiki project.
    */
@@ -62,6 +92,41 @@ public class APIFactory {
     return checkWiki;
   }
 
+  /**
+   * Update configuration of the connection pools.
+   * 
+   * By default, each pool allows as many connections to a host
+   * as there are interrogation threads in the interactive and batch lanes,
+   * so that threads working in parallel don't wait for each other to get a connection.
+   */
+  public static void updateConfiguration() {
+    Configuration config = Configuration.getConfiguration();
+    int maxPerHost = config.getInt(null, ConfigurationValueInteger.HTTP_CONNECTIONS_PER_HOST);
+    if (maxPerHost <= 0) {
+      maxPerHost = 2 * config.getInt(null, ConfigurationValueInteger.INTERROG_THREAD) + 2;
+    }
+    int maxTotal = config.getInt(null, ConfigurationValueInteger.HTTP_CONNECTIONS);
+    if (maxTotal <= 0) {
+      maxTotal = 2 * maxPerHost;
+    }
+    int connectionTimeout = 1000 * config.getInt(null, ConfigurationValueInteger.HTTP_CONNECTION_TIMEOUT);
+    int socketTimeout = 1000 * config.getInt(null, ConfigurationValueInteger.HTTP_SOCKET_TIMEOUT);
+    apiPool.configure(maxPerHost, maxTotal, connectionTimeout, socketTimeout);
+    labsPool.configure(maxPerHost, maxTotal, connectionTimeout, socketTimeout);
+    RateController.updateConfiguration();
+    ContentsCache.updateConfiguration();
+  }
+
+  /**
+   * @return Statistics about HTTP connections for each host.
+   */
+  public static List<HttpConnectionPool.HostStatistics> getHttpStatistics() {
+    List<HttpConnectionPool.HostStatistics> result = new ArrayList<HttpConnectionPool.HostStatistics>();
+    result.addAll(apiPool.getStatistics());
+    result.addAll(labsPool.getStatistics());
+    return result;
+  }
+
   /**
    * Create an HTTP connection.
    * 
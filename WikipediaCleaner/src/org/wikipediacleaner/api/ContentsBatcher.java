@@ -0,0 +1,155 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+
+
+/**
+ * Coalesce requests for the contents of a single page into batches.
+ *
+ * Threads asking for the contents of one page at about the same time
+ * are grouped in a single request for several pages.
+ * The first thread of a batch waits a short delay (or until the batch is full)
+ * for other threads to join, retrieves the contents of all the pages
+ * and then wakes up the other threads of the batch.
+ */
+public class ContentsBatcher {
+
+  /** Maximum delay in milliseconds for other pages to join a batch */
+  private final static long BATCH_DELAY = 20;
+
+  /**
+   * A batch of pages.
+   */
+  private static class Batch {
+
+    /** Pages of the batch */
+    final List<Page> pages = new ArrayList<Page>();
+
+    /** True when the contents have been retrieved */
+    boolean done;
+
+    /** Error while retrieving the contents */
+    APIException exception;
+  }
+
+  /** MediaWiki API */
+  private final API api;
+
+  /** Batches accepting new pages, indexed by wiki and options */
+  private final Map<List<Object>, Batch> openBatches;
+
+  /**
+   * @param api MediaWiki API.
+   */
+  public ContentsBatcher(API api) {
+    this.api = api;
+    this.openBatches = new HashMap<List<Object>, Batch>();
+  }
+
+  /**
+   * Retrieve the contents of a page, possibly in a batch with other pages.
+   *
+   * @param wiki Wiki.
+   * @param page Page.
+   * @param usePageId True if page identifiers should be used.
+   * @param withRedirects Flag indicating if redirects information should be retrieved.
+   * @throws APIException
+   */
+  public void retrieveContents(
+      EnumWikipedia wiki, Page page,
+      boolean usePageId, boolean withRedirects) throws APIException {
+    if (page == null) {
+      return;
+    }
+    List<Object> key = Arrays.asList(
+        (Object) wiki, Boolean.valueOf(usePageId), Boolean.valueOf(withRedirects));
+    int maxSize = Math.max(1, api.getMaxPagesPerQuery());
+
+    // Add the page to a batch
+    Batch batch = null;
+    boolean leader = false;
+    synchronized (openBatches) {
+      batch = openBatches.get(key);
+      if (batch == null) {
+        batch = new Batch();
+        openBatches.put(key, batch);
+        leader = true;
+      }
+      batch.pages.add(page);
+      if (batch.pages.size() >= maxSize) {
+        openBatches.remove(key);
+        openBatches.notifyAll();
+      }
+    }
+
+    if (leader) {
+
+      // Wait for other pages to join the batch
+      synchronized (openBatches) {
+        long endTime = System.currentTimeMillis() + BATCH_DELAY;
+        long remaining = BATCH_DELAY;
+        boolean interrupted = false;
+        while ((openBatches.get(key) == batch) && (remaining > 0) && !interrupted) {
+          try {
+            openBatches.wait(remaining);
+          } catch (InterruptedException e) {
+            interrupted = true;
+            Thread.currentThread().interrupt();
+          }
+          remaining = endTime - System.currentTimeMillis();
+        }
+        if (openBatches.get(key) == batch) {
+          openBatches.remove(key);
+        }
+      }
+
+      // Retrieve contents for the whole batch
+      try {
+        api.retrieveContents(wiki, batch.pages, usePageId, withRedirects);
+      } catch (APIException e) {
+        batch.exception = e;
+      } finally {
+        synchronized (batch) {
+          batch.done = true;
+          batch.notifyAll();
+        }
+      }
+    } else {
+
+      // Wait for the batch to be retrieved
+      synchronized (batch) {
+        boolean interrupted = false;
+        while (!batch.done) {
+          try {
+            batch.wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    synchronized (batch) {
+      if (batch.exception != null) {
+        throw batch.exception;
+      }
+    }
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
+
+
+/**
+ * Persistent cache of page contents, shared between WPCleaner and the bot.
+ *
+ * Contents are stored on disk, compressed, in one file per revision
+ * of a page: a revision never changes, so an entry is valid as long as
+ * the revision is still the last one of the page.
+ * The total size of the cache is bounded, least recently used entries
+ * are removed first.
+ */
+public class ContentsCache {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(ContentsCache.class);
+
+  /** Suffix for the files of the cache */
+  private final static String SUFFIX = ".txt.gz";
+
+  /** Encoding of the contents */
+  private final static String ENCODING = "UTF-8";
+
+  /** Cache in use */
+  private static ContentsCache cache;
+
+  /**
+   * Update configuration.
+   */
+  public static synchronized void updateConfiguration() {
+    Configuration config = Configuration.getConfiguration();
+    long maxSize = 1024L * 1024L * config.getInt(null, ConfigurationValueInteger.CONTENTS_CACHE_SIZE);
+    if (maxSize <= 0) {
+      cache = null;
+      return;
+    }
+    if (cache == null) {
+      File directory = new File(new File(System.getProperty("user.home"), ".wpcleaner"), "cache");
+      cache = new ContentsCache(directory, maxSize);
+    } else {
+      cache.setMaxSize(maxSize);
+    }
+  }
+
+  /**
+   * @return Cache in use (null if the cache is disabled).
+   */
+  public static synchronized ContentsCache getCache() {
+    return cache;
+  }
+
+  /** Directory of the cache */
+  private final File directory;
+
+  /** Maximum size of the cache in bytes */
+  private long maxSize;
+
+  /** Current size of the cache in bytes */
+  private long currentSize;
+
+  /** Size of each entry, in the order of last access */
+  private final LinkedHashMap<String, Long> entries;
+
+  /** Entry for each page, to remove the previous revisions */
+  private final Map<String, String> pageEntries;
+
+  /** True when the existing files have been indexed */
+  private boolean initialized;
+
+  /**
+   * @param directory Directory of the cache.
+   * @param maxSize Maximum size of the cache in bytes.
+   */
+  private ContentsCache(File directory, long maxSize) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.currentSize = 0;
+    this.entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    this.pageEntries = new HashMap<String, String>();
+    this.initialized = false;
+  }
+
+  /**
+   * @param maxSize Maximum size of the cache in bytes.
+   */
+  private synchronized void setMaxSize(long maxSize) {
+    this.maxSize = maxSize;
+    evict();
+  }
+
+  /**
+   * Retrieve the contents of a revision of a page.
+   *
+   * @param wiki Wiki.
+   * @param pageId Page identifier.
+   * @param revisionId Revision identifier.
+   * @return Contents of the revision (null if not in the cache).
+   */
+  public String getContents(EnumWikipedia wiki, Integer pageId, Integer revisionId) {
+    String name = getEntryName(wiki, pageId, revisionId);
+    if (name == null) {
+      return null;
+    }
+    synchronized (this) {
+      initialize();
+      if (entries.get(name) == null) {
+        return null;
+      }
+    }
+    File file = new File(directory, name);
+    InputStream is = null;
+    try {
+      is = new GZIPInputStream(new FileInputStream(file));
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      byte[] bytes = new byte[8192];
+      int count = 0;
+      while ((count = is.read(bytes)) >= 0) {
+        buffer.write(bytes, 0, count);
+      }
+      file.setLastModified(System.currentTimeMillis());
+      return buffer.toString(ENCODING);
+    } catch (IOException e) {
+      log.warn("Unable to read " + file + ": " + e.getMessage());
+      remove(name);
+      return null;
+    } finally {
+      if (is != null) {
+        try {
+          is.close();
+        } catch (IOException e) {
+          // Nothing to do
+        }
+      }
+    }
+  }
+
+  /**
+   * Store the contents of a revision of a page.
+   *
+   * @param wiki Wiki.
+   * @param pageId Page identifier.
+   * @param revisionId Revision identifier.
+   * @param contents Contents of the revision.
+   */
+  public void putContents(
+      EnumWikipedia wiki, Integer pageId, Integer revisionId, String contents) {
+    String name = getEntryName(wiki, pageId, revisionId);
+    if ((name == null) || (contents == null)) {
+      return;
+    }
+    synchronized (this) {
+      initialize();
+      if (entries.containsKey(name)) {
+        return;
+      }
+    }
+
+    // Write the contents in a temporary file
+    File file = new File(directory, name);
+    File tmpFile = null;
+    OutputStream os = null;
+    try {
+      file.getParentFile().mkdirs();
+      tmpFile = File.createTempFile("tmp", ".gz", file.getParentFile());
+      os = new GZIPOutputStream(new FileOutputStream(tmpFile));
+      os.write(contents.getBytes(ENCODING));
+      os.close();
+      os = null;
+      file.delete();
+      if (!tmpFile.renameTo(file)) {
+        throw new IOException("Unable to rename " + tmpFile);
+      }
+      tmpFile = null;
+    } catch (IOException e) {
+      log.warn("Unable to write " + file + ": " + e.getMessage());
+      return;
+    } finally {
+      if (os != null) {
+        try {
+          os.close();
+        } catch (IOException e) {
+          // Nothing to do
+        }
+      }
+      if (tmpFile != null) {
+        tmpFile.delete();
+      }
+    }
+
+    // Register the entry
+    synchronized (this) {
+      String pageName = getPageName(name);
+      String previous = pageEntries.put(pageName, name);
+      if ((previous != null) && !previous.equals(name)) {
+        remove(previous);
+      }
+      Long previousSize = entries.put(name, Long.valueOf(file.length()));
+      if (previousSize != null) {
+        currentSize -= previousSize.longValue();
+      }
+      currentSize += file.length();
+      evict();
+    }
+  }
+
+  /**
+   * Index the files already in the cache.
+   */
+  private void initialize() {
+    if (initialized) {
+      return;
+    }
+    initialized = true;
+    List<File> files = new ArrayList<File>();
+    File[] wikiDirs = directory.listFiles();
+    if (wikiDirs != null) {
+      for (File wikiDir : wikiDirs) {
+        File[] tmpFiles = wikiDir.isDirectory() ? wikiDir.listFiles() : null;
+        if (tmpFiles != null) {
+          files.addAll(Arrays.asList(tmpFiles));
+        }
+      }
+    }
+    final Map<File, Long> lastModified = new HashMap<File, Long>();
+    for (File file : files) {
+      lastModified.put(file, Long.valueOf(file.lastModified()));
+    }
+    Collections.sort(files, new Comparator<File>() {
+
+      @Override
+      public int compare(File o1, File o2) {
+        return lastModified.get(o1).compareTo(lastModified.get(o2));
+      }
+    });
+    for (File file : files) {
+      if (file.isFile() && file.getName().endsWith(SUFFIX)) {
+        String name = file.getParentFile().getName() + "/" + file.getName();
+        String previous = pageEntries.put(getPageName(name), name);
+        if (previous != null) {
+          remove(previous);
+        }
+        entries.put(name, Long.valueOf(file.length()));
+        currentSize += file.length();
+      }
+    }
+    evict();
+  }
+
+  /**
+   * Remove least recently used entries until the cache fits in its maximum size.
+   */
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> itEntry = entries.entrySet().iterator();
+    while ((currentSize > maxSize) && itEntry.hasNext()) {
+      Map.Entry<String, Long> entry = itEntry.next();
+      itEntry.remove();
+      currentSize -= entry.getValue().longValue();
+      String pageName = getPageName(entry.getKey());
+      if (entry.getKey().equals(pageEntries.get(pageName))) {
+        pageEntries.remove(pageName);
+      }
+      new File(directory, entry.getKey()).delete();
+    }
+  }
+
+  /**
+   * Remove an entry.
+   *
+   * @param name Entry name.
+   */
+  private synchronized void remove(String name) {
+    Long size = entries.remove(name);
+    if (size != null) {
+      currentSize -= size.longValue();
+    }
+    new File(directory, name).delete();
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param pageId Page identifier.
+   * @param revisionId Revision identifier.
+   * @return Name of the entry (null if the revision can't be cached).
+   */
+  private static String getEntryName(EnumWikipedia wiki, Integer pageId, Integer revisionId) {
+    if ((wiki == null) || (pageId == null) || (revisionId == null) ||
+        (pageId.intValue() <= 0) || (revisionId.intValue() <= 0)) {
+      return null;
+    }
+    return wiki.name().toLowerCase() + "/" + pageId + "-" + revisionId + SUFFIX;
+  }
+
+  /**
+   * @param name Entry name.
+   * @return Name of the page of the entry.
+   */
+  private static String getPageName(String name) {
+    int dashPos = name.lastIndexOf('-');
+    return (dashPos > 0) ? name.substring(0, dashPos) : name;
+  }
+}
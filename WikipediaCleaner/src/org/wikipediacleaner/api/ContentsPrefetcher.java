@@ -0,0 +1,221 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Page;
+
+
+/**
+ * Retrieve in advance the contents of a list of pages, by batches.
+ *
+ * A background thread retrieves the contents of the next batches
+ * while the pages of the current batch are processed.
+ * Only a few batches are retrieved in advance, and batches are given back
+ * in the order of the list.
+ * When contents of a batch can't be retrieved, contents of its pages are
+ * retrieved one by one, and pages that still fail are left out of the
+ * batches and reported by {@link #getFailedPages()}.
+ */
+public class ContentsPrefetcher implements Runnable {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(ContentsPrefetcher.class);
+
+  /** Delay in milliseconds between checks for a stop when the queue is full */
+  private final static long OFFER_DELAY = 500;
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** MediaWiki API */
+  private final API api;
+
+  /** Pages */
+  private final List<Page> pages;
+
+  /** Number of pages in each batch */
+  private final int batchSize;
+
+  /** Listener for stopping the retrieval */
+  private final MediaWikiListener listener;
+
+  /** Batches retrieved in advance */
+  private final BlockingQueue<List<Page>> queue;
+
+  /** Marker for the end of the list */
+  private final List<Page> end;
+
+  /** True when the retrieval should stop */
+  private volatile boolean stopped;
+
+  /** True when the end of the list has been reached */
+  private boolean complete;
+
+  /** Pages for which contents couldn't be retrieved */
+  private final List<Page> failedPages;
+
+  /**
+   * @param wiki Wiki.
+   * @param api MediaWiki API.
+   * @param pages Pages.
+   * @param batchSize Number of pages in each batch.
+   * @param prefetch Number of batches retrieved in advance.
+   * @param listener Listener for stopping the retrieval (may be null).
+   */
+  public ContentsPrefetcher(
+      EnumWikipedia wiki, API api,
+      List<Page> pages, int batchSize, int prefetch,
+      MediaWikiListener listener) {
+    this.wiki = wiki;
+    this.api = api;
+    this.pages = new ArrayList<Page>(pages);
+    this.batchSize = Math.max(1, batchSize);
+    this.listener = listener;
+    this.queue = new ArrayBlockingQueue<List<Page>>(Math.max(1, prefetch));
+    this.end = Collections.emptyList();
+    this.stopped = false;
+    this.complete = false;
+    this.failedPages = Collections.synchronizedList(new ArrayList<Page>());
+  }
+
+  /**
+   * Start retrieving contents in the background.
+   */
+  public void start() {
+    Thread thread = new Thread(this, "ContentsPrefetcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stop retrieving contents.
+   */
+  public void stop() {
+    stopped = true;
+    queue.clear();
+  }
+
+  /**
+   * @return Next batch of pages with their contents (null at the end of the list).
+   */
+  public List<Page> next() {
+    if (complete) {
+      return null;
+    }
+    try {
+      List<Page> batch = queue.take();
+      if (batch == end) {
+        complete = true;
+        return null;
+      }
+      return batch;
+    } catch (InterruptedException e) {
+      stopped = true;
+      return null;
+    }
+  }
+
+  /**
+   * @return Pages for which contents couldn't be retrieved, and which have been skipped.
+   */
+  public List<Page> getFailedPages() {
+    synchronized (failedPages) {
+      return new ArrayList<Page>(failedPages);
+    }
+  }
+
+  /**
+   * Retrieve contents of the batches.
+   *
+   * @see java.lang.Runnable#run()
+   */
+  @Override
+  public void run() {
+    try {
+      int index = 0;
+      while (!stopped && (index < pages.size())) {
+        if ((listener != null) && listener.shouldStop()) {
+          break;
+        }
+        List<Page> batch = new ArrayList<Page>(
+            pages.subList(index, Math.min(index + batchSize, pages.size())));
+        index += batch.size();
+        try {
+          api.retrieveContents(wiki, batch, true, false);
+        } catch (APIException e) {
+          log.warn("Unable to retrieve contents, retrying page by page: " + e.getMessage());
+          batch = retrieveOneByOne(batch);
+          if (batch.isEmpty()) {
+            continue;
+          }
+        }
+        if (!put(batch)) {
+          return;
+        }
+      }
+    } finally {
+      put(end);
+    }
+  }
+
+  /**
+   * Retrieve contents of the pages of a batch one by one.
+   *
+   * @param batch Batch.
+   * @return Pages for which contents have been retrieved.
+   */
+  private List<Page> retrieveOneByOne(List<Page> batch) {
+    List<Page> result = new ArrayList<Page>(batch.size());
+    for (Page page : batch) {
+      if (stopped || ((listener != null) && listener.shouldStop())) {
+        failedPages.add(page);
+        continue;
+      }
+      try {
+        api.retrieveContents(wiki, Collections.singletonList(page), true, false);
+        result.add(page);
+      } catch (APIException e) {
+        log.warn("Unable to retrieve contents of " + page.getTitle() + ": " + e.getMessage());
+        failedPages.add(page);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Add a batch to the queue, waiting for room.
+   *
+   * @param batch Batch.
+   * @return True if the batch has been added.
+   */
+  private boolean put(List<Page> batch) {
+    try {
+      while (!queue.offer(batch, OFFER_DELAY, TimeUnit.MILLISECONDS)) {
+        if (stopped && (batch != end)) {
+          return false;
+        }
+        if (stopped) {
+          queue.clear();
+        }
+      }
+      return true;
+    } catch (InterruptedException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,329 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.RecentChange;
+import org.wikipediacleaner.utils.CompactStringSet;
+
+
+/**
+ * Persistent list of disambiguation pages of a wiki.
+ *
+ * The list is kept as a compact set of titles, saved on disk with the time
+ * of the last change taken into account.
+ * When the list is requested again, only the pages modified, created, deleted
+ * or moved since this time are checked, using the recent changes.
+ * The list is fully loaded again when it's too old, when there are too many
+ * changes to check or when the way of finding disambiguation pages changes.
+ */
+public class DisambiguationCache {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(DisambiguationCache.class);
+
+  /** Name of the file of the cache */
+  private final static String FILE_NAME = "disambiguation.dat";
+
+  /** Version of the file format */
+  private final static int VERSION = 1;
+
+  /** Maximum delay in milliseconds between two full loads */
+  private final static long MAX_AGE = 7L * 24 * 60 * 60 * 1000;
+
+  /** Maximum number of requests for recent changes in a refresh */
+  private final static int MAX_REQUESTS = 20;
+
+  /** Maximum number of pages to check in a refresh */
+  private final static int MAX_TITLES = 5000;
+
+  /** Caches for each wiki */
+  private final static ConcurrentMap<EnumWikipedia, DisambiguationCache> caches =
+      new ConcurrentHashMap<EnumWikipedia, DisambiguationCache>();
+
+  /**
+   * @param wiki Wiki.
+   * @return Cache of disambiguation pages for the wiki.
+   */
+  public static DisambiguationCache getCache(EnumWikipedia wiki) {
+    DisambiguationCache cache = caches.get(wiki);
+    if (cache == null) {
+      cache = new DisambiguationCache(wiki);
+      DisambiguationCache previous = caches.putIfAbsent(wiki, cache);
+      if (previous != null) {
+        cache = previous;
+      }
+    }
+    return cache;
+  }
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** File of the cache */
+  private final File file;
+
+  /** Titles of the disambiguation pages */
+  private CompactStringSet pages;
+
+  /** Description of the way disambiguation pages have been found */
+  private String source;
+
+  /** Timestamp of the last change taken into account */
+  private String lastChange;
+
+  /** Time of the last full load */
+  private long lastFullLoad;
+
+  /** True when the file has been read */
+  private boolean fileRead;
+
+  /**
+   * @param wiki Wiki.
+   */
+  private DisambiguationCache(EnumWikipedia wiki) {
+    this.wiki = wiki;
+    File directory = new File(new File(System.getProperty("user.home"), ".wpcleaner"), "cache");
+    this.file = new File(new File(directory, wiki.name().toLowerCase()), FILE_NAME);
+    this.fileRead = false;
+  }
+
+  /**
+   * Bring the list of disambiguation pages up to date.
+   *
+   * @param api Wikipedia API.
+   * @return Titles of the disambiguation pages (null if they can't be found).
+   * @throws APIException
+   */
+  public synchronized CompactStringSet update(API api) throws APIException {
+    String currentSource = wiki.getDisambiguationSource();
+    if (currentSource == null) {
+      return null;
+    }
+    if (!fileRead) {
+      fileRead = true;
+      readFile();
+    }
+    if ((pages != null) && (lastChange != null) &&
+        currentSource.equals(source) &&
+        (System.currentTimeMillis() - lastFullLoad < MAX_AGE)) {
+      if (refresh(api)) {
+        writeFile();
+        return pages;
+      }
+    }
+    fullLoad(api, currentSource);
+    writeFile();
+    return pages;
+  }
+
+  /**
+   * Load the complete list of disambiguation pages.
+   *
+   * @param api Wikipedia API.
+   * @param currentSource Description of the way disambiguation pages are found.
+   * @throws APIException
+   */
+  private void fullLoad(API api, String currentSource) throws APIException {
+    log.info("Loading all disambiguation pages of " + wiki);
+
+    // Retrieve the last change before the list, so it's taken into account by the next refresh
+    List<RecentChange> changes = new ArrayList<RecentChange>();
+    api.getRecentChanges(wiki, null, Namespace.MAIN, changes);
+    String newest = getNewestTimestamp(changes, null);
+
+    // Retrieve the list
+    final CompactStringSet tmpPages = new CompactStringSet((pages != null) ? pages.size() : 0);
+    wiki.constructDisambiguationPages(api, new PagesListener() {
+
+      @Override
+      public boolean pagesRetrieved(List<Page> retrievedPages) {
+        for (Page page : retrievedPages) {
+          tmpPages.add(page.getTitle());
+        }
+        return true;
+      }
+    });
+    pages = tmpPages;
+    source = currentSource;
+    lastChange = newest;
+    lastFullLoad = System.currentTimeMillis();
+  }
+
+  /**
+   * Refresh the list of disambiguation pages with the recent changes.
+   *
+   * @param api Wikipedia API.
+   * @return True if the list has been refreshed, false if a full load is needed.
+   * @throws APIException
+   */
+  private boolean refresh(API api) throws APIException {
+
+    // Find pages modified since the last change taken into account
+    Set<String> titles = new HashSet<String>();
+    String start = lastChange;
+    int requestCount = 0;
+    for (;;) {
+      if (requestCount >= MAX_REQUESTS) {
+        log.info("Too many recent changes to refresh disambiguation pages of " + wiki);
+        return false;
+      }
+      requestCount++;
+      List<RecentChange> changes = new ArrayList<RecentChange>();
+      api.getRecentChanges(wiki, start, Namespace.MAIN, changes);
+      for (RecentChange change : changes) {
+        titles.add(change.getTitle());
+        if (change.getMoveTarget() != null) {
+          titles.add(change.getMoveTarget());
+        }
+      }
+      if (titles.size() > MAX_TITLES) {
+        log.info("Too many pages to check to refresh disambiguation pages of " + wiki);
+        return false;
+      }
+      String newest = getNewestTimestamp(changes, start);
+      if (newest.equals(start)) {
+        break;
+      }
+      start = newest;
+    }
+
+    // Check the disambiguation status of these pages
+    if (!titles.isEmpty()) {
+      List<Page> tmpPages = new ArrayList<Page>(titles.size());
+      for (String title : titles) {
+        tmpPages.add(DataManager.getPage(wiki, title, null, null, null));
+      }
+      api.initializeDisambiguationStatus(wiki, tmpPages, true);
+      CompactStringSet updatedPages = new CompactStringSet(pages);
+      for (Page page : tmpPages) {
+        if (Boolean.TRUE.equals(page.isDisambiguationPage()) && !page.isRedirect()) {
+          updatedPages.add(page.getTitle());
+        } else {
+          updatedPages.remove(page.getTitle());
+        }
+      }
+      pages = updatedPages;
+    }
+    lastChange = start;
+    return true;
+  }
+
+  /**
+   * @param changes Recent changes.
+   * @param timestamp Initial timestamp (may be null).
+   * @return Timestamp of the newest change, or initial timestamp if newer.
+   */
+  private static String getNewestTimestamp(List<RecentChange> changes, String timestamp) {
+    String newest = timestamp;
+    for (RecentChange change : changes) {
+      if (change.getTimestamp() != null) {
+        String tmp = DataManager.convertDateTimeIso8601(change.getTimestamp());
+        if ((newest == null) || (tmp.compareTo(newest) > 0)) {
+          newest = tmp;
+        }
+      }
+    }
+    return newest;
+  }
+
+  /**
+   * Read the cache from its file.
+   */
+  private void readFile() {
+    if (!file.isFile()) {
+      return;
+    }
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if (input.readInt() != VERSION) {
+        return;
+      }
+      String tmpSource = input.readUTF();
+      String tmpLastChange = input.readUTF();
+      long tmpLastFullLoad = input.readLong();
+      CompactStringSet tmpPages = CompactStringSet.read(input);
+      source = tmpSource;
+      lastChange = (tmpLastChange.length() > 0) ? tmpLastChange : null;
+      lastFullLoad = tmpLastFullLoad;
+      pages = tmpPages;
+    } catch (IOException e) {
+      log.warn("Unable to read " + file + ": " + e.getMessage());
+    } finally {
+      if (input != null) {
+        try {
+          input.close();
+        } catch (IOException e) {
+          // Nothing to do
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the cache to its file.
+   */
+  private void writeFile() {
+    if (pages == null) {
+      return;
+    }
+    File tmpFile = null;
+    DataOutputStream output = null;
+    try {
+      file.getParentFile().mkdirs();
+      tmpFile = File.createTempFile("tmp", ".dat", file.getParentFile());
+      output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+      output.writeInt(VERSION);
+      output.writeUTF(source);
+      output.writeUTF((lastChange != null) ? lastChange : "");
+      output.writeLong(lastFullLoad);
+      pages.write(output);
+      output.close();
+      output = null;
+      file.delete();
+      if (!tmpFile.renameTo(file)) {
+        throw new IOException("Unable to rename " + tmpFile);
+      }
+      tmpFile = null;
+    } catch (IOException e) {
+      log.warn("Unable to write " + file + ": " + e.getMessage());
+    } finally {
+      if (output != null) {
+        try {
+          output.close();
+        } catch (IOException e) {
+          // Nothing to do
+        }
+      }
+      if (tmpFile != null) {
+        tmpFile.delete();
+      }
+    }
+  }
+}
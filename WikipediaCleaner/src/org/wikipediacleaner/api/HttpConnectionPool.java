@@ -0,0 +1,305 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+
+
+/**
+ * Pool of HTTP connections shared by the threads accessing a server.
+ *
+ * The pool is a multi-threaded connection manager with configurable limits
+ * and timeouts, which also keeps statistics for each host: number of
+ * connections obtained, time spent waiting for a free connection,
+ * timeouts and peak number of connections in use.
+ */
+public class HttpConnectionPool implements HttpConnectionManager {
+
+  /**
+   * Statistics about a host.
+   */
+  public static class HostStatistics {
+
+    /** Host */
+    private final String host;
+
+    /** Number of connections obtained */
+    private final AtomicLong connections = new AtomicLong();
+
+    /** Total time spent waiting for a connection in nanoseconds */
+    private final AtomicLong waitTime = new AtomicLong();
+
+    /** Maximum time spent waiting for a connection in nanoseconds */
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    /** Number of timeouts while waiting for a connection */
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /** Peak number of connections in use */
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    /**
+     * @param host Host.
+     */
+    HostStatistics(String host) {
+      this.host = host;
+    }
+
+    /**
+     * Record a connection.
+     *
+     * @param wait Time spent waiting for the connection in nanoseconds.
+     * @param inUse Number of connections in use.
+     */
+    void addConnection(long wait, int inUse) {
+      connections.incrementAndGet();
+      waitTime.addAndGet(wait);
+      long max = maxWaitTime.get();
+      while ((wait > max) && !maxWaitTime.compareAndSet(max, wait)) {
+        max = maxWaitTime.get();
+      }
+      int peak = peakInUse.get();
+      while ((inUse > peak) && !peakInUse.compareAndSet(peak, inUse)) {
+        peak = peakInUse.get();
+      }
+    }
+
+    /**
+     * Record a timeout.
+     *
+     * @param wait Time spent waiting in nanoseconds.
+     */
+    void addTimeout(long wait) {
+      timeouts.incrementAndGet();
+      waitTime.addAndGet(wait);
+    }
+
+    /**
+     * @return Host.
+     */
+    public String getHost() {
+      return host;
+    }
+
+    /**
+     * @return Number of connections obtained.
+     */
+    public long getConnections() {
+      return connections.get();
+    }
+
+    /**
+     * @return Total time spent waiting for a connection in milliseconds.
+     */
+    public long getWaitTime() {
+      return waitTime.get() / 1000000;
+    }
+
+    /**
+     * @return Maximum time spent waiting for a connection in milliseconds.
+     */
+    public long getMaxWaitTime() {
+      return maxWaitTime.get() / 1000000;
+    }
+
+    /**
+     * @return Number of timeouts while waiting for a connection.
+     */
+    public long getTimeouts() {
+      return timeouts.get();
+    }
+
+    /**
+     * @return Peak number of connections in use.
+     */
+    public int getPeakInUse() {
+      return peakInUse.get();
+    }
+
+    /**
+     * @return Textual representation of the object.
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      long count = getConnections();
+      return
+          host + ": " + count + " connections, " +
+          "wait " + getWaitTime() + " ms" +
+          " (average " + ((count > 0) ? getWaitTime() / count : 0) + " ms," +
+          " max " + getMaxWaitTime() + " ms), " +
+          "peak " + getPeakInUse() + " in use, " +
+          getTimeouts() + " timeouts";
+    }
+  }
+
+  /** Connection manager */
+  private final MultiThreadedHttpConnectionManager manager;
+
+  /** Statistics for each host */
+  private final ConcurrentMap<String, HostStatistics> statistics;
+
+  /**
+   * Create a pool of HTTP connections.
+   */
+  public HttpConnectionPool() {
+    this.manager = new MultiThreadedHttpConnectionManager();
+    this.statistics = new ConcurrentHashMap<String, HostStatistics>();
+    HttpConnectionManagerParams params = manager.getParams();
+    params.setStaleCheckingEnabled(true);
+    params.setTcpNoDelay(true);
+  }
+
+  /**
+   * Configure the pool.
+   *
+   * @param maxPerHost Maximum number of connections per host.
+   * @param maxTotal Maximum number of connections.
+   * @param connectionTimeout Timeout for establishing a connection in milliseconds.
+   * @param socketTimeout Timeout for waiting data in milliseconds.
+   */
+  public void configure(
+      int maxPerHost, int maxTotal,
+      int connectionTimeout, int socketTimeout) {
+    HttpConnectionManagerParams params = manager.getParams();
+    params.setDefaultMaxConnectionsPerHost(Math.max(1, maxPerHost));
+    params.setMaxTotalConnections(Math.max(maxPerHost, maxTotal));
+    params.setConnectionTimeout(Math.max(0, connectionTimeout));
+    params.setSoTimeout(Math.max(0, socketTimeout));
+  }
+
+  /**
+   * @return Statistics for each host.
+   */
+  public List<HostStatistics> getStatistics() {
+    return new ArrayList<HostStatistics>(statistics.values());
+  }
+
+  /**
+   * @param hostConfiguration Host configuration.
+   * @return Statistics for the host.
+   */
+  private HostStatistics getStatistics(HostConfiguration hostConfiguration) {
+    String host = hostConfiguration.getHostURL();
+    HostStatistics result = statistics.get(host);
+    if (result == null) {
+      result = new HostStatistics(host);
+      HostStatistics previous = statistics.putIfAbsent(host, result);
+      if (previous != null) {
+        result = previous;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param hostConfiguration Host configuration.
+   * @return Connection.
+   * @see org.apache.commons.httpclient.HttpConnectionManager#getConnection(org.apache.commons.httpclient.HostConfiguration)
+   */
+  @Override
+  public HttpConnection getConnection(HostConfiguration hostConfiguration) {
+    long begin = System.nanoTime();
+    HttpConnection connection = manager.getConnection(hostConfiguration);
+    getStatistics(hostConfiguration).addConnection(
+        System.nanoTime() - begin, manager.getConnectionsInPool(hostConfiguration));
+    return connection;
+  }
+
+  /**
+   * @param hostConfiguration Host configuration.
+   * @param timeout Maximum time to wait for a connection.
+   * @return Connection.
+   * @throws ConnectionPoolTimeoutException No connection available in time.
+   * @see org.apache.commons.httpclient.HttpConnectionManager#getConnectionWithTimeout(org.apache.commons.httpclient.HostConfiguration, long)
+   */
+  @Override
+  public HttpConnection getConnectionWithTimeout(
+      HostConfiguration hostConfiguration, long timeout)
+      throws ConnectionPoolTimeoutException {
+    long begin = System.nanoTime();
+    try {
+      HttpConnection connection = manager.getConnectionWithTimeout(hostConfiguration, timeout);
+      getStatistics(hostConfiguration).addConnection(
+          System.nanoTime() - begin, manager.getConnectionsInPool(hostConfiguration));
+      return connection;
+    } catch (ConnectionPoolTimeoutException e) {
+      getStatistics(hostConfiguration).addTimeout(System.nanoTime() - begin);
+      throw e;
+    }
+  }
+
+  /**
+   * @param hostConfiguration Host configuration.
+   * @param timeout Maximum time to wait for a connection.
+   * @return Connection.
+   * @throws HttpException No connection available in time.
+   * @see org.apache.commons.httpclient.HttpConnectionManager#getConnection(org.apache.commons.httpclient.HostConfiguration, long)
+   * @deprecated Use {@link #getConnectionWithTimeout(HostConfiguration, long)}
+   */
+  @Override
+  @Deprecated
+  public HttpConnection getConnection(
+      HostConfiguration hostConfiguration, long timeout)
+      throws HttpException {
+    try {
+      return getConnectionWithTimeout(hostConfiguration, timeout);
+    } catch (ConnectionPoolTimeoutException e) {
+      throw new HttpException(e.getMessage());
+    }
+  }
+
+  /**
+   * @param connection Connection.
+   * @see org.apache.commons.httpclient.HttpConnectionManager#releaseConnection(org.apache.commons.httpclient.HttpConnection)
+   */
+  @Override
+  public void releaseConnection(HttpConnection connection) {
+    manager.releaseConnection(connection);
+  }
+
+  /**
+   * @param idleTimeout Minimum idle time for closing a connection.
+   * @see org.apache.commons.httpclient.HttpConnectionManager#closeIdleConnections(long)
+   */
+  @Override
+  public void closeIdleConnections(long idleTimeout) {
+    manager.closeIdleConnections(idleTimeout);
+  }
+
+  /**
+   * @return Parameters.
+   * @see org.apache.commons.httpclient.HttpConnectionManager#getParams()
+   */
+  @Override
+  public HttpConnectionManagerParams getParams() {
+    return manager.getParams();
+  }
+
+  /**
+   * @param params Parameters.
+   * @see org.apache.commons.httpclient.HttpConnectionManager#setParams(org.apache.commons.httpclient.params.HttpConnectionManagerParams)
+   */
+  @Override
+  public void setParams(HttpConnectionManagerParams params) {
+    manager.setParams(params);
+  }
+}
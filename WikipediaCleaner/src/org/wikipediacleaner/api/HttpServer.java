@@ -7,13 +7,10 @@
 
 package org.wikipediacleaner.api;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
-import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpException;
 import org.apache.commons.httpclient.HttpMethod;
@@ -87,14 +84,7 @@ public class HttpServer {
         String url = baseUrl + path;
         method = HttpUtils.createHttpMethod(url, properties, false);
         statusCode = httpClient.executeMethod(method);
-        inputStream = method.getResponseBodyAsStream();
-        inputStream = new BufferedInputStream(inputStream);
-        Header contentEncoding = method.getResponseHeader("Content-Encoding");
-        if (contentEncoding != null) {
-          if (contentEncoding.getValue().equals("gzip")) {
-            inputStream = new GZIPInputStream(inputStream);
-          }
-        }
+        inputStream = HttpUtils.getResponseBodyAsStream(method);
         if (statusCode == HttpStatus.SC_OK) {
           if (manager != null) {
             manager.manageResponse(inputStream);
@@ -163,14 +153,7 @@ public class HttpServer {
         if (statusCode == HttpStatus.SC_NOT_FOUND) {
           return;
         }
-        inputStream = method.getResponseBodyAsStream();
-        inputStream = new BufferedInputStream(inputStream);
-        Header contentEncoding = method.getResponseHeader("Content-Encoding");
-        if (contentEncoding != null) {
-          if (contentEncoding.getValue().equals("gzip")) {
-            inputStream = new GZIPInputStream(inputStream);
-          }
-        }
+        inputStream = HttpUtils.getResponseBodyAsStream(method);
         if (statusCode == HttpStatus.SC_OK) {
           if (manager != null) {
             manager.manageResponse(inputStream);
@@ -7,7 +7,11 @@
 
 package org.wikipediacleaner.api;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -19,7 +23,10 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
+import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.NameValuePair;
 import org.apache.commons.httpclient.methods.GetMethod;
@@ -27,6 +34,7 @@ import org.apache.commons.httpclient.methods.PostMethod;
 import org.wikipediacleaner.api.request.login.ApiLoginRequest;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
 
 
 /**
@@ -53,6 +61,11 @@ public class HttpUtils {
    */
   private static boolean DEBUG_URL = true;
 
+  /**
+   * Timeout for waiting data in milliseconds.
+   */
+  private static int SOCKET_TIMEOUT = 60000;
+
   /**
    * Update configuration.
    */
@@ -62,6 +75,8 @@ public class HttpUtils {
         null, ConfigurationValueBoolean.DEBUG_TIME);
     DEBUG_URL = config.getBoolean(
         null, ConfigurationValueBoolean.DEBUG_URL);
+    SOCKET_TIMEOUT = 1000 * config.getInt(
+        null, ConfigurationValueInteger.HTTP_SOCKET_TIMEOUT);
   }
 
   // ==========================================================================
@@ -98,7 +113,7 @@ public class HttpUtils {
       Map<String, String> properties) {
     StringBuilder debugUrl = (DEBUG_URL) ? new StringBuilder("POST " + url) : null;
     PostMethod method = new PostMethod(url);
-    method.getParams().setSoTimeout(60000);
+    method.getParams().setSoTimeout(SOCKET_TIMEOUT);
     method.getParams().setContentCharset("UTF-8");
     method.setRequestHeader("Accept-Encoding", "gzip");
     if (properties != null) {
@@ -146,7 +161,7 @@ public class HttpUtils {
 
     // Initialize GET Method
     GetMethod method = new GetMethod(url);
-    method.getParams().setSoTimeout(60000);
+    method.getParams().setSoTimeout(SOCKET_TIMEOUT);
     method.getParams().setContentCharset("UTF-8");
     method.setRequestHeader("Accept-Encoding", "gzip");
 
@@ -214,6 +229,36 @@ public class HttpUtils {
     }
   }
 
+  // ==========================================================================
+  // HTTP responses
+  // ==========================================================================
+
+  /**
+   * Access the body of a response, decompressing it if needed.
+   * 
+   * @param method HTTP method which has been executed.
+   * @return Stream for reading the body of the response.
+   * @throws IOException Error accessing the response.
+   */
+  public static InputStream getResponseBodyAsStream(HttpMethod method) throws IOException {
+    InputStream stream = method.getResponseBodyAsStream();
+    if (stream == null) {
+      return new ByteArrayInputStream(new byte[0]);
+    }
+    stream = new BufferedInputStream(stream);
+    Header contentEncoding = method.getResponseHeader("Content-Encoding");
+    if (contentEncoding != null) {
+      String encoding = contentEncoding.getValue().trim();
+      if ("gzip".equalsIgnoreCase(encoding) ||
+          "x-gzip".equalsIgnoreCase(encoding)) {
+        stream = new GZIPInputStream(stream);
+      } else if ("deflate".equalsIgnoreCase(encoding)) {
+        stream = new InflaterInputStream(stream);
+      }
+    }
+    return stream;
+  }
+
   // ==========================================================================
   // Configuration
   // ==========================================================================
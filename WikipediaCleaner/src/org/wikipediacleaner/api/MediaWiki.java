@@ -10,6 +10,8 @@ package org.wikipediacleaner.api;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +30,7 @@ import org.wikipediacleaner.api.execution.ContentsCallable;
 import org.wikipediacleaner.api.execution.DisambiguationStatusCallable;
 import org.wikipediacleaner.api.execution.EmbeddedInCallable;
 import org.wikipediacleaner.api.execution.ExpandTemplatesCallable;
+import org.wikipediacleaner.api.execution.LanguageLinksCallable;
 import org.wikipediacleaner.api.execution.LinksWRCallable;
 import org.wikipediacleaner.api.execution.ParseTextCallable;
 import org.wikipediacleaner.api.execution.TemplatesCallable;
@@ -48,15 +51,25 @@ public class MediaWiki extends MediaWikiController {
    * @return Access to MediaWiki.
    */
   static public MediaWiki getMediaWikiAccess(MediaWikiListener listener) {
-    MediaWiki mw = new MediaWiki(listener);
+    return getMediaWikiAccess(listener, false);
+  }
+
+  /**
+   * @param listener Listener to MediaWiki events.
+   * @param batch True if the access is used for batch tasks.
+   * @return Access to MediaWiki.
+   */
+  static public MediaWiki getMediaWikiAccess(MediaWikiListener listener, boolean batch) {
+    MediaWiki mw = new MediaWiki(listener, batch);
     return mw;
   }
 
   /**
    * @param listener Listener.
+   * @param batch True if the access is used for batch tasks.
    */
-  private MediaWiki(MediaWikiListener listener) {
-    super(listener);
+  private MediaWiki(MediaWikiListener listener, boolean batch) {
+    super(listener, batch);
   }
 
   /**
@@ -213,7 +226,7 @@ public class MediaWiki extends MediaWikiController {
       }
       if ((result != null) && (result instanceof Page)) {
         List<String> replacementsDone = new ArrayList<String>();
-        Page page = (Page) result;
+        Page page = ((Page) result).snapshotPage();
         String oldContents = page.getContents();
         if (oldContents != null) {
           String newContents = oldContents;
@@ -515,6 +528,45 @@ public class MediaWiki extends MediaWikiController {
     return resultList;
   }
 
+  /**
+   * Retrieve language links for a list of pages.
+   * 
+   * @param from Wikipedia in which the pages are.
+   * @param to Wikipedia to which the links are searched.
+   * @param titles Page titles.
+   * @return Page titles in the destination wiki, indexed by page titles in the original wiki.
+   * @throws APIException
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, String> retrieveLanguageLinks(
+      EnumWikipedia from, EnumWikipedia to,
+      Collection<String> titles) throws APIException {
+    Map<String, String> languageLinks = new HashMap<String, String>();
+    if ((titles == null) || (titles.isEmpty())) {
+      return languageLinks;
+    }
+    final API api = APIFactory.getAPI();
+    final int maxPages = api.getMaxPagesPerQuery();
+    List<String> tmpList = new ArrayList<String>(maxPages);
+    for (String title : titles) {
+      tmpList.add(title);
+      if (tmpList.size() >= maxPages) {
+        addTask(new LanguageLinksCallable(from, this, api, to, tmpList));
+        tmpList = new ArrayList<String>(maxPages);
+      }
+    }
+    if (!tmpList.isEmpty()) {
+      addTask(new LanguageLinksCallable(from, this, api, to, tmpList));
+    }
+    while (hasRemainingTask() && !shouldStop()) {
+      Object result = getNextResult();
+      if (result instanceof Map<?, ?>) {
+        languageLinks.putAll((Map<String, String>) result);
+      }
+    }
+    return languageLinks;
+  }
+
   /**
    * Retrieve disambiguation information for a list of pages.
    * 
@@ -541,7 +593,7 @@ public class MediaWiki extends MediaWikiController {
     List<Page> filteredList = pageList;
     if (knownPages != null) {
       filteredList = new ArrayList<Page>(pageList);
-      filteredList.removeAll(knownPages);
+      filteredList.removeAll(new HashSet<Page>(knownPages));
     }
     if (filteredList.size() <= maxPages) {
       addTask(new DisambiguationStatusCallable(wikipedia, this, api, filteredList, forceApiCall));
@@ -7,55 +7,169 @@
 
 package org.wikipediacleaner.api;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.Semaphore;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.execution.MediaWikiCallable;
 import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 import org.wikipediacleaner.utils.ConfigurationValueInteger;
 
 
 /**
  * Centralization of access to MediaWiki.
+ * 
+ * Tasks are run by shared executors, and their results are collected
+ * through a completion service: waiting for a result blocks until a task
+ * actually completes.
+ * 
+ * Tasks of interactive controllers and of batch controllers are run in
+ * separate lanes, so that a long batch job doesn't delay interactive tasks.
+ * By default, each lane is a pool of threads sized by the number of
+ * interrogation threads.
+ * When virtual threads are enabled and supported by the Java runtime,
+ * each task runs in its own virtual thread, and the number of concurrent
+ * tasks is limited for each wiki by its rate controller.
  */
 public abstract class MediaWikiController implements MediaWikiListener {
 
-  static private ExecutorService staticExecutor;
+  /** Logger */
+  private final static Log log = LogFactory.getLog(MediaWikiController.class);
+
+  /** Executor for interactive tasks */
+  static private ExecutorService interactiveExecutor;
+
+  /** Executor for batch tasks */
+  static private ExecutorService batchExecutor;
+
+  /** True if tasks are run in virtual threads */
+  static private boolean virtualThreads;
+
+  /** Limit on concurrent interactive tasks not related to a wiki */
+  static private Semaphore interactiveLimit;
+
+  /** Limit on concurrent batch tasks not related to a wiki */
+  static private Semaphore batchLimit;
 
   private final MediaWikiListener listener;
-  private final ExecutorService executor;
-  private final List<Future<?>> results;
+  private final boolean batch;
+  private final CompletionService<Object> completionService;
+  private final Set<Future<Object>> results;
 
   /**
-   * Create a MediaWikiController.
+   * Create a MediaWikiController for interactive tasks.
    * 
    * @param listener Listener to MediaWiki events.
    */
   protected MediaWikiController(MediaWikiListener listener) {
+    this(listener, false);
+  }
+
+  /**
+   * Create a MediaWikiController.
+   * 
+   * @param listener Listener to MediaWiki events.
+   * @param batch True if the controller is used for batch tasks.
+   */
+  protected MediaWikiController(MediaWikiListener listener, boolean batch) {
     this.listener = listener;
-    this.executor = getStaticExecutor();
-    results = new LinkedList<Future<?>>();
+    this.batch = batch;
+    this.completionService = new ExecutorCompletionService<Object>(getStaticExecutor(batch));
+    results = new HashSet<Future<Object>>();
   }
 
   /**
+   * @param batch True for the executor of batch tasks.
    * @return The executor.
    */
-  static private synchronized ExecutorService getStaticExecutor() {
-    if (staticExecutor == null) {
+  static private synchronized ExecutorService getStaticExecutor(boolean batch) {
+    if (interactiveExecutor == null) {
       Configuration config = Configuration.getConfiguration();
       int nThreads = config.getInt(
           null,
           ConfigurationValueInteger.INTERROG_THREAD);
-      staticExecutor = Executors.newFixedThreadPool(nThreads);
+      ExecutorService executor = null;
+      if (config.getBoolean(null, ConfigurationValueBoolean.VIRTUAL_THREADS)) {
+        executor = createVirtualThreadExecutor();
+      }
+      if (executor != null) {
+        virtualThreads = true;
+        interactiveExecutor = executor;
+        batchExecutor = executor;
+        interactiveLimit = new Semaphore(nThreads);
+        batchLimit = new Semaphore(nThreads);
+      } else {
+        virtualThreads = false;
+        interactiveExecutor = Executors.newFixedThreadPool(nThreads);
+        batchExecutor = Executors.newFixedThreadPool(nThreads);
+      }
+    }
+    return batch ? batchExecutor : interactiveExecutor;
+  }
+
+  /**
+   * @return Executor running each task in a new virtual thread (null if not supported).
+   */
+  static private ExecutorService createVirtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    } catch (NoSuchMethodException e) {
+      log.info("Virtual threads are not supported by this Java runtime");
+    } catch (Exception e) {
+      log.warn("Unable to use virtual threads: " + e.getMessage());
+    }
+    return null;
+  }
+
+  /**
+   * Limit the concurrency of a task when it runs in a virtual thread.
+   * 
+   * @param task Task.
+   * @param batch True if the task is a batch task.
+   * @return Task with limited concurrency.
+   */
+  static private Callable<Object> limitConcurrency(
+      final Callable<Object> task, boolean batch) {
+    Semaphore tmpLimit = null;
+    synchronized (MediaWikiController.class) {
+      if (!virtualThreads) {
+        return task;
+      }
+      tmpLimit = batch ? batchLimit : interactiveLimit;
     }
-    return staticExecutor;
+    if (task instanceof MediaWikiCallable) {
+      EnumWikipedia wiki = ((MediaWikiCallable<?>) task).getWikipedia();
+      if (wiki != null) {
+        tmpLimit = RateController.getController(wiki).getTaskLimit(batch);
+      }
+    }
+    final Semaphore limit = tmpLimit;
+    return new Callable<Object>() {
+
+      @Override
+      public Object call() throws Exception {
+        limit.acquire();
+        try {
+          return task.call();
+        } finally {
+          limit.release();
+        }
+      }
+    };
   }
 
   /**
@@ -63,7 +177,10 @@ public abstract class MediaWikiController implements MediaWikiListener {
    * @return Future result
    */
   static public Future<?> addSimpleTask(Callable<?> task) {
-    return getStaticExecutor().submit(task);
+    @SuppressWarnings("unchecked")
+    Callable<Object> objectTask = (Callable<Object>) task;
+    ExecutorService executor = getStaticExecutor(false);
+    return executor.submit(limitConcurrency(objectTask, false));
   }
 
   /**
@@ -72,8 +189,10 @@ public abstract class MediaWikiController implements MediaWikiListener {
    * @param task The task itself.
    */
   protected void addTask(Callable<?> task) {
+    @SuppressWarnings("unchecked")
+    Callable<Object> objectTask = limitConcurrency((Callable<Object>) task, batch);
     synchronized (results) {
-      Future<?> result = executor.submit(task);
+      Future<Object> result = completionService.submit(objectTask);
       if (!shouldStop()) {
         results.add(result);
       }
@@ -110,15 +229,22 @@ public abstract class MediaWikiController implements MediaWikiListener {
   }
 
   /**
+   * Wait for the completion of one of the remaining tasks.
+   * 
    * @return The result of one of the completed remaining tasks.
    * @throws APIException Exception.
    */
   protected Object getNextResult() throws APIException {
     while (hasRemainingTask()) {
-      Future<?> result = getNextDoneResult();
-      if (result != null) {
+      Future<?> result = null;
+      try {
+        result = completionService.take();
+      } catch (InterruptedException e) {
+        // Nothing to do
+      }
+      if ((result != null) && removeResult(result)) {
         try {
-          return result.get(10, TimeUnit.MILLISECONDS);
+          return result.get();
         } catch (InterruptedException e) {
           // Nothing to do
         } catch (ExecutionException e) {
@@ -127,38 +253,55 @@ public abstract class MediaWikiController implements MediaWikiListener {
             throw (APIException) cause;
           }
           return cause;
-        } catch (TimeoutException e) {
-          // Shouldn't arrive
         } catch (CancellationException e) {
           //
         }
       }
-      try {
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-        // Nothing to do
-      }
     }
     return null;
   }
 
   /**
-   * @return The result of one of the completed remaining tasks.
+   * @return One of the completed remaining tasks (null if none is completed).
    */
   protected Future<?> getNextDoneResult() {
-    if (hasRemainingTask()) {
-      synchronized (results) {
-        for (Future<?> result : results) {
-          if (result.isDone()) {
-            results.remove(result);
-            return result;
-          }
-        }
+    while (hasRemainingTask()) {
+      Future<?> result = completionService.poll();
+      if (result == null) {
+        return null;
+      }
+      if (removeResult(result)) {
+        return result;
       }
     }
     return null;
   }
 
+  /**
+   * Wait for the completion of all remaining tasks, ignoring their results.
+   */
+  protected void waitForRemainingTasks() {
+    while (hasRemainingTask()) {
+      try {
+        getNextResult();
+      } catch (APIException e) {
+        // Nothing to do
+      }
+    }
+  }
+
+  /**
+   * Remove a completed task from the remaining tasks.
+   * 
+   * @param result Completed task.
+   * @return True if the task was one of the remaining tasks.
+   */
+  private boolean removeResult(Future<?> result) {
+    synchronized (results) {
+      return results.remove(result);
+    }
+  }
+
   /**
    * @param text Text to display.
    */
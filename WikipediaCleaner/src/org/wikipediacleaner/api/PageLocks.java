@@ -0,0 +1,126 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+
+
+/**
+ * Locks on the pages of a wiki being edited.
+ *
+ * When several tasks work concurrently on the same wiki, a page is edited
+ * by only one of them at a time: the other ones wait for the lock.
+ * Locks are reentrant for the thread holding them.
+ */
+public class PageLocks {
+
+  /** Locks for each wiki */
+  private final static ConcurrentMap<EnumWikipedia, PageLocks> locks =
+      new ConcurrentHashMap<EnumWikipedia, PageLocks>();
+
+  /**
+   * @param wiki Wiki.
+   * @return Locks on the pages of the wiki.
+   */
+  public static PageLocks getLocks(EnumWikipedia wiki) {
+    PageLocks pageLocks = locks.get(wiki);
+    if (pageLocks == null) {
+      pageLocks = new PageLocks();
+      PageLocks previous = locks.putIfAbsent(wiki, pageLocks);
+      if (previous != null) {
+        pageLocks = previous;
+      }
+    }
+    return pageLocks;
+  }
+
+  /**
+   * Lock held on a page.
+   */
+  private static class Lock {
+
+    /** Thread holding the lock */
+    final Thread owner;
+
+    /** Number of times the lock is held by the thread */
+    int count;
+
+    /**
+     * @param owner Thread holding the lock.
+     */
+    Lock(Thread owner) {
+      this.owner = owner;
+      this.count = 1;
+    }
+  }
+
+  /** Locks held, indexed by page title */
+  private final Map<String, Lock> heldLocks;
+
+  private PageLocks() {
+    this.heldLocks = new HashMap<String, Lock>();
+  }
+
+  /**
+   * Lock a page, waiting for other threads to release it.
+   *
+   * @param title Page title.
+   * @throws APIException If interrupted while waiting.
+   */
+  public synchronized void lock(String title) throws APIException {
+    if (title == null) {
+      return;
+    }
+    Thread current = Thread.currentThread();
+    if (current.isInterrupted()) {
+      throw new APIException("Interrupted before editing " + title);
+    }
+    for (;;) {
+      Lock lock = heldLocks.get(title);
+      if (lock == null) {
+        heldLocks.put(title, new Lock(current));
+        return;
+      }
+      if (lock.owner == current) {
+        lock.count++;
+        return;
+      }
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new APIException("Interrupted while waiting to edit " + title, e);
+      }
+    }
+  }
+
+  /**
+   * Release a page locked by the current thread.
+   *
+   * @param title Page title.
+   */
+  public synchronized void unlock(String title) {
+    if (title == null) {
+      return;
+    }
+    Lock lock = heldLocks.get(title);
+    if ((lock == null) || (lock.owner != Thread.currentThread())) {
+      return;
+    }
+    lock.count--;
+    if (lock.count <= 0) {
+      heldLocks.remove(title);
+      notifyAll();
+    }
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.util.List;
+
+import org.wikipediacleaner.api.data.Page;
+
+
+/**
+ * Listener interface for lists of pages retrieved incrementally.
+ */
+public interface PagesListener {
+
+  /**
+   * Invoked when a part of a list of pages has been retrieved.
+   * 
+   * @param pages Pages retrieved.
+   * @return True if the next pages of the list should be retrieved.
+   */
+  public boolean pagesRetrieved(List<Page> pages);
+}
@@ -0,0 +1,382 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.util.DateParseException;
+import org.apache.commons.httpclient.util.DateUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueInteger;
+
+
+/**
+ * Control of the rate of requests sent to a wiki.
+ *
+ * Reads and edits are limited by token buckets. A thread reserves its slot
+ * under a short lock and waits outside of it, so threads reading are never
+ * blocked by a thread waiting to edit.
+ * When the server asks to slow down (<code>Retry-After</code> header,
+ * <code>maxlag</code> error, HTTP 429 or 503), all requests to the wiki are
+ * paused. Other errors are retried after an exponential backoff with jitter.
+ * The number of tasks working concurrently on the wiki can also be limited,
+ * separately for interactive and batch tasks.
+ * Waiting stops when the thread is interrupted: the interrupt status is kept
+ * and an exception is thrown, so that retry loops stop too.
+ */
+public class RateController {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(RateController.class);
+
+  /** Property for the maximum replication lag */
+  public final static String PROPERTY_MAX_LAG = "maxlag";
+
+  /** HTTP status for Too Many Requests */
+  private final static int SC_TOO_MANY_REQUESTS = 429;
+
+  /** Base delay in milliseconds for the exponential backoff */
+  private final static long BACKOFF_BASE = 5000;
+
+  /** Maximum delay in milliseconds for the exponential backoff */
+  private final static long BACKOFF_MAX = 60000;
+
+  /** Maximum delay in milliseconds accepted from a Retry-After header */
+  private final static long RETRY_AFTER_MAX = 300000;
+
+  /** Controllers for each wiki */
+  private final static ConcurrentMap<EnumWikipedia, RateController> controllers =
+      new ConcurrentHashMap<EnumWikipedia, RateController>();
+
+  /** Random generator for the jitter */
+  private final static Random random = new Random();
+
+  /** Maximum number of reads per second (0 for no limit) */
+  private static volatile int maxReadsPerSecond = 0;
+
+  /** Maximum replication lag in seconds sent to the server (0 for none) */
+  private static volatile int maxLag = 0;
+
+  /**
+   * Update configuration.
+   */
+  public static void updateConfiguration() {
+    Configuration config = Configuration.getConfiguration();
+    maxReadsPerSecond = Math.max(0, config.getInt(null, ConfigurationValueInteger.MAX_READS_PER_SECOND));
+    maxLag = Math.max(0, config.getInt(null, ConfigurationValueInteger.MAX_LAG));
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @return Rate controller for the wiki.
+   */
+  public static RateController getController(EnumWikipedia wiki) {
+    RateController controller = controllers.get(wiki);
+    if (controller == null) {
+      controller = new RateController(wiki);
+      RateController previous = controllers.putIfAbsent(wiki, controller);
+      if (previous != null) {
+        controller = previous;
+      }
+    }
+    return controller;
+  }
+
+  /**
+   * Add the maximum replication lag to the properties of a request.
+   *
+   * @param properties Properties defining request.
+   */
+  public static void addMaxLag(Map<String, String> properties) {
+    int lag = maxLag;
+    if ((lag > 0) && (properties != null) && !properties.containsKey(PROPERTY_MAX_LAG)) {
+      properties.put(PROPERTY_MAX_LAG, Integer.toString(lag));
+    }
+  }
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** Time until which all requests are paused */
+  private long pauseUntil;
+
+  /** Available read tokens (negative when reads are reserved in advance) */
+  private double readTokens;
+
+  /** Last time read tokens were refilled */
+  private long lastReadRefill;
+
+  /** Times reserved for the recent edits */
+  private final LinkedList<Long> editTimes;
+
+  /** Limit on concurrent interactive tasks */
+  private final Semaphore interactiveTasks;
+
+  /** Limit on concurrent batch tasks */
+  private final Semaphore batchTasks;
+
+  /**
+   * @param wiki Wiki.
+   */
+  private RateController(EnumWikipedia wiki) {
+    this.wiki = wiki;
+    this.pauseUntil = 0;
+    this.readTokens = 0;
+    this.lastReadRefill = 0;
+    this.editTimes = new LinkedList<Long>();
+    Configuration config = Configuration.getConfiguration();
+    int maxTasks = Math.max(1, config.getInt(null, ConfigurationValueInteger.INTERROG_THREAD));
+    this.interactiveTasks = new Semaphore(maxTasks);
+    this.batchTasks = new Semaphore(maxTasks);
+  }
+
+  /**
+   * @param batch True for the limit on batch tasks.
+   * @return Limit on the number of tasks working concurrently on the wiki.
+   */
+  public Semaphore getTaskLimit(boolean batch) {
+    return batch ? batchTasks : interactiveTasks;
+  }
+
+  /**
+   * Wait until a read request can be sent.
+   *
+   * @throws InterruptedIOException If interrupted while waiting.
+   */
+  public void acquireRead() throws InterruptedIOException {
+    long wait = 0;
+    synchronized (this) {
+      long currentTime = System.currentTimeMillis();
+      int rate = maxReadsPerSecond;
+      if (rate > 0) {
+        if (lastReadRefill == 0) {
+          readTokens = rate;
+        } else {
+          readTokens = Math.min(
+              rate,
+              readTokens + (currentTime - lastReadRefill) * rate / 1000.0);
+        }
+        lastReadRefill = currentTime;
+        readTokens -= 1;
+        if (readTokens < 0) {
+          wait = (long) Math.ceil(-readTokens * 1000 / rate);
+        }
+      }
+      wait = Math.max(wait, pauseUntil - currentTime);
+    }
+    sleep(wait);
+    waitForPause();
+    if (Thread.currentThread().isInterrupted()) {
+      throw new InterruptedIOException("Interrupted while waiting to send a request to " + wiki);
+    }
+  }
+
+  /**
+   * Wait until an edit can be sent.
+   *
+   * @param minimumTime Minimum time in seconds between two edits (0 for no limit).
+   * @param maxEditsPerMinute Maximum number of edits per minute (0 for no limit).
+   * @throws APIException If interrupted while waiting.
+   */
+  public void acquireEdit(int minimumTime, int maxEditsPerMinute) throws APIException {
+    long wait = 0;
+    synchronized (this) {
+      long currentTime = System.currentTimeMillis();
+      long slot = Math.max(currentTime, pauseUntil);
+      if (!editTimes.isEmpty()) {
+        long lastEditTime = editTimes.getLast().longValue();
+        slot = Math.max(slot, lastEditTime);
+        if (minimumTime > 0) {
+          slot = Math.max(slot, lastEditTime + minimumTime * 1000L);
+        }
+      }
+      while ((!editTimes.isEmpty()) &&
+             (editTimes.getFirst().longValue() + 60 * 1000 <= currentTime)) {
+        editTimes.removeFirst();
+      }
+      if ((maxEditsPerMinute > 0) && (editTimes.size() >= maxEditsPerMinute)) {
+        long oldest = editTimes.get(editTimes.size() - maxEditsPerMinute).longValue();
+        slot = Math.max(slot, oldest + 60 * 1000);
+      }
+      editTimes.add(Long.valueOf(slot));
+      wait = slot - currentTime;
+    }
+    if (wait > 0) {
+      log.info("Waiting " + wait + " ms before editing " + wiki);
+    }
+    sleep(wait);
+    waitForPause();
+    checkInterrupted();
+  }
+
+  /**
+   * Pause all requests to the wiki.
+   *
+   * @param delay Delay in milliseconds.
+   */
+  public void pause(long delay) {
+    if (delay <= 0) {
+      return;
+    }
+    synchronized (this) {
+      pauseUntil = Math.max(pauseUntil, System.currentTimeMillis() + delay);
+    }
+    log.warn("Pausing requests to " + wiki + " for " + delay + " ms");
+  }
+
+  /**
+   * Wait before retrying a request that failed.
+   *
+   * @param attempt Attempt number of the request that failed.
+   * @param method HTTP method of the request that failed (may be null).
+   * @throws APIException If interrupted while waiting.
+   */
+  public void waitBeforeRetrying(int attempt, HttpMethod method) throws APIException {
+    long retryAfter = getRetryAfter(method);
+    if (retryAfter > 0) {
+      pause(retryAfter);
+      waitForPause();
+    } else {
+      long delay = getBackoffDelay(attempt);
+      int status = getStatusCode(method);
+      if ((status == SC_TOO_MANY_REQUESTS) || (status == HttpStatus.SC_SERVICE_UNAVAILABLE)) {
+        pause(delay);
+        waitForPause();
+      } else {
+        sleep(delay);
+      }
+    }
+    checkInterrupted();
+  }
+
+  /**
+   * Wait before retrying a request that failed with an error reported by the API.
+   *
+   * @param exception Error reported by the API.
+   * @param method HTTP method of the request that failed (may be null).
+   * @throws APIException If interrupted while waiting.
+   */
+  public void waitBeforeRetrying(APIException exception, HttpMethod method) throws APIException {
+    long retryAfter = getRetryAfter(method);
+    if (retryAfter > 0) {
+      pause(retryAfter);
+      waitForPause();
+    } else {
+      exception.waitForRetry();
+    }
+    checkInterrupted();
+  }
+
+  /**
+   * Wait for the end of a pause of the requests (or for an interruption).
+   */
+  private void waitForPause() {
+    while (!Thread.currentThread().isInterrupted()) {
+      long wait = 0;
+      synchronized (this) {
+        wait = pauseUntil - System.currentTimeMillis();
+      }
+      if (wait <= 0) {
+        return;
+      }
+      sleep(wait);
+    }
+  }
+
+  /**
+   * Stop waiting if the current thread has been interrupted.
+   *
+   * @throws APIException If the current thread has been interrupted.
+   */
+  private void checkInterrupted() throws APIException {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new APIException("Interrupted while waiting to send a request to " + wiki);
+    }
+  }
+
+  /**
+   * @param attempt Attempt number.
+   * @return Delay in milliseconds for an exponential backoff with jitter.
+   */
+  private static long getBackoffDelay(int attempt) {
+    long delay = BACKOFF_BASE << Math.min(Math.max(attempt - 1, 0), 10);
+    delay = Math.min(delay, BACKOFF_MAX);
+    long jitter = 0;
+    synchronized (random) {
+      jitter = (long) (random.nextDouble() * delay / 2);
+    }
+    return delay / 2 + jitter;
+  }
+
+  /**
+   * @param method HTTP method.
+   * @return Delay in milliseconds requested by the server (0 if none).
+   */
+  private static long getRetryAfter(HttpMethod method) {
+    if (method == null) {
+      return 0;
+    }
+    Header header = method.getResponseHeader("Retry-After");
+    if ((header == null) || (header.getValue() == null)) {
+      return 0;
+    }
+    String value = header.getValue().trim();
+    long delay = 0;
+    try {
+      delay = Long.parseLong(value) * 1000;
+    } catch (NumberFormatException e) {
+      try {
+        Date date = DateUtil.parseDate(value);
+        delay = date.getTime() - System.currentTimeMillis();
+      } catch (DateParseException e2) {
+        log.warn("Unable to understand Retry-After header: " + value);
+      }
+    }
+    return Math.min(Math.max(delay, 0), RETRY_AFTER_MAX);
+  }
+
+  /**
+   * @param method HTTP method.
+   * @return HTTP status of the method (-1 if unknown).
+   */
+  private static int getStatusCode(HttpMethod method) {
+    if ((method == null) || (method.getStatusLine() == null)) {
+      return -1;
+    }
+    return method.getStatusCode();
+  }
+
+  /**
+   * Sleep for a given time, keeping the interrupt status if interrupted.
+   *
+   * @param delay Delay in milliseconds.
+   */
+  private static void sleep(long delay) {
+    if (delay <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,532 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpMethod;
+import org.apache.commons.httpclient.HttpStatus;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.request.ApiRequest;
+
+
+/**
+ * Coalescing of identical requests sent to a wiki.
+ *
+ * Identical queries (same parameters, whatever their order) sent at the same
+ * time share a single HTTP call: the first thread sends the request and
+ * reads the answer as a stream, while a copy of it is recorded for the other
+ * threads, which receive it once the first thread has read it.
+ * Successful answers are also kept for a few seconds, for the requests
+ * sent just after them.
+ * Only queries are coalesced. Any other request (edit, purge, ...) empties
+ * the answers kept for the wiki, so that a modification is never hidden.
+ */
+public class RequestCoalescer {
+
+  /** Duration in milliseconds during which an answer is kept */
+  private final static long MEMO_DURATION = 5000;
+
+  /** Maximum size in bytes of an answer shared or kept */
+  private final static int MEMO_MAX_ANSWER = 1024 * 1024;
+
+  /** Maximum total size in bytes of the answers kept */
+  private final static long MEMO_MAX_SIZE = 8 * 1024 * 1024;
+
+  /** Coalescers for each wiki */
+  private final static ConcurrentMap<EnumWikipedia, RequestCoalescer> coalescers =
+      new ConcurrentHashMap<EnumWikipedia, RequestCoalescer>();
+
+  /**
+   * @param wiki Wiki.
+   * @return Coalescer for the wiki.
+   */
+  public static RequestCoalescer getCoalescer(EnumWikipedia wiki) {
+    RequestCoalescer coalescer = coalescers.get(wiki);
+    if (coalescer == null) {
+      coalescer = new RequestCoalescer(wiki);
+      RequestCoalescer previous = coalescers.putIfAbsent(wiki, coalescer);
+      if (previous != null) {
+        coalescer = previous;
+      }
+    }
+    return coalescer;
+  }
+
+  /**
+   * Factory for the HTTP method of a request.
+   */
+  public static interface MethodFactory {
+
+    /**
+     * @return HTTP method for the request.
+     */
+    public HttpMethod createHttpMethod();
+  }
+
+  /**
+   * Answer to a request.
+   */
+  public static class Response {
+
+    /** HTTP method used for the request */
+    private final HttpMethod method;
+
+    /** Body of the answer, if already read */
+    private final byte[] body;
+
+    /** Stream of the answer, if not already read */
+    private final InputStream stream;
+
+    /**
+     * @param method HTTP method used for the request.
+     * @param body Body of the answer, if already read.
+     * @param stream Stream of the answer, if not already read.
+     */
+    Response(HttpMethod method, byte[] body, InputStream stream) {
+      this.method = method;
+      this.body = body;
+      this.stream = stream;
+    }
+
+    /**
+     * @return HTTP method used for the request.
+     */
+    public HttpMethod getMethod() {
+      return method;
+    }
+
+    /**
+     * @return HTTP status of the answer.
+     */
+    public int getStatusCode() {
+      return method.getStatusCode();
+    }
+
+    /**
+     * @return Body of the answer.
+     * @throws IOException
+     */
+    public InputStream getStream() throws IOException {
+      if (body != null) {
+        return new ByteArrayInputStream(body);
+      }
+      if (stream != null) {
+        return stream;
+      }
+      return HttpUtils.getResponseBodyAsStream(method);
+    }
+  }
+
+  /**
+   * A request in progress.
+   */
+  private static class Call {
+
+    /** HTTP method used for the request */
+    HttpMethod method;
+
+    /** Body of the answer (null if it couldn't be recorded) */
+    byte[] body;
+
+    /** True when the request is completed */
+    boolean done;
+  }
+
+  /**
+   * An answer kept for later requests.
+   */
+  private static class Memo {
+
+    /** Answer */
+    final Response response;
+
+    /** Time until which the answer can be used */
+    final long expiration;
+
+    /**
+     * @param response Answer.
+     * @param expiration Time until which the answer can be used.
+     */
+    Memo(Response response, long expiration) {
+      this.response = response;
+      this.expiration = expiration;
+    }
+  }
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** Requests in progress */
+  private final Map<List<String>, Call> calls;
+
+  /** Answers kept, in the order of their arrival */
+  private final LinkedHashMap<List<String>, Memo> memos;
+
+  /** Total size of the answers kept */
+  private long memoSize;
+
+  /** Incremented each time the answers kept are discarded */
+  private int generation;
+
+  /**
+   * @param wiki Wiki.
+   */
+  private RequestCoalescer(EnumWikipedia wiki) {
+    this.wiki = wiki;
+    this.calls = new HashMap<List<String>, Call>();
+    this.memos = new LinkedHashMap<List<String>, Memo>();
+    this.memoSize = 0;
+    this.generation = 0;
+  }
+
+  /**
+   * Send a request, sharing its answer with identical requests if possible.
+   *
+   * @param properties Properties defining the request.
+   * @param attempt Attempt number of the request.
+   * @param httpClient HTTP client for making the request.
+   * @param factory Factory for the HTTP method of the request.
+   * @return Answer to the request.
+   * @throws IOException
+   */
+  public Response send(
+      Map<String, String> properties, int attempt,
+      HttpClient httpClient, MethodFactory factory) throws IOException {
+
+    // Requests modifying the wiki, or retried after a failure
+    List<String> key = getKey(properties);
+    if (key == null) {
+      try {
+        return sendRequest(httpClient, factory);
+      } finally {
+        invalidate();
+      }
+    }
+    if (attempt > 1) {
+      synchronized (this) {
+        removeMemo(key);
+      }
+      return sendRequest(httpClient, factory);
+    }
+
+    // Find an identical request
+    Call call = null;
+    int currentGeneration = 0;
+    synchronized (this) {
+      long currentTime = System.currentTimeMillis();
+      Memo memo = memos.get(key);
+      if (memo != null) {
+        if (memo.expiration > currentTime) {
+          return memo.response;
+        }
+        removeMemo(key);
+      }
+      call = calls.get(key);
+      if (call == null) {
+        call = new Call();
+        calls.put(key, call);
+        currentGeneration = generation;
+      } else {
+        currentGeneration = -1;
+      }
+    }
+
+    // Send the request for all identical requests
+    if (currentGeneration >= 0) {
+      boolean recording = false;
+      try {
+        HttpMethod method = sendRequest(httpClient, factory).getMethod();
+        try {
+          InputStream stream = HttpUtils.getResponseBodyAsStream(method);
+          recording = true;
+          return new Response(
+              method, null,
+              new RecordingInputStream(
+                  key, call, currentGeneration, method, stream));
+        } finally {
+          if (!recording) {
+            method.releaseConnection();
+          }
+        }
+      } finally {
+        if (!recording) {
+          complete(key, call, currentGeneration, null);
+        }
+      }
+    }
+
+    // Wait for the answer to the identical request
+    synchronized (call) {
+      boolean interrupted = false;
+      while (!call.done) {
+        try {
+          call.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      if ((call.method != null) && (call.body != null)) {
+        return new Response(call.method, call.body, null);
+      }
+    }
+    return sendRequest(httpClient, factory);
+  }
+
+  /**
+   * Discard the answers kept for the wiki.
+   */
+  public synchronized void invalidate() {
+    generation++;
+    memos.clear();
+    memoSize = 0;
+  }
+
+  /**
+   * Send a request.
+   *
+   * @param httpClient HTTP client for making the request.
+   * @param factory Factory for the HTTP method of the request.
+   * @return Answer to the request.
+   * @throws IOException
+   */
+  private Response sendRequest(
+      HttpClient httpClient, MethodFactory factory) throws IOException {
+    RateController.getController(wiki).acquireRead();
+    HttpMethod method = factory.createHttpMethod();
+    boolean ok = false;
+    try {
+      httpClient.executeMethod(method);
+      ok = true;
+      return new Response(method, null, null);
+    } finally {
+      if (!ok) {
+        method.releaseConnection();
+      }
+    }
+  }
+
+  /**
+   * Complete a request shared with identical requests.
+   *
+   * @param key Key of the request.
+   * @param call Request.
+   * @param callGeneration Generation when the request was sent.
+   * @param response Answer to the request (null if it couldn't be recorded).
+   */
+  void complete(List<String> key, Call call, int callGeneration, Response response) {
+    synchronized (this) {
+      calls.remove(key);
+      if ((response != null) &&
+          (callGeneration == generation) &&
+          (response.getStatusCode() == HttpStatus.SC_OK)) {
+        removeMemo(key);
+        memos.put(key, new Memo(response, System.currentTimeMillis() + MEMO_DURATION));
+        memoSize += response.body.length;
+        evictMemos();
+      }
+    }
+    synchronized (call) {
+      if (response != null) {
+        call.method = response.getMethod();
+        call.body = response.body;
+      }
+      call.done = true;
+      call.notifyAll();
+    }
+  }
+
+  /**
+   * Remove an answer kept.
+   *
+   * @param key Key of the request.
+   */
+  private void removeMemo(List<String> key) {
+    Memo memo = memos.remove(key);
+    if (memo != null) {
+      memoSize -= memo.response.body.length;
+    }
+  }
+
+  /**
+   * Remove the expired answers and the oldest answers beyond the maximum size.
+   */
+  private void evictMemos() {
+    long currentTime = System.currentTimeMillis();
+    Iterator<Memo> itMemo = memos.values().iterator();
+    while (itMemo.hasNext()) {
+      Memo memo = itMemo.next();
+      if ((memoSize <= MEMO_MAX_SIZE) && (memo.expiration > currentTime)) {
+        return;
+      }
+      itMemo.remove();
+      memoSize -= memo.response.body.length;
+    }
+  }
+
+  /**
+   * @param properties Properties defining the request.
+   * @return Key for identical requests (null if the request can't be shared).
+   */
+  private static List<String> getKey(Map<String, String> properties) {
+    if ((properties == null) ||
+        !ApiRequest.ACTION_QUERY.equals(properties.get(ApiRequest.ACTION))) {
+      return null;
+    }
+    List<String> key = new ArrayList<String>(2 * properties.size());
+    for (Map.Entry<String, String> property : new TreeMap<String, String>(properties).entrySet()) {
+      key.add(property.getKey());
+      key.add(property.getValue());
+    }
+    return key;
+  }
+
+  /**
+   * Stream of an answer, recording a copy of the answer for identical requests.
+   */
+  private class RecordingInputStream extends FilterInputStream {
+
+    /** Key of the request */
+    private final List<String> key;
+
+    /** Request */
+    private final Call call;
+
+    /** Generation when the request was sent */
+    private final int callGeneration;
+
+    /** HTTP method used for the request */
+    private final HttpMethod method;
+
+    /** Copy of the answer (null if too big) */
+    private ByteArrayOutputStream copy;
+
+    /** True when the identical requests have been notified */
+    private boolean completed;
+
+    /**
+     * @param key Key of the request.
+     * @param call Request.
+     * @param callGeneration Generation when the request was sent.
+     * @param method HTTP method used for the request.
+     * @param stream Stream of the answer.
+     */
+    RecordingInputStream(
+        List<String> key, Call call, int callGeneration,
+        HttpMethod method, InputStream stream) {
+      super(stream);
+      this.key = key;
+      this.call = call;
+      this.callGeneration = callGeneration;
+      this.method = method;
+      this.copy = new ByteArrayOutputStream();
+    }
+
+    @Override
+    public int read() throws IOException {
+      int result = super.read();
+      if (result >= 0) {
+        record(new byte[] { (byte) result }, 0, 1);
+      } else {
+        finish(true);
+      }
+      return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int result = super.read(b, off, len);
+      if (result > 0) {
+        record(b, off, result);
+      } else if (result < 0) {
+        finish(true);
+      }
+      return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      copy = null;
+      return super.skip(n);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (!completed && (copy != null)) {
+          byte[] buffer = new byte[8192];
+          while (read(buffer, 0, buffer.length) >= 0) {
+            //
+          }
+        }
+      } catch (IOException e) {
+        // Nothing to do
+      } finally {
+        finish(false);
+        super.close();
+      }
+    }
+
+    /**
+     * Record a part of the answer.
+     *
+     * @param b Buffer.
+     * @param off Offset.
+     * @param len Length.
+     */
+    private void record(byte[] b, int off, int len) {
+      if (copy != null) {
+        if (copy.size() + len > MEMO_MAX_ANSWER) {
+          copy = null;
+        } else {
+          copy.write(b, off, len);
+        }
+      }
+    }
+
+    /**
+     * Notify the identical requests.
+     *
+     * @param full True if the answer has been fully read.
+     */
+    private void finish(boolean full) {
+      if (completed) {
+        return;
+      }
+      completed = true;
+      Response response = null;
+      if (full && (copy != null)) {
+        response = new Response(method, copy.toByteArray(), null);
+      }
+      copy = null;
+      complete(key, call, callGeneration, response);
+    }
+  }
+}
@@ -68,7 +68,8 @@ public class CheckError {
           if (result != null) {
             errorFound = result.getErrors(results);
           } else {
-            errorFound = algorithm.analyze(pageAnalysis, results, onlyAutomatic);
+            errorFound = CheckErrorProfiler.analyze(
+                algorithm, pageAnalysis, results, onlyAutomatic);
             pageAnalysis.setCheckWikiErrors(errorNumber, errorFound, results);
           }
           if (errorFound) {
@@ -117,7 +118,8 @@ public class CheckError {
     if (result != null) {
       errorFound = result.getErrors(errorsFound);
     } else {
-      errorFound = algorithm.analyze(pageAnalysis, errorsFound, false);
+      errorFound = CheckErrorProfiler.analyze(
+          algorithm, pageAnalysis, errorsFound, false);
       pageAnalysis.setCheckWikiErrors(errorNumber, errorFound, errorsFound);
     }
     errorPage.setResults(errorFound, errorsFound);
@@ -0,0 +1,452 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.check;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageAnalysis;
+
+
+/**
+ * Profiling of Check Wiki algorithms.
+ *
+ * When profiling is active, each execution of an algorithm on a page
+ * is recorded as an event (algorithm number, page title, text length,
+ * element counts, duration and detections) in an event file.
+ * The page is fully analyzed before the first algorithm is executed,
+ * so that durations only measure the algorithms themselves.
+ *
+ * The event file is a tab separated text file, one event per line,
+ * and can be summarized with {@link #main(String[])}.
+ */
+public class CheckErrorProfiler {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(CheckErrorProfiler.class);
+
+  /** Separator between fields of an event */
+  private final static char SEPARATOR = '\t';
+
+  /** Number of events buffered before writing them */
+  private final static int BUFFER_SIZE = 1000;
+
+  /** Writer for the event file, null when profiling is not active */
+  private static volatile Writer writer = null;
+
+  /** Events waiting to be written */
+  private static final List<Event> buffer = new ArrayList<Event>(BUFFER_SIZE);
+
+  /** Last page analysis for which element counts have been computed (per thread) */
+  private static final ThreadLocal<PageAnalysis> lastAnalysis = new ThreadLocal<PageAnalysis>();
+
+  /** Element counts for the last page analysis (per thread) */
+  private static final ThreadLocal<int[]> lastCounts = new ThreadLocal<int[]>();
+
+  /**
+   * Start profiling.
+   *
+   * @param file Event file (events are appended to it).
+   * @throws IOException Error opening the event file.
+   */
+  public static void start(File file) throws IOException {
+    Writer newWriter = new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(file, true), "UTF-8"));
+    synchronized (buffer) {
+      closeWriter();
+      writer = newWriter;
+    }
+    log.info("Profiling Check Wiki algorithms in " + file.getAbsolutePath());
+  }
+
+  /**
+   * Stop profiling and write remaining events.
+   */
+  public static void stop() {
+    synchronized (buffer) {
+      closeWriter();
+    }
+  }
+
+  /**
+   * @return True if profiling is active.
+   */
+  public static boolean isActive() {
+    return writer != null;
+  }
+
+  /**
+   * Analyze a page with an algorithm, recording an event if profiling is active.
+   *
+   * @param algorithm Algorithm.
+   * @param analysis Page analysis.
+   * @param errors Errors found in the page.
+   * @param onlyAutomatic True if analysis could be restricted to errors automatically fixed.
+   * @return Flag indicating if the error was found.
+   */
+  public static boolean analyze(
+      CheckErrorAlgorithm algorithm, PageAnalysis analysis,
+      Collection<CheckErrorResult> errors, boolean onlyAutomatic) {
+    if (!isActive() || (analysis == null)) {
+      return algorithm.analyze(analysis, errors, onlyAutomatic);
+    }
+    int[] counts = getElementCounts(analysis);
+    int before = (errors != null) ? errors.size() : 0;
+    long beginTime = System.nanoTime();
+    boolean result = algorithm.analyze(analysis, errors, onlyAutomatic);
+    long duration = System.nanoTime() - beginTime;
+    int detections = (errors != null) ? errors.size() - before : (result ? 1 : 0);
+    Page page = analysis.getPage();
+    String contents = analysis.getContents();
+    addEvent(new Event(
+        algorithm.getErrorNumber(),
+        (page != null) ? page.getTitle() : null,
+        (contents != null) ? contents.length() : 0,
+        counts, duration, detections));
+    return result;
+  }
+
+  /**
+   * Retrieve element counts for a page analysis, performing a full analysis if needed.
+   *
+   * @param analysis Page analysis.
+   * @return Element counts.
+   */
+  private static int[] getElementCounts(PageAnalysis analysis) {
+    if (lastAnalysis.get() == analysis) {
+      return lastCounts.get();
+    }
+    analysis.performFullPageAnalysis(null);
+    int[] counts = new int[] {
+        size(analysis.getInternalLinks()),
+        size(analysis.getTemplates()),
+        size(analysis.getTags()),
+        size(analysis.getExternalLinks()),
+    };
+    lastAnalysis.set(analysis);
+    lastCounts.set(counts);
+    return counts;
+  }
+
+  /**
+   * @param list List.
+   * @return Size of the list.
+   */
+  private static int size(List<?> list) {
+    return (list != null) ? list.size() : 0;
+  }
+
+  /**
+   * @param event Event to be recorded.
+   */
+  private static void addEvent(Event event) {
+    synchronized (buffer) {
+      if (writer == null) {
+        return;
+      }
+      buffer.add(event);
+      if (buffer.size() >= BUFFER_SIZE) {
+        writeEvents();
+      }
+    }
+  }
+
+  /**
+   * Write buffered events (must be called with lock on buffer).
+   */
+  private static void writeEvents() {
+    if (writer == null) {
+      buffer.clear();
+      return;
+    }
+    try {
+      for (Event event : buffer) {
+        writer.write(event.toLine());
+        writer.write('\n');
+      }
+      writer.flush();
+    } catch (IOException e) {
+      log.error("Error writing profiling events: " + e.getMessage());
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Close the writer (must be called with lock on buffer).
+   */
+  private static void closeWriter() {
+    if (writer != null) {
+      writeEvents();
+      try {
+        writer.close();
+      } catch (IOException e) {
+        log.error("Error closing profiling events: " + e.getMessage());
+      }
+      writer = null;
+    }
+  }
+
+  // ==========================================================================
+  // Events
+  // ==========================================================================
+
+  /**
+   * Execution of an algorithm on a page.
+   */
+  static class Event {
+
+    /** Algorithm number */
+    final int algorithm;
+
+    /** Page title */
+    final String title;
+
+    /** Text length */
+    final int length;
+
+    /** Element counts: internal links, templates, tags, external links */
+    final int[] counts;
+
+    /** Duration in nanoseconds */
+    final long duration;
+
+    /** Number of detections */
+    final int detections;
+
+    /**
+     * @param algorithm Algorithm number.
+     * @param title Page title.
+     * @param length Text length.
+     * @param counts Element counts.
+     * @param duration Duration in nanoseconds.
+     * @param detections Number of detections.
+     */
+    Event(
+        int algorithm, String title, int length,
+        int[] counts, long duration, int detections) {
+      this.algorithm = algorithm;
+      this.title = (title != null) ? title : "";
+      this.length = length;
+      this.counts = counts;
+      this.duration = duration;
+      this.detections = detections;
+    }
+
+    /**
+     * @return Event as a line of the event file.
+     */
+    String toLine() {
+      StringBuilder line = new StringBuilder();
+      line.append(algorithm).append(SEPARATOR);
+      line.append(title.replace(SEPARATOR, ' ')).append(SEPARATOR);
+      line.append(length).append(SEPARATOR);
+      for (int count : counts) {
+        line.append(count).append(SEPARATOR);
+      }
+      line.append(duration).append(SEPARATOR);
+      line.append(detections);
+      return line.toString();
+    }
+
+    /**
+     * @param line Line of the event file.
+     * @return Event, or null if the line is not valid.
+     */
+    static Event fromLine(String line) {
+      String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+      if (fields.length != 9) {
+        return null;
+      }
+      try {
+        int[] counts = new int[4];
+        for (int i = 0; i < counts.length; i++) {
+          counts[i] = Integer.parseInt(fields[3 + i]);
+        }
+        return new Event(
+            Integer.parseInt(fields[0]), fields[1], Integer.parseInt(fields[2]),
+            counts, Long.parseLong(fields[7]), Integer.parseInt(fields[8]));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+  }
+
+  // ==========================================================================
+  // Report
+  // ==========================================================================
+
+  /**
+   * Comparator of events by duration.
+   */
+  private final static Comparator<Event> durationComparator = new Comparator<Event>() {
+
+    /**
+     * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public int compare(Event e1, Event e2) {
+      if (e1.duration < e2.duration) {
+        return -1;
+      }
+      if (e1.duration > e2.duration) {
+        return 1;
+      }
+      return 0;
+    }
+  };
+
+  /**
+   * Total time spent by an algorithm.
+   */
+  private static class AlgorithmTotal {
+    int algorithm;
+    long duration;
+    int count;
+    int detections;
+    long maxDuration;
+  }
+
+  /**
+   * Write a report on the slowest algorithms and algorithm × page combinations.
+   *
+   * @param file Event file.
+   * @param limit Maximum number of algorithm × page combinations.
+   * @param output Stream to write the report to.
+   * @throws IOException Error reading the event file.
+   */
+  public static void report(File file, int limit, PrintStream output) throws IOException {
+    PriorityQueue<Event> slowest = new PriorityQueue<Event>(
+        Math.max(limit, 1), durationComparator);
+    Map<Integer, AlgorithmTotal> totals = new HashMap<Integer, AlgorithmTotal>();
+    long globalDuration = 0;
+    BufferedReader reader = null;
+    try {
+      reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+      String line = null;
+      while ((line = reader.readLine()) != null) {
+        Event event = Event.fromLine(line);
+        if (event != null) {
+          globalDuration += event.duration;
+          AlgorithmTotal total = totals.get(Integer.valueOf(event.algorithm));
+          if (total == null) {
+            total = new AlgorithmTotal();
+            total.algorithm = event.algorithm;
+            totals.put(Integer.valueOf(event.algorithm), total);
+          }
+          total.duration += event.duration;
+          total.count++;
+          total.detections += (event.detections > 0) ? 1 : 0;
+          total.maxDuration = Math.max(total.maxDuration, event.duration);
+          if (limit > 0) {
+            if (slowest.size() < limit) {
+              slowest.add(event);
+            } else if (durationComparator.compare(slowest.peek(), event) < 0) {
+              slowest.poll();
+              slowest.add(event);
+            }
+          }
+        }
+      }
+    } finally {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+
+    // Algorithms
+    List<AlgorithmTotal> algorithms = new ArrayList<AlgorithmTotal>(totals.values());
+    Collections.sort(algorithms, new Comparator<AlgorithmTotal>() {
+
+      /**
+       * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+       */
+      @Override
+      public int compare(AlgorithmTotal t1, AlgorithmTotal t2) {
+        if (t1.duration > t2.duration) {
+          return -1;
+        }
+        if (t1.duration < t2.duration) {
+          return 1;
+        }
+        return 0;
+      }
+    });
+    output.println("Algorithms (total ms / share / pages / average us / max ms / pages with detections):");
+    for (AlgorithmTotal total : algorithms) {
+      output.println(
+          String.format("  %3d: %10d ms  %5.1f%%  %8d  %8d us  %8d ms  %8d",
+              Integer.valueOf(total.algorithm),
+              Long.valueOf(total.duration / 1000000),
+              Double.valueOf((globalDuration > 0) ? (100.0 * total.duration / globalDuration) : 0),
+              Integer.valueOf(total.count),
+              Long.valueOf((total.count > 0) ? total.duration / total.count / 1000 : 0),
+              Long.valueOf(total.maxDuration / 1000000),
+              Integer.valueOf(total.detections)));
+    }
+
+    // Algorithm × page
+    List<Event> events = new ArrayList<Event>(slowest);
+    Collections.sort(events, Collections.reverseOrder(durationComparator));
+    output.println();
+    output.println("Slowest algorithm x page (ms / algorithm / length / links / templates / tags / external links / detections / page):");
+    for (Event event : events) {
+      output.println(
+          String.format("  %8d  %3d  %8d  %6d  %6d  %6d  %6d  %6d  %s",
+              Long.valueOf(event.duration / 1000000),
+              Integer.valueOf(event.algorithm),
+              Integer.valueOf(event.length),
+              Integer.valueOf(event.counts[0]),
+              Integer.valueOf(event.counts[1]),
+              Integer.valueOf(event.counts[2]),
+              Integer.valueOf(event.counts[3]),
+              Integer.valueOf(event.detections),
+              event.title));
+    }
+  }
+
+  /**
+   * Write a report for an event file.
+   *
+   * @param args Command line arguments: event file and optional limit.
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.err.println("Usage: CheckErrorProfiler <event file> [<limit>]");
+      return;
+    }
+    int limit = 50;
+    if (args.length > 1) {
+      limit = Integer.parseInt(args[1]);
+    }
+    try {
+      report(new File(args[0]), limit, System.out);
+    } catch (IOException e) {
+      System.err.println("Error reading " + args[0] + ": " + e.getMessage());
+    }
+  }
+}
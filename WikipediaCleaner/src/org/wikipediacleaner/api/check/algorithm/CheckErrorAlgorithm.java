@@ -14,6 +14,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.constants.CWConfigurationError;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.gui.swing.component.MWPane;
@@ -152,6 +153,24 @@ public interface CheckErrorAlgorithm {
    */
   public String botFix(PageAnalysis analysis);
 
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents,
+   *         or null if the fix can't be expressed as a list of replacements.
+   */
+  public List<ContentsEditBatch.Edit> automaticFixReplacements(PageAnalysis analysis);
+
+  /**
+   * Bot fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents,
+   *         or null if the fix can't be expressed as a list of replacements.
+   */
+  public List<ContentsEditBatch.Edit> botFixReplacements(PageAnalysis analysis);
+
   /**
    * @return List of possible global fixes.
    */
@@ -8,9 +8,11 @@
 package org.wikipediacleaner.api.check.algorithm;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.constants.WikiConfiguration;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.MagicWord;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.PageAnalysis;
@@ -108,4 +110,15 @@ public class CheckErrorAlgorithm001 extends CheckErrorAlgorithmBase {
   protected String internalAutomaticFix(PageAnalysis analysis) {
     return fixUsingAutomaticReplacement(analysis);
   }
+
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalAutomaticFixReplacements(PageAnalysis analysis) {
+    return getAutomaticReplacements(analysis);
+  }
 }
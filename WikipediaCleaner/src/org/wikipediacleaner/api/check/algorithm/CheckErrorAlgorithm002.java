@@ -14,6 +14,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.CheckErrorResult.ErrorLevel;
 import org.wikipediacleaner.api.constants.WPCConfiguration;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementComment;
 import org.wikipediacleaner.api.data.PageElementTag;
@@ -647,6 +648,17 @@ public class CheckErrorAlgorithm002 extends CheckErrorAlgorithmBase {
     return fix(globalFixes[0], analysis, null);
   }
 
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalAutomaticFixReplacements(PageAnalysis analysis) {
+    return getAutomaticReplacements(analysis);
+  }
+
   /**
    * @return List of possible global fixes.
    */
@@ -14,6 +14,7 @@ import java.util.Map;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.CheckErrorResult.ErrorLevel;
 import org.wikipediacleaner.api.constants.WPCConfiguration;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementTag;
@@ -171,6 +172,17 @@ public class CheckErrorAlgorithm003 extends CheckErrorAlgorithmBase {
     return fixUsingAutomaticReplacement(analysis);
   }
 
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalAutomaticFixReplacements(PageAnalysis analysis) {
+    return getAutomaticReplacements(analysis);
+  }
+
   /**
    * @return Map of parameters (Name -> description).
    * @see org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithmBase#getParameters()
@@ -12,6 +12,7 @@ import java.util.List;
 
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.constants.ArticleUrl;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementExternalLink;
@@ -144,4 +145,15 @@ public class CheckErrorAlgorithm004 extends CheckErrorAlgorithmBase {
   protected String internalAutomaticFix(PageAnalysis analysis) {
     return fixUsingAutomaticReplacement(analysis);
   }
+
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalAutomaticFixReplacements(PageAnalysis analysis) {
+    return getAutomaticReplacements(analysis);
+  }
 }
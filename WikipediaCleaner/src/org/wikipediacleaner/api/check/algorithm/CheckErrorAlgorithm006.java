@@ -13,6 +13,7 @@ import java.util.List;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.SpecialCharacters;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementFunction;
 import org.wikipediacleaner.gui.swing.component.MWPane;
@@ -117,6 +118,17 @@ public class CheckErrorAlgorithm006 extends CheckErrorAlgorithmBase {
     return fix(globalFixes[0], analysis, null);
   }
 
+  /**
+   * Bot fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalBotFixReplacements(PageAnalysis analysis) {
+    return getFirstReplacements(analysis);
+  }
+
   /**
    * @return List of possible global fixes.
    */
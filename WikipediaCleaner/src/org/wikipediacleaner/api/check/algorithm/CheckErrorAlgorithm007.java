@@ -11,6 +11,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.wikipediacleaner.api.check.CheckErrorResult;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementTitle;
 
@@ -117,4 +118,15 @@ public class CheckErrorAlgorithm007 extends CheckErrorAlgorithmBase {
 
     return tmp.toString();
   }
+
+  /**
+   * Bot fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Null as the fix can't be expressed as a list of replacements.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalBotFixReplacements(PageAnalysis analysis) {
+    return null;
+  }
 }
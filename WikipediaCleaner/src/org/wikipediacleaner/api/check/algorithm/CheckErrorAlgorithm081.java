@@ -21,6 +21,7 @@ import org.wikipediacleaner.api.check.AddTextActionProvider;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.SimpleAction;
 import org.wikipediacleaner.api.constants.WPCConfigurationStringList;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementExternalLink;
 import org.wikipediacleaner.api.data.PageElementTag;
@@ -414,4 +415,20 @@ public class CheckErrorAlgorithm081 extends CheckErrorAlgorithmBase {
     }
     return fixUsingAutomaticReplacement(analysis);
   }
+
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalAutomaticFixReplacements(PageAnalysis analysis) {
+    List<String[]> refTemplates = analysis.getWPCConfiguration().getStringArrayList(
+        WPCConfigurationStringList.REFERENCES_TEMPLATES);
+    if ((refTemplates == null) || (refTemplates.isEmpty())) {
+      return Collections.emptyList();
+    }
+    return getAutomaticReplacements(analysis);
+  }
 }
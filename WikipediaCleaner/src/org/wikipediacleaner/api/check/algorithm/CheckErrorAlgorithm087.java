@@ -8,9 +8,11 @@
 package org.wikipediacleaner.api.check.algorithm;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.wikipediacleaner.api.check.HtmlCharacters;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.PageAnalysis;
 
 
@@ -59,4 +61,15 @@ public class CheckErrorAlgorithm087 extends CheckErrorAlgorithmHtmlNamedEntities
   protected String internalBotFix(PageAnalysis analysis) {
     return analysis.getContents();
   }
+
+  /**
+   * Bot fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalBotFixReplacements(PageAnalysis analysis) {
+    return Collections.emptyList();
+  }
 }
@@ -7,12 +7,15 @@
 
 package org.wikipediacleaner.api.check.algorithm;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.CheckErrorResult.ErrorLevel;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementTitle;
 
@@ -104,20 +107,44 @@ public class CheckErrorAlgorithm092 extends CheckErrorAlgorithmBase {
    */
   @Override
   protected String internalAutomaticFix(PageAnalysis analysis) {
+    ContentsEditBatch batch = new ContentsEditBatch(analysis.getContents());
+    batch.addReplacements(getRemovals(analysis));
+    return batch.apply();
+  }
+
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  @Override
+  protected List<ContentsEditBatch.Edit> internalAutomaticFixReplacements(PageAnalysis analysis) {
+    return getRemovals(analysis);
+  }
+
+  /**
+   * Compute the removals fixing double headlines.
+   * 
+   * @param analysis Page analysis.
+   * @return Removals to apply to the page contents, ordered by position.
+   */
+  private List<ContentsEditBatch.Edit> getRemovals(PageAnalysis analysis) {
     String contents = analysis.getContents();
     if ((!analysis.getPage().isArticle()) ||
         (!analysis.getPage().isInMainNamespace()) ||
         (!analysis.areTitlesReliable())) {
-      return contents;
+      return Collections.emptyList();
     }
     List<PageElementTitle> titles = analysis.getTitles();
     if ((titles == null) || (titles.size() < 2)) {
-      return contents;
+      return Collections.emptyList();
     }
 
     // Fix double headlines
+    List<ContentsEditBatch.Edit> removals = new ArrayList<ContentsEditBatch.Edit>();
+    int removalIndex = 0;
     int lastIndex = 0;
-    StringBuilder buffer = new StringBuilder();
     for (int i = 1; i < titles.size(); i++) {
       PageElementTitle previousTitle = titles.get(i - 1);
       PageElementTitle currentTitle = titles.get(i);
@@ -143,8 +170,8 @@ public class CheckErrorAlgorithm092 extends CheckErrorAlgorithmBase {
         }
         if (shouldRemove) {
           if (previousTitle.getBeginIndex() > lastIndex) {
-            buffer.append(contents.substring(lastIndex, previousTitle.getBeginIndex()));
-            lastIndex = previousTitle.getBeginIndex();
+            addRemoval(removals, removalIndex, lastIndex);
+            removalIndex = previousTitle.getBeginIndex();
           }
           lastIndex = currentTitle.getBeginIndex();
         } else {
@@ -169,20 +196,29 @@ public class CheckErrorAlgorithm092 extends CheckErrorAlgorithmBase {
           }
           if (shouldRemove) {
             if (currentTitle.getBeginIndex() > lastIndex) {
-              buffer.append(contents.substring(lastIndex, currentTitle.getBeginIndex()));
-              lastIndex = currentTitle.getBeginIndex();
+              addRemoval(removals, removalIndex, lastIndex);
+              removalIndex = currentTitle.getBeginIndex();
             }
             lastIndex = (nextTitle != null) ? nextTitle.getBeginIndex() : contents.length();
           }
         }
       }
     }
-    if (lastIndex == 0) {
-      return contents;
-    }
-    if (lastIndex < contents.length()) {
-      buffer.append(contents.substring(lastIndex));
+    addRemoval(removals, removalIndex, lastIndex);
+    return removals;
+  }
+
+  /**
+   * Add a removal if it isn't empty.
+   * 
+   * @param removals Removals.
+   * @param beginIndex Beginning of the removed area.
+   * @param endIndex End of the removed area.
+   */
+  private static void addRemoval(
+      List<ContentsEditBatch.Edit> removals, int beginIndex, int endIndex) {
+    if (endIndex > beginIndex) {
+      removals.add(new ContentsEditBatch.Edit(beginIndex, endIndex, ""));
     }
-    return buffer.toString();
   }
 }
@@ -20,12 +20,16 @@ import javax.swing.text.BadLocationException;
 import javax.swing.text.DefaultHighlighter;
 import javax.swing.text.Highlighter.HighlightPainter;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.CheckErrorResult.ErrorLevel;
 import org.wikipediacleaner.api.check.SpecialCharacters;
 import org.wikipediacleaner.api.constants.CWConfigurationError;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.constants.WPCConfigurationString;
+import org.wikipediacleaner.api.data.ContentsEditBatch;
 import org.wikipediacleaner.api.data.MagicWord;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.PageAnalysis;
@@ -38,6 +42,9 @@ import org.wikipediacleaner.i18n.GT;
  */
 public abstract class CheckErrorAlgorithmBase implements CheckErrorAlgorithm {
 
+  /** Logger */
+  private final static Log log = LogFactory.getLog(CheckErrorAlgorithmBase.class);
+
   /**
    * Configuration of the error.
    */
@@ -329,6 +336,66 @@ public abstract class CheckErrorAlgorithmBase implements CheckErrorAlgorithm {
     return internalAutomaticFix(analysis);
   }
 
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents,
+   *         or null if the fix can't be expressed as a list of replacements.
+   */
+  @Override
+  public final List<ContentsEditBatch.Edit> automaticFixReplacements(PageAnalysis analysis) {
+    if (configuration.getNoAuto()) {
+      return Collections.emptyList();
+    }
+    return internalAutomaticFixReplacements(analysis);
+  }
+
+  /**
+   * Automatic fixing of all the errors in the page, as a list of replacements.
+   * 
+   * Algorithms overriding {@link #internalAutomaticFix(PageAnalysis)} must
+   * also override this method, either to return the same fix as replacements,
+   * or to return null so that {@link #internalAutomaticFix(PageAnalysis)} is used.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents,
+   *         or null if the fix can't be expressed as a list of replacements.
+   */
+  protected List<ContentsEditBatch.Edit> internalAutomaticFixReplacements(PageAnalysis analysis) {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Bot fixing of all the errors in the page, as a list of replacements.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents,
+   *         or null if the fix can't be expressed as a list of replacements.
+   */
+  @Override
+  public final List<ContentsEditBatch.Edit> botFixReplacements(PageAnalysis analysis) {
+    if (configuration.getNoAuto()) {
+      return Collections.emptyList();
+    }
+    return internalBotFixReplacements(analysis);
+  }
+
+  /**
+   * Bot fixing of all the errors in the page, as a list of replacements.
+   * 
+   * Algorithms overriding {@link #internalBotFix(PageAnalysis)} must
+   * also override this method, either to return the same fix as replacements,
+   * or to return null so that {@link #internalBotFix(PageAnalysis)} is used.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents,
+   *         or null if the fix can't be expressed as a list of replacements.
+   */
+  protected List<ContentsEditBatch.Edit> internalBotFixReplacements(PageAnalysis analysis) {
+    return internalAutomaticFixReplacements(analysis);
+  }
+
   /**
    * @return List of possible global fixes.
    */
@@ -358,22 +425,21 @@ public abstract class CheckErrorAlgorithmBase implements CheckErrorAlgorithm {
    * @return Page contents after fix.
    */
   public String fixUsingFirstReplacement(String fixName, PageAnalysis analysis) {
-    String result = analysis.getContents();
+    return applyReplacements(analysis, getFirstReplacements(analysis));
+  }
+
+  /**
+   * Retrieve the first replacements proposed for all the errors in the page.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  protected List<ContentsEditBatch.Edit> getFirstReplacements(PageAnalysis analysis) {
     List<CheckErrorResult> errors = new ArrayList<CheckErrorResult>();
-    if (analyze(analysis, errors, false)) {
-      for (int i = errors.size(); i > 0; i--) {
-        CheckErrorResult errorResult = errors.get(i - 1);
-        String newText = errorResult.getFirstReplacement();
-        if (newText != null) {
-          String tmp =
-            result.substring(0, errorResult.getStartPosition()) +
-            newText +
-            result.substring(errorResult.getEndPosition());
-          result = tmp;
-        }
-      }
+    if (!analyze(analysis, errors, false)) {
+      return Collections.emptyList();
     }
-    return result;
+    return getReplacements(errors, FixType.FIRST);
   }
 
   /**
@@ -383,23 +449,22 @@ public abstract class CheckErrorAlgorithmBase implements CheckErrorAlgorithm {
    * @return Page contents after fix.
    */
   public String fixUsingAutomaticReplacement(PageAnalysis analysis) {
-    String result = analysis.getContents();
+    return applyReplacements(analysis, getAutomaticReplacements(analysis));
+  }
+
+  /**
+   * Retrieve the automatic replacements proposed for all the errors in the page.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  protected List<ContentsEditBatch.Edit> getAutomaticReplacements(PageAnalysis analysis) {
     List<CheckErrorResult> errors = new ArrayList<CheckErrorResult>();
-    if (analyze(analysis, errors, true)) {
-      Collections.sort(errors);
-      for (int i = errors.size(); i > 0; i--) {
-        CheckErrorResult errorResult = errors.get(i - 1);
-        String newText = errorResult.getAutomaticReplacement();
-        if (newText != null) {
-          String tmp =
-            result.substring(0, errorResult.getStartPosition()) +
-            newText +
-            result.substring(errorResult.getEndPosition());
-          result = tmp;
-        }
-      }
+    if (!analyze(analysis, errors, true)) {
+      return Collections.emptyList();
     }
-    return result;
+    Collections.sort(errors);
+    return getReplacements(errors, FixType.AUTOMATIC);
   }
 
   /**
@@ -409,23 +474,22 @@ public abstract class CheckErrorAlgorithmBase implements CheckErrorAlgorithm {
    * @return Page contents after fix.
    */
   public String fixUsingAutomaticBotReplacement(PageAnalysis analysis) {
-    String result = analysis.getContents();
+    return applyReplacements(analysis, getAutomaticBotReplacements(analysis));
+  }
+
+  /**
+   * Retrieve the automatic bot replacements proposed for all the errors in the page.
+   * 
+   * @param analysis Page analysis.
+   * @return Replacements to apply to the page contents.
+   */
+  protected List<ContentsEditBatch.Edit> getAutomaticBotReplacements(PageAnalysis analysis) {
     List<CheckErrorResult> errors = new ArrayList<CheckErrorResult>();
-    if (analyze(analysis, errors, true)) {
-      Collections.sort(errors);
-      for (int i = errors.size(); i > 0; i--) {
-        CheckErrorResult errorResult = errors.get(i - 1);
-        String newText = errorResult.getAutomaticBotReplacement();
-        if (newText != null) {
-          String tmp =
-            result.substring(0, errorResult.getStartPosition()) +
-            newText +
-            result.substring(errorResult.getEndPosition());
-          result = tmp;
-        }
-      }
+    if (!analyze(analysis, errors, true)) {
+      return Collections.emptyList();
     }
-    return result;
+    Collections.sort(errors);
+    return getReplacements(errors, FixType.AUTOMATIC_BOT);
   }
 
   /**
@@ -436,18 +500,86 @@ public abstract class CheckErrorAlgorithmBase implements CheckErrorAlgorithm {
    * @return Page contents after fix.
    */
   public String fixUsingRemove(String fixName, PageAnalysis analysis) {
-    String result = analysis.getContents();
     List<CheckErrorResult> errors = new ArrayList<CheckErrorResult>();
-    if (analyze(analysis, errors, false)) {
-      for (int i = errors.size(); i > 0; i--) {
-        CheckErrorResult errorResult = errors.get(i - 1);
-        String tmp =
-          result.substring(0, errorResult.getStartPosition()) +
-          result.substring(errorResult.getEndPosition());
-        result = tmp;
+    if (!analyze(analysis, errors, false)) {
+      return analysis.getContents();
+    }
+    return applyReplacements(
+        analysis, getReplacements(errors, FixType.REMOVE));
+  }
+
+  /**
+   * Types of fix applied to a list of errors.
+   */
+  private static enum FixType {
+    FIRST,
+    AUTOMATIC,
+    AUTOMATIC_BOT,
+    REMOVE;
+  }
+
+  /**
+   * Retrieve replacements for a list of errors.
+   * 
+   * Replacements are listed from the last error to the first one,
+   * so that the last one is kept when two errors overlap.
+   * 
+   * @param errors Errors found in the page.
+   * @param fixType Type of fix.
+   * @return Replacements to apply to the page contents.
+   */
+  private List<ContentsEditBatch.Edit> getReplacements(
+      List<CheckErrorResult> errors, FixType fixType) {
+    List<ContentsEditBatch.Edit> replacements =
+        new ArrayList<ContentsEditBatch.Edit>(errors.size());
+    for (int i = errors.size(); i > 0; i--) {
+      CheckErrorResult errorResult = errors.get(i - 1);
+      String newText = null;
+      switch (fixType) {
+      case FIRST:
+        newText = errorResult.getFirstReplacement();
+        break;
+      case AUTOMATIC:
+        newText = errorResult.getAutomaticReplacement();
+        break;
+      case AUTOMATIC_BOT:
+        newText = errorResult.getAutomaticBotReplacement();
+        break;
+      case REMOVE:
+        newText = "";
+        break;
+      }
+      if (newText != null) {
+        replacements.add(new ContentsEditBatch.Edit(
+            errorResult.getStartPosition(), errorResult.getEndPosition(),
+            newText));
       }
     }
-    return result;
+    return replacements;
+  }
+
+  /**
+   * Apply replacements to the page contents in a single pass.
+   * 
+   * @param analysis Page analysis.
+   * @param replacements Replacements to apply.
+   * @return Page contents after fix.
+   */
+  private String applyReplacements(
+      PageAnalysis analysis, List<ContentsEditBatch.Edit> replacements) {
+    if ((replacements == null) || replacements.isEmpty()) {
+      return analysis.getContents();
+    }
+    ContentsEditBatch batch = new ContentsEditBatch(analysis.getContents());
+    batch.addReplacements(replacements);
+    if (batch.hasOverlaps()) {
+      Page page = analysis.getPage();
+      log.warn(
+          "Overlapping replacements ignored for error " + getErrorNumberString() +
+          " in page " + ((page != null) ? page.getTitle() : "?") +
+          ": " + batch.getOverlaps());
+    }
+    return batch.apply();
   }
 
   /**
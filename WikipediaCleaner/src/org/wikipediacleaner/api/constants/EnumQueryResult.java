@@ -57,6 +57,9 @@ public enum EnumQueryResult {
                         "Bad title"),
   INVALID_USER         ("InvalidUser",
                         "Invalid username"),
+  MAX_LAG              ("maxlag",
+                        "Waiting for a lagged database server",
+                        5, 5),
   MISSING_TITLE        ("MissingTitle",
                         "The page you requested doesn't exist"),
   MUST_BE_POSTED       ("MustBePosted",
@@ -224,7 +227,8 @@ public enum EnumQueryResult {
       try {
         Thread.sleep(endWait - currentTime);
       } catch (InterruptedException e) {
-        // Try again
+        Thread.currentThread().interrupt();
+        return;
       }
     }
   }
@@ -10,8 +10,6 @@ package org.wikipediacleaner.api.constants;
 import java.awt.ComponentOrientation;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -19,6 +17,8 @@ import java.util.Set;
 import org.wikipediacleaner.Version;
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.DisambiguationCache;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.wiki.AbstractWikiSettings;
 import org.wikipediacleaner.api.constants.wiki.Waze;
 import org.wikipediacleaner.api.constants.wiki.WikiSkripta;
@@ -33,6 +33,7 @@ import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.impl.CommentDecorator;
 import org.wikipediacleaner.api.impl.ProgramCommentDecorator;
+import org.wikipediacleaner.utils.CompactStringSet;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 
@@ -119,7 +120,7 @@ public enum EnumWikipedia {
   
   TEST(new Wikipedia("test", "Test Wikipedia"));
 
-  private Set<String> disambiguationPages;
+  private CompactStringSet disambiguationPages;
   private List<Page> disambiguationTemplates;
 
   /**
@@ -328,83 +329,139 @@ public enum EnumWikipedia {
    * @throws APIException
    */
   public List<Page> constuctDisambiguationPages(API api) throws APIException {
+    final List<Page> tmpResult = new ArrayList<Page>();
+    boolean found = constructDisambiguationPages(api, new PagesListener() {
+
+      @Override
+      public boolean pagesRetrieved(List<Page> pages) {
+        tmpResult.addAll(pages);
+        return true;
+      }
+    });
+    return found ? tmpResult : null;
+  }
+
+  /**
+   * Construct list of disambiguation pages, part by part.
+   * 
+   * @param api Wikipedia API
+   * @param listener Listener for the disambiguation pages, as they are retrieved.
+   * @return False if there's no way to find disambiguation pages.
+   * @throws APIException
+   */
+  public boolean constructDisambiguationPages(
+      API api, final PagesListener listener) throws APIException {
 
     WPCConfiguration config = getConfiguration();
 
     // Use __DISAMBIG__ magic word if set
     boolean useDisambig = config.getBoolean(WPCConfigurationBoolean.DAB_USE_DISAMBIG_MAGIC_WORD);
     if (useDisambig) {
-      List<Page> tmpResult = api.retrievePagesWithProp(this, "disambiguation", false);
-      Iterator<Page> itPage = tmpResult.iterator();
-      while (itPage.hasNext()) {
-        Page page = itPage.next();
-        if (!page.isInMainNamespace()) {
-          itPage.remove();
-        } else {
-          page.setDisambiguationPage(Boolean.TRUE);
+      api.retrievePagesWithProp(this, "disambiguation", new PagesListener() {
+
+        @Override
+        public boolean pagesRetrieved(List<Page> pages) {
+          List<Page> tmpResult = new ArrayList<Page>(pages.size());
+          for (Page page : pages) {
+            if (page.isInMainNamespace()) {
+              page.setDisambiguationPage(Boolean.TRUE);
+              tmpResult.add(page);
+            }
+          }
+          return listener.pagesRetrieved(tmpResult);
         }
-      }
-      return tmpResult;
+      });
+      return true;
     }
 
     // Use categories if they are defined
     List<Page> dabCategories = config.getDisambiguationCategories();
     if ((dabCategories != null) && (dabCategories.size() > 0)) {
-      ArrayList<Page> tmpResult = new ArrayList<Page>();
       for (Page dabCategory : dabCategories) {
         api.retrieveCategoryMembers(
             this, dabCategory, 0, false, Integer.MAX_VALUE);
         List<Page> tmpPages = dabCategory.getRelatedPages(Page.RelatedPages.CATEGORY_MEMBERS);
-        if (tmpPages != null) {
-          tmpResult.ensureCapacity(tmpResult.size() + tmpPages.size());
-          for (Page page : tmpPages) {
-            if (page.isInMainNamespace()) {
-              tmpResult.add(page);
-            }
-          }
+        dabCategory.setRelatedPages(Page.RelatedPages.CATEGORY_MEMBERS, null);
+        if ((tmpPages != null) && !sendMainNamespacePages(tmpPages, listener)) {
+          return true;
         }
       }
-      return tmpResult;
+      return true;
     }
 
     // Use disambiguation templates
     if (disambiguationTemplates != null) {
-      ArrayList<Page> tmpResult = new ArrayList<Page>();
       for (Page dabTemplate : disambiguationTemplates) {
         api.retrieveEmbeddedIn(
             this, dabTemplate,
             Collections.singletonList(Namespace.MAIN),
             false);
         List<Page> tmpPages = dabTemplate.getRelatedPages(Page.RelatedPages.EMBEDDED_IN);
-        if (tmpPages != null) {
-          tmpResult.ensureCapacity(tmpResult.size() + tmpPages.size());
-          for (Page page : tmpPages) {
-            if (page.isInMainNamespace()) {
-              tmpResult.add(page);
-            }
-          }
+        dabTemplate.setRelatedPages(Page.RelatedPages.EMBEDDED_IN, null);
+        if ((tmpPages != null) && !sendMainNamespacePages(tmpPages, listener)) {
+          return true;
         }
       }
-      return tmpResult;
+      return true;
     }
 
+    return false;
+  }
+
+  /**
+   * @param pages List of pages.
+   * @param listener Listener for the pages in the main name space.
+   * @return True if the listener wants more pages.
+   */
+  private boolean sendMainNamespacePages(List<Page> pages, PagesListener listener) {
+    List<Page> tmpResult = new ArrayList<Page>(pages.size());
+    for (Page page : pages) {
+      if (page.isInMainNamespace()) {
+        tmpResult.add(page);
+      }
+    }
+    return listener.pagesRetrieved(tmpResult);
+  }
+
+  /**
+   * @return Description of the way disambiguation pages are found (null if none).
+   */
+  public String getDisambiguationSource() {
+    WPCConfiguration config = getConfiguration();
+    if (config.getBoolean(WPCConfigurationBoolean.DAB_USE_DISAMBIG_MAGIC_WORD)) {
+      return "__DISAMBIG__";
+    }
+    List<Page> dabCategories = config.getDisambiguationCategories();
+    if ((dabCategories != null) && (dabCategories.size() > 0)) {
+      StringBuilder source = new StringBuilder("Categories");
+      for (Page dabCategory : dabCategories) {
+        source.append('|');
+        source.append(dabCategory.getTitle());
+      }
+      return source.toString();
+    }
+    if (disambiguationTemplates != null) {
+      StringBuilder source = new StringBuilder("Templates");
+      for (Page dabTemplate : disambiguationTemplates) {
+        source.append('|');
+        source.append(dabTemplate.getTitle());
+      }
+      return source.toString();
+    }
     return null;
   }
 
   /**
    * Load all disambiguation pages.
    * 
+   * The list is kept on disk and only refreshed with the recent changes when possible.
+   * 
    * @param api Wikipedia API.
    * @throws APIException
    */
   public void loadDisambiguationPages(API api) throws APIException {
     try {
-      List<Page> tmpPages = constuctDisambiguationPages(api);
-      HashSet<String> tmpResult = new HashSet<String>();
-      for (Page page : tmpPages) {
-        tmpResult.add(page.getTitle());
-      }
-      disambiguationPages = tmpResult;
+      disambiguationPages = DisambiguationCache.getCache(this).update(api);
     } catch (APIException e) {
       disambiguationPages = null;
       throw e;
@@ -418,8 +475,10 @@ public enum EnumWikipedia {
     if (dabPages == null) {
       return;
     }
-    HashSet<String> tmpResult = new HashSet<String>(dabPages.size());
-    tmpResult.addAll(dabPages);
+    CompactStringSet tmpResult = new CompactStringSet(dabPages.size());
+    for (String dabPage : dabPages) {
+      tmpResult.add(dabPage);
+    }
     disambiguationPages = tmpResult;
   }
 
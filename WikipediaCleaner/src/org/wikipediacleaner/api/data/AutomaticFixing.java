@@ -7,8 +7,14 @@
 
 package org.wikipediacleaner.api.data;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -34,6 +40,16 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
    */
   private boolean regex;
 
+  /**
+   * Compiled regular expression (lazily initialized).
+   */
+  private volatile Pattern pattern;
+
+  /**
+   * True if the regular expression can't be compiled.
+   */
+  private volatile boolean patternError;
+
   /**
    * Default constructor.
    */
@@ -66,6 +82,7 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
    */
   public void setOriginalText(String text) {
     originalText = text;
+    resetPattern();
   }
 
   /**
@@ -94,6 +111,47 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
    */
   public void setRegex(Boolean flag) {
     regex = Boolean.TRUE.equals(flag);
+    resetPattern();
+  }
+
+  /**
+   * Reset the compiled regular expression.
+   */
+  private void resetPattern() {
+    pattern = null;
+    patternError = false;
+  }
+
+  /**
+   * @return Regular expression matching the texts modified by this automatic fixing,
+   *         or null if the expression is not valid.
+   */
+  public Pattern getSearchPattern() {
+    if (regex) {
+      return getPattern();
+    }
+    if ((originalText == null) || (originalText.length() == 0)) {
+      return null;
+    }
+    return Pattern.compile(originalText, Pattern.LITERAL);
+  }
+
+  /**
+   * @return Compiled regular expression, or null if the expression is not valid.
+   */
+  private Pattern getPattern() {
+    Pattern result = pattern;
+    if ((result != null) || patternError) {
+      return result;
+    }
+    try {
+      result = Pattern.compile(originalText);
+      pattern = result;
+    } catch (PatternSyntaxException e) {
+      patternError = true;
+      System.err.println("Error with " + originalText + ": " + e.getMessage());
+    }
+    return result;
   }
 
   /**
@@ -111,9 +169,15 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
       return text;
     }
 
+    // Find which basic expressions are present in the text in a single scan
+    AutomaticFixing[] fixingArray = fixing.toArray(new AutomaticFixing[fixing.size()]);
+    BasicExpressions basicExpressions = BasicExpressions.getBasicExpressions(fixingArray);
+    boolean[] present = basicExpressions.find(text, 0);
+
     // Apply each automatic fixing expression to the text
     StringBuffer tmpText = new StringBuffer();
-    for (AutomaticFixing replacement : fixing) {
+    for (int fixingNum = 0; fixingNum < fixingArray.length; fixingNum++) {
+      AutomaticFixing replacement = fixingArray[fixingNum];
 
       // Initialize data
       tmpText.setLength(0);
@@ -126,8 +190,8 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
       int currentIndex = 0;
       if (replacement.regex) {
         // Apply for a regular expression
-        try {
-          Pattern pattern = Pattern.compile(originalText);
+        Pattern pattern = replacement.getPattern();
+        if (pattern != null) {
           Matcher matcher = pattern.matcher(text);
           while (matcher.find()) {
             String foundText = matcher.group();
@@ -144,10 +208,8 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
             }
             currentIndex = end;
           }
-        } catch (PatternSyntaxException e) {
-          System.err.println("Error with " + originalText + ": " + e.getMessage());
         }
-      } else {
+      } else if (present[fixingNum]) {
         // Apply for a basic expression
         boolean finished = false;
         while (!finished) {
@@ -156,7 +218,7 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
             finished = true;
           } else {
             if (newIndex > currentIndex) {
-              tmpText.append(text.substring(currentIndex, newIndex));
+              tmpText.append(text, currentIndex, newIndex);
               currentIndex = newIndex;
             }
             tmpText.append(replacementText);
@@ -172,15 +234,218 @@ public class AutomaticFixing implements Comparable<AutomaticFixing> {
       }
       if (currentIndex > 0) {
         if (currentIndex < text.length()) {
-          tmpText.append(text.substring(currentIndex));
+          tmpText.append(text, currentIndex, text.length());
         }
         text = tmpText.toString();
+
+        // Text has been modified: find again the remaining basic expressions
+        present = basicExpressions.find(text, fixingNum + 1);
       }
     }
 
     return text;
   }
 
+  /**
+   * Multi-pattern matcher (Aho-Corasick automaton) for the basic expressions
+   * of a list of automatic fixing expressions.
+   * 
+   * All basic expressions are searched in a single scan of the text.
+   * Automatons are cached, so they are built once for each list of expressions.
+   */
+  private static class BasicExpressions {
+
+    /** Maximum number of automatons in the cache */
+    private final static int CACHE_SIZE = 16;
+
+    /** Cache of automatons, indexed by the texts of the basic expressions */
+    private final static Map<List<String>, BasicExpressions> cache =
+        new LinkedHashMap<List<String>, BasicExpressions>(CACHE_SIZE, 0.75f, true) {
+
+          /** Serialisation */
+          private static final long serialVersionUID = 1L;
+
+          /**
+           * @param eldest Least recently used automaton.
+           * @return True if the least recently used automaton should be removed.
+           * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+           */
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<List<String>, BasicExpressions> eldest) {
+            return size() > CACHE_SIZE;
+          }
+        };
+
+    /**
+     * @param fixing Automatic fixing expressions.
+     * @return Automaton for the basic expressions.
+     */
+    static BasicExpressions getBasicExpressions(AutomaticFixing[] fixing) {
+      List<String> texts = new ArrayList<String>(fixing.length);
+      for (AutomaticFixing oneFixing : fixing) {
+        String originalText = oneFixing.getOriginalText();
+        if (!oneFixing.regex && (originalText != null) && (originalText.length() > 0)) {
+          texts.add(originalText);
+        } else {
+          texts.add(null);
+        }
+      }
+      synchronized (cache) {
+        BasicExpressions result = cache.get(texts);
+        if (result == null) {
+          result = new BasicExpressions(texts);
+          cache.put(texts, result);
+        }
+        return result;
+      }
+    }
+
+    /** Flags indicating for each expression if it's a basic expression */
+    private final boolean[] basic;
+
+    /** Characters of the transitions from each state (sorted) */
+    private final char[][] transitionChars;
+
+    /** Target states of the transitions from each state */
+    private final int[][] transitionStates;
+
+    /** Failure state of each state */
+    private final int[] failures;
+
+    /** Expressions found when reaching each state */
+    private final int[][] outputs;
+
+    /**
+     * @param texts Texts of the basic expressions (null for other expressions).
+     */
+    private BasicExpressions(List<String> texts) {
+      this.basic = new boolean[texts.size()];
+
+      // Build the trie
+      List<Map<Character, Integer>> trie = new ArrayList<Map<Character, Integer>>();
+      List<List<Integer>> tmpOutputs = new ArrayList<List<Integer>>();
+      trie.add(new HashMap<Character, Integer>());
+      tmpOutputs.add(new ArrayList<Integer>());
+      for (int fixingNum = 0; fixingNum < texts.size(); fixingNum++) {
+        String text = texts.get(fixingNum);
+        if (text != null) {
+          basic[fixingNum] = true;
+          int state = 0;
+          for (int index = 0; index < text.length(); index++) {
+            Character c = Character.valueOf(text.charAt(index));
+            Integer next = trie.get(state).get(c);
+            if (next == null) {
+              next = Integer.valueOf(trie.size());
+              trie.add(new HashMap<Character, Integer>());
+              tmpOutputs.add(new ArrayList<Integer>());
+              trie.get(state).put(c, next);
+            }
+            state = next.intValue();
+          }
+          tmpOutputs.get(state).add(Integer.valueOf(fixingNum));
+        }
+      }
+
+      // Compact transitions
+      int stateCount = trie.size();
+      transitionChars = new char[stateCount][];
+      transitionStates = new int[stateCount][];
+      for (int state = 0; state < stateCount; state++) {
+        Map<Character, Integer> transitions = trie.get(state);
+        char[] chars = new char[transitions.size()];
+        int index = 0;
+        for (Character c : transitions.keySet()) {
+          chars[index++] = c.charValue();
+        }
+        Arrays.sort(chars);
+        int[] states = new int[chars.length];
+        for (index = 0; index < chars.length; index++) {
+          states[index] = transitions.get(Character.valueOf(chars[index])).intValue();
+        }
+        transitionChars[state] = chars;
+        transitionStates[state] = states;
+      }
+
+      // Compute failure states in breadth first order, and merge outputs
+      failures = new int[stateCount];
+      LinkedList<Integer> queue = new LinkedList<Integer>();
+      for (int next : transitionStates[0]) {
+        queue.add(Integer.valueOf(next));
+      }
+      while (!queue.isEmpty()) {
+        int state = queue.removeFirst().intValue();
+        for (int index = 0; index < transitionChars[state].length; index++) {
+          char c = transitionChars[state][index];
+          int next = transitionStates[state][index];
+          int failure = failures[state];
+          int target = getTransition(failure, c);
+          while ((target < 0) && (failure != 0)) {
+            failure = failures[failure];
+            target = getTransition(failure, c);
+          }
+          failures[next] = (target < 0) ? 0 : target;
+          tmpOutputs.get(next).addAll(tmpOutputs.get(failures[next]));
+          queue.add(Integer.valueOf(next));
+        }
+      }
+      outputs = new int[stateCount][];
+      for (int state = 0; state < stateCount; state++) {
+        List<Integer> output = tmpOutputs.get(state);
+        outputs[state] = new int[output.size()];
+        for (int index = 0; index < output.size(); index++) {
+          outputs[state][index] = output.get(index).intValue();
+        }
+      }
+    }
+
+    /**
+     * @param state Current state.
+     * @param c Character.
+     * @return Next state (-1 if there's no transition for this character).
+     */
+    private int getTransition(int state, char c) {
+      int index = Arrays.binarySearch(transitionChars[state], c);
+      return (index < 0) ? -1 : transitionStates[state][index];
+    }
+
+    /**
+     * Find which basic expressions are present in a text.
+     * 
+     * @param text Text.
+     * @param first Index of the first expression to search.
+     * @return Flags indicating for each expression if it's present in the text.
+     */
+    boolean[] find(String text, int first) {
+      boolean[] present = new boolean[basic.length];
+      int remaining = 0;
+      for (int fixingNum = first; fixingNum < basic.length; fixingNum++) {
+        if (basic[fixingNum]) {
+          remaining++;
+        }
+      }
+
+      // Scan the text
+      int state = 0;
+      int length = text.length();
+      for (int index = 0; (index < length) && (remaining > 0); index++) {
+        char c = text.charAt(index);
+        int next = getTransition(state, c);
+        while ((next < 0) && (state != 0)) {
+          state = failures[state];
+          next = getTransition(state, c);
+        }
+        state = (next < 0) ? 0 : next;
+        for (int fixingNum : outputs[state]) {
+          if ((fixingNum >= first) && !present[fixingNum]) {
+            present[fixingNum] = true;
+            remaining--;
+          }
+        }
+      }
+      return present;
+    }
+  }
+
   /**
    * @param af Other automatic fixing expression.
    * @return Comparison of the two automatic fixing expressions.
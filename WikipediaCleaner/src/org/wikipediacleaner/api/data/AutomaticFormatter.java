@@ -11,6 +11,8 @@ package org.wikipediacleaner.api.data;
 import java.util.Collection;
 import java.util.List;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wikipediacleaner.api.check.CheckError;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithms;
@@ -25,6 +27,9 @@ import org.wikipediacleaner.api.constants.WPCConfigurationString;
  */
 public class AutomaticFormatter {
 
+  /** Logger */
+  private final static Log log = LogFactory.getLog(AutomaticFormatter.class);
+
   /**
    * Tidy up an article.
    * 
@@ -46,20 +51,7 @@ public class AutomaticFormatter {
     WPCConfiguration config = wiki.getConfiguration();
 
     // Fix Check Wiki errors
-    if (algorithms != null) {
-      for (CheckErrorAlgorithm algorithm : algorithms) {
-        if (algorithm.isAvailable() &&
-            CheckErrorAlgorithms.isAlgorithmActive(wiki, algorithm.getErrorNumber())) {
-          String currentContents = contents;
-          PageAnalysis analysis = page.getAnalysis(currentContents, true);
-          contents = botFix ? algorithm.botFix(analysis) : algorithm.automaticFix(analysis);
-          if ((usedAlgorithms != null) && (!contents.equals(currentContents))) {
-            // TODO: compute if fix is complete ?
-            usedAlgorithms.add(new CheckError.Progress(algorithm, true));
-          }
-        }
-      }
-    }
+    contents = fixCheckWikiErrors(page, contents, algorithms, botFix, usedAlgorithms);
 
     // Auto formatting options
     if (!page.isInMainNamespace()) {
@@ -79,6 +71,118 @@ public class AutomaticFormatter {
     return contents;
   }
 
+  /**
+   * Fix Check Wiki errors.
+   * 
+   * Algorithms able to express their fix as a list of replacements are
+   * merged in a single batch computed on the same page analysis.
+   * The batch is applied and the page analyzed again only when needed:
+   * when an algorithm proposes replacements overlapping the ones already
+   * in the batch, or when an algorithm can't express its fix as replacements.
+   * Each algorithm is used at most twice (once on the current batch,
+   * once again after the batch has been applied), so the number of rounds
+   * is bounded by the number of algorithms.
+   * 
+   * Unlike when each fix was applied before using the next algorithm,
+   * algorithms merged in the same batch analyze the same contents: an
+   * algorithm doesn't see the fixes of the previous algorithms of the batch,
+   * so an error only revealed by an earlier fix is fixed on the next run.
+   * Replacements of an algorithm overlapping each other are ignored
+   * (except the first one) and logged.
+   * 
+   * @param page Page.
+   * @param contents Current contents.
+   * @param algorithms List of Check Wiki algorithms.
+   * @param botFix True to use bot fixes.
+   * @param usedAlgorithms Algorithms used to tidy up the article.
+   * @return New contents.
+   */
+  private static String fixCheckWikiErrors(
+      Page page, String contents,
+      Collection<CheckErrorAlgorithm> algorithms, boolean botFix,
+      List<CheckError.Progress> usedAlgorithms) {
+    if (algorithms == null) {
+      return contents;
+    }
+    EnumWikipedia wiki = page.getWikipedia();
+    PageAnalysis analysis = null;
+    ContentsEditBatch batch = new ContentsEditBatch(contents);
+    for (CheckErrorAlgorithm algorithm : algorithms) {
+      if (algorithm.isAvailable() &&
+          CheckErrorAlgorithms.isAlgorithmActive(wiki, algorithm.getErrorNumber())) {
+
+        // Try to merge the replacements in the current batch
+        if (analysis == null) {
+          analysis = page.getAnalysis(contents, true);
+        }
+        List<ContentsEditBatch.Edit> replacements = botFix ?
+            algorithm.botFixReplacements(analysis) :
+            algorithm.automaticFixReplacements(analysis);
+        int overlapsCount = batch.getOverlaps().size();
+        if ((replacements != null) && batch.addReplacements(replacements)) {
+          logOverlaps(page, algorithm, batch, overlapsCount);
+          if ((usedAlgorithms != null) &&
+              ContentsEditBatch.isModifying(contents, replacements)) {
+            usedAlgorithms.add(new CheckError.Progress(algorithm, true));
+          }
+          continue;
+        }
+
+        // Apply the current batch before using the algorithm
+        if (!batch.isEmpty()) {
+          contents = batch.apply();
+          batch = new ContentsEditBatch(contents);
+          analysis = page.getAnalysis(contents, true);
+          if (replacements != null) {
+            replacements = botFix ?
+                algorithm.botFixReplacements(analysis) :
+                algorithm.automaticFixReplacements(analysis);
+          }
+        }
+        if (replacements != null) {
+          overlapsCount = batch.getOverlaps().size();
+          batch.addReplacements(replacements);
+          logOverlaps(page, algorithm, batch, overlapsCount);
+          if ((usedAlgorithms != null) &&
+              ContentsEditBatch.isModifying(contents, replacements)) {
+            usedAlgorithms.add(new CheckError.Progress(algorithm, true));
+          }
+        } else {
+          String currentContents = contents;
+          contents = botFix ? algorithm.botFix(analysis) : algorithm.automaticFix(analysis);
+          if (!contents.equals(currentContents)) {
+            batch = new ContentsEditBatch(contents);
+            analysis = null;
+            if (usedAlgorithms != null) {
+              // TODO: compute if fix is complete ?
+              usedAlgorithms.add(new CheckError.Progress(algorithm, true));
+            }
+          }
+        }
+      }
+    }
+    return batch.apply();
+  }
+
+  /**
+   * Log replacements of an algorithm ignored because they overlap each other.
+   * 
+   * @param page Page.
+   * @param algorithm Algorithm.
+   * @param batch Batch of replacements.
+   * @param previousCount Number of ignored replacements before adding the ones of the algorithm.
+   */
+  private static void logOverlaps(
+      Page page, CheckErrorAlgorithm algorithm,
+      ContentsEditBatch batch, int previousCount) {
+    List<ContentsEditBatch.Edit> overlaps = batch.getOverlaps();
+    for (int i = previousCount; i < overlaps.size(); i++) {
+      log.warn(
+          "Overlapping replacement ignored for error n°" + algorithm.getErrorNumberString() +
+          " in " + page.getTitle() + ": " + overlaps.get(i));
+    }
+  }
+
   /**
    * Auto formatting options: link default sort and categories.
    * 
@@ -0,0 +1,300 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Utility class to apply a batch of replacements to page contents.
+ *
+ * Replacements are collected with their positions in the original contents,
+ * and the new contents is built in a single pass once all of them are known.
+ * A replacement overlapping an already accepted one is rejected and recorded
+ * so that it can be reported, instead of corrupting the contents.
+ */
+public class ContentsEditBatch {
+
+  /**
+   * A replacement of a part of the original contents.
+   */
+  public static class Edit {
+
+    /** Beginning of the replaced area in the original contents */
+    private final int beginIndex;
+
+    /** End of the replaced area in the original contents */
+    private final int endIndex;
+
+    /** Replacement text */
+    private final String text;
+
+    /**
+     * @param beginIndex Beginning of the replaced area.
+     * @param endIndex End of the replaced area.
+     * @param text Replacement text.
+     */
+    public Edit(int beginIndex, int endIndex, String text) {
+      this.beginIndex = beginIndex;
+      this.endIndex = endIndex;
+      this.text = (text != null) ? text : "";
+    }
+
+    /**
+     * @return Beginning of the replaced area in the original contents.
+     */
+    public int getBeginIndex() {
+      return beginIndex;
+    }
+
+    /**
+     * @return End of the replaced area in the original contents.
+     */
+    public int getEndIndex() {
+      return endIndex;
+    }
+
+    /**
+     * @return Replacement text.
+     */
+    public String getText() {
+      return text;
+    }
+
+    /**
+     * @param other Other replacement.
+     * @return True if both replacements modify a common part of the contents.
+     */
+    boolean overlaps(Edit other) {
+      if (other == null) {
+        return false;
+      }
+      if (beginIndex == other.beginIndex) {
+        return true;
+      }
+      if (beginIndex < other.beginIndex) {
+        return endIndex > other.beginIndex;
+      }
+      return other.endIndex > beginIndex;
+    }
+
+    /**
+     * @return Textual representation of the object.
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "[" + beginIndex + "," + endIndex + "] -> \"" + text + "\"";
+    }
+  }
+
+  /** Original contents */
+  private final String contents;
+
+  /** Accepted replacements, indexed by beginning in the original contents */
+  private final TreeMap<Integer, Edit> edits;
+
+  /** Rejected replacements because of an overlap */
+  private List<Edit> overlaps;
+
+  /** Total length difference introduced by the accepted replacements */
+  private int delta;
+
+  /**
+   * @param contents Original contents.
+   */
+  public ContentsEditBatch(String contents) {
+    this.contents = (contents != null) ? contents : "";
+    this.edits = new TreeMap<Integer, Edit>();
+    this.overlaps = null;
+    this.delta = 0;
+  }
+
+  /**
+   * @return Original contents.
+   */
+  public String getContents() {
+    return contents;
+  }
+
+  /**
+   * Add a replacement to the batch.
+   *
+   * @param beginIndex Beginning of the replaced area in the original contents.
+   * @param endIndex End of the replaced area in the original contents.
+   * @param text Replacement text.
+   * @return True if the replacement has been accepted,
+   *         false if it overlaps a replacement already in the batch.
+   */
+  public boolean addReplacement(int beginIndex, int endIndex, String text) {
+    if ((beginIndex < 0) ||
+        (endIndex < beginIndex) ||
+        (endIndex > contents.length())) {
+      throw new IndexOutOfBoundsException(
+          "Invalid replacement [" + beginIndex + "," + endIndex + "] " +
+          "for contents of length " + contents.length());
+    }
+    Edit edit = new Edit(beginIndex, endIndex, text);
+
+    // Check overlaps with the closest replacements
+    if (overlaps(edit)) {
+      if (overlaps == null) {
+        overlaps = new ArrayList<Edit>();
+      }
+      overlaps.add(edit);
+      return false;
+    }
+
+    edits.put(Integer.valueOf(beginIndex), edit);
+    delta += edit.text.length() - (endIndex - beginIndex);
+    return true;
+  }
+
+  /**
+   * Add a group of replacements to the batch.
+   * 
+   * The group is added only if none of its replacements overlaps
+   * a replacement already in the batch.
+   * Overlaps between replacements of the group are handled as in
+   * {@link #addReplacement(int, int, String)}: the first one is kept.
+   *
+   * @param group Replacements.
+   * @return True if the group has been added,
+   *         false if it overlaps replacements already in the batch.
+   */
+  public boolean addReplacements(Collection<Edit> group) {
+    if (group == null) {
+      return true;
+    }
+    for (Edit edit : group) {
+      if (overlaps(edit)) {
+        return false;
+      }
+    }
+    for (Edit edit : group) {
+      addReplacement(edit.beginIndex, edit.endIndex, edit.text);
+    }
+    return true;
+  }
+
+  /**
+   * @param edit Replacement.
+   * @return True if the replacement overlaps a replacement already in the batch.
+   */
+  private boolean overlaps(Edit edit) {
+    Map.Entry<Integer, Edit> previous = edits.floorEntry(Integer.valueOf(edit.beginIndex));
+    if ((previous != null) && edit.overlaps(previous.getValue())) {
+      return true;
+    }
+    Map.Entry<Integer, Edit> next = edits.ceilingEntry(Integer.valueOf(edit.beginIndex));
+    if ((next != null) && edit.overlaps(next.getValue())) {
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Add a removal to the batch.
+   *
+   * @param beginIndex Beginning of the removed area in the original contents.
+   * @param endIndex End of the removed area in the original contents.
+   * @return True if the removal has been accepted,
+   *         false if it overlaps a replacement already in the batch.
+   */
+  public boolean addRemoval(int beginIndex, int endIndex) {
+    return addReplacement(beginIndex, endIndex, "");
+  }
+
+  /**
+   * @return True if the accepted replacements modify the original contents.
+   */
+  public boolean isModifying() {
+    return isModifying(contents, edits.values());
+  }
+
+  /**
+   * @param contents Original contents.
+   * @param group Replacements.
+   * @return True if at least one of the replacements modifies the contents.
+   */
+  public static boolean isModifying(String contents, Collection<Edit> group) {
+    if ((contents == null) || (group == null)) {
+      return false;
+    }
+    for (Edit edit : group) {
+      if ((edit.text.length() != edit.endIndex - edit.beginIndex) ||
+          !contents.regionMatches(edit.beginIndex, edit.text, 0, edit.text.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return True if no replacement has been accepted.
+   */
+  public boolean isEmpty() {
+    return edits.isEmpty();
+  }
+
+  /**
+   * @return Number of accepted replacements.
+   */
+  public int getEditsCount() {
+    return edits.size();
+  }
+
+  /**
+   * @return Accepted replacements, ordered by position.
+   */
+  public List<Edit> getEdits() {
+    return new ArrayList<Edit>(edits.values());
+  }
+
+  /**
+   * @return True if some replacements have been rejected because of overlaps.
+   */
+  public boolean hasOverlaps() {
+    return (overlaps != null) && !overlaps.isEmpty();
+  }
+
+  /**
+   * @return Replacements rejected because of overlaps.
+   */
+  public List<Edit> getOverlaps() {
+    if (overlaps == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(overlaps);
+  }
+
+  /**
+   * Build the new contents by applying all the accepted replacements.
+   *
+   * @return New contents.
+   */
+  public String apply() {
+    if (edits.isEmpty()) {
+      return contents;
+    }
+    StringBuilder buffer = new StringBuilder(contents.length() + Math.max(delta, 0));
+    int lastIndex = 0;
+    for (Edit edit : edits.values()) {
+      buffer.append(contents, lastIndex, edit.beginIndex);
+      buffer.append(edit.text);
+      lastIndex = edit.endIndex;
+    }
+    buffer.append(contents, lastIndex, contents.length());
+    return buffer.toString();
+  }
+}
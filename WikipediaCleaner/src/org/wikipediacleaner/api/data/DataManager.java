@@ -22,6 +22,8 @@ import org.wikipediacleaner.utils.Configuration;
 public class DataManager {
 
   /**
+   * Get a page, shared with the other users of the same page.
+   * 
    * @param wikipedia Wikipedia.
    * @param title Page title.
    * @param pageId Page id.
@@ -46,7 +48,48 @@ public class DataManager {
       }
     }
 
-    // Retrieve page
+    // Check in the registry of pages
+    PageRegistry registry = PageRegistry.getRegistry(wikipedia);
+    Page page = registry.getPage(title, pageId);
+    if (page != null) {
+      if (revisionId != null) {
+        if (page.getRevisionId() == null) {
+          page.setRevisionId(revisionId);
+        } else if (!revisionId.equals(page.getRevisionId().toString())) {
+          // Another revision of the page, not shared
+          return createPage(wikipedia, title, pageId, revisionId);
+        }
+      }
+      if ((pageId != null) && (page.getPageId() == null)) {
+        page.setPageId(pageId);
+        registry.registerPageId(page);
+      }
+      return page;
+    }
+
+    // Create page
+    page = createPage(wikipedia, title, pageId, revisionId);
+    return registry.register(page);
+  }
+
+  /**
+   * Create a page, not shared with other users of the same page.
+   * 
+   * Useful for pages which don't represent the current state of the page
+   * on the wiki (pages from a dump, ...), or which are opened for editing
+   * (contents and timestamps are used to detect edit conflicts).
+   * 
+   * @param wikipedia Wikipedia.
+   * @param title Page title.
+   * @param pageId Page id.
+   * @param revisionId Revision id.
+   * @return The requested page.
+   */
+  public static Page createPage(
+      EnumWikipedia wikipedia,
+      String title, Integer pageId, String revisionId) {
+
+    // Create page
     Page page = new Page(wikipedia, title);
     page.setPageId(pageId);
     page.setRevisionId(revisionId);
@@ -98,4 +141,16 @@ public class DataManager {
       return iso8601DateTime.parse(date);
     }
   }
+
+  /**
+   * Convert a date to a string in ISO 8601 format.
+   * 
+   * @param date Date.
+   * @return Date in ISO 8601 format.
+   */
+  public static String convertDateTimeIso8601(Date date) {
+    synchronized (iso8601DateTime) {
+      return iso8601DateTime.format(date);
+    }
+  }
 }
@@ -20,8 +20,8 @@ import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.input.SAXBuilder;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.i18n.GT;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -262,7 +262,7 @@ public class ISBNRange {
    * @throws JDOMException
    */
   private static void analyzeRanges(Element root, List<Range> ranges, String xpath) throws JDOMException {
-    XPathExpression<Element> xpa = XPathFactory.instance().compile(xpath, Filters.element());
+    XPathExpression<Element> xpa = XPathCache.compile(xpath, Filters.element());
     List<Element> results = xpa.evaluate(root);
     Iterator<Element> iter = results.iterator();
     while (iter.hasNext()) {
@@ -285,7 +285,7 @@ public class ISBNRange {
    * @throws JDOMException
    */
   private static void analyzeRules(Element node, Range rangeElement) throws JDOMException {
-    XPathExpression<Element> xpa = XPathFactory.instance().compile(
+    XPathExpression<Element> xpa = XPathCache.compile(
         "./Rules/Rule", Filters.element());
     List<Element> results = xpa.evaluate(node);
     Iterator<Element> iter = results.iterator();
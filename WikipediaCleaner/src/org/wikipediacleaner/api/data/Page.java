@@ -65,6 +65,12 @@ public class Page implements Comparable<Page> {
   private ProgressionValue backLinksOtherProgression;
   private ProgressionValue backLinksTemplateProgression;
 
+  /**
+   * Lock for the contents, the revision id and the time stamps.
+   * A page may be shared between threads: they are updated and read together.
+   */
+  private final Object revisionLock = new Object();
+
   /**
    * @param wiki Wiki.
    * @param title Page title.
@@ -88,7 +94,42 @@ public class Page implements Comparable<Page> {
     Page page = new Page(wikipedia, title);
     page.pageId = pageId;
     page.namespace = namespace;
-    page.revisionId = revisionId;
+    page.revisionId = getRevisionId();
+    return page;
+  }
+
+  /**
+   * Take a snapshot of the page before analyzing and editing it.
+   * 
+   * The contents, the revision id and the time stamps are read together:
+   * an edit built from the contents of the snapshot is sent with the time
+   * stamps of these contents, even if an other thread retrieves the page
+   * again in the meantime, so edit conflicts are still detected.
+   * The snapshot is not shared, but it refers to the same links,
+   * templates and redirects as the page.
+   * 
+   * @return Snapshot of the page.
+   */
+  public Page snapshotPage() {
+    Page page = new Page(wikipedia, title);
+    page.pageId = pageId;
+    page.namespace = namespace;
+    synchronized (revisionLock) {
+      page.contents = contents;
+      page.revisionId = revisionId;
+      page.contentsTimestamp = contentsTimestamp;
+      page.startTimestamp = startTimestamp;
+    }
+    page.editProtectionLevel = editProtectionLevel;
+    page.disambiguation = disambiguation;
+    page.wiktionaryLink = wiktionaryLink;
+    page.exist = exist;
+    page.links = links;
+    page.templates = templates;
+    page.relatedPages.putAll(relatedPages);
+    page.comment = comment;
+    page.isRedirect = isRedirect;
+    page.redirects = redirects;
     return page;
   }
 
@@ -113,6 +154,15 @@ public class Page implements Comparable<Page> {
    */
   public static String normalizeTitle(String pageTitle) {
     // TODO: should be by Wiki (capitalization of first letter)
+    return normalizeTitle(pageTitle, true);
+  }
+
+  /**
+   * @param pageTitle Title.
+   * @param ucFirst True if the first letter should be capitalized.
+   * @return Normalized title.
+   */
+  public static String normalizeTitle(String pageTitle, boolean ucFirst) {
     if (pageTitle == null) {
       return null;
     }
@@ -124,7 +174,9 @@ public class Page implements Comparable<Page> {
     result = result.replaceAll("_", " ");
     result = result.replaceAll(" +", " ");
     result = result.trim();
-    result = Page.getStringUcFirst(result);
+    if (ucFirst) {
+      result = Page.getStringUcFirst(result);
+    }
     return result;
   }
 
@@ -244,30 +296,46 @@ public class Page implements Comparable<Page> {
    * @return Page contents.
    */
   public String getContents() {
-    return contents;
+    synchronized (revisionLock) {
+      return contents;
+    }
   }
 
   /**
    * @param contents Page contents.
    */
   public void setContents(String contents) {
-    this.contents = contents;
+    synchronized (revisionLock) {
+      this.contents = contents;
+    }
   }
 
   /**
    * @return Revision id.
    */
   public Integer getRevisionId() {
-    return revisionId;
+    synchronized (revisionLock) {
+      return revisionId;
+    }
   }
 
   /**
    * @param revisionId Revision id. 
    */
   public void setRevisionId(String revisionId) {
-    this.revisionId = Integer.valueOf(-1);
+    Integer value = parseRevisionId(revisionId);
+    synchronized (revisionLock) {
+      this.revisionId = value;
+    }
+  }
+
+  /**
+   * @param revisionId Revision id.
+   * @return Revision id as an integer (-1 if it can't be parsed).
+   */
+  private static Integer parseRevisionId(String revisionId) {
     if (revisionId == null) {
-      return;
+      return Integer.valueOf(-1);
     }
     while (revisionId.startsWith("\"")) {
       revisionId = revisionId.substring(1);
@@ -276,30 +344,61 @@ public class Page implements Comparable<Page> {
       revisionId = revisionId.substring(0, revisionId.length() - 1);
     }
     try {
-      this.revisionId = new Integer(revisionId);
+      return new Integer(revisionId);
     } catch (NumberFormatException e) {
       //
     }
+    return Integer.valueOf(-1);
+  }
+
+  /**
+   * Set the last revision of the page.
+   * 
+   * The contents, the revision id and the time stamp are set together,
+   * so that a snapshot of the page never mixes two revisions.
+   * 
+   * @param contents Page contents.
+   * @param revisionId Revision id.
+   * @param timestamp Contents time stamp.
+   * @see #snapshotPage()
+   */
+  public void setLastRevision(String contents, String revisionId, String timestamp) {
+    Integer value = parseRevisionId(revisionId);
+    synchronized (revisionLock) {
+      this.contents = contents;
+      this.revisionId = value;
+      this.contentsTimestamp = timestamp;
+    }
   }
 
   /**
    * @return Contents time stamp.
    */
   public String getContentsTimestamp() {
-    return contentsTimestamp;
+    synchronized (revisionLock) {
+      return contentsTimestamp;
+    }
   }
 
   /**
    * @param timestamp Contents time stamp.
    */
   public void setContentsTimestamp(String timestamp) {
-    this.contentsTimestamp = timestamp;
+    synchronized (revisionLock) {
+      this.contentsTimestamp = timestamp;
+    }
   }
 
   /**
    * @return Age of the contents compared to the start date (in seconds).
    */
   public Long getContentsAge() {
+    String contentsTimestamp = null;
+    String startTimestamp = null;
+    synchronized (revisionLock) {
+      contentsTimestamp = this.contentsTimestamp;
+      startTimestamp = this.startTimestamp;
+    }
     if ((contentsTimestamp == null) || (startTimestamp == null)) {
       return null;
     }
@@ -318,14 +417,18 @@ public class Page implements Comparable<Page> {
    * @return Start time stamp.
    */
   public String getStartTimestamp() {
-    return startTimestamp;
+    synchronized (revisionLock) {
+      return startTimestamp;
+    }
   }
 
   /**
    * @param timestamp Start time stamp.
    */
   public void setStartTimestamp(String timestamp) {
-    this.startTimestamp = timestamp;
+    synchronized (revisionLock) {
+      this.startTimestamp = timestamp;
+    }
   }
 
   /**
@@ -596,7 +699,7 @@ public class Page implements Comparable<Page> {
    * @return Links from the page (working if the page is a redirection).
    */
   public List<Page> getLinksWithRedirect(Map<Page, List<String>> anchors) {
-    PageAnalysis pageAnalysis = getAnalysis(contents, false);
+    PageAnalysis pageAnalysis = getAnalysis(getContents(), false);
     if (redirects != null) {
       for (int i = 0; i < redirects.size(); i++) {
         Page page = redirects.get(i);
@@ -787,6 +890,7 @@ public class Page implements Comparable<Page> {
    */
   public List<String> getWiktionaryLinks() {
     List<String> wiktionary = null;
+    String contents = getContents();
     if ((contents != null) && (wikipedia != null)) {
       WPCConfiguration configuration = wikipedia.getConfiguration();
       for (int i = 0; i < configuration.getWiktionaryMatchesCount(); i++) {
@@ -918,7 +1022,7 @@ public class Page implements Comparable<Page> {
     }
     Page to = redirects.get(redirects.size() - 1);
     String toTitle = to.getTitle();
-    String pageContents = contents;
+    String pageContents = getContents();
     if ((pageContents != null) && (pageContents.length() > 0)) {
       boolean redirectFound = false;
       int startIndex = 0;
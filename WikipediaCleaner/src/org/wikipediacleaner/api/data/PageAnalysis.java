@@ -1912,4 +1912,11 @@ public class PageAnalysis {
     }
     return checkWikiErrors.get(Integer.valueOf(errorNumber));
   }
+
+  /**
+   * Forget memorized Check Wiki errors.
+   */
+  public void clearCheckWikiErrors() {
+    checkWikiErrors = null;
+  }
 }
@@ -0,0 +1,209 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.wikipediacleaner.api.constants.EnumCaseSensitiveness;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+
+
+/**
+ * Registry of the canonical page instances of a wiki.
+ *
+ * Pages are registered by normalized title and by page id, so that
+ * the same instance is shared by all the lists referring to a page.
+ * The case of the first letter is kept in titles unless the wiki is known
+ * to capitalize it, so pages like "apple" and "Apple" of a Wiktionary
+ * are never shared.
+ * Pages are only weakly referenced: a page no longer used elsewhere
+ * is removed from the registry by the garbage collector.
+ */
+class PageRegistry {
+
+  /** Registries for each wiki */
+  private final static ConcurrentMap<EnumWikipedia, PageRegistry> registries =
+      new ConcurrentHashMap<EnumWikipedia, PageRegistry>();
+
+  /**
+   * @param wiki Wiki.
+   * @return Registry of the pages of the wiki.
+   */
+  static PageRegistry getRegistry(EnumWikipedia wiki) {
+    PageRegistry registry = registries.get(wiki);
+    if (registry == null) {
+      registry = new PageRegistry(wiki);
+      PageRegistry previous = registries.putIfAbsent(wiki, registry);
+      if (previous != null) {
+        registry = previous;
+      }
+    }
+    return registry;
+  }
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** Pages by normalized title */
+  private final ConcurrentMap<String, PageReference> byTitle;
+
+  /** Pages by page id */
+  private final ConcurrentMap<Integer, PageReference> byId;
+
+  /** Queue of references to pages collected by the garbage collector */
+  private final ReferenceQueue<Page> queue;
+
+  /**
+   * Create a registry.
+   *
+   * @param wiki Wiki.
+   */
+  private PageRegistry(EnumWikipedia wiki) {
+    this.wiki = wiki;
+    this.byTitle = new ConcurrentHashMap<String, PageReference>();
+    this.byId = new ConcurrentHashMap<Integer, PageReference>();
+    this.queue = new ReferenceQueue<Page>();
+  }
+
+  /**
+   * @param title Page title.
+   * @param pageId Page id.
+   * @return Registered page (null if not registered).
+   */
+  Page getPage(String title, Integer pageId) {
+    expungeStaleEntries();
+    if (title != null) {
+      return get(byTitle.get(getKey(title)));
+    }
+    if (pageId != null) {
+      return get(byId.get(pageId));
+    }
+    return null;
+  }
+
+  /**
+   * Register a page.
+   *
+   * @param page Page.
+   * @return Canonical page (another instance if a page with the same title
+   *         has been registered concurrently).
+   */
+  Page register(Page page) {
+    if (page == null) {
+      return null;
+    }
+    expungeStaleEntries();
+    String title = getKey(page.getTitle());
+    PageReference reference = new PageReference(page, title, page.getPageId(), queue);
+    if (title != null) {
+      for (;;) {
+        PageReference previous = byTitle.putIfAbsent(title, reference);
+        if (previous == null) {
+          break;
+        }
+        Page previousPage = previous.get();
+        if (previousPage != null) {
+          return previousPage;
+        }
+        if (byTitle.replace(title, previous, reference)) {
+          break;
+        }
+      }
+    }
+    if (page.getPageId() != null) {
+      byId.put(page.getPageId(), reference);
+    }
+    return page;
+  }
+
+  /**
+   * Register the page id of a page already registered by title.
+   *
+   * @param page Page.
+   */
+  void registerPageId(Page page) {
+    if ((page == null) || (page.getPageId() == null)) {
+      return;
+    }
+    PageReference reference = byId.get(page.getPageId());
+    if ((reference != null) && (reference.get() == page)) {
+      return;
+    }
+    String title = getKey(page.getTitle());
+    byId.put(page.getPageId(), new PageReference(page, title, page.getPageId(), queue));
+  }
+
+  /**
+   * @param title Page title.
+   * @return Key of the page in the registry (null if title is null).
+   */
+  private String getKey(String title) {
+    if (title == null) {
+      return null;
+    }
+    boolean ucFirst = false;
+    if ((wiki != null) && (wiki.getWikiConfiguration() != null)) {
+      Namespace namespace = wiki.getWikiConfiguration().getNamespace(Namespace.MAIN);
+      ucFirst = (namespace != null) &&
+          (namespace.getCaseSensitiveness() == EnumCaseSensitiveness.FIRST_LETTER);
+    }
+    return Page.normalizeTitle(title, ucFirst);
+  }
+
+  /**
+   * @param reference Reference to a page.
+   * @return Page (null if it has been collected).
+   */
+  private static Page get(PageReference reference) {
+    return (reference != null) ? reference.get() : null;
+  }
+
+  /**
+   * Remove the entries of pages collected by the garbage collector.
+   */
+  private void expungeStaleEntries() {
+    Object stale = queue.poll();
+    while (stale != null) {
+      PageReference reference = (PageReference) stale;
+      if (reference.title != null) {
+        byTitle.remove(reference.title, reference);
+      }
+      if (reference.pageId != null) {
+        byId.remove(reference.pageId, reference);
+      }
+      stale = queue.poll();
+    }
+  }
+
+  /**
+   * Weak reference to a page, keeping the keys under which it is registered.
+   */
+  private static class PageReference extends WeakReference<Page> {
+
+    /** Normalized title */
+    final String title;
+
+    /** Page id */
+    final Integer pageId;
+
+    /**
+     * @param page Page.
+     * @param title Normalized title.
+     * @param pageId Page id.
+     * @param queue Queue of references to pages collected by the garbage collector.
+     */
+    PageReference(Page page, String title, Integer pageId, ReferenceQueue<Page> queue) {
+      super(page, queue);
+      this.title = title;
+      this.pageId = pageId;
+    }
+  }
+}
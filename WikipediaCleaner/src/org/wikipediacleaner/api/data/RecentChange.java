@@ -123,6 +123,11 @@ public class RecentChange implements Comparable<RecentChange> {
    */
   private String comment;
 
+  /**
+   * New title for a move.
+   */
+  private String moveTarget;
+
   /**
    * @param id Recent change identifier.
    * @param namespace Namespace.
@@ -252,6 +257,13 @@ public class RecentChange implements Comparable<RecentChange> {
     return comment;
   }
 
+  /**
+   * @return New title for a move.
+   */
+  public String getMoveTarget() {
+    return moveTarget;
+  }
+
   /**
    * @param type Type of change.
    */
@@ -315,6 +327,13 @@ public class RecentChange implements Comparable<RecentChange> {
     this.isRedirect = isRedirect;
   }
 
+  /**
+   * @param target New title for a move.
+   */
+  public void setMoveTarget(String target) {
+    this.moveTarget = target;
+  }
+
   /**
    * @param timestamp Timestamp of the change.
    */
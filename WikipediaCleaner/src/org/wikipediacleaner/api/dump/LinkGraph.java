@@ -0,0 +1,515 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.dump;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.Page.RelatedPages;
+import org.wikipediacleaner.utils.Configuration;
+import org.wikipediacleaner.utils.ConfigurationValueBoolean;
+
+
+/**
+ * Link graph of a wiki, built from a dump by {@link LinkGraphBuilder}.
+ *
+ * Pages are identified by integer ids (0 to n-1), links are stored as
+ * adjacency arrays (CSR: offsets for each page, then the linked pages)
+ * in both directions. All arrays are memory-mapped files, so the graph
+ * can be larger than the memory and is shared between processes.
+ * The graph is only as recent as the dump it has been built from.
+ */
+public class LinkGraph {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(LinkGraph.class);
+
+  /** Version of the file format */
+  final static int VERSION = 1;
+
+  /** File containing the description of the graph */
+  final static String FILE_INFO = "graph.info";
+
+  /** File containing the offsets of the titles */
+  final static String FILE_TITLES_INDEX = "titles.idx";
+
+  /** File containing the titles */
+  final static String FILE_TITLES = "titles.dat";
+
+  /** File containing the page ids sorted by title */
+  final static String FILE_TITLES_SORTED = "titles.srt";
+
+  /** File containing the name space of each page */
+  final static String FILE_NAMESPACES = "namespaces.dat";
+
+  /** File containing the wiki page id of each page */
+  final static String FILE_PAGE_IDS = "pageids.dat";
+
+  /** File containing the redirect target of each page */
+  final static String FILE_REDIRECTS = "redirects.dat";
+
+  /** File containing the offsets of the links of each page */
+  final static String FILE_LINKS_INDEX = "links.idx";
+
+  /** File containing the links */
+  final static String FILE_LINKS = "links.dat";
+
+  /** File containing the offsets of the back links of each page */
+  final static String FILE_BACKLINKS_INDEX = "backlinks.idx";
+
+  /** File containing the back links */
+  final static String FILE_BACKLINKS = "backlinks.dat";
+
+  /** Redirect target for pages which are not redirects */
+  public final static int NO_REDIRECT = -1;
+
+  /** Page id for pages which don't exist */
+  public final static int MISSING = 0;
+
+  /** Maximum number of redirects followed */
+  private final static int MAX_REDIRECTS = 10;
+
+  /** UTF-8 */
+  final static Charset UTF8 = Charset.forName("UTF-8");
+
+  /** Graphs for each wiki */
+  private final static ConcurrentMap<EnumWikipedia, LinkGraph> graphs =
+      new ConcurrentHashMap<EnumWikipedia, LinkGraph>();
+
+  /**
+   * @param wiki Wiki.
+   * @return Directory containing the link graph of the wiki.
+   */
+  public static File getDirectory(EnumWikipedia wiki) {
+    File directory = new File(new File(System.getProperty("user.home"), ".wpcleaner"), "graph");
+    return new File(directory, wiki.name().toLowerCase());
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @return Link graph of the wiki if it has been built and its use is enabled.
+   */
+  public static LinkGraph getEnabledGraph(EnumWikipedia wiki) {
+    Configuration config = Configuration.getConfiguration();
+    if (!config.getBoolean(null, ConfigurationValueBoolean.LINK_GRAPH)) {
+      return null;
+    }
+    return getGraph(wiki);
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @return Link graph of the wiki (null if it hasn't been built).
+   */
+  public static LinkGraph getGraph(EnumWikipedia wiki) {
+    if (wiki == null) {
+      return null;
+    }
+    LinkGraph graph = graphs.get(wiki);
+    if (graph == null) {
+      File directory = getDirectory(wiki);
+      if (!new File(directory, FILE_INFO).isFile()) {
+        return null;
+      }
+      try {
+        graph = new LinkGraph(wiki, directory);
+      } catch (IOException e) {
+        log.warn("Unable to open link graph in " + directory + ": " + e.getMessage());
+        return null;
+      }
+      LinkGraph previous = graphs.putIfAbsent(wiki, graph);
+      if (previous != null) {
+        graph = previous;
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * Forget the link graph of a wiki, so that a new one is opened on next use.
+   *
+   * @param wiki Wiki.
+   */
+  static void reset(EnumWikipedia wiki) {
+    graphs.remove(wiki);
+  }
+
+  /**
+   * Canonical form of a title, used as the key of a page in the graph.
+   *
+   * @param wiki Wiki.
+   * @param title Title.
+   * @return Canonical title (name space with its main name).
+   */
+  public static String getCanonicalTitle(EnumWikipedia wiki, String title) {
+    if (title == null) {
+      return null;
+    }
+    String result = wiki.normalizeTitle(title);
+    if (result.startsWith(":")) {
+      result = wiki.normalizeTitle(result.substring(1));
+    }
+    int colonIndex = result.indexOf(':');
+    if ((colonIndex > 0) && (wiki.getWikiConfiguration().getNamespaces() != null)) {
+      String prefix = result.substring(0, colonIndex).trim();
+      for (Namespace namespace : wiki.getWikiConfiguration().getNamespaces()) {
+        if ((namespace.getId().intValue() != Namespace.MAIN) &&
+            namespace.isPossibleName(prefix)) {
+          return namespace.getTitle() + ":" +
+              Page.getStringUcFirst(result.substring(colonIndex + 1).trim());
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param title Canonical title.
+   * @return Name space of the title.
+   */
+  public static int getNamespace(EnumWikipedia wiki, String title) {
+    int colonIndex = (title != null) ? title.indexOf(':') : -1;
+    if ((colonIndex > 0) && (wiki.getWikiConfiguration().getNamespaces() != null)) {
+      String prefix = title.substring(0, colonIndex);
+      for (Namespace namespace : wiki.getWikiConfiguration().getNamespaces()) {
+        if ((namespace.getId().intValue() != Namespace.MAIN) &&
+            namespace.isPossibleName(prefix)) {
+          return namespace.getId().intValue();
+        }
+      }
+    }
+    return Namespace.MAIN;
+  }
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** Number of pages */
+  private final int pageCount;
+
+  /** Number of links */
+  private final long linkCount;
+
+  /** Time of creation of the graph */
+  private final long creationTime;
+
+  /** Offsets of the titles */
+  private final MappedArray titlesIndex;
+
+  /** Titles */
+  private final MappedArray titles;
+
+  /** Pages sorted by title */
+  private final MappedArray titlesSorted;
+
+  /** Name spaces */
+  private final MappedArray namespaces;
+
+  /** Wiki page ids */
+  private final MappedArray pageIds;
+
+  /** Redirect targets */
+  private final MappedArray redirects;
+
+  /** Offsets of the links */
+  private final MappedArray linksIndex;
+
+  /** Links */
+  private final MappedArray links;
+
+  /** Offsets of the back links */
+  private final MappedArray backlinksIndex;
+
+  /** Back links */
+  private final MappedArray backlinks;
+
+  /**
+   * @param wiki Wiki.
+   * @param directory Directory containing the graph.
+   * @throws IOException
+   */
+  private LinkGraph(EnumWikipedia wiki, File directory) throws IOException {
+    this.wiki = wiki;
+    DataInputStream input = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(new File(directory, FILE_INFO))));
+    try {
+      if (input.readInt() != VERSION) {
+        throw new IOException("Unsupported version");
+      }
+      pageCount = input.readInt();
+      linkCount = input.readLong();
+      creationTime = input.readLong();
+    } finally {
+      input.close();
+    }
+    titlesIndex = new MappedArray(new File(directory, FILE_TITLES_INDEX));
+    titles = new MappedArray(new File(directory, FILE_TITLES));
+    titlesSorted = new MappedArray(new File(directory, FILE_TITLES_SORTED));
+    namespaces = new MappedArray(new File(directory, FILE_NAMESPACES));
+    pageIds = new MappedArray(new File(directory, FILE_PAGE_IDS));
+    redirects = new MappedArray(new File(directory, FILE_REDIRECTS));
+    linksIndex = new MappedArray(new File(directory, FILE_LINKS_INDEX));
+    links = new MappedArray(new File(directory, FILE_LINKS));
+    backlinksIndex = new MappedArray(new File(directory, FILE_BACKLINKS_INDEX));
+    backlinks = new MappedArray(new File(directory, FILE_BACKLINKS));
+    log.info(
+        "Link graph for " + wiki + ": " + pageCount + " pages, " + linkCount + " links");
+  }
+
+  /**
+   * @return Number of pages.
+   */
+  public int getPageCount() {
+    return pageCount;
+  }
+
+  /**
+   * @return Number of links.
+   */
+  public long getLinkCount() {
+    return linkCount;
+  }
+
+  /**
+   * @return Time of creation of the graph.
+   */
+  public long getCreationTime() {
+    return creationTime;
+  }
+
+  /**
+   * @param title Page title.
+   * @return Id of the page in the graph (-1 if not found).
+   */
+  public int getId(String title) {
+    String key = getCanonicalTitle(wiki, title);
+    if (key == null) {
+      return -1;
+    }
+    int low = 0;
+    int high = pageCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int id = titlesSorted.getInt(middle);
+      int compare = getTitle(id).compareTo(key);
+      if (compare < 0) {
+        low = middle + 1;
+      } else if (compare > 0) {
+        high = middle - 1;
+      } else {
+        return id;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @return Page title.
+   */
+  public String getTitle(int id) {
+    long begin = titlesIndex.getLong(id);
+    long end = titlesIndex.getLong(id + 1);
+    return new String(titles.getBytes(begin, (int) (end - begin)), UTF8);
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @return Name space of the page.
+   */
+  public int getNamespace(int id) {
+    return namespaces.getInt(id);
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @return Page id in the wiki ({@link #MISSING} if the page doesn't exist).
+   */
+  public int getPageId(int id) {
+    return pageIds.getInt(id);
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @return Redirect target ({@link #NO_REDIRECT} if the page is not a redirect).
+   */
+  public int getRedirect(int id) {
+    return redirects.getInt(id);
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @return Pages linked from the page.
+   */
+  public int[] getLinks(int id) {
+    return getAdjacency(linksIndex, links, id);
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @return Pages linking to the page.
+   */
+  public int[] getLinksHere(int id) {
+    return getAdjacency(backlinksIndex, backlinks, id);
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @return Number of pages linking to the page.
+   */
+  public int getLinksHereCount(int id) {
+    return (int) (backlinksIndex.getLong(id + 1) - backlinksIndex.getLong(id));
+  }
+
+  /**
+   * @param index Offsets.
+   * @param values Values.
+   * @param id Page id in the graph.
+   * @return Adjacent pages.
+   */
+  private int[] getAdjacency(MappedArray index, MappedArray values, int id) {
+    long begin = index.getLong(id);
+    long end = index.getLong(id + 1);
+    int[] result = new int[(int) (end - begin)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = values.getInt(begin + i);
+    }
+    return result;
+  }
+
+  // ==========================================================================
+  // Provider for API requests
+  // ==========================================================================
+
+  /**
+   * Retrieve links to a page, as done by the API with <code>prop=linkshere</code>.
+   *
+   * @param page Page.
+   * @param withRedirects True if it should also retrieve links through redirects.
+   * @return False if the page is unknown in the graph.
+   */
+  public boolean retrieveLinksHere(Page page, boolean withRedirects) {
+    int id = getId(page.getTitle());
+    if (id < 0) {
+      return false;
+    }
+
+    // Redirects to the page
+    int[] linksHere = getLinksHere(id);
+    List<Page> redirectList = new ArrayList<Page>();
+    for (int linkId : linksHere) {
+      if (getRedirect(linkId) == id) {
+        Page redirect = createPage(linkId, null);
+        redirect.addRedirect(page);
+        redirectList.add(redirect);
+      }
+    }
+    Collections.sort(redirectList);
+    page.setRelatedPages(RelatedPages.REDIRECTS, redirectList);
+
+    // Links to the page and to its redirects
+    page.setRelatedPages(RelatedPages.LINKS_HERE, createPages(linksHere, redirectList));
+    if (withRedirects) {
+      for (Page redirect : redirectList) {
+        int redirectId = getId(redirect.getTitle());
+        if (redirectId >= 0) {
+          redirect.setRelatedPages(
+              RelatedPages.LINKS_HERE,
+              createPages(getLinksHere(redirectId), redirectList));
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Retrieve links of a page, as done by the API with <code>generator=links</code>.
+   *
+   * @param page Page.
+   * @param namespace Restrict the list to a given name space.
+   * @param knownPages Already known pages.
+   * @param withRedirects True if redirects should be followed.
+   * @return List of links (null if the page is unknown in the graph).
+   */
+  public List<Page> retrieveLinks(
+      Page page, Integer namespace, List<Page> knownPages, boolean withRedirects) {
+    int id = getId(page.getTitle());
+    if (id < 0) {
+      return null;
+    }
+    List<Page> result = new ArrayList<Page>();
+    for (int linkId : getLinks(id)) {
+      if ((namespace != null) && (getNamespace(linkId) != namespace.intValue())) {
+        continue;
+      }
+      Page link = createPage(linkId, knownPages);
+      if (withRedirects && (getRedirect(linkId) != NO_REDIRECT)) {
+        List<Page> redirectList = new ArrayList<Page>();
+        int currentId = getRedirect(linkId);
+        while ((currentId != NO_REDIRECT) && (redirectList.size() < MAX_REDIRECTS)) {
+          redirectList.add(createPage(currentId, knownPages));
+          currentId = getRedirect(currentId);
+        }
+        link.setRedirects(redirectList);
+      }
+      result.add(link);
+    }
+    page.setLinks(result);
+    return result;
+  }
+
+  /**
+   * @param ids Page ids in the graph.
+   * @param knownPages Already known pages.
+   * @return Pages sorted by title.
+   */
+  private List<Page> createPages(int[] ids, List<Page> knownPages) {
+    List<Page> result = new ArrayList<Page>(ids.length);
+    for (int id : ids) {
+      result.add(createPage(id, knownPages));
+    }
+    Collections.sort(result);
+    return result;
+  }
+
+  /**
+   * @param id Page id in the graph.
+   * @param knownPages Already known pages.
+   * @return Page.
+   */
+  private Page createPage(int id, List<Page> knownPages) {
+    int pageId = getPageId(id);
+    Page page = DataManager.getPage(
+        wiki, getTitle(id),
+        (pageId != MISSING) ? Integer.valueOf(pageId) : null,
+        null, knownPages);
+    page.setNamespace(Integer.valueOf(getNamespace(id)));
+    page.setExisting(Boolean.valueOf(pageId != MISSING));
+    if (getRedirect(id) != NO_REDIRECT) {
+      page.isRedirect(true);
+    }
+    return page;
+  }
+}
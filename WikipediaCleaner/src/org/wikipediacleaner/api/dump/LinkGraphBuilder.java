@@ -0,0 +1,714 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.dump;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.MagicWord;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.data.PageAnalysis;
+import org.wikipediacleaner.api.data.PageElementInternalLink;
+
+
+/**
+ * Builder of the link graph of a wiki.
+ *
+ * The graph can be built either from a dump of the pages (links are
+ * extracted from the wikitext, so links added by templates are missing),
+ * or from the SQL dumps of the page, pagelinks, redirect (and linktarget)
+ * tables. Links are written to a temporary file while the dumps are read,
+ * and then dispatched in the adjacency arrays of the graph.
+ */
+public class LinkGraphBuilder implements PageProcessor {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(LinkGraphBuilder.class);
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** Page ids in the graph, indexed by canonical title */
+  private final Map<String, Integer> ids;
+
+  /** Titles */
+  private final List<String> titles;
+
+  /** Name spaces */
+  private final IntList namespaces;
+
+  /** Wiki page ids */
+  private final IntList pageIds;
+
+  /** Redirect targets */
+  private final IntList redirects;
+
+  /** Number of links from each page */
+  private final IntList linkCounts;
+
+  /** Number of links to each page */
+  private final IntList backlinkCounts;
+
+  /** Temporary file for the links */
+  private final File linksFile;
+
+  /** Output for the links */
+  private DataOutputStream linksOutput;
+
+  /** Number of links */
+  private long linkCount;
+
+  /** Number of pages processed in the dump */
+  private int processedCount;
+
+  /**
+   * @param wiki Wiki.
+   * @throws IOException
+   */
+  public LinkGraphBuilder(EnumWikipedia wiki) throws IOException {
+    this.wiki = wiki;
+    this.ids = new HashMap<String, Integer>();
+    this.titles = new ArrayList<String>();
+    this.namespaces = new IntList();
+    this.pageIds = new IntList();
+    this.redirects = new IntList();
+    this.linkCounts = new IntList();
+    this.backlinkCounts = new IntList();
+    this.linksFile = File.createTempFile("wpcleaner-links", ".tmp");
+    this.linksFile.deleteOnExit();
+    this.linksOutput = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(linksFile), 1 << 16));
+    this.linkCount = 0;
+    this.processedCount = 0;
+  }
+
+  /**
+   * @return Wiki.
+   * @see org.wikipediacleaner.api.dump.PageProcessor#getWiki()
+   */
+  @Override
+  public EnumWikipedia getWiki() {
+    return wiki;
+  }
+
+  /**
+   * @return Number of pages in the graph.
+   */
+  public int getPageCount() {
+    return titles.size();
+  }
+
+  /**
+   * @return Number of links in the graph.
+   */
+  public long getLinkCount() {
+    return linkCount;
+  }
+
+  // ==========================================================================
+  // Import from a dump of the pages
+  // ==========================================================================
+
+  /**
+   * Import the links from a dump of the pages.
+   *
+   * @param file Dump file.
+   * @throws IOException
+   */
+  public void importPagesDump(File file) throws IOException {
+    DumpProcessor processor = new DumpProcessor(this);
+    processor.processDump(file);
+    if (linksOutput == null) {
+      throw new IOException("Error writing links");
+    }
+  }
+
+  /**
+   * Process a page of the dump.
+   *
+   * @param page Page to be processed.
+   * @see org.wikipediacleaner.api.dump.PageProcessor#processPage(org.wikipediacleaner.api.data.Page)
+   */
+  @Override
+  public void processPage(Page page) {
+    if ((page == null) || (page.getContents() == null) || (linksOutput == null)) {
+      return;
+    }
+    String title = LinkGraph.getCanonicalTitle(wiki, page.getTitle());
+    int namespace = (page.getNamespace() != null) ?
+        page.getNamespace().intValue() : LinkGraph.getNamespace(wiki, title);
+    int id = getId(title, namespace);
+    Integer pageId = page.getPageId();
+    pageIds.set(id, ((pageId != null) && (pageId.intValue() > 0)) ? pageId.intValue() : -1);
+
+    // Links
+    String contents = page.getContents();
+    PageAnalysis analysis = page.getAnalysis(contents, false);
+    boolean redirect = isRedirect(contents);
+    Set<Integer> linked = new HashSet<Integer>();
+    for (PageElementInternalLink link : analysis.getInternalLinks()) {
+      String target = link.getLink();
+      if ((target == null) || (target.trim().length() == 0)) {
+        continue;
+      }
+      if (target.startsWith("/")) {
+        target = page.getTitle() + target;
+      }
+      target = LinkGraph.getCanonicalTitle(wiki, target);
+      int targetId = getId(target, LinkGraph.getNamespace(wiki, target));
+      if (redirect) {
+        redirects.set(id, targetId);
+        redirect = false;
+      }
+      if (linked.add(Integer.valueOf(targetId))) {
+        addLink(id, targetId);
+      }
+    }
+
+    processedCount++;
+    if (processedCount % 100000 == 0) {
+      log.info(
+          "Link graph: " + processedCount + " pages processed, " +
+          titles.size() + " pages, " + linkCount + " links");
+    }
+  }
+
+  /**
+   * @param contents Page contents.
+   * @return True if the page is a redirect.
+   */
+  private boolean isRedirect(String contents) {
+    MagicWord magicRedirect = wiki.getWikiConfiguration().getMagicWordByName(MagicWord.REDIRECT);
+    if ((magicRedirect == null) || (magicRedirect.getAliases() == null)) {
+      return false;
+    }
+    int index = 0;
+    while ((index < contents.length()) && Character.isWhitespace(contents.charAt(index))) {
+      index++;
+    }
+    for (String alias : magicRedirect.getAliases()) {
+      if (contents.regionMatches(true, index, alias, 0, alias.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // ==========================================================================
+  // Import from SQL dumps
+  // ==========================================================================
+
+  /**
+   * Import the links from SQL dumps.
+   *
+   * @param pageFile Dump of the page table.
+   * @param pageLinksFile Dump of the pagelinks table.
+   * @param redirectFile Dump of the redirect table (may be null).
+   * @param linkTargetFile Dump of the linktarget table,
+   *        needed when pagelinks refers to link targets (may be null).
+   * @throws IOException
+   */
+  public void importSqlDumps(
+      File pageFile, File pageLinksFile,
+      File redirectFile, File linkTargetFile) throws IOException {
+
+    // Pages
+    final IntList pageNodes = new IntList();
+    log.info("Link graph: reading " + pageFile.getName());
+    new SqlDumpReader(pageFile, "page_id", "page_namespace", "page_title").read(
+        new SqlDumpReader.RowHandler() {
+
+          @Override
+          public void processRow(String[] values) {
+            int pageId = parseInt(values[0]);
+            int namespace = parseInt(values[1]);
+            String title = getTitle(namespace, values[2]);
+            if ((pageId <= 0) || (title == null)) {
+              return;
+            }
+            int id = getId(title, namespace);
+            pageIds.set(id, pageId);
+            pageNodes.set(pageId, id + 1);
+          }
+        });
+
+    // Redirects
+    if (redirectFile != null) {
+      log.info("Link graph: reading " + redirectFile.getName());
+      new SqlDumpReader(
+          redirectFile, "rd_from", "rd_namespace", "rd_title", "rd_interwiki").read(
+              new SqlDumpReader.RowHandler() {
+
+                @Override
+                public void processRow(String[] values) {
+                  if ((values[3] != null) && (values[3].length() > 0)) {
+                    return;
+                  }
+                  int from = pageNodes.get(parseInt(values[0])) - 1;
+                  int namespace = parseInt(values[1]);
+                  String title = getTitle(namespace, values[2]);
+                  if ((from < 0) || (title == null)) {
+                    return;
+                  }
+                  redirects.set(from, getId(title, namespace));
+                }
+              });
+    }
+
+    // Link targets
+    final IntList targetNodes = new IntList();
+    if (linkTargetFile != null) {
+      log.info("Link graph: reading " + linkTargetFile.getName());
+      new SqlDumpReader(linkTargetFile, "lt_id", "lt_namespace", "lt_title").read(
+          new SqlDumpReader.RowHandler() {
+
+            @Override
+            public void processRow(String[] values) {
+              int targetId = parseInt(values[0]);
+              int namespace = parseInt(values[1]);
+              String title = getTitle(namespace, values[2]);
+              if ((targetId <= 0) || (title == null)) {
+                return;
+              }
+              targetNodes.set(targetId, getId(title, namespace) + 1);
+            }
+          });
+    }
+
+    // Links
+    log.info("Link graph: reading " + pageLinksFile.getName());
+    SqlDumpReader.RowHandler linksHandler = null;
+    SqlDumpReader reader = null;
+    if (linkTargetFile != null) {
+      reader = new SqlDumpReader(pageLinksFile, "pl_from", "pl_target_id");
+      linksHandler = new SqlDumpReader.RowHandler() {
+
+        @Override
+        public void processRow(String[] values) {
+          int from = pageNodes.get(parseInt(values[0])) - 1;
+          int to = targetNodes.get(parseInt(values[1])) - 1;
+          if ((from >= 0) && (to >= 0)) {
+            addLink(from, to);
+          }
+        }
+      };
+    } else {
+      reader = new SqlDumpReader(pageLinksFile, "pl_from", "pl_namespace", "pl_title");
+      linksHandler = new SqlDumpReader.RowHandler() {
+
+        @Override
+        public void processRow(String[] values) {
+          int from = pageNodes.get(parseInt(values[0])) - 1;
+          int namespace = parseInt(values[1]);
+          String title = getTitle(namespace, values[2]);
+          if ((from >= 0) && (title != null)) {
+            addLink(from, getId(title, namespace));
+          }
+        }
+      };
+    }
+    reader.read(linksHandler);
+    if (linksOutput == null) {
+      throw new IOException("Error writing links");
+    }
+  }
+
+  /**
+   * @param value Value.
+   * @return Integer value (-1 if not a number).
+   */
+  static int parseInt(String value) {
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * @param namespace Name space.
+   * @param title Title in the name space, as stored in the database.
+   * @return Canonical title.
+   */
+  String getTitle(int namespace, String title) {
+    if (title == null) {
+      return null;
+    }
+    String result = title.replace('_', ' ');
+    if (namespace != Namespace.MAIN) {
+      Namespace ns = wiki.getWikiConfiguration().getNamespace(namespace);
+      if (ns == null) {
+        return null;
+      }
+      result = ns.getTitle() + ":" + result;
+    }
+    return LinkGraph.getCanonicalTitle(wiki, result);
+  }
+
+  // ==========================================================================
+  // Graph construction
+  // ==========================================================================
+
+  /**
+   * @param title Canonical title.
+   * @param namespace Name space.
+   * @return Id of the page in the graph.
+   */
+  int getId(String title, int namespace) {
+    Integer id = ids.get(title);
+    if (id != null) {
+      return id.intValue();
+    }
+    int newId = titles.size();
+    ids.put(title, Integer.valueOf(newId));
+    titles.add(title);
+    namespaces.set(newId, namespace);
+    pageIds.set(newId, -1);
+    redirects.set(newId, -1);
+    linkCounts.set(newId, 0);
+    backlinkCounts.set(newId, 0);
+    return newId;
+  }
+
+  /**
+   * @param from Page id of the source of the link.
+   * @param to Page id of the target of the link.
+   */
+  void addLink(int from, int to) {
+    if (linksOutput == null) {
+      return;
+    }
+    try {
+      linksOutput.writeInt(from);
+      linksOutput.writeInt(to);
+    } catch (IOException e) {
+      log.error("Error writing links", e);
+      try {
+        linksOutput.close();
+      } catch (IOException e2) {
+        // Nothing to do
+      }
+      linksOutput = null;
+      return;
+    }
+    linkCounts.set(from, linkCounts.get(from) + 1);
+    backlinkCounts.set(to, backlinkCounts.get(to) + 1);
+    linkCount++;
+  }
+
+  /**
+   * Write the graph, replacing the previous one.
+   *
+   * @throws IOException
+   */
+  public void write() throws IOException {
+    if (linksOutput == null) {
+      throw new IOException("Error writing links");
+    }
+    linksOutput.close();
+    linksOutput = null;
+    File directory = LinkGraph.getDirectory(wiki);
+    File tmpDirectory = new File(directory.getParentFile(), directory.getName() + ".tmp");
+    deleteDirectory(tmpDirectory);
+    if (!tmpDirectory.mkdirs()) {
+      throw new IOException("Unable to create " + tmpDirectory);
+    }
+    int count = titles.size();
+    log.info("Link graph: writing " + count + " pages and " + linkCount + " links");
+
+    // Titles
+    DataOutputStream titlesOutput = openOutput(tmpDirectory, LinkGraph.FILE_TITLES);
+    DataOutputStream indexOutput = openOutput(tmpDirectory, LinkGraph.FILE_TITLES_INDEX);
+    try {
+      long offset = 0;
+      for (String title : titles) {
+        byte[] bytes = title.getBytes(LinkGraph.UTF8);
+        indexOutput.writeLong(offset);
+        titlesOutput.write(bytes);
+        offset += bytes.length;
+      }
+      indexOutput.writeLong(offset);
+    } finally {
+      titlesOutput.close();
+      indexOutput.close();
+    }
+    Integer[] sorted = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      sorted[i] = Integer.valueOf(i);
+    }
+    Arrays.sort(sorted, new Comparator<Integer>() {
+
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return titles.get(o1.intValue()).compareTo(titles.get(o2.intValue()));
+      }
+    });
+    DataOutputStream sortedOutput = openOutput(tmpDirectory, LinkGraph.FILE_TITLES_SORTED);
+    try {
+      for (Integer id : sorted) {
+        sortedOutput.writeInt(id.intValue());
+      }
+    } finally {
+      sortedOutput.close();
+    }
+    sorted = null;
+
+    // Page information
+    writeInts(tmpDirectory, LinkGraph.FILE_NAMESPACES, namespaces, count, 0);
+    writeInts(tmpDirectory, LinkGraph.FILE_PAGE_IDS, pageIds, count, LinkGraph.MISSING);
+    writeInts(tmpDirectory, LinkGraph.FILE_REDIRECTS, redirects, count, LinkGraph.NO_REDIRECT);
+
+    // Links
+    long[] linkPositions = writeOffsets(tmpDirectory, LinkGraph.FILE_LINKS_INDEX, linkCounts, count);
+    long[] backlinkPositions = writeOffsets(tmpDirectory, LinkGraph.FILE_BACKLINKS_INDEX, backlinkCounts, count);
+    MappedIntWriter linksWriter = new MappedIntWriter(
+        new File(tmpDirectory, LinkGraph.FILE_LINKS), linkCount);
+    MappedIntWriter backlinksWriter = new MappedIntWriter(
+        new File(tmpDirectory, LinkGraph.FILE_BACKLINKS), linkCount);
+    DataInputStream linksInput = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(linksFile), 1 << 16));
+    try {
+      for (long i = 0; i < linkCount; i++) {
+        int from = linksInput.readInt();
+        int to = linksInput.readInt();
+        linksWriter.putInt(linkPositions[from]++, to);
+        backlinksWriter.putInt(backlinkPositions[to]++, from);
+      }
+    } catch (EOFException e) {
+      throw new IOException("Links file truncated", e);
+    } finally {
+      linksInput.close();
+      linksWriter.close();
+      backlinksWriter.close();
+      linksFile.delete();
+    }
+
+    // Description of the graph, written last
+    DataOutputStream infoOutput = openOutput(tmpDirectory, LinkGraph.FILE_INFO);
+    try {
+      infoOutput.writeInt(LinkGraph.VERSION);
+      infoOutput.writeInt(count);
+      infoOutput.writeLong(linkCount);
+      infoOutput.writeLong(System.currentTimeMillis());
+    } finally {
+      infoOutput.close();
+    }
+
+    // Replace the previous graph
+    LinkGraph.reset(wiki);
+    deleteDirectory(directory);
+    if (!tmpDirectory.renameTo(directory)) {
+      throw new IOException("Unable to rename " + tmpDirectory + " to " + directory);
+    }
+    log.info("Link graph written in " + directory);
+  }
+
+  /**
+   * @param directory Directory.
+   * @param name File name.
+   * @return Output stream.
+   * @throws IOException
+   */
+  private DataOutputStream openOutput(File directory, String name) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(new File(directory, name)), 1 << 16));
+  }
+
+  /**
+   * @param directory Directory.
+   * @param name File name.
+   * @param values Values.
+   * @param count Number of values.
+   * @param defaultValue Value replacing negative values.
+   * @throws IOException
+   */
+  private void writeInts(
+      File directory, String name,
+      IntList values, int count, int defaultValue) throws IOException {
+    DataOutputStream output = openOutput(directory, name);
+    try {
+      for (int i = 0; i < count; i++) {
+        int value = values.get(i);
+        output.writeInt((value < 0) ? defaultValue : value);
+      }
+    } finally {
+      output.close();
+    }
+  }
+
+  /**
+   * @param directory Directory.
+   * @param name File name.
+   * @param counts Number of values for each page.
+   * @param count Number of pages.
+   * @return Offsets of the values for each page.
+   * @throws IOException
+   */
+  private long[] writeOffsets(
+      File directory, String name,
+      IntList counts, int count) throws IOException {
+    long[] offsets = new long[count];
+    DataOutputStream output = openOutput(directory, name);
+    try {
+      long offset = 0;
+      for (int i = 0; i < count; i++) {
+        offsets[i] = offset;
+        output.writeLong(offset);
+        offset += counts.get(i);
+      }
+      output.writeLong(offset);
+    } finally {
+      output.close();
+    }
+    return offsets;
+  }
+
+  /**
+   * @param directory Directory to delete with its files.
+   */
+  static void deleteDirectory(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (!file.delete()) {
+          log.warn("Unable to delete " + file);
+        }
+      }
+    }
+    if (directory.exists() && !directory.delete()) {
+      log.warn("Unable to delete " + directory);
+    }
+  }
+
+  // ==========================================================================
+  // Utilities
+  // ==========================================================================
+
+  /**
+   * Growable list of integers (-1 for values never set).
+   */
+  private static class IntList {
+
+    /** Values */
+    private int[] values;
+
+    IntList() {
+      values = new int[1024];
+      Arrays.fill(values, -1);
+    }
+
+    /**
+     * @param index Index.
+     * @return Value (-1 if never set).
+     */
+    int get(int index) {
+      if ((index < 0) || (index >= values.length)) {
+        return -1;
+      }
+      return values[index];
+    }
+
+    /**
+     * @param index Index.
+     * @param value Value.
+     */
+    void set(int index, int value) {
+      if (index < 0) {
+        return;
+      }
+      if (index >= values.length) {
+        int oldLength = values.length;
+        values = Arrays.copyOf(values, Math.max(index + 1, oldLength + (oldLength >> 1)));
+        Arrays.fill(values, oldLength, values.length, -1);
+      }
+      values[index] = value;
+    }
+  }
+
+  /**
+   * Array of integers written in a memory-mapped file, possibly larger than 2 GB.
+   */
+  private static class MappedIntWriter {
+
+    /** Size of each mapped chunk (multiple of 4) */
+    private final static int CHUNK_SIZE = 1 << 30;
+
+    /** File */
+    private final RandomAccessFile raf;
+
+    /** Mapped chunks */
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * @param file File.
+     * @param count Number of integers.
+     * @throws IOException
+     */
+    MappedIntWriter(File file, long count) throws IOException {
+      raf = new RandomAccessFile(file, "rw");
+      long size = count * 4;
+      raf.setLength(size);
+      FileChannel channel = raf.getChannel();
+      int chunkCount = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+      chunks = new MappedByteBuffer[chunkCount];
+      for (int i = 0; i < chunkCount; i++) {
+        long position = (long) i * CHUNK_SIZE;
+        chunks[i] = channel.map(
+            FileChannel.MapMode.READ_WRITE, position,
+            Math.min(CHUNK_SIZE, size - position));
+      }
+    }
+
+    /**
+     * @param index Index of the integer.
+     * @param value Value.
+     */
+    void putInt(long index, int value) {
+      long position = index * 4;
+      chunks[(int) (position / CHUNK_SIZE)].putInt((int) (position % CHUNK_SIZE), value);
+    }
+
+    /**
+     * Write the values to the file.
+     *
+     * @throws IOException
+     */
+    void close() throws IOException {
+      for (MappedByteBuffer chunk : chunks) {
+        chunk.force();
+      }
+      raf.close();
+    }
+  }
+}
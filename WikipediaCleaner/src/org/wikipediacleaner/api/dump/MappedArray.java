@@ -0,0 +1,90 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * Read-only array in a memory-mapped file, possibly larger than 2 GB.
+ */
+class MappedArray {
+
+  /** Size of each mapped chunk (multiple of 8) */
+  private final static int CHUNK_SIZE = 1 << 30;
+
+  /** Mapped chunks */
+  private final MappedByteBuffer[] chunks;
+
+  /**
+   * @param file File.
+   * @throws IOException
+   */
+  MappedArray(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      long size = channel.size();
+      int count = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+      chunks = new MappedByteBuffer[count];
+      for (int i = 0; i < count; i++) {
+        long position = (long) i * CHUNK_SIZE;
+        chunks[i] = channel.map(
+            FileChannel.MapMode.READ_ONLY, position,
+            Math.min(CHUNK_SIZE, size - position));
+      }
+    } finally {
+      raf.close();
+    }
+  }
+
+  /**
+   * @param position Position of a byte.
+   * @return Byte value.
+   */
+  byte getByte(long position) {
+    return chunks[(int) (position / CHUNK_SIZE)].get((int) (position % CHUNK_SIZE));
+  }
+
+  /**
+   * @param index Index of an integer.
+   * @return Integer value.
+   */
+  int getInt(long index) {
+    long position = index * 4;
+    return chunks[(int) (position / CHUNK_SIZE)].getInt((int) (position % CHUNK_SIZE));
+  }
+
+  /**
+   * @param index Index of a long.
+   * @return Long value.
+   */
+  long getLong(long index) {
+    long position = index * 8;
+    return chunks[(int) (position / CHUNK_SIZE)].getLong((int) (position % CHUNK_SIZE));
+  }
+
+  /**
+   * @param position Position of the first byte.
+   * @param length Number of bytes.
+   * @return Bytes.
+   */
+  byte[] getBytes(long position, int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      long current = position + i;
+      result[i] = chunks[(int) (current / CHUNK_SIZE)].get((int) (current % CHUNK_SIZE));
+    }
+    return result;
+  }
+}
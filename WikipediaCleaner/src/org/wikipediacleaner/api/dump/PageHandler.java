@@ -151,10 +151,9 @@ public class PageHandler extends DefaultHandler {
       if (qName.equalsIgnoreCase("page")) {
         if (processor != null) {
           try {
-            Page page = DataManager.getPage(
+            Page page = DataManager.createPage(
                 processor.getWiki(), title.toString(),
-                Integer.valueOf(pageId.toString(), 10), revisionId.toString(),
-                null);
+                Integer.valueOf(pageId.toString(), 10), revisionId.toString());
             page.setNamespace(namespace.toString());
             page.setContents(revisionText.toString());
             processor.processPage(page);
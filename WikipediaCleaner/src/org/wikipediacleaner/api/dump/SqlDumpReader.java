@@ -0,0 +1,294 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.dump;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+
+
+/**
+ * Reader for SQL dumps (page, pagelinks, redirect, ... tables).
+ *
+ * The dump is read as a stream: only the columns requested are kept
+ * for each row, and rows are given one by one to a handler.
+ */
+public class SqlDumpReader {
+
+  /**
+   * Handler for the rows of a table.
+   */
+  public static interface RowHandler {
+
+    /**
+     * Process a row.
+     *
+     * @param values Values of the requested columns (null for NULL values).
+     */
+    public void processRow(String[] values);
+  }
+
+  /** Dump file */
+  private final File file;
+
+  /** Names of the requested columns */
+  private final String[] columns;
+
+  /** Index of the requested columns in the table */
+  private final int[] indexes;
+
+  /** Reader */
+  private Reader reader;
+
+  /** True when the end of the current line has already been read */
+  private boolean lineEnded;
+
+  /**
+   * @param file Dump file (plain, gzip or bzip2).
+   * @param columns Names of the requested columns.
+   */
+  public SqlDumpReader(File file, String... columns) {
+    this.file = file;
+    this.columns = columns.clone();
+    this.indexes = new int[columns.length];
+    for (int i = 0; i < indexes.length; i++) {
+      indexes[i] = -1;
+    }
+  }
+
+  /**
+   * @param column Name of a column.
+   * @return True if the table has this column (known after reading the dump).
+   */
+  public boolean hasColumn(String column) {
+    for (int i = 0; i < columns.length; i++) {
+      if (columns[i].equals(column)) {
+        return indexes[i] >= 0;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Read the dump.
+   *
+   * @param handler Handler for the rows.
+   * @throws IOException
+   */
+  public void read(RowHandler handler) throws IOException {
+    InputStream input = new BufferedInputStream(new FileInputStream(file));
+    try {
+      String name = file.getName().toLowerCase();
+      if (name.endsWith(".gz")) {
+        input = new GZIPInputStream(input);
+      } else if (name.endsWith(".bz2")) {
+        input = new BZip2CompressorInputStream(input);
+      }
+      reader = new BufferedReader(new InputStreamReader(input, "UTF-8"), 1 << 16);
+      for (int i = 0; i < indexes.length; i++) {
+        indexes[i] = -1;
+      }
+      List<String> tableColumns = new ArrayList<String>();
+      StringBuilder line = new StringBuilder();
+      while (readLineStart(line)) {
+        String start = line.toString();
+        if (start.startsWith("CREATE TABLE")) {
+          readColumns(tableColumns);
+          for (int i = 0; i < columns.length; i++) {
+            indexes[i] = tableColumns.indexOf(columns[i]);
+          }
+        } else if (start.startsWith("INSERT INTO")) {
+          for (int i = 0; i < columns.length; i++) {
+            if (indexes[i] < 0) {
+              throw new IOException("Column " + columns[i] + " not found in " + file.getName());
+            }
+          }
+          readValues(handler);
+        } else {
+          skipLine();
+        }
+      }
+    } finally {
+      reader = null;
+      input.close();
+    }
+  }
+
+  /**
+   * Read the beginning of a line (up to the first space after the first two words).
+   *
+   * @param line Buffer for the beginning of the line.
+   * @return False at the end of the file.
+   * @throws IOException
+   */
+  private boolean readLineStart(StringBuilder line) throws IOException {
+    line.setLength(0);
+    lineEnded = false;
+    int spaces = 0;
+    for (;;) {
+      int c = read();
+      if (c < 0) {
+        lineEnded = true;
+        return line.length() > 0;
+      }
+      if (c == '\n') {
+        if (line.length() > 0) {
+          lineEnded = true;
+          return true;
+        }
+        continue;
+      }
+      if (c == ' ') {
+        spaces++;
+        if (spaces >= 2) {
+          return true;
+        }
+      }
+      line.append((char) c);
+    }
+  }
+
+  /**
+   * Skip the end of the current line.
+   *
+   * @throws IOException
+   */
+  private void skipLine() throws IOException {
+    if (lineEnded) {
+      return;
+    }
+    int c = read();
+    while ((c >= 0) && (c != '\n')) {
+      c = read();
+    }
+  }
+
+  /**
+   * Read the columns of a CREATE TABLE statement.
+   *
+   * @param tableColumns List of columns.
+   * @throws IOException
+   */
+  private void readColumns(List<String> tableColumns) throws IOException {
+    tableColumns.clear();
+    skipLine();
+    StringBuilder line = new StringBuilder();
+    for (;;) {
+      line.setLength(0);
+      int c = read();
+      while ((c >= 0) && (c != '\n')) {
+        line.append((char) c);
+        c = read();
+      }
+      String text = line.toString().trim();
+      if ((c < 0) || text.startsWith(")")) {
+        return;
+      }
+      if (text.startsWith("`")) {
+        int end = text.indexOf('`', 1);
+        if (end > 0) {
+          tableColumns.add(text.substring(1, end));
+        }
+      }
+    }
+  }
+
+  /**
+   * Read the values of an INSERT statement.
+   *
+   * @param handler Handler for the rows.
+   * @throws IOException
+   */
+  private void readValues(RowHandler handler) throws IOException {
+    String[] values = new String[columns.length];
+    StringBuilder value = new StringBuilder();
+    int c = read();
+    while ((c >= 0) && (c != '(')) {
+      c = read();
+    }
+    while (c == '(') {
+
+      // Read a row
+      int column = 0;
+      for (int i = 0; i < values.length; i++) {
+        values[i] = null;
+      }
+      boolean endRow = false;
+      while (!endRow) {
+        value.setLength(0);
+        boolean isNull = false;
+        c = read();
+        if (c == '\'') {
+          c = read();
+          while ((c >= 0) && (c != '\'')) {
+            if (c == '\\') {
+              c = read();
+              switch (c) {
+              case '0': c = 0; break;
+              case 'n': c = '\n'; break;
+              case 'r': c = '\r'; break;
+              case 't': c = '\t'; break;
+              case 'Z': c = 26; break;
+              default: break;
+              }
+            }
+            if (c >= 0) {
+              value.append((char) c);
+            }
+            c = read();
+          }
+          c = read();
+        } else {
+          while ((c >= 0) && (c != ',') && (c != ')')) {
+            value.append((char) c);
+            c = read();
+          }
+          isNull = "NULL".contentEquals(value);
+        }
+        for (int i = 0; i < indexes.length; i++) {
+          if (indexes[i] == column) {
+            values[i] = isNull ? null : value.toString();
+          }
+        }
+        column++;
+        if (c != ',') {
+          endRow = true;
+        }
+      }
+      handler.processRow(values);
+
+      // Next row
+      c = read();
+      if (c == ',') {
+        c = read();
+      }
+    }
+    while ((c >= 0) && (c != '\n')) {
+      c = read();
+    }
+  }
+
+  /**
+   * @return Next character (-1 at the end of the file).
+   * @throws IOException
+   */
+  private int read() throws IOException {
+    return reader.read();
+  }
+}
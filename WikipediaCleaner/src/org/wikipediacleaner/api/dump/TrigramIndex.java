@@ -0,0 +1,320 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.dump;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+
+
+/**
+ * Trigram index of the pages of a dump, used to pre-select pages for regular expressions.
+ *
+ * For each trigram of the text (case folded, hashed in a fixed number of buckets),
+ * the index contains the sorted list of the pages containing it.
+ * A query gives the candidate pages, a superset of the pages matching the
+ * expression, which must then be verified with the expression itself.
+ * The index is built once for each dump and is only valid for this dump.
+ */
+public class TrigramIndex {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(TrigramIndex.class);
+
+  /** Version of the file format */
+  final static int VERSION = 1;
+
+  /** Length of the grams */
+  final static int GRAM_LENGTH = 3;
+
+  /** Default number of buckets (power of 2) */
+  final static int BUCKET_COUNT = 1 << 20;
+
+  /** File containing the description of the index */
+  final static String FILE_INFO = "index.info";
+
+  /** File containing the offsets of the titles */
+  final static String FILE_TITLES_INDEX = "titles.idx";
+
+  /** File containing the titles */
+  final static String FILE_TITLES = "titles.dat";
+
+  /** File containing the name space of each page */
+  final static String FILE_NAMESPACES = "namespaces.dat";
+
+  /** File containing the offsets of the posting lists */
+  final static String FILE_POSTINGS_INDEX = "postings.idx";
+
+  /** File containing the posting lists */
+  final static String FILE_POSTINGS = "postings.dat";
+
+  /**
+   * @param wiki Wiki.
+   * @param dumpFile Dump file.
+   * @return Directory containing the trigram index of the dump.
+   */
+  public static File getDirectory(EnumWikipedia wiki, File dumpFile) {
+    File directory = new File(new File(System.getProperty("user.home"), ".wpcleaner"), "trigram");
+    directory = new File(directory, wiki.name().toLowerCase());
+    return new File(directory, dumpFile.getName());
+  }
+
+  /**
+   * @param wiki Wiki.
+   * @param dumpFile Dump file.
+   * @return Trigram index of the dump (null if it hasn't been built for this dump).
+   */
+  public static TrigramIndex open(EnumWikipedia wiki, File dumpFile) {
+    if ((wiki == null) || (dumpFile == null)) {
+      return null;
+    }
+    File directory = getDirectory(wiki, dumpFile);
+    File infoFile = new File(directory, FILE_INFO);
+    if (!infoFile.isFile()) {
+      return null;
+    }
+    try {
+      DataInputStream input = new DataInputStream(new BufferedInputStream(
+          new FileInputStream(infoFile)));
+      int pageCount = 0;
+      int bucketCount = 0;
+      try {
+        if (input.readInt() != VERSION) {
+          log.warn("Trigram index in " + directory + " has an old format");
+          return null;
+        }
+        pageCount = input.readInt();
+        bucketCount = input.readInt();
+        input.readLong(); // Creation time
+        long dumpLength = input.readLong();
+        long dumpModified = input.readLong();
+        if ((dumpLength != dumpFile.length()) ||
+            (dumpModified != dumpFile.lastModified())) {
+          log.warn("Trigram index in " + directory + " doesn't match " + dumpFile);
+          return null;
+        }
+      } finally {
+        input.close();
+      }
+      return new TrigramIndex(directory, pageCount, bucketCount);
+    } catch (IOException e) {
+      log.warn("Unable to open trigram index in " + directory + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * @param c Character.
+   * @return Case folded character.
+   */
+  static char fold(char c) {
+    return Character.toLowerCase(Character.toUpperCase(c));
+  }
+
+  /**
+   * @param c1 First character (case folded).
+   * @param c2 Second character (case folded).
+   * @param c3 Third character (case folded).
+   * @param bucketCount Number of buckets (power of 2).
+   * @return Bucket of the trigram.
+   */
+  static int getBucket(char c1, char c2, char c3, int bucketCount) {
+    int hash = (((c1 * 31) + c2) * 31 + c3) * 0x9E3779B1;
+    return (hash ^ (hash >>> 15)) & (bucketCount - 1);
+  }
+
+  /** Number of pages */
+  private final int pageCount;
+
+  /** Number of buckets */
+  private final int bucketCount;
+
+  /** Offsets of the titles */
+  private final MappedArray titlesIndex;
+
+  /** Titles */
+  private final MappedArray titles;
+
+  /** Name spaces */
+  private final MappedArray namespaces;
+
+  /** Offsets of the posting lists */
+  private final MappedArray postingsIndex;
+
+  /** Posting lists */
+  private final MappedArray postings;
+
+  /**
+   * @param directory Directory containing the index.
+   * @param pageCount Number of pages.
+   * @param bucketCount Number of buckets.
+   * @throws IOException
+   */
+  private TrigramIndex(File directory, int pageCount, int bucketCount) throws IOException {
+    this.pageCount = pageCount;
+    this.bucketCount = bucketCount;
+    titlesIndex = new MappedArray(new File(directory, FILE_TITLES_INDEX));
+    titles = new MappedArray(new File(directory, FILE_TITLES));
+    namespaces = new MappedArray(new File(directory, FILE_NAMESPACES));
+    postingsIndex = new MappedArray(new File(directory, FILE_POSTINGS_INDEX));
+    postings = new MappedArray(new File(directory, FILE_POSTINGS));
+  }
+
+  /**
+   * @return Number of pages.
+   */
+  public int getPageCount() {
+    return pageCount;
+  }
+
+  /**
+   * @param id Page id in the index.
+   * @return Title of the page.
+   */
+  public String getTitle(int id) {
+    long start = titlesIndex.getLong(id);
+    long end = titlesIndex.getLong(id + 1);
+    return new String(titles.getBytes(start, (int) (end - start)), LinkGraph.UTF8);
+  }
+
+  /**
+   * @param id Page id in the index.
+   * @return Name space of the page.
+   */
+  public int getNamespace(int id) {
+    return namespaces.getInt(id);
+  }
+
+  /**
+   * @param pattern Regular expression.
+   * @return Sorted ids of the pages that may match the expression
+   *         (null if pages can't be pre-selected for this expression).
+   */
+  public int[] getCandidates(Pattern pattern) {
+    return getCandidates(TrigramQuery.create(pattern));
+  }
+
+  /**
+   * @param query Query.
+   * @return Sorted ids of the pages that may match the query
+   *         (null if the query is null).
+   */
+  public int[] getCandidates(TrigramQuery query) {
+    if (query == null) {
+      return null;
+    }
+    BitSet result = new BitSet(pageCount);
+    for (List<String> branch : query.getBranches()) {
+
+      // Buckets required by the branch, shortest posting lists first
+      List<Integer> buckets = new ArrayList<Integer>();
+      for (String literal : branch) {
+        for (int i = 0; i + GRAM_LENGTH <= literal.length(); i++) {
+          Integer bucket = Integer.valueOf(getBucket(
+              fold(literal.charAt(i)), fold(literal.charAt(i + 1)), fold(literal.charAt(i + 2)),
+              bucketCount));
+          if (!buckets.contains(bucket)) {
+            buckets.add(bucket);
+          }
+        }
+      }
+      long[] sizes = new long[buckets.size()];
+      for (int i = 0; i < sizes.length; i++) {
+        int bucket = buckets.get(i).intValue();
+        sizes[i] = ((postingsIndex.getLong(bucket + 1) - postingsIndex.getLong(bucket)) << 32) | bucket;
+      }
+      Arrays.sort(sizes);
+
+      // Intersection of the posting lists
+      int[] candidates = null;
+      for (long size : sizes) {
+        int[] list = getPostingList((int) (size & 0xFFFFFFFFL));
+        candidates = (candidates == null) ? list : intersect(candidates, list);
+        if (candidates.length == 0) {
+          break;
+        }
+      }
+      if (candidates != null) {
+        for (int candidate : candidates) {
+          result.set(candidate);
+        }
+      }
+    }
+
+    int[] ids = new int[result.cardinality()];
+    int count = 0;
+    for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+      ids[count++] = id;
+    }
+    return ids;
+  }
+
+  /**
+   * @param bucket Bucket.
+   * @return Sorted ids of the pages containing a trigram of the bucket.
+   */
+  private int[] getPostingList(int bucket) {
+    long position = postingsIndex.getLong(bucket);
+    long end = postingsIndex.getLong(bucket + 1);
+    int[] result = new int[16];
+    int count = 0;
+    int id = 0;
+    while (position < end) {
+      int delta = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = postings.getByte(position++);
+        delta |= (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      id += delta;
+      if (count >= result.length) {
+        result = Arrays.copyOf(result, result.length * 2);
+      }
+      result[count++] = id;
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * @param list1 Sorted list.
+   * @param list2 Sorted list.
+   * @return Sorted intersection of both lists.
+   */
+  private static int[] intersect(int[] list1, int[] list2) {
+    int[] result = new int[Math.min(list1.length, list2.length)];
+    int count = 0;
+    int i1 = 0;
+    int i2 = 0;
+    while ((i1 < list1.length) && (i2 < list2.length)) {
+      if (list1[i1] < list2[i2]) {
+        i1++;
+      } else if (list1[i1] > list2[i2]) {
+        i2++;
+      } else {
+        result[count++] = list1[i1];
+        i1++;
+        i2++;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+}
@@ -0,0 +1,419 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.dump;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+
+
+/**
+ * Builder of the trigram index of a dump.
+ *
+ * Postings (bucket and page) are accumulated in memory, and written
+ * sorted in temporary segments when the buffer is full.
+ * Segments are then merged bucket by bucket in the final posting lists,
+ * each list being stored as variable length deltas between page ids.
+ */
+public class TrigramIndexBuilder implements PageProcessor {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(TrigramIndexBuilder.class);
+
+  /** Number of postings kept in memory before writing a segment */
+  private final static int BUFFER_SIZE = 1 << 23;
+
+  /** Wiki */
+  private final EnumWikipedia wiki;
+
+  /** Dump file */
+  private final File dumpFile;
+
+  /** Number of buckets */
+  private final int bucketCount;
+
+  /** Directory for the index being built */
+  private final File tmpDirectory;
+
+  /** Output for the titles */
+  private DataOutputStream titlesOutput;
+
+  /** Output for the offsets of the titles */
+  private DataOutputStream titlesIndexOutput;
+
+  /** Output for the name spaces */
+  private DataOutputStream namespacesOutput;
+
+  /** Offset of the next title */
+  private long titlesOffset;
+
+  /** Postings not yet written: bucket in the high bits, page id in the low bits */
+  private final long[] buffer;
+
+  /** Number of postings in the buffer */
+  private int bufferCount;
+
+  /** Buckets of the current page */
+  private int[] pageBuckets;
+
+  /** Segments written */
+  private final List<File> segments;
+
+  /** Number of pages */
+  private int pageCount;
+
+  /** Error while writing the index */
+  private IOException error;
+
+  /**
+   * @param wiki Wiki.
+   * @param dumpFile Dump file.
+   * @throws IOException
+   */
+  public TrigramIndexBuilder(EnumWikipedia wiki, File dumpFile) throws IOException {
+    this.wiki = wiki;
+    this.dumpFile = dumpFile;
+    this.bucketCount = TrigramIndex.BUCKET_COUNT;
+    File directory = TrigramIndex.getDirectory(wiki, dumpFile);
+    this.tmpDirectory = new File(directory.getParentFile(), directory.getName() + ".tmp");
+    LinkGraphBuilder.deleteDirectory(tmpDirectory);
+    if (!tmpDirectory.mkdirs()) {
+      throw new IOException("Unable to create " + tmpDirectory);
+    }
+    this.titlesOutput = openOutput(tmpDirectory, TrigramIndex.FILE_TITLES);
+    this.titlesIndexOutput = openOutput(tmpDirectory, TrigramIndex.FILE_TITLES_INDEX);
+    this.namespacesOutput = openOutput(tmpDirectory, TrigramIndex.FILE_NAMESPACES);
+    this.titlesOffset = 0;
+    this.buffer = new long[BUFFER_SIZE];
+    this.bufferCount = 0;
+    this.pageBuckets = new int[1024];
+    this.segments = new ArrayList<File>();
+    this.pageCount = 0;
+    this.error = null;
+  }
+
+  /**
+   * @return Wiki.
+   * @see org.wikipediacleaner.api.dump.PageProcessor#getWiki()
+   */
+  @Override
+  public EnumWikipedia getWiki() {
+    return wiki;
+  }
+
+  /**
+   * @return Number of pages in the index.
+   */
+  public int getPageCount() {
+    return pageCount;
+  }
+
+  /**
+   * Index the pages of the dump.
+   *
+   * @throws IOException
+   */
+  public void importDump() throws IOException {
+    DumpProcessor processor = new DumpProcessor(this);
+    processor.processDump(dumpFile);
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Process a page of the dump.
+   *
+   * @param page Page to be processed.
+   * @see org.wikipediacleaner.api.dump.PageProcessor#processPage(org.wikipediacleaner.api.data.Page)
+   */
+  @Override
+  public void processPage(Page page) {
+    if ((page == null) || (error != null)) {
+      return;
+    }
+    try {
+      int id = pageCount;
+      byte[] title = page.getTitle().getBytes(LinkGraph.UTF8);
+      titlesIndexOutput.writeLong(titlesOffset);
+      titlesOutput.write(title);
+      titlesOffset += title.length;
+      namespacesOutput.writeInt((page.getNamespace() != null) ?
+          page.getNamespace().intValue() : Namespace.MAIN);
+      pageCount++;
+
+      // Distinct buckets of the page
+      String contents = page.getContents();
+      if ((contents == null) || (contents.length() < TrigramIndex.GRAM_LENGTH)) {
+        return;
+      }
+      int count = 0;
+      char c1 = TrigramIndex.fold(contents.charAt(0));
+      char c2 = TrigramIndex.fold(contents.charAt(1));
+      for (int i = 2; i < contents.length(); i++) {
+        char c3 = TrigramIndex.fold(contents.charAt(i));
+        if (count >= pageBuckets.length) {
+          pageBuckets = Arrays.copyOf(pageBuckets, pageBuckets.length * 2);
+        }
+        pageBuckets[count++] = TrigramIndex.getBucket(c1, c2, c3, bucketCount);
+        c1 = c2;
+        c2 = c3;
+      }
+      Arrays.sort(pageBuckets, 0, count);
+      int previous = -1;
+      for (int i = 0; i < count; i++) {
+        int bucket = pageBuckets[i];
+        if (bucket != previous) {
+          if (bufferCount >= buffer.length) {
+            writeSegment();
+          }
+          buffer[bufferCount++] = (((long) bucket) << 32) | id;
+          previous = bucket;
+        }
+      }
+    } catch (IOException e) {
+      error = e;
+      return;
+    }
+
+    if (pageCount % 100000 == 0) {
+      log.info("Trigram index: " + pageCount + " pages processed, " + segments.size() + " segments");
+    }
+  }
+
+  /**
+   * Write the postings of the buffer in a new segment.
+   *
+   * For each bucket, the segment index contains the length in bytes
+   * of the posting list and the last page id of the list.
+   *
+   * @throws IOException
+   */
+  private void writeSegment() throws IOException {
+    Arrays.sort(buffer, 0, bufferCount);
+    File segment = new File(tmpDirectory, "segment" + segments.size());
+    DataOutputStream dataOutput = openOutput(tmpDirectory, segment.getName() + ".dat");
+    DataOutputStream indexOutput = openOutput(tmpDirectory, segment.getName() + ".idx");
+    try {
+      int position = 0;
+      for (int bucket = 0; bucket < bucketCount; bucket++) {
+        long length = 0;
+        int previous = 0;
+        while ((position < bufferCount) && ((int) (buffer[position] >>> 32) == bucket)) {
+          int id = (int) buffer[position];
+          length += writeVarInt(dataOutput, id - previous);
+          previous = id;
+          position++;
+        }
+        indexOutput.writeLong(length);
+        indexOutput.writeInt(previous);
+      }
+    } finally {
+      dataOutput.close();
+      indexOutput.close();
+    }
+    segments.add(segment);
+    bufferCount = 0;
+  }
+
+  /**
+   * Write the index, replacing the previous one for the same dump.
+   *
+   * @throws IOException
+   */
+  public void write() throws IOException {
+    if (error != null) {
+      throw error;
+    }
+    titlesIndexOutput.writeLong(titlesOffset);
+    titlesOutput.close();
+    titlesIndexOutput.close();
+    namespacesOutput.close();
+    if ((bufferCount > 0) || segments.isEmpty()) {
+      writeSegment();
+    }
+    log.info("Trigram index: merging " + segments.size() + " segments for " + pageCount + " pages");
+
+    // Merge the segments
+    int segmentCount = segments.size();
+    DataInputStream[] dataInputs = new DataInputStream[segmentCount];
+    DataInputStream[] indexInputs = new DataInputStream[segmentCount];
+    DataOutputStream postingsOutput = openOutput(tmpDirectory, TrigramIndex.FILE_POSTINGS);
+    DataOutputStream postingsIndexOutput = openOutput(tmpDirectory, TrigramIndex.FILE_POSTINGS_INDEX);
+    try {
+      for (int i = 0; i < segmentCount; i++) {
+        String name = segments.get(i).getName();
+        dataInputs[i] = openInput(tmpDirectory, name + ".dat");
+        indexInputs[i] = openInput(tmpDirectory, name + ".idx");
+      }
+      long offset = 0;
+      for (int bucket = 0; bucket < bucketCount; bucket++) {
+        postingsIndexOutput.writeLong(offset);
+        int last = 0;
+        for (int i = 0; i < segmentCount; i++) {
+          long length = indexInputs[i].readLong();
+          int segmentLast = indexInputs[i].readInt();
+          if (length > 0) {
+
+            // First id of the segment list is relative to the last id of the previous lists
+            int first = readVarInt(dataInputs[i]);
+            int firstLength = getVarIntLength(first);
+            offset += writeVarInt(postingsOutput, first - last);
+            copy(dataInputs[i], postingsOutput, length - firstLength);
+            offset += length - firstLength;
+            last = segmentLast;
+          }
+        }
+      }
+      postingsIndexOutput.writeLong(offset);
+    } finally {
+      for (int i = 0; i < segmentCount; i++) {
+        if (dataInputs[i] != null) {
+          dataInputs[i].close();
+        }
+        if (indexInputs[i] != null) {
+          indexInputs[i].close();
+        }
+      }
+      postingsOutput.close();
+      postingsIndexOutput.close();
+    }
+    for (File segment : segments) {
+      new File(tmpDirectory, segment.getName() + ".dat").delete();
+      new File(tmpDirectory, segment.getName() + ".idx").delete();
+    }
+
+    // Description of the index, written last
+    DataOutputStream infoOutput = openOutput(tmpDirectory, TrigramIndex.FILE_INFO);
+    try {
+      infoOutput.writeInt(TrigramIndex.VERSION);
+      infoOutput.writeInt(pageCount);
+      infoOutput.writeInt(bucketCount);
+      infoOutput.writeLong(System.currentTimeMillis());
+      infoOutput.writeLong(dumpFile.length());
+      infoOutput.writeLong(dumpFile.lastModified());
+    } finally {
+      infoOutput.close();
+    }
+
+    // Replace the previous index
+    File directory = TrigramIndex.getDirectory(wiki, dumpFile);
+    LinkGraphBuilder.deleteDirectory(directory);
+    if (!tmpDirectory.renameTo(directory)) {
+      throw new IOException("Unable to rename " + tmpDirectory + " to " + directory);
+    }
+    log.info("Trigram index written in " + directory);
+  }
+
+  /**
+   * @param directory Directory.
+   * @param name File name.
+   * @return Output stream.
+   * @throws IOException
+   */
+  private DataOutputStream openOutput(File directory, String name) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(new File(directory, name)), 1 << 16));
+  }
+
+  /**
+   * @param directory Directory.
+   * @param name File name.
+   * @return Input stream.
+   * @throws IOException
+   */
+  private DataInputStream openInput(File directory, String name) throws IOException {
+    return new DataInputStream(new BufferedInputStream(
+        new FileInputStream(new File(directory, name)), 1 << 16));
+  }
+
+  /**
+   * @param output Output stream.
+   * @param value Positive value.
+   * @return Number of bytes written.
+   * @throws IOException
+   */
+  private static int writeVarInt(OutputStream output, int value) throws IOException {
+    int length = 1;
+    while ((value & ~0x7F) != 0) {
+      output.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+      length++;
+    }
+    output.write(value);
+    return length;
+  }
+
+  /**
+   * @param input Input stream.
+   * @return Positive value.
+   * @throws IOException
+   */
+  private static int readVarInt(InputStream input) throws IOException {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = input.read();
+      if (b < 0) {
+        throw new IOException("Segment truncated");
+      }
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * @param value Positive value.
+   * @return Number of bytes needed to write the value.
+   */
+  private static int getVarIntLength(int value) {
+    int length = 1;
+    while ((value & ~0x7F) != 0) {
+      value >>>= 7;
+      length++;
+    }
+    return length;
+  }
+
+  /**
+   * @param input Input stream.
+   * @param output Output stream.
+   * @param length Number of bytes to copy.
+   * @throws IOException
+   */
+  private static void copy(InputStream input, OutputStream output, long length) throws IOException {
+    byte[] bytes = new byte[8192];
+    while (length > 0) {
+      int count = input.read(bytes, 0, (int) Math.min(bytes.length, length));
+      if (count < 0) {
+        throw new IOException("Segment truncated");
+      }
+      output.write(bytes, 0, count);
+      length -= count;
+    }
+  }
+}
@@ -0,0 +1,411 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+
+package org.wikipediacleaner.api.dump;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+
+/**
+ * Literals required by regular expressions, used to pre-select pages with a trigram index.
+ *
+ * The query is an alternative of branches: a text can match only if
+ * it contains all the literals of at least one branch.
+ * The analysis is conservative: parts of the expression that are not
+ * understood (classes, back references, optional groups, ...) are simply
+ * ignored, so the query may select too many pages but never too few.
+ */
+public class TrigramQuery {
+
+  /** No quantifier */
+  private final static int QUANTIFIER_NONE = 0;
+
+  /** Quantifier allowing no occurrence */
+  private final static int QUANTIFIER_OPTIONAL = 1;
+
+  /** Quantifier requiring at least one occurrence */
+  private final static int QUANTIFIER_REPEATED = 2;
+
+  /** Branches, each being a list of literals that must all be present */
+  private final List<List<String>> branches;
+
+  /**
+   * @param branches Branches.
+   */
+  private TrigramQuery(List<List<String>> branches) {
+    this.branches = branches;
+  }
+
+  /**
+   * @return Branches, each being a list of literals that must all be present.
+   */
+  public List<List<String>> getBranches() {
+    return Collections.unmodifiableList(branches);
+  }
+
+  /**
+   * @param pattern Regular expression.
+   * @return Query (null if pages can't be pre-selected for this expression).
+   */
+  public static TrigramQuery create(Pattern pattern) {
+    if (pattern == null) {
+      return null;
+    }
+    return create(Collections.singletonList(pattern));
+  }
+
+  /**
+   * @param patterns Regular expressions, a page being selected if it matches any of them.
+   * @return Query (null if pages can't be pre-selected for these expressions).
+   */
+  public static TrigramQuery create(Collection<Pattern> patterns) {
+    if ((patterns == null) || patterns.isEmpty()) {
+      return null;
+    }
+    List<List<String>> branches = new ArrayList<List<String>>();
+    for (Pattern pattern : patterns) {
+      List<List<String>> patternBranches = analyze(pattern);
+      if (patternBranches == null) {
+        return null;
+      }
+      branches.addAll(patternBranches);
+    }
+    return new TrigramQuery(branches);
+  }
+
+  /**
+   * @param pattern Regular expression.
+   * @return Branches (null if the expression can't be analyzed).
+   */
+  private static List<List<String>> analyze(Pattern pattern) {
+    int flags = pattern.flags();
+    if ((flags & Pattern.COMMENTS) != 0) {
+      return null;
+    }
+    List<List<String>> result = null;
+    if ((flags & Pattern.LITERAL) != 0) {
+      result = Collections.singletonList(Collections.singletonList(pattern.pattern()));
+    } else {
+      Parser parser = new Parser(pattern.pattern());
+      result = parser.parse();
+      if ((result == null) || (parser.position < parser.regex.length())) {
+        return null;
+      }
+    }
+
+    // Keep only literals long enough, each branch must have at least one
+    List<List<String>> branches = new ArrayList<List<String>>();
+    for (List<String> branch : result) {
+      List<String> literals = new ArrayList<String>();
+      for (String literal : branch) {
+        if (literal.length() >= TrigramIndex.GRAM_LENGTH) {
+          literals.add(literal);
+        }
+      }
+      if (literals.isEmpty()) {
+        return null;
+      }
+      branches.add(literals);
+    }
+    return branches;
+  }
+
+  /**
+   * Parser extracting the required literals of a regular expression.
+   */
+  private static class Parser {
+
+    /** Regular expression */
+    final String regex;
+
+    /** Current position in the expression */
+    int position;
+
+    /** True if the expression can't be analyzed */
+    boolean failed;
+
+    /**
+     * @param regex Regular expression.
+     */
+    Parser(String regex) {
+      this.regex = regex;
+      this.position = 0;
+      this.failed = false;
+    }
+
+    /**
+     * Parse alternatives up to the end of the current group.
+     *
+     * @return Branches (null if the expression can't be analyzed).
+     */
+    List<List<String>> parse() {
+      List<List<String>> branches = new ArrayList<List<String>>();
+      List<String> literals = new ArrayList<String>();
+      StringBuilder run = new StringBuilder();
+      while (!failed && (position < regex.length())) {
+        char c = regex.charAt(position);
+        if (c == ')') {
+          break;
+        }
+        if (c == '|') {
+          endRun(run, literals);
+          branches.add(literals);
+          literals = new ArrayList<String>();
+          position++;
+          continue;
+        }
+        if (c == '(') {
+          endRun(run, literals);
+          parseGroup(literals);
+          continue;
+        }
+
+        // Single atom
+        int literal = -1;
+        if (c == '[') {
+          skipClass();
+        } else if (c == '\\') {
+          position++;
+          if (position >= regex.length()) {
+            failed = true;
+          } else if (regex.charAt(position) == 'Q') {
+            int end = regex.indexOf("\\E", position + 1);
+            String quoted = regex.substring(position + 1, (end < 0) ? regex.length() : end);
+            position = (end < 0) ? regex.length() : end + 2;
+            if (quoted.length() > 0) {
+              run.append(quoted, 0, quoted.length() - 1);
+              literal = quoted.charAt(quoted.length() - 1);
+            }
+          } else {
+            literal = parseEscape();
+          }
+        } else if ((c == '.') || (c == '^') || (c == '$')) {
+          position++;
+        } else {
+          literal = c;
+          position++;
+        }
+
+        // Quantifier
+        int quantifier = parseQuantifier();
+        if (literal < 0) {
+          endRun(run, literals);
+        } else if (quantifier == QUANTIFIER_NONE) {
+          run.append((char) literal);
+        } else if (quantifier == QUANTIFIER_OPTIONAL) {
+          endRun(run, literals);
+        } else {
+          run.append((char) literal);
+          endRun(run, literals);
+        }
+      }
+      endRun(run, literals);
+      branches.add(literals);
+      return failed ? null : branches;
+    }
+
+    /**
+     * Parse a group.
+     *
+     * @param literals Literals of the current branch.
+     */
+    private void parseGroup(List<String> literals) {
+      position++;
+      boolean keep = true;
+      if (regex.startsWith("?", position)) {
+        position++;
+        if (regex.startsWith("=", position) ||
+            regex.startsWith("!", position) ||
+            regex.startsWith("<=", position) ||
+            regex.startsWith("<!", position)) {
+          keep = false; // Look around
+          position += (regex.charAt(position) == '<') ? 2 : 1;
+        } else if (regex.startsWith("<", position)) {
+          int end = regex.indexOf('>', position);
+          if (end < 0) {
+            failed = true;
+            return;
+          }
+          position = end + 1; // Named group
+        } else if (regex.startsWith(">", position) || regex.startsWith(":", position)) {
+          position++;
+        } else {
+          // Flags, either for the rest of the expression or for the group
+          while ((position < regex.length()) &&
+                 (regex.charAt(position) != ')') &&
+                 (regex.charAt(position) != ':')) {
+            if (regex.charAt(position) == 'x') {
+              failed = true;
+              return;
+            }
+            position++;
+          }
+          if (position >= regex.length()) {
+            failed = true;
+            return;
+          }
+          if (regex.charAt(position) == ')') {
+            position++;
+            return;
+          }
+          position++;
+        }
+      }
+      List<List<String>> group = parse();
+      if (failed || (position >= regex.length())) {
+        failed = true;
+        return;
+      }
+      position++;
+      int quantifier = parseQuantifier();
+      if (keep && (quantifier != QUANTIFIER_OPTIONAL) && (group.size() == 1)) {
+        literals.addAll(group.get(0));
+      }
+    }
+
+    /**
+     * Skip a character class.
+     */
+    private void skipClass() {
+      int depth = 0;
+      position++;
+      if (regex.startsWith("^", position)) {
+        position++;
+      }
+      if (regex.startsWith("]", position)) {
+        position++;
+      }
+      while (position < regex.length()) {
+        char c = regex.charAt(position);
+        position++;
+        if (c == '\\') {
+          position++;
+        } else if (c == '[') {
+          depth++;
+        } else if (c == ']') {
+          if (depth == 0) {
+            return;
+          }
+          depth--;
+        }
+      }
+      failed = true;
+    }
+
+    /**
+     * Parse an escape sequence (after the backslash).
+     *
+     * @return Literal character, or -1 if the sequence doesn't match a single known character.
+     */
+    private int parseEscape() {
+      char c = regex.charAt(position);
+      position++;
+      switch (c) {
+      case 't': return '\t';
+      case 'n': return '\n';
+      case 'r': return '\r';
+      case 'f': return '\f';
+      case 'a': return '\u0007';
+      case 'e': return '\u001B';
+      case 'p':
+      case 'P':
+      case 'x':
+        if (regex.startsWith("{", position)) {
+          int end = regex.indexOf('}', position);
+          position = (end < 0) ? regex.length() : end + 1;
+        } else {
+          position += (c == 'x') ? 2 : 1;
+        }
+        return -1;
+      case 'u':
+        position += 4;
+        return -1;
+      case 'c':
+        position++;
+        return -1;
+      case 'k':
+        if (regex.startsWith("<", position)) {
+          int end = regex.indexOf('>', position);
+          position = (end < 0) ? regex.length() : end + 1;
+        }
+        return -1;
+      default:
+        break;
+      }
+      if (Character.isLetterOrDigit(c)) {
+        while ((position < regex.length()) && Character.isDigit(regex.charAt(position))) {
+          position++;
+        }
+        return -1;
+      }
+      return c;
+    }
+
+    /**
+     * Parse an optional quantifier.
+     *
+     * @return Kind of quantifier.
+     */
+    private int parseQuantifier() {
+      if (position >= regex.length()) {
+        return QUANTIFIER_NONE;
+      }
+      int result = QUANTIFIER_NONE;
+      char c = regex.charAt(position);
+      if ((c == '?') || (c == '*')) {
+        position++;
+        result = QUANTIFIER_OPTIONAL;
+      } else if (c == '+') {
+        position++;
+        result = QUANTIFIER_REPEATED;
+      } else if (c == '{') {
+        int end = regex.indexOf('}', position);
+        if (end < 0) {
+          failed = true;
+          return QUANTIFIER_NONE;
+        }
+        String bounds = regex.substring(position + 1, end).trim();
+        position = end + 1;
+        int comma = bounds.indexOf(',');
+        String min = (comma < 0) ? bounds : bounds.substring(0, comma).trim();
+        try {
+          result = (Integer.parseInt(min) == 0) ? QUANTIFIER_OPTIONAL : QUANTIFIER_REPEATED;
+        } catch (NumberFormatException e) {
+          failed = true;
+          return QUANTIFIER_NONE;
+        }
+      } else {
+        return QUANTIFIER_NONE;
+      }
+
+      // Reluctant or possessive quantifier
+      if ((position < regex.length()) &&
+          ((regex.charAt(position) == '?') || (regex.charAt(position) == '+'))) {
+        position++;
+      }
+      return result;
+    }
+
+    /**
+     * End the current run of literal characters.
+     *
+     * @param run Current run.
+     * @param literals Literals of the current branch.
+     */
+    private void endRun(StringBuilder run, List<String> literals) {
+      if (run.length() > 0) {
+        literals.add(run.toString());
+        run.setLength(0);
+      }
+    }
+  }
+}
@@ -7,10 +7,9 @@
 
 package org.wikipediacleaner.api.execution;
 
-import java.util.Collections;
-
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.APIFactory;
 import org.wikipediacleaner.api.MediaWikiListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
@@ -62,10 +61,8 @@ public class ContentsCallable extends MediaWikiCallable<Page> {
   public Page call() throws APIException {
     setText(GT._("Retrieving contents") + " - " + page.getTitle());
     if (section == null) {
-      api.retrieveContents(
-          getWikipedia(),
-          Collections.singletonList(page), 
-          usePageId, withRedirects);
+      APIFactory.getContentsBatcher().retrieveContents(
+          getWikipedia(), page, usePageId, withRedirects);
       if (withRedirects &&
           page.isRedirect() &&
           (page.getRedirects().size() > 0)) {
@@ -0,0 +1,53 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.execution;
+
+import java.util.Collection;
+import java.util.Map;
+
+import org.wikipediacleaner.api.API;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.MediaWikiListener;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.i18n.GT;
+
+
+/**
+ * A Callable implementation for retrieving Language Links.
+ */
+public class LanguageLinksCallable extends MediaWikiCallable<Map<String, String>> {
+
+  private final EnumWikipedia to;
+
+  private final Collection<String> titles;
+
+  /**
+   * @param wikipedia Wikipedia in which the pages are.
+   * @param listener Listener of MediaWiki events.
+   * @param api MediaWiki API.
+   * @param to Wikipedia to which the links are searched.
+   * @param titles Page titles.
+   */
+  public LanguageLinksCallable(
+      EnumWikipedia wikipedia, MediaWikiListener listener, API api,
+      EnumWikipedia to, Collection<String> titles) {
+    super(wikipedia, listener, api);
+    this.to = to;
+    this.titles = titles;
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.concurrent.Callable#call()
+   */
+  @Override
+  public Map<String, String> call() throws APIException {
+    setText(GT._("Retrieving interwikis"));
+    return api.getLanguageLinks(getWikipedia(), to, titles);
+  }
+
+}
@@ -49,7 +49,10 @@ public abstract class MediaWikiCallable<T> implements Callable<T>, MediaWikiList
     return false;
   }
 
-  protected EnumWikipedia getWikipedia() {
+  /**
+   * @return Wiki on which the task is performed.
+   */
+  public EnumWikipedia getWikipedia() {
     return wikipedia;
   }
 }
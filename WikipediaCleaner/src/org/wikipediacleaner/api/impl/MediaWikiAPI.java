@@ -7,7 +7,6 @@
 
 package org.wikipediacleaner.api.impl;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
@@ -17,12 +16,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
-import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpStatus;
@@ -37,12 +33,15 @@ import org.jdom2.input.SAXBuilder;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.CaptchaException;
 import org.wikipediacleaner.api.HttpUtils;
+import org.wikipediacleaner.api.PageLocks;
+import org.wikipediacleaner.api.PagesListener;
+import org.wikipediacleaner.api.RateController;
 import org.wikipediacleaner.api.RecentChangesListener;
+import org.wikipediacleaner.api.RequestCoalescer;
 import org.wikipediacleaner.api.constants.ConnectionInformation;
 import org.wikipediacleaner.api.constants.EnumQueryPage;
 import org.wikipediacleaner.api.constants.EnumQueryResult;
@@ -58,6 +57,7 @@ import org.wikipediacleaner.api.data.RecentChange;
 import org.wikipediacleaner.api.data.Section;
 import org.wikipediacleaner.api.data.TemplateData;
 import org.wikipediacleaner.api.data.User;
+import org.wikipediacleaner.api.dump.LinkGraph;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
 import org.wikipediacleaner.api.request.delete.ApiDeleteRequest;
@@ -104,9 +104,9 @@ import org.wikipediacleaner.api.request.query.list.ApiUsersRequest;
 import org.wikipediacleaner.api.request.query.list.ApiUsersResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlAbuseFiltersResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlAbuseLogResult;
-import org.wikipediacleaner.api.request.query.list.ApiXmlCategoryMembersResult;
-import org.wikipediacleaner.api.request.query.list.ApiXmlEmbeddedInResult;
-import org.wikipediacleaner.api.request.query.list.ApiXmlPagesWithPropResult;
+import org.wikipediacleaner.api.request.query.list.ApiJsonCategoryMembersResult;
+import org.wikipediacleaner.api.request.query.list.ApiJsonEmbeddedInResult;
+import org.wikipediacleaner.api.request.query.list.ApiJsonPagesWithPropResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlProtectedTitlesResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlQueryPageResult;
 import org.wikipediacleaner.api.request.query.list.ApiXmlRandomPagesResult;
@@ -145,12 +145,12 @@ import org.wikipediacleaner.api.request.query.prop.ApiXmlCategoriesResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlInfoResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlLanguageLinksResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlLinksHereResult;
-import org.wikipediacleaner.api.request.query.prop.ApiXmlLinksResult;
+import org.wikipediacleaner.api.request.query.prop.ApiJsonLinksResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlPagePropsResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlPropertiesResult;
 import org.wikipediacleaner.api.request.query.prop.ApiXmlRedirectsResult;
-import org.wikipediacleaner.api.request.query.prop.ApiXmlRevisionsResult;
-import org.wikipediacleaner.api.request.query.prop.ApiXmlTemplatesResult;
+import org.wikipediacleaner.api.request.query.prop.ApiJsonRevisionsResult;
+import org.wikipediacleaner.api.request.query.prop.ApiJsonTemplatesResult;
 import org.wikipediacleaner.api.request.templatedata.ApiJsonTemplateDataResult;
 import org.wikipediacleaner.api.request.templatedata.ApiTemplateDataRequest;
 import org.wikipediacleaner.api.request.templatedata.ApiTemplateDataResult;
@@ -159,6 +159,7 @@ import org.wikipediacleaner.i18n.GT;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 import org.wikipediacleaner.utils.ConfigurationValueInteger;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -175,12 +176,6 @@ public class MediaWikiAPI implements API {
 
   private HttpClient httpClient;
 
-  /**
-   * Time of last edit.
-   */
-  private LinkedList<Long> lastEditTimes = new LinkedList<Long>();
-  private final Object editLock = new Object();
-
   /**
    * Constructor.
    * 
@@ -369,79 +364,85 @@ public class MediaWikiAPI implements API {
         (connection.getLgUserName() == null)){
       throw new APIException("You must be logged in to update pages");
     }
-    int attemptNumber = 0;
-    QueryResult result = null;
-    do {
-      attemptNumber++;
-      Map<String, String> properties = getProperties(ApiRequest.ACTION_EDIT, true);
-      properties.put("assert", "user");
-      if (page.getContentsTimestamp() != null) {
-        properties.put("basetimestamp", page.getContentsTimestamp());
-      }
-      properties.put("bot", "");
-      properties.put("minor", "");
-      if (page.getStartTimestamp() != null) {
-        properties.put("starttimestamp", page.getStartTimestamp());
-      }
-      properties.put("summary", comment);
-      properties.put("text", newContents);
-      properties.put("title", page.getTitle());
-      if (wikipedia.getConnection().getEditToken() != null) {
-        properties.put("token", wikipedia.getConnection().getEditToken());
-      }
-      properties.put("watchlist", forceWatch ? "watch" : "nochange");
-      CommentDecorator commentDecorator = wikipedia.getCommentDecorator();
-      if (commentDecorator != null) {
-        commentDecorator.manageComment(properties, "summary", "tags", automatic);
-      }
-      checkTimeForEdit(wikipedia.getConnection().getUser(), page.getNamespace());
-      try {
-        boolean hasCaptcha = false;
-        do {
-          hasCaptcha = false;
-          try {
-            result = constructEdit(
-                getRoot(wikipedia, properties, 1),
-                "/api/edit");
-          } catch (CaptchaException e) {
-            String captchaAnswer = getCaptchaAnswer(wikipedia, e);
-            if (captchaAnswer != null) {
-              properties.put("captchaid", e.getId());
-              properties.put("captchaword", captchaAnswer);
-              hasCaptcha = true;
-            } else {
-              throw new APIException("CAPTCHA", e);
+    PageLocks pageLocks = PageLocks.getLocks(wikipedia);
+    pageLocks.lock(page.getTitle());
+    try {
+      int attemptNumber = 0;
+      QueryResult result = null;
+      do {
+        attemptNumber++;
+        Map<String, String> properties = getProperties(ApiRequest.ACTION_EDIT, true);
+        properties.put("assert", "user");
+        if (page.getContentsTimestamp() != null) {
+          properties.put("basetimestamp", page.getContentsTimestamp());
+        }
+        properties.put("bot", "");
+        properties.put("minor", "");
+        if (page.getStartTimestamp() != null) {
+          properties.put("starttimestamp", page.getStartTimestamp());
+        }
+        properties.put("summary", comment);
+        properties.put("text", newContents);
+        properties.put("title", page.getTitle());
+        if (wikipedia.getConnection().getEditToken() != null) {
+          properties.put("token", wikipedia.getConnection().getEditToken());
+        }
+        properties.put("watchlist", forceWatch ? "watch" : "nochange");
+        CommentDecorator commentDecorator = wikipedia.getCommentDecorator();
+        if (commentDecorator != null) {
+          commentDecorator.manageComment(properties, "summary", "tags", automatic);
+        }
+        checkTimeForEdit(wikipedia, page.getNamespace());
+        try {
+          boolean hasCaptcha = false;
+          do {
+            hasCaptcha = false;
+            try {
+              result = constructEdit(
+                  getRoot(wikipedia, properties, 1),
+                  "/api/edit");
+            } catch (CaptchaException e) {
+              String captchaAnswer = getCaptchaAnswer(wikipedia, e);
+              if (captchaAnswer != null) {
+                properties.put("captchaid", e.getId());
+                properties.put("captchaword", captchaAnswer);
+                hasCaptcha = true;
+              } else {
+                throw new APIException("CAPTCHA", e);
+              }
+            }
+          } while (hasCaptcha);
+        } catch (APIException e) {
+          if (e.getHttpStatus() == HttpStatus.SC_GATEWAY_TIMEOUT) {
+            log.warn("Gateway timeout, waiting to see if modification has been taken into account");
+            waitBeforeRetrying();
+            Page tmpPage = page.replicatePage();
+            retrieveContents(wikipedia, Collections.singletonList(tmpPage), false, false);
+            String tmpContents = tmpPage.getContents();
+            if ((tmpContents != null) &&
+                (tmpContents.equals(newContents))) {
+              return QueryResult.createCorrectQuery(
+                  tmpPage.getPageId(), tmpPage.getTitle(),
+                  page.getPageId(), tmpPage.getPageId());
             }
           }
-        } while (hasCaptcha);
-      } catch (APIException e) {
-        if (e.getHttpStatus() == HttpStatus.SC_GATEWAY_TIMEOUT) {
-          log.warn("Gateway timeout, waiting to see if modification has been taken into account");
-          waitBeforeRetrying();
-          Page tmpPage = page.replicatePage();
-          retrieveContents(wikipedia, Collections.singletonList(tmpPage), false, false);
-          String tmpContents = tmpPage.getContents();
-          if ((tmpContents != null) &&
-              (tmpContents.equals(newContents))) {
-            return QueryResult.createCorrectQuery(
-                tmpPage.getPageId(), tmpPage.getTitle(),
-                page.getPageId(), tmpPage.getPageId());
+          if (attemptNumber > 1) {
+            throw e;
           }
+          if (e.getQueryResult() == EnumQueryResult.BAD_TOKEN) {
+            RateController.getController(wikipedia).waitBeforeRetrying(attemptNumber, null);
+            log.warn("Retrieving tokens after a BAD_TOKEN answer");
+            retrieveTokens(wikipedia);
+          }
+        } catch (JDOMParseException e) {
+          log.error("Error updating page: " + e.getMessage());
+          throw new APIException("Error parsing XML", e);
         }
-        if (attemptNumber > 1) {
-          throw e;
-        }
-        if (e.getQueryResult() == EnumQueryResult.BAD_TOKEN) {
-          waitBeforeRetrying();
-          log.warn("Retrieving tokens after a BAD_TOKEN answer");
-          retrieveTokens(wikipedia);
-        }
-      } catch (JDOMParseException e) {
-        log.error("Error updating page: " + e.getMessage());
-        throw new APIException("Error parsing XML", e);
-      }
-    } while (result == null);
-    return result;
+      } while (result == null);
+      return result;
+    } finally {
+      pageLocks.unlock(page.getTitle());
+    }
   }
 
   /**
@@ -519,68 +520,74 @@ public class MediaWikiAPI implements API {
         (connection.getLgUserName() == null)){
       throw new APIException("You must be logged in to update pages");
     }
-    int attemptNumber = 0;
-    QueryResult result = null;
-    do {
-      attemptNumber++;
-      Map<String, String> properties = getProperties(ApiRequest.ACTION_EDIT, true);
-      properties.put("assert", "user");
-      if (page.getContentsTimestamp() != null) {
-        properties.put("basetimestamp", page.getContentsTimestamp());
-      }
-      properties.put("bot", "");
-      properties.put("minor", "");
-      properties.put("section", section);
-      properties.put("sectiontitle", title);
-      String startTimestamp = page.getStartTimestamp();
-      if ((startTimestamp != null) && !startTimestamp.isEmpty()) {
-        properties.put("starttimestamp", startTimestamp);
-      }
-      String comment = title;
-      properties.put("summary", comment);
-      properties.put("text", contents);
-      properties.put("title", page.getTitle());
-      properties.put("token", wikipedia.getConnection().getEditToken());
-      properties.put("watchlist", forceWatch ? "watch" : "nochange");
-      CommentDecorator commentDecorator = wikipedia.getCommentDecorator();
-      if (commentDecorator != null) {
-        commentDecorator.manageComment(properties, "summary", "tags", automatic);
-      }
-      checkTimeForEdit(wikipedia.getConnection().getUser(), page.getNamespace());
-      try {
-        boolean hasCaptcha = false;
-        do {
-          hasCaptcha = false;
-          try {
-            result = constructEdit(
-                getRoot(wikipedia, properties, 1),
-                "/api/edit");
-          } catch (CaptchaException e) {
-            String captchaAnswer = getCaptchaAnswer(wikipedia, e);
-            if (captchaAnswer != null) {
-              properties.put("captchaid", e.getId());
-              properties.put("captchaword", captchaAnswer);
-              hasCaptcha = true;
-            } else {
-              throw new APIException("CAPTCHA", e);
+    PageLocks pageLocks = PageLocks.getLocks(wikipedia);
+    pageLocks.lock(page.getTitle());
+    try {
+      int attemptNumber = 0;
+      QueryResult result = null;
+      do {
+        attemptNumber++;
+        Map<String, String> properties = getProperties(ApiRequest.ACTION_EDIT, true);
+        properties.put("assert", "user");
+        if (page.getContentsTimestamp() != null) {
+          properties.put("basetimestamp", page.getContentsTimestamp());
+        }
+        properties.put("bot", "");
+        properties.put("minor", "");
+        properties.put("section", section);
+        properties.put("sectiontitle", title);
+        String startTimestamp = page.getStartTimestamp();
+        if ((startTimestamp != null) && !startTimestamp.isEmpty()) {
+          properties.put("starttimestamp", startTimestamp);
+        }
+        String comment = title;
+        properties.put("summary", comment);
+        properties.put("text", contents);
+        properties.put("title", page.getTitle());
+        properties.put("token", wikipedia.getConnection().getEditToken());
+        properties.put("watchlist", forceWatch ? "watch" : "nochange");
+        CommentDecorator commentDecorator = wikipedia.getCommentDecorator();
+        if (commentDecorator != null) {
+          commentDecorator.manageComment(properties, "summary", "tags", automatic);
+        }
+        checkTimeForEdit(wikipedia, page.getNamespace());
+        try {
+          boolean hasCaptcha = false;
+          do {
+            hasCaptcha = false;
+            try {
+              result = constructEdit(
+                  getRoot(wikipedia, properties, 1),
+                  "/api/edit");
+            } catch (CaptchaException e) {
+              String captchaAnswer = getCaptchaAnswer(wikipedia, e);
+              if (captchaAnswer != null) {
+                properties.put("captchaid", e.getId());
+                properties.put("captchaword", captchaAnswer);
+                hasCaptcha = true;
+              } else {
+                throw new APIException("CAPTCHA", e);
+              }
             }
+          } while (hasCaptcha);
+        } catch (APIException e) {
+          if (attemptNumber > 1) {
+            throw e;
           }
-        } while (hasCaptcha);
-      } catch (APIException e) {
-        if (attemptNumber > 1) {
-          throw e;
-        }
-        if (e.getQueryResult() == EnumQueryResult.BAD_TOKEN) {
-          waitBeforeRetrying();
-          log.warn("Retrieving tokens after a BAD_TOKEN answer");
-          retrieveTokens(wikipedia);
+          if (e.getQueryResult() == EnumQueryResult.BAD_TOKEN) {
+            RateController.getController(wikipedia).waitBeforeRetrying(attemptNumber, null);
+            log.warn("Retrieving tokens after a BAD_TOKEN answer");
+            retrieveTokens(wikipedia);
+          }
+        } catch (JDOMParseException e) {
+          log.error("Error updating page: " + e.getMessage());
+          throw new APIException("Error parsing XML", e);
         }
-      } catch (JDOMParseException e) {
-        log.error("Error updating page: " + e.getMessage());
-        throw new APIException("Error parsing XML", e);
-      }
-    } while (result == null);
-    return result;
+      } while (result == null);
+      return result;
+    } finally {
+      pageLocks.unlock(page.getTitle());
+    }
   }
 
   /**
@@ -631,7 +638,7 @@ public class MediaWikiAPI implements API {
   private QueryResult constructEdit(Element root, String query)
       throws APIException, CaptchaException {
 
-    XPathExpression<Element> xpa = XPathFactory.instance().compile(
+    XPathExpression<Element> xpa = XPathCache.compile(
         query, Filters.element());
     Element node = xpa.evaluateFirst(root);
     if (node != null) {
@@ -659,7 +666,7 @@ public class MediaWikiAPI implements API {
             pageId, node.getAttributeValue("title"),
             pageOldRevId, pageNewRevId);
       } else if ("Failure".equalsIgnoreCase(result)) {
-        XPathExpression<Element> xpaCaptcha = XPathFactory.instance().compile(
+        XPathExpression<Element> xpaCaptcha = XPathCache.compile(
             "./captcha", Filters.element());
         Element captcha = xpaCaptcha.evaluateFirst(node);
         if (captcha != null) {
@@ -695,7 +702,7 @@ public class MediaWikiAPI implements API {
     }
     boolean redirect = false;
 
-    XPathExpression<Element> xpaPage = XPathFactory.instance().compile(
+    XPathExpression<Element> xpaPage = XPathCache.compile(
         query, Filters.element());
     Element node = xpaPage.evaluateFirst(root);
     if (node != null) {
@@ -710,16 +717,17 @@ public class MediaWikiAPI implements API {
       page.setPageId(node.getAttributeValue("pageid"));
       page.setStartTimestamp(node.getAttributeValue("starttimestamp"));
     }
-    XPathExpression<Element> xpa = XPathFactory.instance().compile(
+    XPathExpression<Element> xpa = XPathCache.compile(
         query + "/revisions/rev", Filters.element());
     node = xpa.evaluateFirst(root);
     if (node != null) {
-      page.setContents(node.getText());
       page.setExisting(Boolean.TRUE);
-      page.setRevisionId(node.getAttributeValue("revid"));
-      page.setContentsTimestamp(node.getAttributeValue("timestamp"));
+      page.setLastRevision(
+          node.getText(),
+          node.getAttributeValue("revid"),
+          node.getAttributeValue("timestamp"));
     }
-    xpa = XPathFactory.instance().compile(query + "/protection/pr", Filters.element());
+    xpa = XPathCache.compile(query + "/protection/pr", Filters.element());
     for (Element prNode : xpa.evaluate(root)) {
       if ("edit".equals(prNode.getAttributeValue("type"))) {
         page.setEditProtectionLevel(prNode.getAttributeValue("level"));
@@ -741,9 +749,9 @@ public class MediaWikiAPI implements API {
       throw new APIException("Pages is null");
     }
 
-    XPathExpression<Element> xpaPage = XPathFactory.instance().compile(
+    XPathExpression<Element> xpaPage = XPathCache.compile(
         query, Filters.element());
-    XPathExpression<Element> xpaRev = XPathFactory.instance().compile(
+    XPathExpression<Element> xpaRev = XPathCache.compile(
         "./revisions/rev", Filters.element());
     List<Element> resultPages = xpaPage.evaluate(root);
     Iterator<Element> iterPages = resultPages.iterator();
@@ -968,7 +976,7 @@ public class MediaWikiAPI implements API {
       Collection<Page> pages, boolean usePageId,
       boolean withRedirects)
       throws APIException {
-    ApiRevisionsResult result = new ApiXmlRevisionsResult(wiki, httpClient);
+    ApiRevisionsResult result = new ApiJsonRevisionsResult(wiki, httpClient);
     ApiRevisionsRequest request = new ApiRevisionsRequest(wiki, result);
     request.loadContent(pages, usePageId, withRedirects);
   }
@@ -982,7 +990,7 @@ public class MediaWikiAPI implements API {
   @Override
   public void retrieveTemplates(EnumWikipedia wiki, Page page)
       throws APIException {
-    ApiTemplatesResult result = new ApiXmlTemplatesResult(wiki, httpClient);
+    ApiTemplatesResult result = new ApiJsonTemplatesResult(wiki, httpClient);
     ApiTemplatesRequest request = new ApiTemplatesRequest(wiki, result);
     request.loadTemplates(page);
   }
@@ -1038,7 +1046,7 @@ public class MediaWikiAPI implements API {
       }
 
       // Use templates otherwise
-      ApiTemplatesResult result = new ApiXmlTemplatesResult(wiki, httpClient);
+      ApiTemplatesResult result = new ApiJsonTemplatesResult(wiki, httpClient);
       ApiTemplatesRequest request = new ApiTemplatesRequest(wiki, result);
       request.setDisambiguationStatus(pages);
     }
@@ -1056,11 +1064,59 @@ public class MediaWikiAPI implements API {
   @Override
   public void retrieveLinks(EnumWikipedia wiki, Collection<Page> pages)
       throws APIException {
-    ApiLinksResult result = new ApiXmlLinksResult(wiki, httpClient);
+    ApiLinksResult result = new ApiJsonLinksResult(wiki, httpClient);
     ApiLinksRequest request = new ApiLinksRequest(wiki, result);
     request.loadLinks(pages);
   }
 
+  /**
+   * Retrieves the contents and the internal links of a list of pages,
+   * with information about the links (redirects, disambiguation).
+   * (<code>action=query</code>, <code>prop=revisions|links</code>).
+   * 
+   * @param wiki Wiki.
+   * @param pages List of pages.
+   * @param namespace Restrict the links to a given namespace.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#revisions_.2F_rv">API:Properties#revisions</a>
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#links_.2F_pl">API:Properties#links</a>
+   */
+  @Override
+  public void retrieveContentsAndLinks(
+      EnumWikipedia wiki, Collection<Page> pages,
+      Integer namespace) throws APIException {
+
+    // Retrieve contents and links in the same requests
+    ApiRevisionsResult revisionsResult = new ApiJsonRevisionsResult(wiki, httpClient);
+    ApiRevisionsRequest revisionsRequest = new ApiRevisionsRequest(wiki, revisionsResult);
+    revisionsRequest.loadContentAndLinks(pages, namespace);
+
+    // Retrieve information about the links, using links as a generator
+    ApiLinksResult result = new ApiJsonLinksResult(wiki, httpClient);
+    ApiLinksRequest request = new ApiLinksRequest(wiki, result);
+    boolean useDisambig = wiki.getConfiguration().getBoolean(
+        WPCConfigurationBoolean.DAB_USE_DISAMBIG_MAGIC_WORD);
+    List<Page> redirections = new ArrayList<Page>();
+    request.loadLinksInformation(pages, namespace, redirections, useDisambig);
+
+    // TODO: Better management of redirections (class)
+    if (!redirections.isEmpty()) {
+      initializeDisambiguationStatus(wiki, redirections, true);
+      retrieveContentsWithoutRedirects(wiki, redirections);
+    }
+
+    // Retrieve disambiguation information if needed
+    if (!useDisambig) {
+      List<Page> links = new ArrayList<Page>();
+      for (Page page : pages) {
+        if (page.getLinks() != null) {
+          links.addAll(page.getLinks());
+        }
+      }
+      initializeDisambiguationStatus(wiki, links, false);
+    }
+  }
+
   /**
    * Retrieves internal links of one page.
    * (<code>action=query</code>, <code>prop=links</code>).
@@ -1080,7 +1136,26 @@ public class MediaWikiAPI implements API {
       List<Page> knownPages,
       boolean redirects, boolean disambigNeeded)
       throws APIException {
-    ApiLinksResult result = new ApiXmlLinksResult(wiki, httpClient);
+
+    // Use the offline link graph if enabled
+    LinkGraph graph = LinkGraph.getEnabledGraph(wiki);
+    if (graph != null) {
+      List<Page> links = graph.retrieveLinks(page, namespace, knownPages, redirects);
+      if (links != null) {
+        if (disambigNeeded) {
+          List<Page> dabCandidates = new ArrayList<Page>(links);
+          for (Page link : links) {
+            if (link.getRedirects() != null) {
+              dabCandidates.addAll(link.getRedirects());
+            }
+          }
+          initializeDisambiguationStatus(wiki, dabCandidates, false);
+        }
+        return;
+      }
+    }
+
+    ApiLinksResult result = new ApiJsonLinksResult(wiki, httpClient);
     ApiLinksRequest request = new ApiLinksRequest(wiki, result);
     boolean useDisambig = wiki.getConfiguration().getBoolean(
         WPCConfigurationBoolean.DAB_USE_DISAMBIG_MAGIC_WORD);
@@ -1114,6 +1189,13 @@ public class MediaWikiAPI implements API {
       EnumWikipedia wiki, Page page,
       boolean redirects)
       throws APIException {
+
+    // Use the offline link graph if enabled
+    LinkGraph graph = LinkGraph.getEnabledGraph(wiki);
+    if ((graph != null) && graph.retrieveLinksHere(page, redirects)) {
+      return;
+    }
+
     ApiRedirectsResult redirectResult = new ApiXmlRedirectsResult(wiki, httpClient);
     ApiRedirectsRequest redirectRequest = new ApiRedirectsRequest(wiki, redirectResult);
     redirectRequest.loadRedirects(page);
@@ -1142,6 +1224,30 @@ public class MediaWikiAPI implements API {
     return request.getLanguageLink(DataManager.getPage(from, title, null, null, null), to);
   }
 
+  /**
+   * Retrieve language links in a list of pages.
+   * (<code>action=query</code>, <code>prop=langlinks</code>).
+   * 
+   * @param from Wiki in which the articles are.
+   * @param to Wiki to which the links are searched.
+   * @param titles Page titles.
+   * @return Page titles in the destination wiki, indexed by page titles in the original wiki.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Properties#langlinks_.2F_ll">API:Properties#langlinks</a>
+   */
+  @Override
+  public Map<String, String> getLanguageLinks(
+      EnumWikipedia from, EnumWikipedia to, Collection<String> titles)
+      throws APIException {
+    List<Page> pages = new ArrayList<Page>(titles.size());
+    for (String title : titles) {
+      pages.add(DataManager.getPage(from, title, null, null, null));
+    }
+    ApiLanguageLinksResult result = new ApiXmlLanguageLinksResult(from, httpClient);
+    ApiLanguageLinksRequest request = new ApiLanguageLinksRequest(from, result);
+    return request.getLanguageLinks(pages, to);
+  }
+
   // ==========================================================================
   // API : Queries / Lists
   // ==========================================================================
@@ -1197,7 +1303,7 @@ public class MediaWikiAPI implements API {
       EnumWikipedia wiki, Page page,
       boolean redirects)
       throws APIException {
-    ApiBacklinksResult result = new ApiXmlBacklinksResult(wiki, httpClient);
+    ApiBacklinksResult result = new ApiJsonBacklinksResult(wiki, httpClient);
     ApiBacklinksRequest request = new ApiBacklinksRequest(wiki, result);
     request.loadBacklinks(page, redirects);
   }*/
@@ -1218,7 +1324,7 @@ public class MediaWikiAPI implements API {
   public void retrieveCategoryMembers(
       EnumWikipedia wiki, Page category,
       int depth, boolean limit, int max) throws APIException {
-    ApiCategoryMembersResult result = new ApiXmlCategoryMembersResult(wiki, httpClient);
+    ApiCategoryMembersResult result = new ApiJsonCategoryMembersResult(wiki, httpClient);
     ApiCategoryMembersRequest request = new ApiCategoryMembersRequest(wiki, result);
     request.loadCategoryMembers(category, depth, limit, max);
   }
@@ -1238,7 +1344,7 @@ public class MediaWikiAPI implements API {
   public void retrieveEmbeddedIn(
       EnumWikipedia wiki, Page page,
       List<Integer> namespaces, boolean limit) throws APIException {
-    ApiEmbeddedInResult result = new ApiXmlEmbeddedInResult(wiki, httpClient);
+    ApiEmbeddedInResult result = new ApiJsonEmbeddedInResult(wiki, httpClient);
     ApiEmbeddedInRequest request = new ApiEmbeddedInRequest(wiki, result);
     request.loadEmbeddedIn(page, namespaces, limit);
   }
@@ -1257,11 +1363,30 @@ public class MediaWikiAPI implements API {
   public List<Page> retrievePagesWithProp(
       EnumWikipedia wiki,
       String property, boolean limit) throws APIException {
-    ApiPagesWithPropResult result = new ApiXmlPagesWithPropResult(wiki, httpClient);
+    ApiPagesWithPropResult result = new ApiJsonPagesWithPropResult(wiki, httpClient);
     ApiPagesWithPropRequest request = new ApiPagesWithPropRequest(wiki, result);
     return request.loadPagesWithProp(property, limit);
   }
 
+  /**
+   * Retrieves the pages which have a given property, part by part.
+   * (<code>action=query</code>, <code>list=pageswithprop</code>).
+   * 
+   * @param wiki Wiki.
+   * @param property Property name.
+   * @param listener Listener for the pages, as they are retrieved.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Pageswithprop">API:Pageswithprop</a>
+   */
+  @Override
+  public void retrievePagesWithProp(
+      EnumWikipedia wiki,
+      String property, PagesListener listener) throws APIException {
+    ApiPagesWithPropResult result = new ApiJsonPagesWithPropResult(wiki, httpClient);
+    ApiPagesWithPropRequest request = new ApiPagesWithPropRequest(wiki, result);
+    request.loadPagesWithProp(property, listener);
+  }
+
   /**
    * Retrieves the pages which are protected in creation indefinitely.
    * (<code>action=query</code>, <code>list=protectedtitles</code>).
@@ -1338,6 +1463,27 @@ public class MediaWikiAPI implements API {
     return request.loadRecentChanges(start, recentChanges);
   }
 
+  /**
+   * Retrieves recent changes in a name space since a given time.
+   * (<code>action=query</code>, <code>list=recentchanges</code>).
+   * 
+   * @param wiki Wiki.
+   * @param start The timestamp to start listing from (only the last change if null).
+   * @param namespace Name space.
+   * @param recentChanges The list of recent changes to be filled.
+   * @throws APIException
+   * @see <a href="http://www.mediawiki.org/wiki/API:Recentchanges">API:Recentchanges</a>
+   */
+  @Override
+  public void getRecentChanges(
+      EnumWikipedia wiki,
+      String start, int namespace,
+      List<RecentChange> recentChanges) throws APIException {
+    ApiRecentChangesResult result = new ApiXmlRecentChangesResult(wiki, httpClient);
+    ApiRecentChangesRequest request = new ApiRecentChangesRequest(wiki, result);
+    request.loadRecentChanges(start, namespace, recentChanges);
+  }
+
   /**
    * Retrieves similar pages.
    * (<code>action=query</code>, <code>list=search</code>).
@@ -1503,7 +1649,13 @@ public class MediaWikiAPI implements API {
       throws APIException {
     ApiDeleteResult result = new ApiXmlDeleteResult(wiki, httpClient);
     ApiDeleteRequest request = new ApiDeleteRequest(wiki, result);
-    request.deletePage(page, reason, automatic);
+    PageLocks pageLocks = PageLocks.getLocks(wiki);
+    pageLocks.lock(page.getTitle());
+    try {
+      request.deletePage(page, reason, automatic);
+    } finally {
+      pageLocks.unlock(page.getTitle());
+    }
   }
 
   // ==========================================================================
@@ -1602,18 +1754,31 @@ public class MediaWikiAPI implements API {
    * @throws APIException
    */
   private Element getRoot(
-      EnumWikipedia       wikipedia,
-      Map<String, String> properties,
-      int                 maxTry)
+      final EnumWikipedia       wikipedia,
+      final Map<String, String> properties,
+      int                       maxTry)
       throws JDOMParseException, APIException {
     Element root = null;
     HttpMethod method = null;
+    RateController controller = RateController.getController(wikipedia);
+    RequestCoalescer coalescer = RequestCoalescer.getCoalescer(wikipedia);
+    RequestCoalescer.MethodFactory factory = new RequestCoalescer.MethodFactory() {
+
+      @Override
+      public HttpMethod createHttpMethod() {
+        return MediaWikiAPI.this.createHttpMethod(wikipedia, properties);
+      }
+    };
     int attempt = 0;
     for (;;) {
+      InputStream stream = null;
       try {
         attempt++;
-        method = createHttpMethod(wikipedia, properties);
-        int statusCode = httpClient.executeMethod(method);
+        RequestCoalescer.Response response = coalescer.send(
+            properties, attempt, httpClient, factory);
+        method = response.getMethod();
+        stream = response.getStream();
+        int statusCode = response.getStatusCode();
         if (statusCode != HttpStatus.SC_OK) {
           String message = "URL access returned " + HttpStatus.getStatusText(statusCode);
           log.error(message);
@@ -1621,16 +1786,8 @@ public class MediaWikiAPI implements API {
             log.warn("Error. Maximum attempts count reached.");
             throw new APIException(message, statusCode);
           }
-          waitBeforeRetrying();
+          controller.waitBeforeRetrying(attempt, method);
         } else {
-          InputStream stream = method.getResponseBodyAsStream();
-          stream = new BufferedInputStream(stream);
-          Header contentEncoding = method.getResponseHeader("Content-Encoding");
-          if (contentEncoding != null) {
-            if (contentEncoding.getValue().equals("gzip")) {
-              stream = new GZIPInputStream(stream);
-            }
-          }
           SAXBuilder sxb = new SAXBuilder();
           Document document = sxb.build(stream);
           traceDocument(document);
@@ -1646,7 +1803,7 @@ public class MediaWikiAPI implements API {
           log.warn("Error. Maximum attempts count reached.");
           throw e;
         }
-        waitBeforeRetrying();
+        controller.waitBeforeRetrying(attempt, method);
       } catch (JDOMException e) {
         String message = "JDOMException: " + e.getMessage();
         log.error(message);
@@ -1654,7 +1811,7 @@ public class MediaWikiAPI implements API {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error parsing XML result", e);
         }
-        waitBeforeRetrying();
+        controller.waitBeforeRetrying(attempt, method);
       } catch (IOException e) {
         String message = "" + e.getClass().getName() + ": " + e.getMessage();
         log.error(message);
@@ -1662,13 +1819,20 @@ public class MediaWikiAPI implements API {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error accessing MediaWiki", e);
         }
-        waitBeforeRetrying();
+        controller.waitBeforeRetrying(attempt, method);
       } catch (APIException e) {
         if (!e.shouldRetry() || (attempt > e.getMaxRetry())) {
           throw e;
         }
-        e.waitForRetry();
+        controller.waitBeforeRetrying(e, method);
       } finally {
+        if (stream != null) {
+          try {
+            stream.close();
+          } catch (IOException e) {
+            log.warn("Error closing stream");
+          }
+        }
         if (method != null) {
           method.releaseConnection();
         }
@@ -1678,28 +1842,30 @@ public class MediaWikiAPI implements API {
   }
 
   /**
-   * Wait after a problem occurred.
+   * Wait after a gateway timeout, to let the server complete the request.
    */
   private void waitBeforeRetrying() {
     try {
       Thread.sleep(30000);
     } catch (InterruptedException e) {
-      // Nothing
+      Thread.currentThread().interrupt();
     }
   }
 
   /**
    * Check current time to see if edit is authorized (wait if needed).
    * 
-   * @param user Current user.
+   * @param wikipedia Wikipedia.
    * @param namespace Name space for the edit.
+   * @throws APIException If interrupted while waiting.
    */
-  private void checkTimeForEdit(User user, Integer namespace) {
+  private void checkTimeForEdit(EnumWikipedia wikipedia, Integer namespace) throws APIException {
+    User user = wikipedia.getConnection().getUser();
     Configuration config = Configuration.getConfiguration();
     int minimumTime = config.getInt(null, ConfigurationValueInteger.TIME_BETWEEN_EDIT);
     int maxEdits = 0;
     if ((namespace == null) || (namespace.intValue() % 2 == 0)) {
-      config.getInt(null, ConfigurationValueInteger.MAX_EDITS_PER_MINUTE);
+      maxEdits = config.getInt(null, ConfigurationValueInteger.MAX_EDITS_PER_MINUTE);
       if ((maxEdits > ConfigurationValueInteger.MAX_EDITS_PER_MINUTE_NORMAL) ||
           (maxEdits <= 0)) {
         if (!user.isMemberOf("admin") &&
@@ -1708,36 +1874,7 @@ public class MediaWikiAPI implements API {
         }
       }
     }
-    if ((minimumTime <= 0) && (maxEdits <= 0)) {
-      return;
-    }
-    synchronized (editLock) {
-      long currentTime = System.currentTimeMillis();
-      if ((minimumTime > 0) && (!lastEditTimes.isEmpty())) {
-        long lastEditTime = lastEditTimes.getLast();
-        if (currentTime < lastEditTime + minimumTime * 1000) {
-          try {
-            Thread.sleep(lastEditTime + minimumTime * 1000 - currentTime);
-          } catch (InterruptedException e) {
-            // Nothing to do
-          }
-          currentTime = System.currentTimeMillis();
-        }
-      }
-      while ((!lastEditTimes.isEmpty()) &&
-             (lastEditTimes.getFirst() + 60 * 1000 <= currentTime)) {
-        lastEditTimes.removeFirst();
-      }
-      if ((maxEdits > 0) && (lastEditTimes.size() >= maxEdits)) {
-        try {
-          Thread.sleep(lastEditTimes.getFirst() + 60 * 1000 - currentTime);
-        } catch (InterruptedException e) {
-          // Nothing to do
-        }
-        currentTime = System.currentTimeMillis();
-      }
-      lastEditTimes.add(currentTime);
-    }
+    RateController.getController(wikipedia).acquireEdit(minimumTime, maxEdits);
   }
 
   /**
@@ -1753,6 +1890,7 @@ public class MediaWikiAPI implements API {
     boolean getMethod = canUseGetMethod(properties);
     Configuration config = Configuration.getConfiguration();
     boolean useHttps = !config.getBoolean(null, ConfigurationValueBoolean.FORCE_HTTP_API);
+    RateController.addMaxLag(properties);
     return HttpUtils.createHttpMethod(
         wikipedia.getSettings().getApiURL(useHttps),
         properties,
@@ -1789,7 +1927,7 @@ public class MediaWikiAPI implements API {
     }
     
     // Check for errors
-    XPathExpression<Element> xpa = XPathFactory.instance().compile(
+    XPathExpression<Element> xpa = XPathCache.compile(
         "/api/error", Filters.element());
     List<Element> listErrors = xpa.evaluate(root);
     if (listErrors != null) {
@@ -1803,7 +1941,7 @@ public class MediaWikiAPI implements API {
     }
     
     // Check for warnings
-    xpa = XPathFactory.instance().compile(
+    xpa = XPathCache.compile(
         "/api/warnings/*", Filters.element());
     List<Element> listWarnings = xpa.evaluate(root);
     if (listWarnings != null) {
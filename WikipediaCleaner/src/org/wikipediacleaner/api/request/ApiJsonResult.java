@@ -7,16 +7,18 @@
 
 package org.wikipediacleaner.api.request;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpStatus;
@@ -24,6 +26,8 @@ import org.jdom2.Attribute;
 import org.jdom2.Element;
 import org.jdom2.input.JDOMParseException;
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.RateController;
+import org.wikipediacleaner.api.RequestCoalescer;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
@@ -31,8 +35,12 @@ import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 
 /**
@@ -54,6 +62,11 @@ public abstract class ApiJsonResult extends BasicApiResult {
    */
   protected final static JsonFactory factory = new JsonFactory();
 
+  /**
+   * JSON mapper.
+   */
+  private final static ObjectMapper mapper = new ObjectMapper(factory);
+
   /**
    * Update configuration.
    */
@@ -98,33 +111,125 @@ public abstract class ApiJsonResult extends BasicApiResult {
       Map<String, String> properties,
       int maxTry)
           throws APIException {
+    return execute(properties, maxTry, new AnswerReader<JsonNode>() {
+
+      @Override
+      public JsonNode read(InputStream stream) throws IOException, APIException {
+        JsonNode root = mapper.readValue(stream, JsonNode.class);
+        traceDocument(root);
+        checkForError(root);
+        return root;
+      }
+    });
+  }
+
+  /**
+   * Send a request to MediaWiki API and read the answer as a stream.
+   * 
+   * The answer is never fully loaded in memory: the values of the query
+   * element are given to the handler as they arrive.
+   * If the request is attempted several times, the handler is reset
+   * before each attempt.
+   * 
+   * @param properties Properties defining the request.
+   * @param maxTry Maximum number of tries.
+   * @param handler Handler for the values of the query element.
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  protected boolean streamQuery(
+      Map<String, String> properties,
+      int maxTry,
+      final QueryHandler handler)
+          throws APIException {
+    final Map<String, String> continueProperties = new HashMap<String, String>();
+    execute(properties, maxTry, new AnswerReader<Object>() {
+
+      @Override
+      public Object read(InputStream stream) throws IOException, APIException {
+        continueProperties.clear();
+        handler.reset();
+        JsonParser parser = createParser(stream);
+        try {
+          readAnswer(parser, handler, continueProperties);
+        } finally {
+          parser.close();
+        }
+        return null;
+      }
+    });
+
+    // Manage continue only once the answer has been fully read
+    boolean result = false;
+    for (Entry<String, String> continueProperty : continueProperties.entrySet()) {
+      properties.put(continueProperty.getKey(), continueProperty.getValue());
+      if (!"".equals(continueProperty.getValue())) {
+        result = true;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reader for the answer of MediaWiki API.
+   * 
+   * @param <T> Type of the result of the reading.
+   */
+  private static interface AnswerReader<T> {
+
+    /**
+     * Read the answer.
+     * 
+     * @param stream Stream containing the answer.
+     * @return Result of the reading.
+     * @throws IOException
+     * @throws APIException
+     */
+    public T read(InputStream stream) throws IOException, APIException;
+  }
+
+  /**
+   * Send a request to MediaWiki API.
+   * 
+   * @param properties Properties defining the request.
+   * @param maxTry Maximum number of tries.
+   * @param reader Reader for the answer.
+   * @return Result of the reading of the answer.
+   * @throws APIException
+   */
+  private <T> T execute(
+      final Map<String, String> properties,
+      int maxTry,
+      AnswerReader<T> reader)
+          throws APIException {
+    RateController controller = RateController.getController(getWiki());
+    RequestCoalescer coalescer = RequestCoalescer.getCoalescer(getWiki());
+    RequestCoalescer.MethodFactory factory = new RequestCoalescer.MethodFactory() {
+
+      @Override
+      public HttpMethod createHttpMethod() {
+        return ApiJsonResult.this.createHttpMethod(properties);
+      }
+    };
     int attempt = 0;
     for (;;) {
-      JsonNode root = null;
+      T root = null;
       HttpMethod method = null;
       InputStream stream = null;
       try {
         // Executing HTTP method
         attempt++;
-        method = createHttpMethod(properties);
-        int statusCode = getHttpClient().executeMethod(method);
+        RequestCoalescer.Response response = coalescer.send(
+            properties, attempt, getHttpClient(), factory);
+        method = response.getMethod();
+        int statusCode = response.getStatusCode();
 
         // Accessing response
-        stream = method.getResponseBodyAsStream();
-        stream = new BufferedInputStream(stream);
-        Header contentEncoding = method.getResponseHeader("Content-Encoding");
-        if (contentEncoding != null) {
-          if (contentEncoding.getValue().equals("gzip")) {
-            stream = new GZIPInputStream(stream);
-          }
-        }
+        stream = response.getStream();
 
         // Read the response
         if (statusCode == HttpStatus.SC_OK){
-          ObjectMapper mapper = new ObjectMapper(factory);
-          root = mapper.readValue(stream, JsonNode.class);
-          traceDocument(root);
-          checkForError(root);
+          root = reader.read(stream);
         } else {
           try {
             while (stream.read() >= 0) {
@@ -143,11 +248,7 @@ public abstract class ApiJsonResult extends BasicApiResult {
             log.warn("Error. Maximum attempts count reached.");
             throw new APIException(message);
           }
-          try {
-            Thread.sleep(30000);
-          } catch (InterruptedException e) {
-            // Nothing
-          }
+          controller.waitBeforeRetrying(attempt, method);
         } else {
           return root;
         }
@@ -158,16 +259,12 @@ public abstract class ApiJsonResult extends BasicApiResult {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error accessing MediaWiki", e);
         }
-        try {
-          Thread.sleep(30000);
-        } catch (InterruptedException e2) {
-          // Nothing
-        }
+        controller.waitBeforeRetrying(attempt, method);
       } catch (APIException e) {
         if (!e.shouldRetry() || (attempt > e.getMaxRetry())) {
           throw e;
         }
-        e.waitForRetry();
+        controller.waitBeforeRetrying(e, method);
       } finally {
         if (stream != null) {
           try {
@@ -299,6 +396,51 @@ public abstract class ApiJsonResult extends BasicApiResult {
     return page;
   }
 
+  /**
+   * Get a page corresponding to a page node.
+   * 
+   * @param wiki Wiki.
+   * @param pageNode Page node.
+   * @param knownPages Already known pages.
+   * @param useDisambig True if disambiguation property should be used.
+   * @return Page.
+   */
+  protected static Page getPage(
+      EnumWikipedia wiki,
+      JsonNode pageNode, List<Page> knownPages,
+      boolean useDisambig) {
+    if (pageNode == null) {
+      return null;
+    }
+    String title = getText(pageNode, "title");
+    Integer pageId = null;
+    String pageIdValue = getText(pageNode, "pageid");
+    if (pageIdValue != null) {
+      try {
+        pageId = Integer.valueOf(pageIdValue);
+      } catch (NumberFormatException e) {
+        //
+      }
+    }
+    String revisionId = getText(pageNode, "lastrevid");
+    Page page = DataManager.getPage(wiki, title, pageId, revisionId, knownPages);
+    page.setNamespace(getText(pageNode, "ns"));
+    if (pageNode.has("missing")) {
+      page.setExisting(Boolean.FALSE);
+    } else if (pageId != null) {
+      page.setExisting(Boolean.TRUE);
+    }
+    if (pageNode.has("redirect")) {
+      page.isRedirect(true);
+    }
+    if (useDisambig) {
+      JsonNode pageProps = pageNode.get("pageprops");
+      boolean dabPage = (pageProps != null) && pageProps.has("disambiguation");
+      page.setDisambiguationPage(Boolean.valueOf(dabPage));
+    }
+    return page;
+  }
+
   /**
    * Trace a document contents.
    * 
@@ -313,4 +455,385 @@ public abstract class ApiJsonResult extends BasicApiResult {
       System.out.println("**********  END OF DOCUMENT  **********");
     }
   }
+
+  // ==========================================================================
+  // Streaming
+  // ==========================================================================
+
+  /**
+   * Handler for the values of the query element of an answer read as a stream.
+   */
+  protected static abstract class QueryHandler {
+
+    /**
+     * Reset the handler before an attempt at reading an answer.
+     */
+    public void reset() {
+      // Nothing by default
+    }
+
+    /**
+     * Invoked as soon as the continue element of the answer has been read.
+     * 
+     * @param continueProperties Properties for continuing the request.
+     */
+    public void handleContinue(Map<String, String> continueProperties) {
+      // Nothing by default
+    }
+
+    /**
+     * Handle a value of the query element.
+     * 
+     * @param name Name of the value.
+     * @param parser Parser positioned on the first token of the value.
+     * @return True if the value has been fully read by the handler.
+     * @throws IOException
+     * @throws APIException
+     */
+    public abstract boolean handleValue(
+        String name, JsonParser parser) throws IOException, APIException;
+  }
+
+  /**
+   * Handler for the elements of a list retrieved by continuation requests.
+   */
+  protected static interface ListHandler {
+
+    /**
+     * Handle the elements of one answer.
+     * 
+     * @param elements Elements of the list in the answer.
+     * @return True if the next elements of the list should be retrieved.
+     * @throws APIException
+     */
+    public boolean handleElements(List<JsonNode> elements) throws APIException;
+  }
+
+  /**
+   * Executor for the continuation requests sent in advance.
+   */
+  private final static ExecutorService listExecutor = Executors.newCachedThreadPool(
+      new ThreadFactory() {
+
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread thread = new Thread(r, "ApiJsonList");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+
+  /**
+   * Send a list request and its continuation requests.
+   * 
+   * Each continuation request is sent as soon as the continue element of the
+   * previous answer has been read, while the rest of this answer is still
+   * being received and handled, so that network and parsing overlap.
+   * At most one answer is retrieved in advance of the one being handled.
+   * The elements of each answer are given to the handler in order,
+   * in the calling thread.
+   * 
+   * @param properties Properties defining the request.
+   * @param maxTry Maximum number of tries for each request.
+   * @param name Name of the list in the query element.
+   * @param handler Handler for the elements of the list.
+   * @throws APIException
+   */
+  protected void streamList(
+      Map<String, String> properties,
+      int maxTry, String name,
+      ListHandler handler) throws APIException {
+    ListSegment segment = new ListSegment(
+        new HashMap<String, String>(properties), maxTry, name);
+    segment.activate();
+    segment.start();
+    while (segment != null) {
+      List<JsonNode> elements = segment.waitForElements();
+      if (!handler.handleElements(elements)) {
+        segment.stop();
+        return;
+      }
+      segment = segment.getNext();
+      if (segment != null) {
+        segment.activate();
+      }
+    }
+  }
+
+  /**
+   * One answer of a list retrieved by continuation requests.
+   */
+  private class ListSegment implements Runnable {
+
+    /** Properties defining the request */
+    private final Map<String, String> properties;
+
+    /** Maximum number of tries */
+    private final int maxTry;
+
+    /** Name of the list in the query element */
+    private final String name;
+
+    /** Elements of the list in the answer */
+    private List<JsonNode> elements;
+
+    /** Error while retrieving the answer */
+    private APIException exception;
+
+    /** True when the answer has been fully read */
+    private boolean done;
+
+    /** True when the answer is being handled */
+    private boolean active;
+
+    /** True when no more answers should be retrieved */
+    private boolean stopped;
+
+    /** Properties for the continuation request */
+    private Map<String, String> nextProperties;
+
+    /** Next answer */
+    private ListSegment next;
+
+    /**
+     * @param properties Properties defining the request.
+     * @param maxTry Maximum number of tries.
+     * @param name Name of the list in the query element.
+     */
+    ListSegment(Map<String, String> properties, int maxTry, String name) {
+      this.properties = properties;
+      this.maxTry = maxTry;
+      this.name = name;
+    }
+
+    /**
+     * Start retrieving the answer.
+     */
+    void start() {
+      listExecutor.execute(this);
+    }
+
+    /**
+     * Retrieve the answer.
+     * 
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+      final List<JsonNode> tmpElements = new ArrayList<JsonNode>();
+      APIException tmpException = null;
+      try {
+        streamQuery(properties, maxTry, new QueryHandler() {
+
+          @Override
+          public void reset() {
+            tmpElements.clear();
+          }
+
+          @Override
+          public void handleContinue(Map<String, String> continueProperties) {
+            boolean shouldContinue = false;
+            for (String value : continueProperties.values()) {
+              if (!"".equals(value)) {
+                shouldContinue = true;
+              }
+            }
+            if (shouldContinue) {
+              Map<String, String> tmpProperties = new HashMap<String, String>(properties);
+              tmpProperties.putAll(continueProperties);
+              setNextProperties(tmpProperties);
+            }
+          }
+
+          @Override
+          public boolean handleValue(String valueName, JsonParser parser) throws IOException {
+            if (!name.equals(valueName) || !parser.getCurrentToken().isStructStart()) {
+              return false;
+            }
+            JsonNode currentNode = null;
+            while ((currentNode = readNextElement(parser)) != null) {
+              tmpElements.add(currentNode);
+            }
+            return true;
+          }
+        });
+      } catch (APIException e) {
+        tmpException = e;
+      } catch (RuntimeException e) {
+        tmpException = new APIException("Error reading list " + name, e);
+      }
+      synchronized (this) {
+        elements = tmpElements;
+        exception = tmpException;
+        done = true;
+        notifyAll();
+      }
+    }
+
+    /**
+     * Mark the answer as being handled.
+     */
+    synchronized void activate() {
+      active = true;
+      startNext();
+    }
+
+    /**
+     * Stop retrieving answers.
+     */
+    synchronized void stop() {
+      stopped = true;
+    }
+
+    /**
+     * @param properties Properties for the continuation request.
+     */
+    synchronized void setNextProperties(Map<String, String> properties) {
+      if (nextProperties == null) {
+        nextProperties = properties;
+        startNext();
+      }
+    }
+
+    /**
+     * Start retrieving the next answer if possible.
+     */
+    private void startNext() {
+      if (active && !stopped && (nextProperties != null) && (next == null)) {
+        next = new ListSegment(nextProperties, maxTry, name);
+        next.start();
+      }
+    }
+
+    /**
+     * @return Elements of the list in the answer.
+     * @throws APIException
+     */
+    synchronized List<JsonNode> waitForElements() throws APIException {
+      boolean interrupted = false;
+      while (!done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      if (exception != null) {
+        throw exception;
+      }
+      return elements;
+    }
+
+    /**
+     * @return Next answer (null if the list is complete).
+     */
+    synchronized ListSegment getNext() {
+      startNext();
+      return next;
+    }
+  }
+
+  /**
+   * Create a parser for an answer.
+   * 
+   * @param stream Stream containing the answer.
+   * @return Parser.
+   * @throws IOException
+   */
+  private JsonParser createParser(InputStream stream) throws IOException {
+    if (DEBUG_JSON) {
+      JsonNode root = mapper.readTree(stream);
+      traceDocument(root);
+      return mapper.treeAsTokens(root);
+    }
+    return factory.createParser(stream);
+  }
+
+  /**
+   * Read an answer.
+   * 
+   * @param parser Parser.
+   * @param handler Handler for the values of the query element.
+   * @param continueProperties Properties for continuing the request.
+   * @throws IOException
+   * @throws APIException
+   */
+  private void readAnswer(
+      JsonParser parser, QueryHandler handler,
+      Map<String, String> continueProperties) throws IOException, APIException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException("Unexpected answer", parser.getCurrentLocation());
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("query".equals(name) && (token == JsonToken.START_OBJECT)) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String valueName = parser.getCurrentName();
+          parser.nextToken();
+          if (!handler.handleValue(valueName, parser)) {
+            parser.skipChildren();
+          }
+        }
+      } else if ("continue".equals(name) && (token == JsonToken.START_OBJECT)) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String continueName = parser.getCurrentName();
+          parser.nextToken();
+          String value = parser.getValueAsString();
+          if (value != null) {
+            continueProperties.put(continueName, value);
+          }
+          parser.skipChildren();
+        }
+        handler.handleContinue(continueProperties);
+      } else if ("error".equals(name) || "warnings".equals(name)) {
+        ObjectNode root = mapper.createObjectNode();
+        JsonNode node = mapper.readTree(parser);
+        root.set(name, node);
+        checkForError(root);
+      } else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  /**
+   * Read the next element of an array or of an object.
+   * 
+   * Only one element is loaded in memory at a time.
+   * 
+   * @param parser Parser positioned inside the array or the object.
+   * @return Next element or null at the end of the array or the object.
+   * @throws IOException
+   */
+  protected static JsonNode readNextElement(JsonParser parser) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == JsonToken.FIELD_NAME) {
+      token = parser.nextToken();
+    }
+    if ((token == null) ||
+        (token == JsonToken.END_ARRAY) ||
+        (token == JsonToken.END_OBJECT)) {
+      return null;
+    }
+    return mapper.readTree(parser);
+  }
+
+  /**
+   * Retrieve the text of a value of a node.
+   * 
+   * @param node Node.
+   * @param name Name of the value.
+   * @return Text of the value or null if the value is missing.
+   */
+  protected static String getText(JsonNode node, String name) {
+    JsonNode value = (node != null) ? node.get(name) : null;
+    if ((value == null) || !value.isValueNode()) {
+      return null;
+    }
+    return value.asText();
+  }
 }
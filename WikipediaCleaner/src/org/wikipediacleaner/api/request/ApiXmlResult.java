@@ -7,15 +7,12 @@
 
 package org.wikipediacleaner.api.request;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.zip.GZIPInputStream;
 
-import org.apache.commons.httpclient.Header;
 import org.apache.commons.httpclient.HttpClient;
 import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.httpclient.HttpStatus;
@@ -29,13 +26,15 @@ import org.jdom2.input.SAXBuilder;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.RateController;
+import org.wikipediacleaner.api.RequestCoalescer;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueBoolean;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -93,9 +92,18 @@ public abstract class ApiXmlResult extends BasicApiResult {
    * @throws APIException
    */
   protected Element getRoot(
-      Map<String, String> properties,
+      final Map<String, String> properties,
       int maxTry)
           throws JDOMParseException, APIException {
+    RateController controller = RateController.getController(getWiki());
+    RequestCoalescer coalescer = RequestCoalescer.getCoalescer(getWiki());
+    RequestCoalescer.MethodFactory factory = new RequestCoalescer.MethodFactory() {
+
+      @Override
+      public HttpMethod createHttpMethod() {
+        return ApiXmlResult.this.createHttpMethod(properties);
+      }
+    };
     int attempt = 0;
     for (;;) {
       Element root = null;
@@ -104,18 +112,13 @@ public abstract class ApiXmlResult extends BasicApiResult {
       try {
         // Executing HTTP method
         attempt++;
-        method = createHttpMethod(properties);
-        int statusCode = getHttpClient().executeMethod(method);
+        RequestCoalescer.Response response = coalescer.send(
+            properties, attempt, getHttpClient(), factory);
+        method = response.getMethod();
+        int statusCode = response.getStatusCode();
 
         // Accessing response
-        stream = method.getResponseBodyAsStream();
-        stream = new BufferedInputStream(stream);
-        Header contentEncoding = method.getResponseHeader("Content-Encoding");
-        if (contentEncoding != null) {
-          if (contentEncoding.getValue().equals("gzip")) {
-            stream = new GZIPInputStream(stream);
-          }
-        }
+        stream = response.getStream();
         // for (Header header : method.getRequestHeaders()) {
         //   System.out.println("Request header:" + header);
         // }
@@ -148,11 +151,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
             log.warn("Error. Maximum attempts count reached.");
             throw new APIException(message);
           }
-          try {
-            Thread.sleep(30000);
-          } catch (InterruptedException e) {
-            // Nothing
-          }
+          controller.waitBeforeRetrying(attempt, method);
         } else {
           return root;
         }
@@ -163,11 +162,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error parsing XML result", e);
         }
-        try {
-          Thread.sleep(30000);
-        } catch (InterruptedException e2) {
-          // Nothing
-        }
+        controller.waitBeforeRetrying(attempt, method);
       } catch (IOException e) {
         String message = "IOException: " + e.getMessage();
         log.error(message);
@@ -175,16 +170,12 @@ public abstract class ApiXmlResult extends BasicApiResult {
           log.warn("Error. Maximum attempts count reached.");
           throw new APIException("Error accessing MediaWiki", e);
         }
-        try {
-          Thread.sleep(30000);
-        } catch (InterruptedException e2) {
-          // Nothing
-        }
+        controller.waitBeforeRetrying(attempt, method);
       } catch (APIException e) {
         if (!e.shouldRetry() || (attempt > e.getMaxRetry())) {
           throw e;
         }
-        e.waitForRetry();
+        controller.waitBeforeRetrying(e, method);
       } finally {
         if (stream != null) {
           try {
@@ -213,7 +204,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
     }
     
     // Check for errors
-    XPathExpression<Element> xpa = XPathFactory.instance().compile(
+    XPathExpression<Element> xpa = XPathCache.compile(
         "/api/error", Filters.element());
     List<Element> listErrors = xpa.evaluate(root);
     if (listErrors != null) {
@@ -230,7 +221,7 @@ public abstract class ApiXmlResult extends BasicApiResult {
     }
     
     // Check for warnings
-    xpa = XPathFactory.instance().compile(
+    xpa = XPathCache.compile(
         "/api/warnings/*", Filters.element());
     List<Element> listWarnings = xpa.evaluate(root);
     if (listWarnings != null) {
@@ -257,11 +248,11 @@ public abstract class ApiXmlResult extends BasicApiResult {
       return false;
     }
     boolean result = false;
-    XPathExpression<Element> xpa = XPathFactory.instance().compile(
+    XPathExpression<Element> xpa = XPathCache.compile(
         queryContinue, Filters.element());
     List<Element> results = xpa.evaluate(root);
     if ((results == null) || (results.isEmpty())) {
-      xpa = XPathFactory.instance().compile(
+      xpa = XPathCache.compile(
           "/api/continue", Filters.element());
       results = xpa.evaluate(root);
     }
@@ -14,6 +14,7 @@ import org.apache.commons.httpclient.HttpMethod;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wikipediacleaner.api.HttpUtils;
+import org.wikipediacleaner.api.RateController;
 import org.wikipediacleaner.api.constants.ConnectionInformation;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.request.login.ApiLoginRequest;
@@ -98,6 +99,7 @@ public abstract class BasicApiResult implements ApiResult {
             connection.getLgUserId());
       }
     }
+    RateController.addMaxLag(properties);
     boolean getMethod = canUseGetMethod(properties);
     Configuration config = Configuration.getConfiguration();
     boolean useHttps = !config.getBoolean(null, ConfigurationValueBoolean.FORCE_HTTP_API);
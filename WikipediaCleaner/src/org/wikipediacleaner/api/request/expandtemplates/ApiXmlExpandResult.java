@@ -14,11 +14,11 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -48,7 +48,7 @@ public class ApiXmlExpandResult extends ApiXmlResult implements ApiExpandResult
       Map<String, String> properties)
           throws APIException {
     try {
-      XPathExpression<Element> xpaText = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaText = XPathCache.compile(
           "/api/expandtemplates", Filters.element());
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
       Element text = xpaText.evaluateFirst(root);
@@ -14,12 +14,12 @@ import org.jdom2.Element;
 import org.jdom2.filter.Filters;
 import org.jdom2.input.JDOMParseException;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumLoginResult;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.LoginResult;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -71,7 +71,7 @@ public class ApiXmlLoginResult extends ApiXmlResult implements ApiLoginResult {
   private LoginResult constructLogin(Element root)
       throws APIException {
 //    try {
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/login", Filters.element());
       Element node = xpa.evaluateFirst(root);
       if (node != null) {
@@ -17,7 +17,6 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumQueryResult;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
@@ -25,6 +24,7 @@ import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.Section;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -54,7 +54,7 @@ public class ApiXmlParseResult extends ApiXmlResult implements ApiParseResult {
       Map<String, String> properties)
           throws APIException {
     try {
-      XPathExpression<Element> xpaText = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaText = XPathCache.compile(
           "/api/parse/text", Filters.element());
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
       Element text = xpaText.evaluateFirst(root);
@@ -89,7 +89,7 @@ public class ApiXmlParseResult extends ApiXmlResult implements ApiParseResult {
       }
 
       // Retrieve sections
-      XPathExpression<Element> xpaSections = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaSections = XPathCache.compile(
           "/api/parse/sections/s", Filters.element());
       List<Element> listSections = xpaSections.evaluate(root);
       List<Section> result = new ArrayList<Section>(listSections.size());
@@ -110,7 +110,7 @@ public class ApiXmlParseResult extends ApiXmlResult implements ApiParseResult {
       }
 
       // Retrieve revision id
-      XPathExpression<Element> xpaPage = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaPage = XPathCache.compile(
           "/api/parse", Filters.element());
       Element parseNode = xpaPage.evaluateFirst(root);
       if ((parseNode != null) && (parseNode.getAttributeValue("revid") != null)) {
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
 
@@ -99,10 +100,19 @@ public class ApiBacklinksRequest extends ApiListRequest {
     }
     properties.put(PROPERTY_TITLE, page.getTitle());
     properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
-    List<Page> list = new ArrayList<Page>();
-    while (result.executeBacklinks(properties, page, list)) {
-      //
-    }
+    final List<Page> list = new ArrayList<Page>();
+    result.executeBacklinks(properties, page, new PagesListener() {
+
+      @Override
+      public boolean pagesRetrieved(List<Page> pages) {
+        for (Page link : pages) {
+          if (!list.contains(link)) {
+            list.add(link);
+          }
+        }
+        return true;
+      }
+    });
     Collections.sort(list);
     page.setRelatedPages(Page.RelatedPages.BACKLINKS, list);
   }
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiResult;
 
@@ -33,4 +34,17 @@ public interface ApiBacklinksResult extends ApiResult {
       Map<String, String> properties,
       Page page,
       List<Page> list) throws APIException;
+
+  /**
+   * Execute back links request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param page Page.
+   * @param listener Listener for the back links, as they are retrieved.
+   * @throws APIException
+   */
+  public void executeBacklinks(
+      Map<String, String> properties,
+      Page page,
+      PagesListener listener) throws APIException;
 }
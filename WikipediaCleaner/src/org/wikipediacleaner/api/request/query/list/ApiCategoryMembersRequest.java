@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
@@ -193,17 +194,17 @@ public class ApiCategoryMembersRequest extends ApiListRequest {
       int depth, boolean limit, int max) throws APIException {
 
     List<String> categoriesAnalyzed = new ArrayList<String>();
-    Map<Page, Integer> categories = new HashMap<Page, Integer>();
+    final Map<Page, Integer> categories = new HashMap<Page, Integer>();
     categories.put(category, Integer.valueOf(0));
-    int maxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_CATEGORY_MEMBERS);
-    maxSize = Math.min(maxSize, max);
+    int tmpMaxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_CATEGORY_MEMBERS);
+    final int maxSize = Math.min(tmpMaxSize, max);
     while (!categories.isEmpty()) {
 
       // Find which category to analyze
       Entry<Page, Integer> entry = categories.entrySet().iterator().next();
       Page currentCategory = entry.getKey();
       categories.remove(currentCategory);
-      int currentDepth = entry.getValue().intValue();
+      final int currentDepth = entry.getValue().intValue();
       String categoryName = currentCategory.getTitle();
       int colonIndex = categoryName.indexOf(':');
       if (colonIndex < 0) {
@@ -231,12 +232,26 @@ public class ApiCategoryMembersRequest extends ApiListRequest {
         properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
         properties.put(PROPERTY_LIMIT, LIMIT_MAX);
         properties.put(PROPERTY_TITLE, categoryName);
-        List<Page> list = new ArrayList<Page>();
-        while (result.executeCategoryMembers(
-            properties, list, categories, currentDepth) &&
-            (list.size() < maxSize)) {
-          //
-        }
+        final List<Page> list = new ArrayList<Page>();
+        result.executeCategoryMembers(properties, new PagesListener() {
+
+          @Override
+          public boolean pagesRetrieved(List<Page> pages) {
+
+            // Dispatch category members
+            for (Page page : pages) {
+              if ((page.getNamespace() != null) &&
+                  (page.getNamespace().intValue() == Namespace.CATEGORY)) {
+                categories.put(page, currentDepth + 1);
+              } else {
+                if (!list.contains(page)) {
+                  list.add(page);
+                }
+              }
+            }
+            return list.size() < maxSize;
+          }
+        });
         Collections.sort(list);
         currentCategory.setRelatedPages(Page.RelatedPages.CATEGORY_MEMBERS, list);
       }
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiResult;
 
@@ -34,4 +35,16 @@ public interface ApiCategoryMembersResult extends ApiResult {
       Map<String, String> properties,
       List<Page> list,
       Map<Page, Integer> categories, int depth) throws APIException;
+
+  /**
+   * Execute category members request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param listener Listener for the category members (including sub-categories),
+   *                 as they are retrieved.
+   * @throws APIException
+   */
+  public void executeCategoryMembers(
+      Map<String, String> properties,
+      PagesListener listener) throws APIException;
 }
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.utils.ConfigurationValueInteger;
@@ -95,12 +96,16 @@ public class ApiEmbeddedInRequest extends ApiListRequest {
       properties.put(PROPERTY_NAMESPACE, constructList(namespaces));
     }
     properties.put(PROPERTY_TITLE, page.getTitle());
-    List<Page> list = new ArrayList<Page>();
-    int maxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_EMBEDDED_IN);
-    while (result.executeEmbeddedIn(properties, list) &&
-           (list.size() < maxSize)) {
-      //
-    }
+    final List<Page> list = new ArrayList<Page>();
+    final int maxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_EMBEDDED_IN);
+    result.executeEmbeddedIn(properties, new PagesListener() {
+
+      @Override
+      public boolean pagesRetrieved(List<Page> pages) {
+        list.addAll(pages);
+        return list.size() < maxSize;
+      }
+    });
     Collections.sort(list);
     page.setRelatedPages(Page.RelatedPages.EMBEDDED_IN, list);
   }
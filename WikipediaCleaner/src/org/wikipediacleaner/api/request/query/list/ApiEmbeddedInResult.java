@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiResult;
 
@@ -31,4 +32,15 @@ public interface ApiEmbeddedInResult extends ApiResult {
   public boolean executeEmbeddedIn(
       Map<String, String> properties,
       List<Page> list) throws APIException;
+
+  /**
+   * Execute embedded in request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param listener Listener for the embedding pages, as they are retrieved.
+   * @throws APIException
+   */
+  public void executeEmbeddedIn(
+      Map<String, String> properties,
+      PagesListener listener) throws APIException;
 }
@@ -0,0 +1,155 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.list;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonResult;
+import org.wikipediacleaner.api.request.ApiRequest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * MediaWiki API JSON back links results.
+ */
+@Deprecated
+public class ApiJsonBacklinksResult extends ApiJsonResult implements ApiBacklinksResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonBacklinksResult(
+      EnumWikipedia wiki,
+      HttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute back links request.
+   *
+   * @param properties Properties defining request.
+   * @param page Page.
+   * @param list List of pages to be filled with the back links.
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeBacklinks(
+      Map<String, String> properties,
+      final Page page,
+      List<Page> list)
+          throws APIException {
+    final List<Page> tmpList = new ArrayList<Page>();
+    boolean result = streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new QueryHandler() {
+
+          @Override
+          public void reset() {
+            tmpList.clear();
+          }
+
+          @Override
+          public boolean handleValue(String name, JsonParser parser) throws IOException {
+            if (!"backlinks".equals(name) || !parser.getCurrentToken().isStructStart()) {
+              return false;
+            }
+
+            // Retrieve back links
+            JsonNode currentBacklink = null;
+            while ((currentBacklink = readNextElement(parser)) != null) {
+              addBacklink(currentBacklink, page, tmpList);
+            }
+            return true;
+          }
+        });
+
+    // Add back links to the list
+    for (Page link : tmpList) {
+      if (!list.contains(link)) {
+        list.add(link);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Execute back links request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param page Page.
+   * @param listener Listener for the back links, as they are retrieved.
+   * @throws APIException
+   */
+  @Override
+  public void executeBacklinks(
+      Map<String, String> properties,
+      final Page page,
+      final PagesListener listener) throws APIException {
+    streamList(
+        properties, ApiRequest.MAX_ATTEMPTS, "backlinks",
+        new ListHandler() {
+
+          @Override
+          public boolean handleElements(List<JsonNode> elements) {
+            List<Page> pages = new ArrayList<Page>(elements.size());
+            for (JsonNode element : elements) {
+              addBacklink(element, page, pages);
+            }
+            return listener.pagesRetrieved(pages);
+          }
+        });
+  }
+
+  /**
+   * Add a back link and the links through it if it's a redirect.
+   * 
+   * @param node Node of the back link.
+   * @param page Page.
+   * @param list List of pages to be filled with the back links.
+   */
+  void addBacklink(JsonNode node, Page page, List<Page> list) {
+    Page link = DataManager.getPage(
+        getWiki(), getText(node, "title"), null, null, null);
+    link.setNamespace(getText(node, "ns"));
+    link.setPageId(getText(node, "pageid"));
+    if (node.has("redirect")) {
+      link.addRedirect(page);
+    }
+    list.add(link);
+
+    // Links through redirects
+    JsonNode listRedirLinks = node.get("redirlinks");
+    if (listRedirLinks != null) {
+      List<Page> linkList = new ArrayList<Page>();
+      for (JsonNode redirLink : listRedirLinks) {
+        Page link2 = DataManager.getPage(
+            getWiki(), getText(redirLink, "title"), null, null, null);
+        link2.setNamespace(getText(redirLink, "ns"));
+        link2.setPageId(getText(redirLink, "pageid"));
+        list.add(link2);
+        if (!linkList.contains(link2)) {
+          linkList.add(link2);
+        }
+      }
+      link.setRelatedPages(Page.RelatedPages.BACKLINKS, linkList);
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.list;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonResult;
+import org.wikipediacleaner.api.request.ApiRequest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * MediaWiki API JSON embedded in results.
+ */
+public class ApiJsonEmbeddedInResult extends ApiJsonResult implements ApiEmbeddedInResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonEmbeddedInResult(
+      EnumWikipedia wiki,
+      HttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute embedded in request.
+   *
+   * @param properties Properties defining request.
+   * @param list List to be filled with embedding pages.
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeEmbeddedIn(
+      Map<String, String> properties,
+      List<Page> list) throws APIException {
+    final List<Page> tmpList = new ArrayList<Page>();
+    boolean result = streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new QueryHandler() {
+
+          @Override
+          public void reset() {
+            tmpList.clear();
+          }
+
+          @Override
+          public boolean handleValue(String name, JsonParser parser) throws IOException {
+            if (!"embeddedin".equals(name) || !parser.getCurrentToken().isStructStart()) {
+              return false;
+            }
+
+            // Retrieve embedding pages
+            JsonNode currentNode = null;
+            while ((currentNode = readNextElement(parser)) != null) {
+              tmpList.add(createPage(currentNode));
+            }
+            return true;
+          }
+        });
+    list.addAll(tmpList);
+    return result;
+  }
+
+  /**
+   * Execute embedded in request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param listener Listener for the embedding pages, as they are retrieved.
+   * @throws APIException
+   */
+  @Override
+  public void executeEmbeddedIn(
+      Map<String, String> properties,
+      final PagesListener listener) throws APIException {
+    streamList(
+        properties, ApiRequest.MAX_ATTEMPTS, "embeddedin",
+        new ListHandler() {
+
+          @Override
+          public boolean handleElements(List<JsonNode> elements) {
+            List<Page> pages = new ArrayList<Page>(elements.size());
+            for (JsonNode element : elements) {
+              pages.add(createPage(element));
+            }
+            return listener.pagesRetrieved(pages);
+          }
+        });
+  }
+
+  /**
+   * @param node Node of the list.
+   * @return Page for the node.
+   */
+  Page createPage(JsonNode node) {
+    Page page = DataManager.getPage(
+        getWiki(), getText(node, "title"), null, null, null);
+    page.setNamespace(getText(node, "ns"));
+    page.setPageId(getText(node, "pageid"));
+    return page;
+  }
+}
@@ -13,6 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.utils.ConfigurationValueInteger;
@@ -103,13 +104,37 @@ public class ApiPagesWithPropRequest extends ApiListRequest {
         PROPERTY_LIST_PAGESWITHPROP);
     properties.put(PROPERTY_LIMIT, LIMIT_MAX);
     properties.put(PROPERTY_PROPERTY_NAME, property);
-    List<Page> list = new ArrayList<Page>();
-    int maxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_PAGES_WITH_PROP);
-    while (result.executePagesWithProp(properties, list) &&
-           (list.size() < maxSize)) {
-      //
-    }
+    properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
+    final List<Page> list = new ArrayList<Page>();
+    final int maxSize = getMaxSize(limit, ConfigurationValueInteger.MAX_PAGES_WITH_PROP);
+    result.executePagesWithProp(properties, new PagesListener() {
+
+      @Override
+      public boolean pagesRetrieved(List<Page> pages) {
+        list.addAll(pages);
+        return list.size() < maxSize;
+      }
+    });
     Collections.sort(list);
     return list;
   }
+
+  /**
+   * Load list of pages with a given property, part by part.
+   * 
+   * @param property Property name.
+   * @param listener Listener for the pages, as they are retrieved.
+   */
+  public void loadPagesWithProp(
+      String property,
+      PagesListener listener) throws APIException {
+    Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
+    properties.put(
+        PROPERTY_LIST,
+        PROPERTY_LIST_PAGESWITHPROP);
+    properties.put(PROPERTY_LIMIT, LIMIT_MAX);
+    properties.put(PROPERTY_PROPERTY_NAME, property);
+    properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
+    result.executePagesWithProp(properties, listener);
+  }
 }
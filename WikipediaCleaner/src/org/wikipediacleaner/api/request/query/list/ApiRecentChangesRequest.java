@@ -253,4 +253,39 @@ public class ApiRecentChangesRequest extends ApiListRequest {
     String nextStart = result.executeRecentChanges(properties, recentChanges);
     return nextStart;
   }
+
+  /**
+   * Load list of recent changes in a name space since a given time.
+   * 
+   * @param start The timestamp to start listing from (only the last change if null).
+   * @param namespace Name space.
+   * @param recentChanges The list of recent changes to be filled.
+   */
+  public void loadRecentChanges(
+      String start, int namespace,
+      List<RecentChange> recentChanges) throws APIException {
+    Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
+    properties.put(
+        PROPERTY_LIST,
+        PROPERTY_LIST_RECENTCHANGES);
+    properties.put(
+        PROPERTY_PROPERTIES,
+        PROPERTY_PROPERTIES_IDS + "|" +
+        PROPERTY_PROPERTIES_LOGINFO + "|" +
+        PROPERTY_PROPERTIES_TIMESTAMP + "|" +
+        PROPERTY_PROPERTIES_TITLE);
+    properties.put(PROPERTY_NAMESPACE, Integer.toString(namespace));
+    properties.put(
+        PROPERTY_TYPE,
+        PROPERTY_TYPE_EDIT + "|" + PROPERTY_TYPE_LOG + "|" + PROPERTY_TYPE_NEW);
+    if (start != null) {
+      properties.put(PROPERTY_DIR, PROPERTY_DIR_NEWER);
+      properties.put(PROPERTY_START, start);
+      properties.put(PROPERTY_LIMIT, LIMIT_MAX);
+    } else {
+      properties.put(PROPERTY_DIR, PROPERTY_DIR_OLDER);
+      properties.put(PROPERTY_LIMIT, "1");
+    }
+    result.executeRecentChanges(properties, recentChanges);
+  }
 }
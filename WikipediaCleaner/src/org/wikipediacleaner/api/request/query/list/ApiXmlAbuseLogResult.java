@@ -16,13 +16,13 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -56,7 +56,7 @@ public class ApiXmlAbuseLogResult extends ApiXmlResult implements ApiAbuseLogRes
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve category members
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/abuselog/item", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
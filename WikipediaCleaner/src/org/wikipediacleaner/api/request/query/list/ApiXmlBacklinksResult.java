@@ -17,13 +17,14 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -61,11 +62,11 @@ public class ApiXmlBacklinksResult extends ApiXmlResult implements ApiBacklinksR
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve back links
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/backlinks/bl", Filters.element());
       List<Element> listBacklinks = xpa.evaluate(root);
       Iterator<Element> itBacklink = listBacklinks.iterator();
-      XPathExpression<Element> xpaRedirLinks = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaRedirLinks = XPathCache.compile(
           "redirlinks/bl", Filters.element());
       while (itBacklink.hasNext()) {
         Element currentBacklink = itBacklink.next();
@@ -111,4 +112,27 @@ public class ApiXmlBacklinksResult extends ApiXmlResult implements ApiBacklinksR
       throw new APIException("Error parsing XML", e);
     }
   }
+
+  /**
+   * Execute back links request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param page Page.
+   * @param listener Listener for the back links, as they are retrieved.
+   * @throws APIException
+   */
+  @Override
+  public void executeBacklinks(
+      Map<String, String> properties,
+      Page page,
+      PagesListener listener) throws APIException {
+    boolean shouldContinue = true;
+    while (shouldContinue) {
+      List<Page> list = new ArrayList<Page>();
+      shouldContinue = executeBacklinks(properties, page, list);
+      if (!listener.pagesRetrieved(list)) {
+        shouldContinue = false;
+      }
+    }
+  }
 }
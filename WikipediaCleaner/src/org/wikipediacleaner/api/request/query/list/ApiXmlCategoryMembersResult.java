@@ -7,6 +7,8 @@
 
 package org.wikipediacleaner.api.request.query.list;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -16,14 +18,15 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -60,7 +63,7 @@ public class ApiXmlCategoryMembersResult extends ApiXmlResult implements ApiCate
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve category members
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/categorymembers/cm", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
@@ -89,4 +92,28 @@ public class ApiXmlCategoryMembersResult extends ApiXmlResult implements ApiCate
       throw new APIException("Error parsing XML", e);
     }
   }
+
+  /**
+   * Execute category members request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param listener Listener for the category members (including sub-categories),
+   *                 as they are retrieved.
+   * @throws APIException
+   */
+  @Override
+  public void executeCategoryMembers(
+      Map<String, String> properties,
+      PagesListener listener) throws APIException {
+    boolean shouldContinue = true;
+    while (shouldContinue) {
+      List<Page> list = new ArrayList<Page>();
+      Map<Page, Integer> categories = new HashMap<Page, Integer>();
+      shouldContinue = executeCategoryMembers(properties, list, categories, 0);
+      list.addAll(categories.keySet());
+      if (!listener.pagesRetrieved(list)) {
+        shouldContinue = false;
+      }
+    }
+  }
 }
@@ -7,6 +7,7 @@
 
 package org.wikipediacleaner.api.request.query.list;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -16,13 +17,14 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.PagesListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -56,7 +58,7 @@ public class ApiXmlEmbeddedInResult extends ApiXmlResult implements ApiEmbeddedI
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve embedding pages
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/embeddedin/ei", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
@@ -78,4 +80,25 @@ public class ApiXmlEmbeddedInResult extends ApiXmlResult implements ApiEmbeddedI
       throw new APIException("Error parsing XML", e);
     }
   }
+
+  /**
+   * Execute embedded in request and its continuations.
+   * 
+   * @param properties Properties defining request.
+   * @param listener Listener for the embedding pages, as they are retrieved.
+   * @throws APIException
+   */
+  @Override
+  public void executeEmbeddedIn(
+      Map<String, String> properties,
+      PagesListener listener) throws APIException {
+    boolean shouldContinue = true;
+    while (shouldContinue) {
+      List<Page> list = new ArrayList<Page>();
+      shouldContinue = executeEmbeddedIn(properties, list);
+      if (!listener.pagesRetrieved(list)) {
+        shouldContinue = false;
+      }
+    }
+  }
 }
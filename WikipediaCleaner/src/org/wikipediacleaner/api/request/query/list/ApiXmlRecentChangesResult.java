@@ -16,12 +16,12 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.RecentChange;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -56,7 +56,7 @@ public class ApiXmlRecentChangesResult extends ApiXmlResult implements ApiRecent
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Get recent changes list
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/recentchanges/rc", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
@@ -81,6 +81,15 @@ public class ApiXmlRecentChangesResult extends ApiXmlResult implements ApiRecent
         String user = currentNode.getAttributeValue("user");
         String logType = currentNode.getAttributeValue("logtype");
         String logAction = currentNode.getAttributeValue("logaction");
+        String moveTarget = null;
+        Element logParams = currentNode.getChild("logparams");
+        if (logParams != null) {
+          moveTarget = logParams.getAttributeValue("target_title");
+        }
+        Element move = currentNode.getChild("move");
+        if ((moveTarget == null) && (move != null)) {
+          moveTarget = move.getAttributeValue("new_title");
+        }
         try {
           RecentChange rc = new RecentChange(
               Integer.valueOf(rcId), Integer.valueOf(ns),
@@ -92,6 +101,7 @@ public class ApiXmlRecentChangesResult extends ApiXmlResult implements ApiRecent
           rc.setLogAction(logAction);
           rc.setLogType(logType);
           rc.setMinor(isMinor);
+          rc.setMoveTarget(moveTarget);
           rc.setNew(isNew);
           rc.setRedirect(isRedirect);
           rc.setTimestamp(timestamp);
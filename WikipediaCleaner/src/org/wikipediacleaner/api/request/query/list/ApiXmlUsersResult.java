@@ -17,12 +17,12 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.User;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -54,7 +54,7 @@ public class ApiXmlUsersResult extends ApiXmlResult implements ApiUsersResult {
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Get recent changes list
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/users/user", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
@@ -62,7 +62,7 @@ public class ApiXmlUsersResult extends ApiXmlResult implements ApiUsersResult {
         Element currentNode = iter.next();
         User user = new User(currentNode.getAttributeValue("name"));
         List<String> groups = new ArrayList<String>();
-        XPathExpression<Element> xpaGroups = XPathFactory.instance().compile(
+        XPathExpression<Element> xpaGroups = XPathCache.compile(
             "./groups/g", Filters.element());
         List<Element> resultGroups = xpaGroups.evaluate(currentNode);
         Iterator<Element> itGroups = resultGroups.iterator();
@@ -71,7 +71,7 @@ public class ApiXmlUsersResult extends ApiXmlResult implements ApiUsersResult {
         }
         user.setGroups(groups);
         List<String> rights = new ArrayList<String>();
-        XPathExpression<Element> xpaRights = XPathFactory.instance().compile(
+        XPathExpression<Element> xpaRights = XPathCache.compile(
             "./rights/r", Filters.element());
         List<Element> resultRights = xpaRights.evaluate(currentNode);
         Iterator<Element> itRights = resultRights.iterator();
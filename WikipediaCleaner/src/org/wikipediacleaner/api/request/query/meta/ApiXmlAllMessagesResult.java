@@ -16,11 +16,11 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -53,7 +53,7 @@ public class ApiXmlAllMessagesResult extends ApiXmlResult implements ApiAllMessa
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve general information
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/allmessages/message", Filters.element());
       Element generalNode = xpa.evaluateFirst(root);
       if (generalNode != null) {
@@ -83,7 +83,7 @@ public class ApiXmlAllMessagesResult extends ApiXmlResult implements ApiAllMessa
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve general information
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/allmessages/message", Filters.element());
       List<Element> listMessages = xpa.evaluate(root);
       Iterator<Element> itMessages = listMessages.iterator();
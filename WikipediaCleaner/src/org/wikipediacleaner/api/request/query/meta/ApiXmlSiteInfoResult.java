@@ -19,7 +19,6 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumCaseSensitiveness;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
@@ -31,6 +30,7 @@ import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.SpecialPage;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -63,7 +63,7 @@ public class ApiXmlSiteInfoResult extends ApiXmlResult implements ApiSiteInfoRes
       WikiConfiguration wikiConfiguration = getWiki().getWikiConfiguration();
 
       // Retrieve general information
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/general", Filters.element());
       Element generalNode = xpa.evaluateFirst(root);
       if (generalNode != null) {
@@ -75,7 +75,7 @@ public class ApiXmlSiteInfoResult extends ApiXmlResult implements ApiSiteInfoRes
 
       // Retrieve name spaces
       HashMap<Integer, Namespace> namespaces = null;
-      xpa = XPathFactory.instance().compile(
+      xpa = XPathCache.compile(
           "/api/query/namespaces/ns", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
@@ -92,7 +92,7 @@ public class ApiXmlSiteInfoResult extends ApiXmlResult implements ApiSiteInfoRes
       }
 
       // Retrieve name space aliases
-      xpa = XPathFactory.instance().compile(
+      xpa = XPathCache.compile(
           "/api/query/namespacealiases/ns", Filters.element());
       results = xpa.evaluate(root);
       iter = results.iterator();
@@ -116,7 +116,7 @@ public class ApiXmlSiteInfoResult extends ApiXmlResult implements ApiSiteInfoRes
 
       // Retrieve languages
       List<Language> languages = new ArrayList<>();
-      xpa = XPathFactory.instance().compile(
+      xpa = XPathCache.compile(
           "/api/query/languages/lang", Filters.element());
       results = xpa.evaluate(root);
       iter = results.iterator();
@@ -130,7 +130,7 @@ public class ApiXmlSiteInfoResult extends ApiXmlResult implements ApiSiteInfoRes
 
       // Retrieve interwikis
       List<Interwiki> interwikis = new ArrayList<>();
-      xpa = XPathFactory.instance().compile(
+      xpa = XPathCache.compile(
           "/api/query/interwikimap/iw", Filters.element());
       results = xpa.evaluate(root);
       iter = results.iterator();
@@ -146,11 +146,11 @@ public class ApiXmlSiteInfoResult extends ApiXmlResult implements ApiSiteInfoRes
 
       // Retrieve magic words
       Map<String, MagicWord> magicWords = new HashMap<>();
-      xpa = XPathFactory.instance().compile(
+      xpa = XPathCache.compile(
           "/api/query/magicwords/magicword", Filters.element());
       results = xpa.evaluate(root);
       iter = results.iterator();
-      XPathExpression<Element> xpaAlias = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaAlias = XPathCache.compile(
           "./aliases/alias", Filters.element());
       while (iter.hasNext()) {
         Element currentNode = iter.next();
@@ -172,7 +172,7 @@ public class ApiXmlSiteInfoResult extends ApiXmlResult implements ApiSiteInfoRes
 
       // Retrieve special page aliases
       Map<String, SpecialPage> specialPages = new HashMap<>();
-      xpa = XPathFactory.instance().compile(
+      xpa = XPathCache.compile(
           "/api/query/specialpagealiases/specialpage", Filters.element());
       results = xpa.evaluate(root);
       iter = results.iterator();
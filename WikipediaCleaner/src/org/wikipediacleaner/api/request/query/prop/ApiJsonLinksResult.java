@@ -0,0 +1,140 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiRequest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * MediaWiki API JSON links results.
+ */
+public class ApiJsonLinksResult extends ApiJsonPropertiesResult implements ApiLinksResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonLinksResult(
+      EnumWikipedia wiki,
+      HttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute links request.
+   *
+   * @param properties Properties defining request.
+   * @param lists Map of lists to be filled with links.
+   * @param normalization Map containing information about title normalization (From => To).
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeLinks(
+      Map<String, String> properties,
+      Map<String, List<Page>> lists,
+      Map<String, String> normalization) throws APIException {
+    final Map<String, List<Page>> tmpLists = new HashMap<String, List<Page>>();
+    boolean result = streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new PagesHandler(normalization) {
+
+          @Override
+          public void reset() {
+            super.reset();
+            tmpLists.clear();
+          }
+
+          @Override
+          protected void handlePage(JsonNode pageNode) {
+            String pageTitle = getText(pageNode, "title");
+            List<Page> links = tmpLists.get(pageTitle);
+            if (links == null) {
+              links = new ArrayList<Page>();
+              tmpLists.put(pageTitle, links);
+            }
+            for (JsonNode linkNode : pageNode.path("links")) {
+              Page link = DataManager.getPage(
+                  getWiki(), getText(linkNode, "title"), null, null, null);
+              link.setNamespace(getText(linkNode, "ns"));
+              links.add(link);
+            }
+          }
+        });
+
+    // Add links to the lists
+    for (Entry<String, List<Page>> tmpList : tmpLists.entrySet()) {
+      List<Page> links = lists.get(tmpList.getKey());
+      if (links == null) {
+        lists.put(tmpList.getKey(), tmpList.getValue());
+      } else {
+        links.addAll(tmpList.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Execute links request.
+   *
+   * @param properties Properties defining request.
+   * @param links List to be filled with links.
+   * @param knownPages Already known pages.
+   * @param normalization Map containing information about title normalization (From => To).
+   * @param redirects List of redirects filled by the method.
+   * @param useDisambig Flag indicating if disambiguation property should be used.
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeLinks(
+      Map<String, String> properties,
+      List<Page> links,
+      final List<Page> knownPages,
+      Map<String, String> normalization,
+      List<Page> redirects, final boolean useDisambig) throws APIException {
+    final List<Page> tmpLinks = new ArrayList<Page>();
+    boolean result = streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new PagesHandler(normalization) {
+
+          @Override
+          public void reset() {
+            super.reset();
+            tmpLinks.clear();
+          }
+
+          @Override
+          protected void handlePage(JsonNode pageNode) {
+            tmpLinks.add(getPage(getWiki(), pageNode, knownPages, useDisambig));
+          }
+        });
+
+    // Add links to the lists
+    for (Page link : tmpLinks) {
+      if ((redirects != null) && (link.isRedirect())) {
+        redirects.add(link);
+      }
+      links.add(link);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiJsonResult;
+import org.wikipediacleaner.api.request.ApiRequest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * MediaWiki API JSON results for properties.
+ *
+ * Answers are read as a stream, one page at a time.
+ * MediaWiki API sends normalization and redirect information before the pages,
+ * so they are already known when each page is analyzed.
+ */
+public class ApiJsonPropertiesResult extends ApiJsonResult implements ApiPropertiesResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonPropertiesResult(
+      EnumWikipedia wiki,
+      HttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Handler for the pages of a query.
+   */
+  protected static abstract class PagesHandler extends QueryHandler {
+
+    /** Information about title normalization (From => To) */
+    protected final Map<String, String> normalization;
+
+    /** Information about redirects (From => To) */
+    protected final Map<String, String> redirects;
+
+    /**
+     * @param normalization Map to be filled with information about title normalization.
+     */
+    protected PagesHandler(Map<String, String> normalization) {
+      this.normalization = (normalization != null) ? normalization : new HashMap<String, String>();
+      this.redirects = new HashMap<String, String>();
+    }
+
+    /**
+     * Reset the handler before an attempt at reading an answer.
+     *
+     * @see org.wikipediacleaner.api.request.ApiJsonResult.QueryHandler#reset()
+     */
+    @Override
+    public void reset() {
+      redirects.clear();
+    }
+
+    /**
+     * Handle a value of the query element.
+     *
+     * @param name Name of the value.
+     * @param parser Parser positioned on the first token of the value.
+     * @return True if the value has been fully read by the handler.
+     * @throws IOException
+     * @throws APIException
+     * @see org.wikipediacleaner.api.request.ApiJsonResult.QueryHandler#handleValue(java.lang.String, com.fasterxml.jackson.core.JsonParser)
+     */
+    @Override
+    public boolean handleValue(String name, JsonParser parser)
+        throws IOException, APIException {
+      if (!parser.getCurrentToken().isStructStart()) {
+        return false;
+      }
+      if ("normalized".equals(name) || "redirects".equals(name)) {
+        Map<String, String> map = "normalized".equals(name) ? normalization : redirects;
+        JsonNode node = null;
+        while ((node = readNextElement(parser)) != null) {
+          String from = getText(node, "from");
+          String to = getText(node, "to");
+          if ((from != null) && (to != null)) {
+            map.put(from, to);
+          }
+        }
+        return true;
+      }
+      if ("pages".equals(name)) {
+        JsonNode node = null;
+        while ((node = readNextElement(parser)) != null) {
+          handlePage(node);
+        }
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Handle a page.
+     *
+     * @param pageNode Page node.
+     * @throws APIException
+     */
+    protected abstract void handlePage(JsonNode pageNode) throws APIException;
+  }
+
+  /**
+   * Update page information.
+   *
+   * @param node Node for the page.
+   * @param page Page.
+   */
+  public void updatePageInformation(JsonNode node, Page page) {
+
+    // Retrieve basic page information
+    String pageId = getText(node, "pageid");
+    if (pageId != null) {
+      page.setPageId(pageId);
+    }
+    String title = getText(node, "title");
+    if (title != null) {
+      page.setTitle(title);
+    }
+    page.setStartTimestamp(getText(node, "starttimestamp"));
+    if (node.has("redirect")) {
+      page.isRedirect(true);
+    }
+    if (node.has("missing")) {
+      page.setExisting(Boolean.FALSE);
+    }
+
+    // Retrieve protection information
+    JsonNode protectionNodes = node.path("protection");
+    for (JsonNode protectionNode : protectionNodes) {
+      if ("edit".equals(getText(protectionNode, "type"))) {
+        page.setEditProtectionLevel(getText(protectionNode, "level"));
+      }
+    }
+  }
+
+  /**
+   * Execute redirect request.
+   *
+   * @param properties Properties defining request.
+   * @param pages Pages to be filled with redirect information.
+   * @throws APIException
+   */
+  @Override
+  public void executeRedirect(
+      Map<String, String> properties,
+      final List<Page> pages) throws APIException {
+    streamQuery(properties, ApiRequest.MAX_ATTEMPTS, new PagesHandler(null) {
+
+      @Override
+      protected void handlePage(JsonNode pageNode) {
+        // Manage redirects and missing pages
+        updateRedirect(pageNode, pages, redirects, normalization);
+      }
+    });
+  }
+
+  /**
+   * Retrieve the normalized title of a page.
+   *
+   * @param title Title.
+   * @param normalization Normalization information.
+   * @return Normalized title.
+   */
+  public String getNormalizedTitle(String title, Map<String, String> normalization) {
+    if ((title == null) || (normalization == null)) {
+      return title;
+    }
+    String tmp = normalization.get(title);
+    if (tmp != null) {
+      return tmp;
+    }
+    return title;
+  }
+
+  /**
+   * Update redirect and missing information of a list of pages with a page node.
+   *
+   * @param pageNode Page node.
+   * @param pages List of pages.
+   * @param redirects Information about redirects (From => To).
+   * @param normalization Information about title normalization (From => To).
+   */
+  public void updateRedirect(
+      JsonNode pageNode, Collection<Page> pages,
+      Map<String, String> redirects, Map<String, String> normalization) {
+    String pageTitle = getText(pageNode, "title");
+
+    // Analyzing redirects to this page
+    for (Entry<String, String> redirect : redirects.entrySet()) {
+      String fromPage = redirect.getKey();
+      String toPage = redirect.getValue();
+      if (Page.areSameTitle(toPage, pageTitle)) {
+        for (Page p : pages) {
+
+          // Find if the redirect is already taken into account
+          boolean exists = false;
+          Iterator<Page> itPage = p.getRedirectIteratorWithPage();
+          while (itPage.hasNext()) {
+            Page tmp = itPage.next();
+            String title = getNormalizedTitle(tmp.getTitle(), normalization);
+            if (Page.areSameTitle(title, toPage)) {
+              exists = true;
+            }
+          }
+
+          // Add the redirect if needed
+          if (!exists) {
+            boolean redirectFound = false;
+            itPage = p.getRedirectIteratorWithPage();
+            while (itPage.hasNext()) {
+              Page tmp = itPage.next();
+              String title = getNormalizedTitle(tmp.getTitle(), normalization);
+              if (Page.areSameTitle(title, fromPage)) {
+                redirectFound = true;
+              }
+            }
+            if (redirectFound) {
+              Page pageTo = DataManager.getPage(
+                  p.getWikipedia(), pageTitle, null, null, null);
+              pageTo.setNamespace(getText(pageNode, "ns"));
+              pageTo.setPageId(getText(pageNode, "pageid"));
+              p.addRedirect(pageTo);
+            }
+          }
+        }
+      }
+    }
+
+    // Analyzing missing pages
+    for (Page p : pages) {
+      Iterator<Page> itPage = p.getRedirectIteratorWithPage();
+      while (itPage.hasNext()) {
+        Page tmp = itPage.next();
+        String title = getNormalizedTitle(tmp.getTitle(), normalization);
+        if ((title != null) && title.equals(pageTitle)) {
+          if (getText(pageNode, "pageid") != null) {
+            tmp.setExisting(Boolean.TRUE);
+          } else if (pageNode.has("missing")) {
+            tmp.setExisting(Boolean.FALSE);
+          }
+        }
+      }
+    }
+  }
+}
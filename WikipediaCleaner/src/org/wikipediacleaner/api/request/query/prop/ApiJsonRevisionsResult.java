@@ -0,0 +1,201 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiRequest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * MediaWiki API JSON revisions results.
+ *
+ * Contents of each page is set as soon as the page is read,
+ * so only one page contents is kept in memory by the parsing.
+ */
+public class ApiJsonRevisionsResult extends ApiJsonPropertiesResult implements ApiRevisionsResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonRevisionsResult(
+      EnumWikipedia wiki,
+      HttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute last revision request.
+   *
+   * @param properties Properties defining request.
+   * @param pages Pages to be filled with last revision content.
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeLastRevision(
+      Map<String, String> properties,
+      final Collection<Page> pages) throws APIException {
+    return streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new PagesHandler(new HashMap<String, String>()) {
+
+          @Override
+          protected void handlePage(JsonNode pageNode) {
+
+            // Manage redirects and missing pages
+            updateRedirect(pageNode, pages, redirects, normalization);
+
+            // Update pages
+            updateLastRevision(pageNode, pages, normalization);
+          }
+        });
+  }
+
+  /**
+   * Execute last revision request, retrieving also links.
+   *
+   * @param properties Properties defining request.
+   * @param pages Pages to be filled with last revision content.
+   * @param lists Map of lists to be filled with links.
+   * @param normalization Map containing information about title normalization (From => To).
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeLastRevision(
+      Map<String, String> properties,
+      final Collection<Page> pages,
+      Map<String, List<Page>> lists,
+      Map<String, String> normalization) throws APIException {
+    final Map<String, List<Page>> tmpLists = new HashMap<String, List<Page>>();
+    boolean result = streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new PagesHandler(normalization) {
+
+          @Override
+          public void reset() {
+            super.reset();
+            tmpLists.clear();
+          }
+
+          @Override
+          protected void handlePage(JsonNode pageNode) {
+
+            // Revisions are only in the first answer, continuations are for links
+            if (pageNode.has("revisions") || pageNode.has("missing")) {
+              updateRedirect(pageNode, pages, redirects, this.normalization);
+              updateLastRevision(pageNode, pages, this.normalization);
+            }
+
+            // Links
+            if (pageNode.has("links")) {
+              String pageTitle = getText(pageNode, "title");
+              List<Page> links = tmpLists.get(pageTitle);
+              if (links == null) {
+                links = new ArrayList<Page>();
+                tmpLists.put(pageTitle, links);
+              }
+              for (JsonNode linkNode : pageNode.path("links")) {
+                Page link = DataManager.getPage(
+                    getWiki(), getText(linkNode, "title"), null, null, null);
+                link.setNamespace(getText(linkNode, "ns"));
+                links.add(link);
+              }
+            }
+          }
+        });
+
+    // Add links to the lists
+    for (Entry<String, List<Page>> tmpList : tmpLists.entrySet()) {
+      List<Page> links = lists.get(tmpList.getKey());
+      if (links == null) {
+        lists.put(tmpList.getKey(), tmpList.getValue());
+      } else {
+        links.addAll(tmpList.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Update pages with the last revision of a page node.
+   *
+   * @param pageNode Page node.
+   * @param pages Pages to be filled with last revision content.
+   * @param normalization Information about title normalization (From => To).
+   */
+  private void updateLastRevision(
+      JsonNode pageNode, Collection<Page> pages,
+      Map<String, String> normalization) {
+    String title = getText(pageNode, "title");
+    Integer pageId = null;
+    try {
+      String pageIdValue = getText(pageNode, "pageid");
+      if (pageIdValue != null) {
+        pageId = Integer.valueOf(pageIdValue);
+      }
+    } catch (NumberFormatException e) {
+      System.err.println("Incorrect page id");
+    }
+    String namespace = getText(pageNode, "ns");
+    for (Page tmpPage : pages) {
+      Iterator<Page> itPage = tmpPage.getRedirectIteratorWithPage();
+      while (itPage.hasNext()) {
+        Page page = itPage.next();
+        boolean samePage = false;
+        if ((pageId != null) && (page.getPageId() != null)) {
+          samePage = pageId.equals(page.getPageId());
+        } else {
+          samePage = Page.areSameTitle(page.getTitle(), title);
+          if (!samePage) {
+            String normalizedTitle = getNormalizedTitle(page.getTitle(), normalization);
+            samePage = Page.areSameTitle(normalizedTitle, title);
+          }
+        }
+        if (samePage) {
+          page.setNamespace(namespace);
+          updatePageInformation(pageNode, page);
+
+          // Retrieve revisions
+          if (!Boolean.FALSE.equals(page.isExisting())) {
+            JsonNode revNode = pageNode.path("revisions").path(0);
+            if (revNode.isObject()) {
+              String contents = getText(revNode, "*");
+              if (contents == null) {
+                contents = getText(revNode, "content");
+              }
+              if (contents == null) {
+                contents = "";
+              }
+              page.setExisting(Boolean.TRUE);
+              page.setLastRevision(
+                  contents,
+                  getText(revNode, "revid"),
+                  getText(revNode, "timestamp"));
+            }
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.request.query.prop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Namespace;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.request.ApiRequest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+
+/**
+ * MediaWiki API JSON templates results.
+ */
+public class ApiJsonTemplatesResult extends ApiJsonPropertiesResult implements ApiTemplatesResult {
+
+  /**
+   * @param wiki Wiki on which requests are made.
+   * @param httpClient HTTP client for making requests.
+   */
+  public ApiJsonTemplatesResult(
+      EnumWikipedia wiki,
+      HttpClient httpClient) {
+    super(wiki, httpClient);
+  }
+
+  /**
+   * Execute templates request.
+   *
+   * @param properties Properties defining request.
+   * @param page Page.
+   * @param list List of pages to be filled with the templates.
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeTemplates(
+      Map<String, String> properties,
+      Page page,
+      List<Page> list)
+          throws APIException {
+    final List<Page> tmpList = new ArrayList<Page>();
+    boolean result = streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new PagesHandler(null) {
+
+          @Override
+          public void reset() {
+            super.reset();
+            tmpList.clear();
+          }
+
+          @Override
+          protected void handlePage(JsonNode templateNode) {
+            Page template = DataManager.getPage(
+                getWiki(), getText(templateNode, "title"), null, null, null);
+            template.setNamespace(getText(templateNode, "ns"));
+            template.setPageId(getText(templateNode, "pageid"));
+            if (templateNode.has("missing")) {
+              template.setExisting(Boolean.FALSE);
+            }
+            tmpList.add(template);
+          }
+        });
+
+    // Add templates to the list
+    for (Page template : tmpList) {
+      if (!list.contains(template)) {
+        list.add(template);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Set disambiguation status of a list of pages.
+   *
+   * @param properties Properties defining request.
+   * @param pages List of pages for which disambiguation status needs to be set.
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean setDiambiguationStatus(
+      Map<String, String> properties,
+      final Collection<Page> pages) throws APIException {
+    return streamQuery(
+        properties, ApiRequest.MAX_ATTEMPTS,
+        new PagesHandler(null) {
+
+          @Override
+          protected void handlePage(JsonNode pageNode) {
+
+            // Manage redirects and missing pages
+            updateRedirect(pageNode, pages, redirects, normalization);
+
+            // Set disambiguation status
+            String title = getText(pageNode, "title");
+            List<Page> tmpPages = new ArrayList<Page>();
+            for (Page p : pages) {
+              tmpPages.clear();
+              Iterator<Page> it = p.getRedirectIteratorWithPage();
+              while (it.hasNext()) {
+                Page p2 = it.next();
+                tmpPages.add(p2);
+                if ((p2.getTitle() != null) &&
+                    (Page.areSameTitle(p2.getTitle(), title))) {
+                  boolean hasTemplate = false;
+                  for (JsonNode template : pageNode.path("templates")) {
+                    if (!hasTemplate &&
+                        ("" + Namespace.TEMPLATE).equals(getText(template, "ns"))) {
+                      hasTemplate = true;
+                    }
+                  }
+                  if (hasTemplate) {
+                    for (Page p3 : tmpPages) {
+                      p3.setDisambiguationPage(Boolean.TRUE);
+                    }
+                  }
+                }
+              }
+            }
+          }
+        });
+  }
+}
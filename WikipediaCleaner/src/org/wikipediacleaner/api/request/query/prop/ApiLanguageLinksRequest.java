@@ -7,7 +7,9 @@
 
 package org.wikipediacleaner.api.request.query.prop;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
@@ -72,4 +74,54 @@ public class ApiLanguageLinksRequest extends ApiPropertiesRequest {
     }
     return languageLinks.get(toWikiCode);
   }
+
+  /**
+   * Get language links in a list of pages to a specific wiki.
+   * 
+   * @param pages List of pages.
+   * @param toWiki Destination wiki.
+   * @return Language links indexed by page title (redirects are followed).
+   */
+  public Map<String, String> getLanguageLinks(
+      Collection<Page> pages, EnumWikipedia toWiki) throws APIException {
+    Map<String, String> translations = new HashMap<String, String>();
+    Map<String, String> redirects = new HashMap<String, String>();
+    Map<String, String> languageLinks = new HashMap<String, String>();
+    String toWikiCode = toWiki.getSettings().getCode();
+    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
+    for (Collection<Page> splitPages : splitPagesList) {
+      Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
+      properties.put(PROPERTY_PROP, PROPERTY_PROP_LANGLINKS);
+      properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
+      properties.put(PROPERTY_LANG, toWikiCode);
+      properties.put(PROPERTY_LIMIT, LIMIT_MAX);
+      properties.put(PROPERTY_REDIRECTS, "");
+      properties.put(PROPERTY_TITLES, constructListTitles(splitPages));
+      while (result.getLanguageLinks(properties, redirects, languageLinks)) {
+        //
+      }
+    }
+
+    // Associate language links with the requested titles
+    for (Page page : pages) {
+      String title = page.getTitle();
+      String fragment = null;
+      for (int count = 0; (count < 10) && redirects.containsKey(title); count++) {
+        title = redirects.get(title);
+        int anchorPos = title.indexOf('#');
+        if (anchorPos >= 0) {
+          fragment = title.substring(anchorPos);
+          title = title.substring(0, anchorPos);
+        }
+      }
+      String link = languageLinks.get(title);
+      if (link != null) {
+        if ((fragment != null) && (link.indexOf('#') < 0)) {
+          link = link + fragment;
+        }
+        translations.put(page.getTitle(), link);
+      }
+    }
+    return translations;
+  }
 }
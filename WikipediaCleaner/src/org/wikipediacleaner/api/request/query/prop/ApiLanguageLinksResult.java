@@ -28,4 +28,18 @@ public interface ApiLanguageLinksResult extends ApiPropertiesResult {
   public boolean getLanguageLinks(
       Map<String, String> properties,
       Map<String, String> languageLinks) throws APIException;
+
+  /**
+   * Get language links of several pages.
+   * 
+   * @param properties Properties defining request.
+   * @param redirects Map of redirects and normalizations to be set (From => To#Fragment).
+   * @param languageLinks Map of language links to be set (Page title => Language link).
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  public boolean getLanguageLinks(
+      Map<String, String> properties,
+      Map<String, String> redirects,
+      Map<String, String> languageLinks) throws APIException;
 }
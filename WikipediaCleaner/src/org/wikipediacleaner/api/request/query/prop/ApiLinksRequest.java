@@ -124,4 +124,64 @@ public class ApiLinksRequest extends ApiPropertiesRequest {
     }
     page.setLinks(links);
   }
+
+  /**
+   * Load information about the links of a list of pages.
+   * 
+   * Links of the pages must already be known: they are replaced by pages
+   * holding the information, shared between all the pages linking to them.
+   * 
+   * @param pages List of pages with their links.
+   * @param namespace Restrict the list to a given namespace.
+   * @param redirects List of redirects filled by the method.
+   * @param disambig True if disambiguation information is requested.
+   */
+  public void loadLinksInformation(
+      Collection<Page> pages, Integer namespace,
+      List<Page> redirects, boolean disambig) throws APIException {
+    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
+    for (Collection<Page> splitPages : splitPagesList) {
+      Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
+      properties.put(PROPERTY_GENERATOR, PROPERTY_PROP_LINKS);
+      properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
+      if (disambig) {
+        properties.put(
+            PROPERTY_PROP,
+            PROPERTY_PROP_PAGEPROPS + "|" + PROPERTY_PROP_INFO);
+        properties.put(
+            ApiPagePropsRequest.PROPERTY_PROPERTIES,
+            ApiPagePropsRequest.PROPERTY_PROPERTIES_DISAMBIGUATION);
+      } else {
+        properties.put(
+            PROPERTY_PROP,
+            PROPERTY_PROP_INFO);
+      }
+      if (namespace != null) {
+        properties.put(GENERATOR_PREFIX + PROPERTY_NAMESPACE, namespace.toString());
+      }
+      properties.put(PROPERTY_TITLES, constructListTitles(splitPages));
+      properties.put(GENERATOR_PREFIX + PROPERTY_LIMIT, LIMIT_MAX);
+      List<Page> links = new ArrayList<Page>();
+      while (result.executeLinks(properties, links, null, null, redirects, disambig)) {
+        //
+      }
+
+      // Replace the links of each page by the pages holding the information
+      Map<String, Page> linksByTitle = new HashMap<String, Page>();
+      for (Page link : links) {
+        linksByTitle.put(link.getTitle(), link);
+      }
+      for (Page page : splitPages) {
+        List<Page> pageLinks = page.getLinks();
+        if (pageLinks != null) {
+          for (int numLink = 0; numLink < pageLinks.size(); numLink++) {
+            Page link = linksByTitle.get(pageLinks.get(numLink).getTitle());
+            if (link != null) {
+              pageLinks.set(numLink, link);
+            }
+          }
+        }
+      }
+    }
+  }
 }
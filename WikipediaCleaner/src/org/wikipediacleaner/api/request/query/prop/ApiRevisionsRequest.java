@@ -9,10 +9,14 @@ package org.wikipediacleaner.api.request.query.prop;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.ContentsCache;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.Page;
 
@@ -196,6 +200,166 @@ public class ApiRevisionsRequest extends ApiPropertiesRequest {
       }
     }
 
+    // Retrieve contents, using the cache when possible
+    ContentsCache cache = ContentsCache.getCache();
+    if (cache == null) {
+      loadLastRevision(pages, usePageId, true);
+    } else {
+
+      // Retrieve last revisions without contents
+      List<Page> copies = replicatePages(pages);
+      loadLastRevision(copies, usePageId, false);
+
+      // Use cached contents when possible
+      loadCachedContents(pages, copies, usePageId, cache);
+    }
+
+    // TODO: move this to a base class ?
+    if (withRedirects) {
+      List<Page> redirectPages = new ArrayList<Page>();
+      for (Page page : pages) {
+        if (page.isRedirect()) {
+          redirectPages.add(page);
+        }
+      }
+      if (!redirectPages.isEmpty()) {
+        Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
+        properties.put(PROPERTY_REDIRECTS, "");
+        properties.put(PROPERTY_TITLES, constructListTitles(redirectPages));
+        result.executeRedirect(properties, redirectPages);
+      }
+    }
+  }
+
+  /**
+   * Load content and links of a list of pages.
+   * 
+   * Both are retrieved in the same requests, for as many pages as possible.
+   * 
+   * @param pages Pages for which content and links are requested.
+   * @param namespace Restrict the list of links to a given namespace.
+   */
+  public void loadContentAndLinks(
+      Collection<Page> pages, Integer namespace) throws APIException {
+    ContentsCache cache = ContentsCache.getCache();
+    List<Collection<Page>> splitPagesList = splitListPages(pages, MAX_PAGES_PER_QUERY);
+    for (Collection<Page> splitPages : splitPagesList) {
+      Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
+      properties.put(
+          PROPERTY_PROP,
+          PROPERTY_PROP_REVISIONS + "|" + PROPERTY_PROP_INFO + "|" + PROPERTY_PROP_LINKS);
+      properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
+      properties.put(
+          PROPERTY_PROPERTIES,
+          ((cache == null) ? PROPERTY_PROPERTIES_CONTENT + "|" : "") +
+          PROPERTY_PROPERTIES_IDS + "|" + PROPERTY_PROPERTIES_TIMESTAMP);
+      properties.put(
+          ApiInfoRequest.PROPERTY_PROPERTIES,
+          ApiInfoRequest.PROPERTY_PROPERTIES_PROTECTION);
+      properties.put(ApiLinksRequest.PROPERTY_LIMIT, LIMIT_MAX);
+      if (namespace != null) {
+        properties.put(ApiLinksRequest.PROPERTY_NAMESPACE, namespace.toString());
+      }
+      properties.put(PROPERTY_TITLES, constructListTitles(splitPages));
+      Map<String, List<Page>> lists = new HashMap<String, List<Page>>();
+      Map<String, String> normalization = new HashMap<String, String>();
+      List<Page> copies = (cache != null) ? replicatePages(splitPages) : null;
+      while (result.executeLastRevision(
+          properties, (copies != null) ? copies : splitPages, lists, normalization)) {
+        //
+      }
+      for (Page page : splitPages) {
+        String pageTitle = page.getTitle();
+        if (normalization.containsKey(pageTitle)) {
+          pageTitle = normalization.get(pageTitle);
+        }
+        List<Page> list = lists.get(pageTitle);
+        if (list == null) {
+          list = new ArrayList<Page>();
+        }
+        Collections.sort(list);
+        page.setLinks(list);
+      }
+      if (copies != null) {
+        loadCachedContents(splitPages, copies, false, cache);
+      }
+    }
+  }
+
+  /**
+   * Replicate pages to retrieve their last revisions without contents.
+   * 
+   * Pages may be shared with other threads: they are updated only once
+   * the contents of their last revision are known, so that the contents
+   * and the time stamps of a page always belong to the same revision.
+   * 
+   * @param pages Pages.
+   * @return Copies of the pages.
+   */
+  private static List<Page> replicatePages(Collection<Page> pages) {
+    List<Page> copies = new ArrayList<Page>(pages.size());
+    for (Page page : pages) {
+      copies.add(page.replicatePage());
+    }
+    return copies;
+  }
+
+  /**
+   * Load contents of the last revisions from the cache, or retrieve them if needed.
+   * 
+   * @param pages Pages.
+   * @param copies Copies of the pages with their last revision already known.
+   * @param usePageId True if page identifiers should be used.
+   * @param cache Contents cache.
+   */
+  private void loadCachedContents(
+      Collection<Page> pages, List<Page> copies, boolean usePageId,
+      ContentsCache cache) throws APIException {
+
+    // Use cached contents for revisions already known
+    List<Page> missingPages = new ArrayList<Page>();
+    Iterator<Page> itCopy = copies.iterator();
+    for (Page page : pages) {
+      Page copy = itCopy.next();
+      if (Boolean.TRUE.equals(copy.isExisting())) {
+        String contents = cache.getContents(
+            getWiki(), copy.getPageId(), copy.getRevisionId());
+        if (contents != null) {
+          updatePageInformation(page, copy);
+          page.setLastRevision(
+              contents,
+              copy.getRevisionId().toString(),
+              copy.getContentsTimestamp());
+        } else {
+          missingPages.add(page);
+        }
+      } else {
+        updatePageInformation(page, copy);
+      }
+    }
+
+    // Retrieve contents for the other revisions
+    if (!missingPages.isEmpty()) {
+      loadLastRevision(missingPages, usePageId, true);
+      for (Page page : missingPages) {
+        if (Boolean.TRUE.equals(page.isExisting())) {
+          cache.putContents(
+              getWiki(), page.getPageId(), page.getRevisionId(), page.getContents());
+        }
+      }
+    }
+  }
+
+  /**
+   * Load last revision of a list of pages.
+   * 
+   * @param pages Pages for which last revision is requested.
+   * @param usePageId True if page identifiers should be used.
+   * @param withContents True if contents should be retrieved.
+   */
+  private void loadLastRevision(
+      Collection<Page> pages, boolean usePageId,
+      boolean withContents) throws APIException {
     Map<String, String> properties = getProperties(ACTION_QUERY, result.getFormat());
     properties.put(
         PROPERTY_PROP,
@@ -203,11 +367,11 @@ public class ApiRevisionsRequest extends ApiPropertiesRequest {
     properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
     properties.put(
         PROPERTY_PROPERTIES,
-        PROPERTY_PROPERTIES_CONTENT + "|" + PROPERTY_PROPERTIES_IDS + "|" + PROPERTY_PROPERTIES_TIMESTAMP);
+        (withContents ? PROPERTY_PROPERTIES_CONTENT + "|" : "") +
+        PROPERTY_PROPERTIES_IDS + "|" + PROPERTY_PROPERTIES_TIMESTAMP);
     properties.put(
         ApiInfoRequest.PROPERTY_PROPERTIES,
         ApiInfoRequest.PROPERTY_PROPERTIES_PROTECTION);
-    properties.put(PROPERTY_CONTINUE, PROPERTY_CONTINUE_DEFAULT);
     if (usePageId) {
       properties.put(PROPERTY_PAGEIDS, constructListIds(pages));
     } else {
@@ -216,21 +380,31 @@ public class ApiRevisionsRequest extends ApiPropertiesRequest {
     while (result.executeLastRevision(properties, pages)) {
       //
     }
+  }
 
-    // TODO: move this to a base class ?
-    if (withRedirects) {
-      List<Page> redirectPages = new ArrayList<Page>();
-      for (Page page : pages) {
-        if (page.isRedirect()) {
-          redirectPages.add(page);
-        }
-      }
-      if (!redirectPages.isEmpty()) {
-        properties = getProperties(ACTION_QUERY, result.getFormat());
-        properties.put(PROPERTY_REDIRECTS, "");
-        properties.put(PROPERTY_TITLES, constructListTitles(redirectPages));
-        result.executeRedirect(properties, redirectPages);
-      }
+  /**
+   * Update page information with the information retrieved for its copy.
+   * 
+   * @param page Page.
+   * @param copy Copy of the page.
+   */
+  private static void updatePageInformation(Page page, Page copy) {
+    if (copy.getPageId() != null) {
+      page.setPageId(copy.getPageId());
+    }
+    page.setTitle(copy.getTitle());
+    if (copy.getNamespace() != null) {
+      page.setNamespace(copy.getNamespace());
+    }
+    page.setStartTimestamp(copy.getStartTimestamp());
+    if (copy.isRedirect()) {
+      page.isRedirect(true);
+    }
+    if (copy.isExisting() != null) {
+      page.setExisting(copy.isExisting());
+    }
+    if (copy.getEditProtectionLevel() != null) {
+      page.setEditProtectionLevel(copy.getEditProtectionLevel());
     }
   }
 }
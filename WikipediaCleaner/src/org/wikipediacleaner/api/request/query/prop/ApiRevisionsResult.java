@@ -8,6 +8,7 @@
 package org.wikipediacleaner.api.request.query.prop;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import org.wikipediacleaner.api.APIException;
@@ -30,4 +31,20 @@ public interface ApiRevisionsResult extends ApiPropertiesResult {
   public boolean executeLastRevision(
       Map<String, String> properties,
       Collection<Page> pages) throws APIException;
+
+  /**
+   * Execute last revision request, retrieving also links.
+   * 
+   * @param properties Properties defining request.
+   * @param pages Pages to be filled with last revision content.
+   * @param lists Map of lists to be filled with links.
+   * @param normalization Map containing information about title normalization (From => To).
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  public boolean executeLastRevision(
+      Map<String, String> properties,
+      Collection<Page> pages,
+      Map<String, List<Page>> lists,
+      Map<String, String> normalization) throws APIException;
 }
@@ -18,13 +18,13 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -60,7 +60,7 @@ public class ApiXmlCategoriesResult extends ApiXmlPropertiesResult implements Ap
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve back links
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page/categories/cl", Filters.element());
       List<Element> listCategories = xpa.evaluate(root);
       Iterator<Element> itCategory = listCategories.iterator();
@@ -110,11 +110,11 @@ public class ApiXmlCategoriesResult extends ApiXmlPropertiesResult implements Ap
       updateRedirect(root, pages);
 
       // Set disambiguation status
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
-      XPathExpression<Element> xpaCategory = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaCategory = XPathCache.compile(
           "categories/cl", Filters.element());
       List<Page> tmpPages = new ArrayList<Page>();
       while (iter.hasNext()) {
@@ -16,10 +16,10 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.request.ApiRequest;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -53,7 +53,7 @@ public class ApiXmlLanguageLinksResult extends ApiXmlPropertiesResult implements
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Set disambiguation status
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page/langlinks/ll", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
@@ -75,4 +75,64 @@ public class ApiXmlLanguageLinksResult extends ApiXmlPropertiesResult implements
       throw new APIException("Error parsing XML", e);
     }
   }
+
+  /**
+   * Get language links of several pages.
+   * 
+   * @param properties Properties defining request.
+   * @param redirects Map of redirects and normalizations to be set (From => To#Fragment).
+   * @param languageLinks Map of language links to be set (Page title => Language link).
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean getLanguageLinks(
+      Map<String, String> properties,
+      Map<String, String> redirects,
+      Map<String, String> languageLinks) throws APIException {
+    try {
+      Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
+
+      // Retrieve normalization information
+      retrieveNormalization(root, redirects);
+
+      // Retrieve redirects
+      XPathExpression<Element> xpaRedirects = XPathCache.compile(
+          "/api/query/redirects/r", Filters.element());
+      for (Element redirect : xpaRedirects.evaluate(root)) {
+        String from = redirect.getAttributeValue("from");
+        String to = redirect.getAttributeValue("to");
+        if ((from != null) && (to != null)) {
+          String fragment = redirect.getAttributeValue("tofragment");
+          if ((fragment != null) && (fragment.length() > 0)) {
+            to = to + "#" + fragment;
+          }
+          redirects.put(from, to);
+        }
+      }
+
+      // Retrieve language links
+      XPathExpression<Element> xpaPages = XPathCache.compile(
+          "/api/query/pages/page", Filters.element());
+      XPathExpression<Element> xpaLangLinks = XPathCache.compile(
+          "langlinks/ll", Filters.element());
+      for (Element page : xpaPages.evaluate(root)) {
+        String pageTitle = page.getAttributeValue("title");
+        for (Element langLink : xpaLangLinks.evaluate(page)) {
+          String title = langLink.getText();
+          if ((pageTitle != null) && (title != null) && (title.trim().length() > 0)) {
+            languageLinks.put(pageTitle, title);
+          }
+        }
+      }
+
+      // Retrieve continue
+      return shouldContinue(
+          root, "/api/query-continue/langlinks",
+          properties);
+    } catch (JDOMException e) {
+      log.error("Error retrieving language links", e);
+      throw new APIException("Error parsing XML", e);
+    }
+  }
 }
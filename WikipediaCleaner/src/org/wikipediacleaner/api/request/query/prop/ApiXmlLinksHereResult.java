@@ -17,7 +17,6 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
@@ -25,6 +24,7 @@ import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.Page.RelatedPages;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -62,11 +62,11 @@ public class ApiXmlLinksHereResult extends ApiXmlResult implements ApiLinksHereR
 
       // Retrieve links to page
       // TODO
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page", Filters.element());
       List<Element> listPages = xpa.evaluate(root);
       Iterator<Element> itPages = listPages.iterator();
-      XPathExpression<Element> xpaLinksHere = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaLinksHere = XPathCache.compile(
           "./linkshere/lh", Filters.element());
       while (itPages.hasNext()) {
         Element currentPage = itPages.next();
@@ -17,12 +17,12 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -61,11 +61,11 @@ public class ApiXmlLinksResult extends ApiXmlPropertiesResult implements ApiLink
       retrieveNormalization(root, normalization);
 
       // Retrieve back links
-      XPathExpression<Element> xpaPages = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaPages = XPathCache.compile(
           "/api/query/pages/page", Filters.element());
       List<Element> listPages = xpaPages.evaluate(root);
       Iterator<Element> itPage = listPages.iterator();
-      XPathExpression<Element> xpaLinks = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaLinks = XPathCache.compile(
           "links/pl", Filters.element());
       while (itPage.hasNext()) {
         Element pageNode = itPage.next();
@@ -122,7 +122,7 @@ public class ApiXmlLinksResult extends ApiXmlPropertiesResult implements ApiLink
       retrieveNormalization(root, normalization);
 
       // Retrieve back links
-      XPathExpression<Element> xpaPages = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaPages = XPathCache.compile(
           "/api/query/pages/page", Filters.element());
       List<Element> listLinks = xpaPages.evaluate(root);
       Iterator<Element> itLinks = listLinks.iterator();
@@ -19,13 +19,13 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -72,7 +72,7 @@ public class ApiXmlPropertiesResult extends ApiXmlResult implements ApiPropertie
     }
 
     // Retrieve protection information
-    XPathExpression<Element> xpaProtection = XPathFactory.instance().compile(
+    XPathExpression<Element> xpaProtection = XPathCache.compile(
         "protection/pr[@type=\"edit\"]", Filters.element());
     List<Element> protectionNodes = xpaProtection.evaluate(node);
     for (Element protectionNode : protectionNodes) {
@@ -117,7 +117,7 @@ public class ApiXmlPropertiesResult extends ApiXmlResult implements ApiPropertie
     if (normalization == null) {
       return;
     }
-    XPathExpression<Element> xpaNormalized = XPathFactory.instance().compile(
+    XPathExpression<Element> xpaNormalized = XPathCache.compile(
         "/api/query/normalized/n", Filters.element());
     List<Element> listNormalized = xpaNormalized.evaluate(root);
     if ((listNormalized == null) || (listNormalized.isEmpty())) {
@@ -162,12 +162,12 @@ public class ApiXmlPropertiesResult extends ApiXmlResult implements ApiPropertie
   public void updateRedirect(Element root, Collection<Page> pages) throws JDOMException {
 
     // Retrieving redirects
-    XPathExpression<Element> xpaRedirects = XPathFactory.instance().compile(
+    XPathExpression<Element> xpaRedirects = XPathCache.compile(
         "/api/query/redirects/r", Filters.element());
     List<Element> listRedirects = xpaRedirects.evaluate(root);
 
     // Retrieving pages
-    XPathExpression<Element> xpaPages = XPathFactory.instance().compile(
+    XPathExpression<Element> xpaPages = XPathCache.compile(
         "/api/query/pages/page", Filters.element());
     List<Element> listPages = xpaPages.evaluate(root);
 
@@ -16,13 +16,13 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
 import org.wikipediacleaner.api.request.ApiXmlResult;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -59,7 +59,7 @@ public class ApiXmlRedirectsResult extends ApiXmlResult implements ApiRedirectsR
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve redirects
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page/redirects/rd", Filters.element());
       List<Element> listRedirects = xpa.evaluate(root);
       Iterator<Element> itRedirects = listRedirects.iterator();
@@ -7,6 +7,7 @@
 
 package org.wikipediacleaner.api.request.query.prop;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -18,11 +19,12 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -63,65 +65,141 @@ public class ApiXmlRevisionsResult extends ApiXmlPropertiesResult implements Api
       retrieveNormalization(root, normalization);
 
       // Retrieve pages
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      updateLastRevisions(root, pages, normalization);
+
+      // Retrieve continue
+      return shouldContinue(
+          root, "/api/query-continue/revisions",
+          properties);
+    } catch (JDOMException e) {
+      log.error("Error loading revisions", e);
+      throw new APIException("Error parsing XML", e);
+    }
+  }
+
+  /**
+   * Execute last revision request, retrieving also links.
+   * 
+   * @param properties Properties defining request.
+   * @param pages Pages to be filled with last revision content.
+   * @param lists Map of lists to be filled with links.
+   * @param normalization Map containing information about title normalization (From => To).
+   * @return True if request should be continued.
+   * @throws APIException
+   */
+  @Override
+  public boolean executeLastRevision(
+      Map<String, String> properties,
+      Collection<Page> pages,
+      Map<String, List<Page>> lists,
+      Map<String, String> normalization) throws APIException {
+    try {
+      Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
+
+      // Manage redirects and missing pages
+      updateRedirect(root, pages);
+
+      // Retrieving normalization information
+      retrieveNormalization(root, normalization);
+
+      // Retrieve pages
+      updateLastRevisions(root, pages, normalization);
+
+      // Retrieve links
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page", Filters.element());
-      List<Element> results = xpa.evaluate(root);
-      Iterator<Element> iter = results.iterator();
-      while (iter.hasNext()) {
-        Element pageNode = iter.next();
-        String title = pageNode.getAttributeValue("title");
-        Integer pageId = null;
-        try {
-          String pageIdValue = pageNode.getAttributeValue("pageid");
-          if (pageIdValue != null) {
-            pageId = Integer.valueOf(pageIdValue);
+      XPathExpression<Element> xpaLinks = XPathCache.compile(
+          "links/pl", Filters.element());
+      for (Element pageNode : xpa.evaluate(root)) {
+        String pageTitle = pageNode.getAttributeValue("title");
+        List<Element> linkNodes = xpaLinks.evaluate(pageNode);
+        if (!linkNodes.isEmpty()) {
+          List<Page> links = lists.get(pageTitle);
+          if (links == null) {
+            links = new ArrayList<Page>();
+            lists.put(pageTitle, links);
           }
-        } catch (NumberFormatException e) {
-          System.err.println("Incorrect page id");
-        }
-        String namespace = pageNode.getAttributeValue("ns");
-        for (Page tmpPage : pages) {
-          Iterator<Page> itPage = tmpPage.getRedirectIteratorWithPage();
-          while (itPage.hasNext()) {
-            Page page = itPage.next();
-            boolean samePage = false;
-            if ((pageId != null) && (page.getPageId() != null)) {
-              samePage = pageId.equals(page.getPageId());
-            } else {
-              samePage = Page.areSameTitle(page.getTitle(), title);
-              if (!samePage) {
-                String normalizedTitle = getNormalizedTitle(page.getTitle(), normalization);
-                samePage = Page.areSameTitle(normalizedTitle, title);
-              }
-            }
-            if (samePage) {
-              page.setNamespace(namespace);
-              updatePageInformation(pageNode, page);
-  
-              // Retrieve revisions
-              if (!Boolean.FALSE.equals(page.isExisting())) {
-                XPathExpression<Element> xpaRevisions = XPathFactory.instance().compile(
-                    "revisions/rev", Filters.element());
-                Element revNode = xpaRevisions.evaluateFirst(pageNode);
-                if (revNode != null) {
-                  page.setContents(revNode.getText());
-                  page.setExisting(Boolean.TRUE);
-                  page.setRevisionId(revNode.getAttributeValue("revid"));
-                  page.setContentsTimestamp(revNode.getAttributeValue("timestamp"));
-                }
-              }
-            }
+          for (Element linkNode : linkNodes) {
+            Page link = DataManager.getPage(
+                getWiki(), linkNode.getAttributeValue("title"), null, null, null);
+            link.setNamespace(linkNode.getAttributeValue("ns"));
+            links.add(link);
           }
         }
       }
 
       // Retrieve continue
       return shouldContinue(
-          root, "/api/query-continue/revisions",
+          root, "/api/query-continue/links",
           properties);
     } catch (JDOMException e) {
       log.error("Error loading revisions", e);
       throw new APIException("Error parsing XML", e);
     }
   }
+
+  /**
+   * Update pages with the last revisions of an answer.
+   * 
+   * @param root Root of the answer.
+   * @param pages Pages to be filled with last revision content.
+   * @param normalization Information about title normalization (From => To).
+   * @throws JDOMException
+   */
+  private void updateLastRevisions(
+      Element root, Collection<Page> pages,
+      Map<String, String> normalization) throws JDOMException {
+    XPathExpression<Element> xpa = XPathCache.compile(
+        "/api/query/pages/page", Filters.element());
+    List<Element> results = xpa.evaluate(root);
+    Iterator<Element> iter = results.iterator();
+    XPathExpression<Element> xpaRevisions = XPathCache.compile(
+        "revisions/rev", Filters.element());
+    while (iter.hasNext()) {
+      Element pageNode = iter.next();
+      String title = pageNode.getAttributeValue("title");
+      Integer pageId = null;
+      try {
+        String pageIdValue = pageNode.getAttributeValue("pageid");
+        if (pageIdValue != null) {
+          pageId = Integer.valueOf(pageIdValue);
+        }
+      } catch (NumberFormatException e) {
+        System.err.println("Incorrect page id");
+      }
+      String namespace = pageNode.getAttributeValue("ns");
+      for (Page tmpPage : pages) {
+        Iterator<Page> itPage = tmpPage.getRedirectIteratorWithPage();
+        while (itPage.hasNext()) {
+          Page page = itPage.next();
+          boolean samePage = false;
+          if ((pageId != null) && (page.getPageId() != null)) {
+            samePage = pageId.equals(page.getPageId());
+          } else {
+            samePage = Page.areSameTitle(page.getTitle(), title);
+            if (!samePage) {
+              String normalizedTitle = getNormalizedTitle(page.getTitle(), normalization);
+              samePage = Page.areSameTitle(normalizedTitle, title);
+            }
+          }
+          if (samePage) {
+            page.setNamespace(namespace);
+            updatePageInformation(pageNode, page);
+  
+            // Retrieve revisions
+            if (!Boolean.FALSE.equals(page.isExisting())) {
+              Element revNode = xpaRevisions.evaluateFirst(pageNode);
+              if (revNode != null) {
+                page.setExisting(Boolean.TRUE);
+                page.setLastRevision(
+                    revNode.getText(),
+                    revNode.getAttributeValue("revid"),
+                    revNode.getAttributeValue("timestamp"));
+              }
+            }
+          }
+        }
+      }
+    }
+  }
 }
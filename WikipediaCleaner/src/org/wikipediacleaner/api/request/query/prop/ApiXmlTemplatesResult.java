@@ -18,13 +18,13 @@ import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.filter.Filters;
 import org.jdom2.xpath.XPathExpression;
-import org.jdom2.xpath.XPathFactory;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
 import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.request.ApiRequest;
+import org.wikipediacleaner.utils.XPathCache;
 
 
 /**
@@ -61,7 +61,7 @@ public class ApiXmlTemplatesResult extends ApiXmlPropertiesResult implements Api
       Element root = getRoot(properties, ApiRequest.MAX_ATTEMPTS);
 
       // Retrieve back links
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page", Filters.element());
       List<Element> listTemplates = xpa.evaluate(root);
       Iterator<Element> itTemplate = listTemplates.iterator();
@@ -111,11 +111,11 @@ public class ApiXmlTemplatesResult extends ApiXmlPropertiesResult implements Api
       updateRedirect(root, pages);
 
       // Set disambiguation status
-      XPathExpression<Element> xpa = XPathFactory.instance().compile(
+      XPathExpression<Element> xpa = XPathCache.compile(
           "/api/query/pages/page", Filters.element());
       List<Element> results = xpa.evaluate(root);
       Iterator<Element> iter = results.iterator();
-      XPathExpression<Element> xpaTemplates = XPathFactory.instance().compile(
+      XPathExpression<Element> xpaTemplates = XPathCache.compile(
           "templates/tl", Filters.element());
       List<Page> tmpPages = new ArrayList<Page>();
       while (iter.hasNext()) {
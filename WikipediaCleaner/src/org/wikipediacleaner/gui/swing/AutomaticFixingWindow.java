@@ -16,15 +16,18 @@ import java.awt.GridLayout;
 import java.awt.Insets;
 import java.awt.event.ActionListener;
 import java.beans.EventHandler;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JOptionPane;
@@ -57,6 +60,7 @@ import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.gui.swing.component.PageListCellRenderer;
 import org.wikipediacleaner.gui.swing.component.PageListModel;
 import org.wikipediacleaner.gui.swing.worker.AutomaticFixingWorker;
+import org.wikipediacleaner.gui.swing.worker.CandidatePagesWorker;
 import org.wikipediacleaner.i18n.GT;
 import org.wikipediacleaner.images.EnumImageSize;
 import org.wikipediacleaner.utils.Configuration;
@@ -78,6 +82,7 @@ public class AutomaticFixingWindow extends OnePageWindow {
   private JButton buttonRun;
   private JButton buttonSave;
   private JButton buttonTest;
+  private JButton buttonCandidates;
   private JToggleButton buttonAutomaticCW;
   private JCheckBox chkForceCW;
   private JTextPane paneOriginal;
@@ -359,6 +364,13 @@ public class AutomaticFixingWindow extends OnePageWindow {
         getParentComponent(), toolbar, getWikipedia(), listPages, true, true);
     ActionExternalViewer.addButton(
         toolbar, getWikipedia(), listPages, false, true, true);
+    toolbar.addSeparator();
+    buttonCandidates = Utilities.createJButton(
+        "gnome-system-search.png", EnumImageSize.NORMAL,
+        GT._("Add pages matching the expressions in a dump"), false, null);
+    buttonCandidates.addActionListener(EventHandler.create(
+        ActionListener.class, this, "actionCandidatePages"));
+    toolbar.add(buttonCandidates);
     constraints.fill = GridBagConstraints.HORIZONTAL;
     constraints.weighty = 0;
     panel.add(toolbar, constraints);
@@ -697,6 +709,73 @@ public class AutomaticFixingWindow extends OnePageWindow {
     }
   }
 
+  /**
+   * Action called when Candidate Pages button is pressed.
+   */
+  public void actionCandidatePages() {
+
+    // Expressions
+    List<AutomaticFixing> fixing = modelAutomaticFixing.getData();
+    List<Pattern> patterns = new ArrayList<Pattern>();
+    if (fixing != null) {
+      for (AutomaticFixing replacement : fixing) {
+        Pattern pattern = replacement.getSearchPattern();
+        if (pattern != null) {
+          patterns.add(pattern);
+        }
+      }
+    }
+    if (patterns.isEmpty()) {
+      Utilities.displayWarning(
+          getParentComponent(),
+          GT._("You must input the initial and destination texts."));
+      return;
+    }
+
+    // Dump for which a trigram index has been built
+    JFileChooser fileChooser = new JFileChooser();
+    fileChooser.setCurrentDirectory(new File("."));
+    fileChooser.setDialogTitle(GT._("Dump file"));
+    int answer = fileChooser.showOpenDialog(getParentComponent());
+    if ((answer != JFileChooser.APPROVE_OPTION) ||
+        (fileChooser.getSelectedFile() == null)) {
+      return;
+    }
+
+    // Search pages
+    CandidatePagesWorker candidatesWorker = new CandidatePagesWorker(
+        getWikipedia(), this, fileChooser.getSelectedFile(), patterns);
+    candidatesWorker.setListener(new DefaultBasicWorkerListener() {
+      @Override
+      public void afterFinished(
+          BasicWorker worker,
+          @SuppressWarnings("unused") boolean ok) {
+        if (!worker.shouldContinue() ||
+            !(worker instanceof CandidatePagesWorker)) {
+          return;
+        }
+        List<Page> found = ((CandidatePagesWorker) worker).getPages();
+        if (found.isEmpty()) {
+          return;
+        }
+        List<Page> newPages = new ArrayList<Page>();
+        if (pages != null) {
+          newPages.addAll(pages);
+        }
+        for (Page page : found) {
+          if (!newPages.contains(page)) {
+            newPages.add(page);
+          }
+        }
+        pages = newPages;
+        modelPages.setElements(pages);
+        listPages.clearSelection();
+        listPages.setSelectionInterval(0, modelPages.getSize() - 1);
+      }
+    });
+    candidatesWorker.start();
+  }
+
   /**
    * Action called when Save Automatic Fixing button is pressed. 
    */
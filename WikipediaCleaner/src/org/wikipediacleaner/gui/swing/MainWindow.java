@@ -1438,8 +1438,8 @@ public class MainWindow
         ConfigurationValueString.PAGE_NAME,
         pageName);
     config.save();
-    Page page = DataManager.getPage(
-        getWikipedia(), pageName, null, null, null);
+    Page page = DataManager.createPage(
+        getWikipedia(), pageName, null, null);
     new PageListWorker(
         getWikipedia(), this, page,
         Collections.singletonList(pageName),
@@ -1464,8 +1464,8 @@ public class MainWindow
     config.save();
     String title = getWikipedia().getWikiConfiguration().getPageTitle(
         Namespace.CATEGORY, pageName); 
-    Page page = DataManager.getPage(
-        getWikipedia(), title, null, null, null);
+    Page page = DataManager.createPage(
+        getWikipedia(), title, null, null);
     new PageListWorker(
         getWikipedia(), this, page,
         Collections.singletonList(title),
@@ -1490,8 +1490,8 @@ public class MainWindow
     config.save();
     String title = getWikipedia().getWikiConfiguration().getPageTitle(
         Namespace.TEMPLATE, pageName);
-    Page page = DataManager.getPage(
-        getWikipedia(), title, null, null, null);
+    Page page = DataManager.createPage(
+        getWikipedia(), title, null, null);
     new PageListWorker(
         getWikipedia(), this, page,
         Collections.singletonList(title),
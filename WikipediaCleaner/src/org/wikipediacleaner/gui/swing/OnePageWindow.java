@@ -183,7 +183,7 @@ public abstract class OnePageWindow
     if (getTextContents() != null) {
       getTextContents().setText(null);
     }
-    page = DataManager.getPage(getWikipedia(), getTextPageName(), null, null, null);
+    page = DataManager.createPage(getWikipedia(), getTextPageName(), null, null);
     updateComponentState();
   }
 
@@ -9,6 +9,7 @@ package org.wikipediacleaner.gui.swing.basic;
 
 import org.wikipediacleaner.api.MediaWikiListener;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.utils.JobJournal;
 
 
 /**
@@ -21,6 +22,7 @@ public class BasicWorker extends SwingWorker implements MediaWikiListener {
   private BasicWorkerListener listener;
   private Integer timeLimit;
   private long startTime;
+  private JobJournal journal;
 
   /**
    * @param wikipedia Wikipedia.
@@ -53,6 +55,20 @@ public class BasicWorker extends SwingWorker implements MediaWikiListener {
     this.listener = listener;
   }
 
+  /**
+   * @param journal Journal of the work done, to resume an interrupted job.
+   */
+  public void setJournal(JobJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * @return Journal of the work done (may be null).
+   */
+  public JobJournal getJournal() {
+    return journal;
+  }
+
   /**
    * @param limit Time limit for execution.
    */
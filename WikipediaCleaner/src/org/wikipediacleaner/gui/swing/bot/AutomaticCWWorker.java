@@ -8,12 +8,16 @@
 package org.wikipediacleaner.gui.swing.bot;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.APIFactory;
+import org.wikipediacleaner.api.ContentsPrefetcher;
+import org.wikipediacleaner.api.MediaWikiController;
+import org.wikipediacleaner.api.MediaWikiListener;
 import org.wikipediacleaner.api.check.CheckError;
 import org.wikipediacleaner.api.check.CheckErrorPage;
 import org.wikipediacleaner.api.check.CheckWiki;
@@ -25,18 +29,27 @@ import org.wikipediacleaner.api.data.AutomaticFormatter;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementTemplate;
+import org.wikipediacleaner.api.execution.MediaWikiCallable;
 import org.wikipediacleaner.gui.swing.Controller;
 import org.wikipediacleaner.gui.swing.basic.BasicWindow;
 import org.wikipediacleaner.gui.swing.basic.BasicWorker;
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
+import org.wikipediacleaner.utils.JobJournal;
 
 
 /**
  * SwingWorker for automatic Check Wiki fixing.
+ * 
+ * Contents of the next pages are retrieved in the background while the
+ * current pages are analyzed, and pages are analyzed and fixed in parallel.
+ * Edits are throttled by the API, so the speed is limited by the edit rate.
  */
 public class AutomaticCWWorker extends BasicWorker {
 
+  /** Number of batches of pages retrieved in advance. */
+  private final static int PREFETCH = 2;
+
   /** Algorithms for which to fix pages. */
   private final List<CheckErrorAlgorithm> selectedAlgorithms;
 
@@ -59,13 +72,16 @@ public class AutomaticCWWorker extends BasicWorker {
   private final boolean analyzeNonFixed;
 
   /** Count of modified pages. */
-  private int countModified;
+  private final AtomicInteger countModified;
 
   /** Count of marked pages. */
-  private int countMarked;
+  private final AtomicInteger countMarked;
 
   /** Count of marked pages for other algorithms. */
-  private int countMarkedOther;
+  private final AtomicInteger countMarkedOther;
+
+  /** Count of pages that couldn't be retrieved or fixed. */
+  private final AtomicInteger countFailed;
 
   /**
    * @param wiki Wiki.
@@ -93,9 +109,10 @@ public class AutomaticCWWorker extends BasicWorker {
     this.extraComment = extraComment;
     this.saveModifications = saveModifications;
     this.analyzeNonFixed = analyzeNonFixed;
-    this.countModified = 0;
-    this.countMarked = 0;
-    this.countMarkedOther = 0;
+    this.countModified = new AtomicInteger();
+    this.countMarked = new AtomicInteger();
+    this.countMarkedOther = new AtomicInteger();
+    this.countFailed = new AtomicInteger();
   }
 
   /** 
@@ -116,6 +133,9 @@ public class AutomaticCWWorker extends BasicWorker {
     } catch (APIException e) {
       return e;
     }
+    if (shouldContinue() && (countFailed.get() == 0) && (getJournal() != null)) {
+      getJournal().finish();
+    }
     return null;
   }
 
@@ -147,43 +167,88 @@ public class AutomaticCWWorker extends BasicWorker {
     List<CheckError> errors = new ArrayList<>();
     CheckWiki checkWiki = APIFactory.getCheckWiki();
     checkWiki.retrievePages(algorithm, maxSize, getWikipedia(), errors);
-    while (!errors.isEmpty()) {
-      CheckError error = errors.remove(0);
-      int maxErrors = error.getPageCount();
-      for (int numPage = 0;
-          (error.getPageCount() > 0) && shouldContinue();
-          numPage++) {
-        try {
-          Page page = error.getPage(0);
-          error.remove(page);
-          analyzePage(
-              page, algorithm,
-              algorithm.getErrorNumberString() + " - " + (numPage + 1) + "/" + maxErrors);
-        } catch (APIException e) {
-          //
+    List<Page> pages = new ArrayList<>();
+    JobJournal journal = getJournal();
+    int maxErrors = 0;
+    int numPage = 0;
+    for (CheckError error : errors) {
+      for (int i = 0; i < error.getPageCount(); i++) {
+        Page page = error.getPage(i);
+        maxErrors++;
+        if ((journal != null) && journal.isCompleted(getJournalKey(page, algorithm))) {
+          numPage++;
+        } else {
+          pages.add(page);
+        }
+      }
+    }
+    if (pages.isEmpty()) {
+      return;
+    }
+
+    // Retrieve page contents by batches in the background, analyze pages in parallel
+    API api = APIFactory.getAPI();
+    int batchSize = Math.max(1, api.getMaxPagesPerQuery());
+    setText(
+        algorithm.getErrorNumberString() + " - " + (numPage + 1) + "/" + maxErrors +
+        " - " + GT._("Retrieving contents"));
+    ContentsPrefetcher prefetcher = new ContentsPrefetcher(
+        getWikipedia(), api, pages, batchSize, PREFETCH, this);
+    FixController controller = new FixController(this, batchSize);
+    prefetcher.start();
+    try {
+      List<Page> batch = null;
+      while (shouldContinue() && ((batch = prefetcher.next()) != null)) {
+        for (Page page : batch) {
+          numPage++;
+          controller.addTask(new FixPageCallable(
+              getWikipedia(), this, api, page, algorithm,
+              algorithm.getErrorNumberString() + " - " + numPage + "/" + maxErrors));
         }
       }
+    } finally {
+      prefetcher.stop();
+      controller.waitForCompletion();
     }
+
+    // Pages skipped because their contents couldn't be retrieved
+    for (Page page : prefetcher.getFailedPages()) {
+      countFailed.incrementAndGet();
+      if (journal != null) {
+        journal.record(getJournalKey(page, algorithm), JobJournal.Outcome.FAILED);
+      }
+    }
+  }
+
+  /**
+   * @param page Page.
+   * @param algorithm Main algorithm.
+   * @return Key of the page in the journal.
+   */
+  private static String getJournalKey(Page page, CheckErrorAlgorithm algorithm) {
+    return algorithm.getErrorNumberString() + ":" + page.getTitle();
   }
 
   /**
    * Analyze and fix a page.
    * 
-   * @param page Page.
+   * @param sharedPage Page, possibly shared with other threads.
    * @param algorithm Main algorithm.
    * @param prefix Prefix for the message
+   * @return True if the page has been modified.
    * @throws APIException
    */
-  private void analyzePage(
-      Page page,
+  private boolean analyzePage(
+      Page sharedPage,
       CheckErrorAlgorithm algorithm,
       String prefix) throws APIException {
 
+    // Work on a snapshot, the page may be retrieved again by other threads
+    Page page = sharedPage.snapshotPage();
     setText(prefix + " - " + GT._("Analyzing page {0}", page.getTitle()));
 
-    // Retrieve page content 
+    // Analyze page content (retrieved by batch)
     API api = APIFactory.getAPI();
-    api.retrieveContents(getWikipedia(), Collections.singletonList(page), true, false);
     PageAnalysis analysis = page.getAnalysis(page.getContents(), true);
 
     // Check that robots are authorized to change this page
@@ -215,7 +280,7 @@ public class AutomaticCWWorker extends BasicWorker {
     CheckWiki checkWiki = APIFactory.getCheckWiki();
     if (found) {
       if (!saveModifications) {
-        return;
+        return false;
       }
 
       // Fix all errors that can be fixed
@@ -248,19 +313,20 @@ public class AutomaticCWWorker extends BasicWorker {
             getWikipedia(), page, newContents,
             comment.toString(),
             true, false);
-        countModified++;
+        countModified.incrementAndGet();
         for (CheckError.Progress errorFixed : errorsFixed) {
           CheckErrorAlgorithm usedAlgorithm = errorFixed.algorithm;
           errorPage = CheckError.analyzeError(usedAlgorithm, page.getAnalysis(newContents, true));
           if ((errorPage != null) && (!errorPage.getErrorFound())) {
             checkWiki.markAsFixed(page, usedAlgorithm.getErrorNumberString());
             if (selectedAlgorithms.contains(usedAlgorithm)) {
-              countMarked++;
+              countMarked.incrementAndGet();
             } else {
-              countMarkedOther++;
+              countMarkedOther.incrementAndGet();
             }
           }
         }
+        return true;
       } else if (analyzeNonFixed) {
         Controller.runFullAnalysis(page.getTitle(), null, getWikipedia());
       }
@@ -269,8 +335,113 @@ public class AutomaticCWWorker extends BasicWorker {
           page, algorithm.getErrorNumber());
       if (Boolean.FALSE.equals(errorDetected)) {
         checkWiki.markAsFixed(page, algorithm.getErrorNumberString());
-        countMarked++;
+        countMarked.incrementAndGet();
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Controller for analyzing and fixing pages in parallel.
+   */
+  private static class FixController extends MediaWikiController {
+
+    /** Maximum number of tasks waiting or running */
+    private final int maxTasks;
+
+    /**
+     * @param listener Listener to MediaWiki events.
+     * @param maxTasks Maximum number of tasks waiting or running.
+     */
+    public FixController(MediaWikiListener listener, int maxTasks) {
+      super(listener, true);
+      this.maxTasks = Math.max(1, maxTasks);
+    }
+
+    /**
+     * Add a task, waiting for room if too many tasks are waiting.
+     * 
+     * @param task Task to be performed in background.
+     * @see org.wikipediacleaner.api.MediaWikiController#addTask(java.util.concurrent.Callable)
+     */
+    @Override
+    public void addTask(Callable<?> task) {
+      // Clean up done tasks
+      while (getNextDoneResult() != null) {
+        //
+      }
+      while (getRemainingTasksCount() >= maxTasks) {
+        try {
+          getNextResult();
+        } catch (APIException e) {
+          // Errors are handled by the tasks
+        }
+      }
+      super.addTask(task);
+    }
+
+    /**
+     * Wait for the completion of all tasks.
+     */
+    public void waitForCompletion() {
+      waitForRemainingTasks();
+    }
+  }
+
+  /**
+   * Background task analyzing and fixing a page.
+   */
+  private class FixPageCallable extends MediaWikiCallable<Page> {
+
+    /** Page to analyze */
+    private final Page page;
+
+    /** Main algorithm */
+    private final CheckErrorAlgorithm algorithm;
+
+    /** Prefix for the message */
+    private final String prefix;
+
+    /**
+     * @param wiki Wiki.
+     * @param listener Listener of MediaWiki events.
+     * @param api MediaWiki API.
+     * @param page Page.
+     * @param algorithm Main algorithm.
+     * @param prefix Prefix for the message.
+     */
+    public FixPageCallable(
+        EnumWikipedia wiki, MediaWikiListener listener, API api,
+        Page page, CheckErrorAlgorithm algorithm, String prefix) {
+      super(wiki, listener, api);
+      this.page = page;
+      this.algorithm = algorithm;
+      this.prefix = prefix;
+    }
+
+    /* (non-Javadoc)
+     * @see java.util.concurrent.Callable#call()
+     */
+    @Override
+    public Page call() throws APIException {
+      if (shouldStop()) {
+        return null;
+      }
+      JobJournal journal = getJournal();
+      try {
+        boolean modified = analyzePage(page, algorithm, prefix);
+        if (journal != null) {
+          journal.record(
+              getJournalKey(page, algorithm),
+              modified ? JobJournal.Outcome.UPDATED : JobJournal.Outcome.DONE);
+        }
+      } catch (APIException e) {
+        countFailed.incrementAndGet();
+        if (journal != null) {
+          journal.record(getJournalKey(page, algorithm), JobJournal.Outcome.FAILED);
+        }
       }
+      return page;
     }
   }
 
@@ -288,17 +459,17 @@ public class AutomaticCWWorker extends BasicWorker {
       message.append(GT.__(
           "{0} page has been modified",
           "{0} pages have been modified",
-          countModified, Integer.toString(countModified)));
+          countModified.get(), Integer.toString(countModified.get())));
       message.append("\n");
       message.append(GT.__(
           "{0} page has been marked as fixed for the selected algorithms",
           "{0} pages have been marked as fixed for the selected algorithms",
-          countMarked, Integer.toString(countMarked)));
+          countMarked.get(), Integer.toString(countMarked.get())));
       message.append("\n");
       message.append(GT.__(
           "{0} page has been marked as fixed for other algorithms",
           "{0} pages have been marked as fixed for other algorithms",
-          countMarkedOther, Integer.toString(countMarkedOther)));
+          countMarkedOther.get(), Integer.toString(countMarkedOther.get())));
       Utilities.displayInformationMessage(
           getWindow().getParentComponent(), message.toString());
     }
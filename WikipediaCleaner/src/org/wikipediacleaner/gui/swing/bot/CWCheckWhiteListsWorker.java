@@ -58,7 +58,7 @@ class CWCheckWhiteListsWorker extends BasicWorker {
   public Object construct() {
     try {
       CheckWiki checkWiki = APIFactory.getCheckWiki();
-      MediaWiki mw = MediaWiki.getMediaWikiAccess(this);
+      MediaWiki mw = MediaWiki.getMediaWikiAccess(this, true);
       API api = APIFactory.getAPI();
       EnumWikipedia wiki = getWikipedia();
       StringBuilder result = new StringBuilder();
@@ -146,7 +146,7 @@ class CWCheckWhiteListsWorker extends BasicWorker {
               if (!unnecessaryPages.isEmpty() &&
                   (whiteListPageName != null) &&
                   (comment != null)) {
-                Page whiteListPage = DataManager.getPage(wiki, whiteListPageName, null, null, null);
+                Page whiteListPage = DataManager.createPage(wiki, whiteListPageName, null, null);
                 api.retrieveContents(wiki, Collections.singletonList(whiteListPage), false, false);
                 String initialContents = whiteListPage.getContents();
                 String contents = initialContents;
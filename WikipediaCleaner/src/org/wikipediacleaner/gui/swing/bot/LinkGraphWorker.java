@@ -0,0 +1,107 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.gui.swing.bot;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.dump.LinkGraphBuilder;
+import org.wikipediacleaner.gui.swing.basic.BasicWindow;
+import org.wikipediacleaner.gui.swing.basic.BasicWorker;
+import org.wikipediacleaner.i18n.GT;
+
+
+/**
+ * SwingWorker for building the link graph of a wiki from dumps.
+ */
+public class LinkGraphWorker extends BasicWorker {
+
+  /** Dump of the pages */
+  private final File pagesFile;
+
+  /** Dump of the page table */
+  private final File pageFile;
+
+  /** Dump of the pagelinks table */
+  private final File pageLinksFile;
+
+  /** Dump of the redirect table */
+  private final File redirectFile;
+
+  /** Dump of the linktarget table */
+  private final File linkTargetFile;
+
+  /**
+   * Build the link graph from a dump of the pages.
+   *
+   * @param wiki Wiki.
+   * @param window Window.
+   * @param pagesFile Dump of the pages.
+   */
+  public LinkGraphWorker(
+      EnumWikipedia wiki, BasicWindow window,
+      File pagesFile) {
+    super(wiki, window);
+    this.pagesFile = pagesFile;
+    this.pageFile = null;
+    this.pageLinksFile = null;
+    this.redirectFile = null;
+    this.linkTargetFile = null;
+  }
+
+  /**
+   * Build the link graph from SQL dumps.
+   *
+   * @param wiki Wiki.
+   * @param window Window.
+   * @param pageFile Dump of the page table.
+   * @param pageLinksFile Dump of the pagelinks table.
+   * @param redirectFile Dump of the redirect table (may be null).
+   * @param linkTargetFile Dump of the linktarget table (may be null).
+   */
+  public LinkGraphWorker(
+      EnumWikipedia wiki, BasicWindow window,
+      File pageFile, File pageLinksFile,
+      File redirectFile, File linkTargetFile) {
+    super(wiki, window);
+    this.pagesFile = null;
+    this.pageFile = pageFile;
+    this.pageLinksFile = pageLinksFile;
+    this.redirectFile = redirectFile;
+    this.linkTargetFile = linkTargetFile;
+  }
+
+  /**
+   * Compute the value to be returned by the <code>get</code> method.
+   *
+   * @return Object returned by the <code>get</code> method.
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorker#construct()
+   */
+  @Override
+  public Object construct() {
+    try {
+      setText(GT._("Building link graph"));
+      LinkGraphBuilder builder = new LinkGraphBuilder(getWikipedia());
+      if (pagesFile != null) {
+        builder.importPagesDump(pagesFile);
+      } else {
+        builder.importSqlDumps(pageFile, pageLinksFile, redirectFile, linkTargetFile);
+      }
+      if (!shouldContinue()) {
+        return null;
+      }
+      setText(GT._("Saving link graph"));
+      builder.write();
+    } catch (IOException e) {
+      return new APIException("Error building link graph: " + e.getMessage(), e);
+    }
+    return null;
+  }
+}
@@ -20,30 +20,35 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 import org.wikipediacleaner.api.API;
 import org.wikipediacleaner.api.APIException;
 import org.wikipediacleaner.api.APIFactory;
+import org.wikipediacleaner.api.ContentsPrefetcher;
 import org.wikipediacleaner.api.MediaWikiController;
 import org.wikipediacleaner.api.MediaWikiListener;
+import org.wikipediacleaner.api.check.CheckErrorProfiler;
 import org.wikipediacleaner.api.check.CheckErrorResult;
 import org.wikipediacleaner.api.check.CheckErrorResult.ErrorLevel;
 import org.wikipediacleaner.api.check.algorithm.CheckErrorAlgorithm;
 import org.wikipediacleaner.api.constants.EnumQueryResult;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Namespace;
 import org.wikipediacleaner.api.data.Page;
 import org.wikipediacleaner.api.data.PageAnalysis;
 import org.wikipediacleaner.api.data.PageElementComment;
 import org.wikipediacleaner.api.data.PageElementInternalLink;
 import org.wikipediacleaner.api.dump.DumpProcessor;
 import org.wikipediacleaner.api.dump.PageProcessor;
+import org.wikipediacleaner.api.dump.TrigramIndex;
 import org.wikipediacleaner.api.execution.MediaWikiCallable;
 import org.wikipediacleaner.gui.swing.basic.BasicWindow;
 import org.wikipediacleaner.gui.swing.basic.BasicWorker;
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
+import org.wikipediacleaner.utils.JobJournal;
 
 
 /**
@@ -51,6 +56,9 @@ import org.wikipediacleaner.i18n.GT;
  */
 public class ListCWWorker extends BasicWorker {
 
+  /** Number of candidate pages for which contents are retrieved at once */
+  private final static int CANDIDATES_BATCH = 50;
+
   /** File containing the dump */
   private final File dumpFile;
 
@@ -69,6 +77,9 @@ public class ListCWWorker extends BasicWorker {
   /** True to just check the pages that have been previously reported */
   final boolean onlyRecheck;
 
+  /** Only pages matching this expression are analyzed */
+  Pattern candidatePattern;
+
   /** Time spent in analysis. */
   PageAnalysis.AnalysisPerformance analysisTime;
 
@@ -129,6 +140,21 @@ public class ListCWWorker extends BasicWorker {
     this.onlyRecheck = onlyRecheck;
   }
 
+  /**
+   * Restrict the analysis to pages matching a regular expression.
+   *
+   * When a trigram index has been built for the dump, only the candidate
+   * pages given by the index are retrieved and analyzed, instead of the
+   * whole dump.
+   * Only available with an output to files: lists on the wiki would be
+   * replaced by the pages matching the expression.
+   *
+   * @param pattern Regular expression (null to analyze all pages).
+   */
+  public void setCandidatePattern(Pattern pattern) {
+    this.candidatePattern = pattern;
+  }
+
   /** 
    * Compute the value to be returned by the <code>get</code> method. 
    * 
@@ -143,6 +169,9 @@ public class ListCWWorker extends BasicWorker {
     if ((output == null) && (pageName == null)) {
       return null;
     }
+    if ((candidatePattern != null) && (pageName != null)) {
+      return null;
+    }
     if (output != null) {
       if (!output.canWrite()) {
         return null;
@@ -177,15 +206,12 @@ public class ListCWWorker extends BasicWorker {
         // Nothing to do
       }
     }
-    DumpProcessor dumpProcessor = new DumpProcessor(pageProcessor);
-    dumpProcessor.processDump(dumpFile);
-    while (!pageProcessor.hasFinished()) {
-      try {
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-        // Nothing to do
-      }
+    restoreDetections();
+    if (!processCandidates(pageProcessor)) {
+      DumpProcessor dumpProcessor = new DumpProcessor(pageProcessor);
+      dumpProcessor.processDump(dumpFile);
     }
+    pageProcessor.waitForCompletion();
     for (AlgorithmInformation algorithm : selectedAlgorithms) {
       Map<String, Detection> pages = algorithm.getDetections();
       if (pages == null) {
@@ -194,10 +220,96 @@ public class ListCWWorker extends BasicWorker {
       outputResult(algorithm.algorithm, pages.values());
     }
     reportProgress();
+    if (getJournal() != null) {
+      getJournal().finish();
+    }
 
     return null;
   }
 
+  /**
+   * Process the candidate pages given by the trigram index of the dump.
+   *
+   * Current contents of the candidate pages are retrieved,
+   * and only pages really matching the expression are analyzed.
+   *
+   * @param pageProcessor Page processor.
+   * @return False if there are no candidate pages, the whole dump must then be processed.
+   */
+  private boolean processCandidates(CWPageProcessor pageProcessor) {
+    if (candidatePattern == null) {
+      return false;
+    }
+    TrigramIndex index = TrigramIndex.open(getWikipedia(), dumpFile);
+    if (index == null) {
+      System.out.println("No trigram index for " + dumpFile.getName() + ", processing the whole dump");
+      return false;
+    }
+    int[] candidates = index.getCandidates(candidatePattern);
+    if (candidates == null) {
+      System.out.println("No literal text in " + candidatePattern.pattern() + ", processing the whole dump");
+      return false;
+    }
+    List<Page> pages = new ArrayList<>();
+    for (int candidate : candidates) {
+      if (index.getNamespace(candidate) == Namespace.MAIN) {
+        Page page = DataManager.getPage(getWikipedia(), index.getTitle(candidate), null, null, null);
+        page.setNamespace(Integer.valueOf(Namespace.MAIN));
+        pages.add(page);
+      }
+    }
+    System.out.println(
+        "Candidate pages: " + pages.size() + " / " + index.getPageCount());
+    ContentsPrefetcher prefetcher = new ContentsPrefetcher(
+        getWikipedia(), APIFactory.getAPI(), pages, CANDIDATES_BATCH, 2, this);
+    prefetcher.start();
+    try {
+      List<Page> batch = prefetcher.next();
+      while ((batch != null) && shouldContinue()) {
+        for (Page page : batch) {
+          pageProcessor.processPage(page);
+        }
+        batch = prefetcher.next();
+      }
+    } finally {
+      prefetcher.stop();
+    }
+    return true;
+  }
+
+  /**
+   * Restore detections recorded in the journal by a previous execution.
+   */
+  private void restoreDetections() {
+    JobJournal journal = getJournal();
+    if (journal == null) {
+      return;
+    }
+    for (Map.Entry<String, List<String>> entry : journal.getData().entrySet()) {
+      List<String> values = entry.getValue();
+      int index = 0;
+      try {
+        while (index + 2 < values.size()) {
+          String errorNumber = values.get(index);
+          ErrorLevel level = ErrorLevel.valueOf(values.get(index + 1));
+          int count = Integer.parseInt(values.get(index + 2));
+          index += 3;
+          List<String> notices = new ArrayList<>(values.subList(index, index + count));
+          index += count;
+          for (AlgorithmInformation algorithm : selectedAlgorithms) {
+            if (errorNumber.equals(algorithm.algorithm.getErrorNumberString())) {
+              algorithm.addDetection(new Detection(entry.getKey(), notices, level));
+            }
+          }
+        }
+      } catch (IllegalArgumentException e) {
+        // Invalid record, ignore the remaining values
+      } catch (IndexOutOfBoundsException e) {
+        // Invalid record, ignore the remaining values
+      }
+    }
+  }
+
   /**
    * Report progress.
    */
@@ -330,7 +442,7 @@ public class ListCWWorker extends BasicWorker {
         try {
           finished = true;
           String truePageName = MessageFormat.format(pageName, algorithm.getErrorNumberString());
-          Page page = DataManager.getPage(getWikipedia(), truePageName, null, null, null);
+          Page page = DataManager.createPage(getWikipedia(), truePageName, null, null);
           API api = APIFactory.getAPI();
           api.retrieveContents(getWikipedia(), Collections.singletonList(page), false, false);
           String contents = page.getContents();
@@ -440,7 +552,7 @@ public class ListCWWorker extends BasicWorker {
      * @param listener Listener to MediaWiki events.
      */
     public CWController(MediaWikiListener listener) {
-      super(listener);
+      super(listener, true);
     }
 
     /**
@@ -449,21 +561,18 @@ public class ListCWWorker extends BasicWorker {
      */
     @Override
     public void addTask(Callable<?> task) {
-      hasFinished(); // To clean up done tasks
+      // Clean up done tasks
+      while (getNextDoneResult() != null) {
+        //
+      }
       super.addTask(task);
     }
 
     /**
-     * @return True if all tasks are completed.
+     * Wait for the completion of all tasks.
      */
-    public boolean hasFinished() {
-      if (hasRemainingTask()) {
-        Future<?> result = getNextDoneResult();
-        if (result == null) {
-          return false;
-        }
-      }
-      return !hasRemainingTask();
+    public void waitForCompletion() {
+      waitForRemainingTasks();
     }
   }
 
@@ -499,12 +608,14 @@ public class ListCWWorker extends BasicWorker {
       analysis.performFullPageAnalysis(analysisTime);
       Page currentPage = null;
       PageAnalysis currentAnalysis = null; 
+      List<String> journalValues = new ArrayList<>();
       for (AlgorithmInformation algorithm : selectedAlgorithms) {
         List<CheckErrorResult> errors = new ArrayList<>();
         boolean detected = false;
         if (!algorithm.algorithm.isInWhiteList(page.getTitle())) {
           long beginTime = System.nanoTime();
-          if (algorithm.algorithm.analyze(analysis, errors, false)) {
+          if (CheckErrorProfiler.analyze(
+              algorithm.algorithm, analysis, errors, false)) {
             detected = true;
           }
           long endTime = System.nanoTime();
@@ -533,7 +644,8 @@ public class ListCWWorker extends BasicWorker {
               } else {
                 errors.clear();
                 long beginTime = System.nanoTime();
-                if (algorithm.algorithm.analyze(currentAnalysis, errors, false)) {
+                if (CheckErrorProfiler.analyze(
+                    algorithm.algorithm, currentAnalysis, errors, false)) {
                   detectionConfirmed = true;
                 }
                 long endTime = System.nanoTime();
@@ -553,11 +665,19 @@ public class ListCWWorker extends BasicWorker {
                 "Detection confirmed for " + page.getTitle() +
                 ": " + algorithm.algorithm.getErrorNumberString() +
                 " - " + algorithm.algorithm.getShortDescription());
-            algorithm.addDetection(currentPage, errors);
+            Detection detection = new Detection(currentPage, errors);
+            algorithm.addDetection(detection);
             countDetections++;
+            journalValues.add(algorithm.algorithm.getErrorNumberString());
+            journalValues.add(detection.maxLevel.name());
+            journalValues.add(Integer.toString(detection.notices.size()));
+            journalValues.addAll(detection.notices);
           }
         }
       }
+      if (getJournal() != null) {
+        getJournal().record(page.getTitle(), JobJournal.Outcome.DONE, journalValues);
+      }
       countAnalyzed++;
       if (countAnalyzed % 100000 == 0) {
         reportProgress();
@@ -634,6 +754,14 @@ public class ListCWWorker extends BasicWorker {
     @Override
     public void processPage(Page page) {
       if ((page != null) && page.isInMainNamespace()) {
+        if ((getJournal() != null) && getJournal().isCompleted(page.getTitle())) {
+          return;
+        }
+        if ((candidatePattern != null) &&
+            ((page.getContents() == null) ||
+             !candidatePattern.matcher(page.getContents()).find())) {
+          return;
+        }
         if ((pagesList == null) || pagesList.contains(page.getTitle())) {
           controller.addTask(new CWPageCallable(wiki, listener, api, page));
         }
@@ -641,10 +769,10 @@ public class ListCWWorker extends BasicWorker {
     }
 
     /**
-     * @return True if all tasks are completed.
+     * Wait for the completion of all tasks.
      */
-    public boolean hasFinished() {
-      return controller.hasFinished();
+    public void waitForCompletion() {
+      controller.waitForCompletion();
     }
   }
 
@@ -686,6 +814,17 @@ public class ListCWWorker extends BasicWorker {
       this.maxLevel = tmpLevel;
     }
 
+    /**
+     * @param pageName Page name.
+     * @param notices List of notices.
+     * @param maxLevel Maximum level for the errors.
+     */
+    public Detection(String pageName, List<String> notices, ErrorLevel maxLevel) {
+      this.pageName = pageName;
+      this.notices = notices;
+      this.maxLevel = maxLevel;
+    }
+
     /**
      * @param o
      * @return
@@ -764,11 +903,12 @@ public class ListCWWorker extends BasicWorker {
     }
 
     /**
-     * @param page Page.
-     * @param errors List of errors.
+     * @param detection Detection.
      */
-    public void addDetection(Page page, List<CheckErrorResult> errors) {
-      detections.put(page.getTitle(), new Detection(page, errors));
+    public void addDetection(Detection detection) {
+      synchronized (detections) {
+        detections.put(detection.pageName, detection);
+      }
     }
 
     /**
@@ -0,0 +1,66 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.gui.swing.bot;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.dump.TrigramIndexBuilder;
+import org.wikipediacleaner.gui.swing.basic.BasicWindow;
+import org.wikipediacleaner.gui.swing.basic.BasicWorker;
+import org.wikipediacleaner.i18n.GT;
+
+
+/**
+ * SwingWorker for building the trigram index of a dump.
+ */
+public class TrigramIndexWorker extends BasicWorker {
+
+  /** Dump file */
+  private final File dumpFile;
+
+  /**
+   * @param wiki Wiki.
+   * @param window Window.
+   * @param dumpFile Dump file.
+   */
+  public TrigramIndexWorker(
+      EnumWikipedia wiki, BasicWindow window,
+      File dumpFile) {
+    super(wiki, window);
+    this.dumpFile = dumpFile;
+  }
+
+  /**
+   * Compute the value to be returned by the <code>get</code> method.
+   *
+   * @return Object returned by the <code>get</code> method.
+   * @see org.wikipediacleaner.gui.swing.basic.BasicWorker#construct()
+   */
+  @Override
+  public Object construct() {
+    if ((dumpFile == null) || !dumpFile.canRead() || !dumpFile.isFile()) {
+      return null;
+    }
+    try {
+      setText(GT._("Building trigram index"));
+      TrigramIndexBuilder builder = new TrigramIndexBuilder(getWikipedia(), dumpFile);
+      builder.importDump();
+      if (!shouldContinue()) {
+        return null;
+      }
+      setText(GT._("Saving trigram index"));
+      builder.write();
+    } catch (IOException e) {
+      return new APIException("Error building trigram index: " + e.getMessage(), e);
+    }
+    return null;
+  }
+}
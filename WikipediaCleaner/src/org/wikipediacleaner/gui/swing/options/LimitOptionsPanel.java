@@ -13,6 +13,7 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
@@ -20,6 +21,7 @@ import javax.swing.SwingConstants;
 
 import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
+import org.wikipediacleaner.utils.ConfigurationValueBoolean;
 import org.wikipediacleaner.utils.ConfigurationValueInteger;
 
 
@@ -148,6 +150,40 @@ public class LimitOptionsPanel extends OptionsPanel {
     add(spin, constraints);
     constraints.gridy++;
 
+    // Number of reads per second
+    spin = createJSpinner(
+        ConfigurationValueInteger.MAX_READS_PER_SECOND,
+        0, 99, 1);
+    JLabel labelReads = Utilities.createJLabel(GT._("Maximum number of requests per second (0 for no limit) :"));
+    labelReads.setLabelFor(spin);
+    labelReads.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelReads, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Maximum replication lag
+    spin = createJSpinner(
+        ConfigurationValueInteger.MAX_LAG,
+        0, 60, 1);
+    JLabel labelLag = Utilities.createJLabel(GT._("Maximum replication lag of the servers in seconds (0 for no limit) :"));
+    labelLag.setLabelFor(spin);
+    labelLag.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelLag, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
     // Interrogation threads
     spin = createJSpinner(
         ConfigurationValueInteger.INTERROG_THREAD,
@@ -165,6 +201,60 @@ public class LimitOptionsPanel extends OptionsPanel {
     add(spin, constraints);
     constraints.gridy++;
 
+    // Virtual threads
+    JCheckBox chk = createJCheckBox(
+        GT._("Use virtual threads when available (restart needed)"),
+        ConfigurationValueBoolean.VIRTUAL_THREADS);
+    constraints.gridwidth = 3;
+    constraints.gridx = 0;
+    constraints.weightx = 1;
+    add(chk, constraints);
+    constraints.gridy++;
+
+    // HTTP connections per host
+    spin = createJSpinner(
+        ConfigurationValueInteger.HTTP_CONNECTIONS_PER_HOST,
+        0, 99, 1);
+    JLabel labelConnections = Utilities.createJLabel(GT._("Maximum number of connections per server (0 for automatic) :"));
+    labelConnections.setLabelFor(spin);
+    labelConnections.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelConnections, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Size of the contents cache
+    spin = createJSpinner(
+        ConfigurationValueInteger.CONTENTS_CACHE_SIZE,
+        0, 9999, 10);
+    JLabel labelCache = Utilities.createJLabel(GT._("Size of the disk cache for page contents in MB (0 to disable) :"));
+    labelCache.setLabelFor(spin);
+    labelCache.setHorizontalAlignment(SwingConstants.TRAILING);
+    constraints.gridwidth = 2;
+    constraints.gridx = 0;
+    constraints.weightx = 0;
+    add(labelCache, constraints);
+    constraints.gridwidth = 1;
+    constraints.gridx = 2;
+    constraints.weightx = 1;
+    add(spin, constraints);
+    constraints.gridy++;
+
+    // Offline link graph
+    chk = createJCheckBox(
+        GT._("Use the link graph built from a dump for links and backlinks"),
+        ConfigurationValueBoolean.LINK_GRAPH);
+    constraints.gridwidth = 3;
+    constraints.gridx = 0;
+    constraints.weightx = 1;
+    add(chk, constraints);
+    constraints.gridy++;
+
     // Add size limit for syntax highlighting
     spin = createJSpinner(
         ConfigurationValueInteger.SYNTAX_HIGHLIGHTING_LIMIT,
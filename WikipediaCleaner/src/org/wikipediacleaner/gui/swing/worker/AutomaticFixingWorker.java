@@ -89,10 +89,10 @@ public class AutomaticFixingWorker extends BasicWorker {
     try {
       Page[] tmpPages = new Page[pages.length];
       for (int numPage = 0; numPage < pages.length; numPage++) {
-        tmpPages[numPage] = DataManager.getPage(
-            getWikipedia(), pages[numPage].getTitle(), pages[numPage].getPageId(), null, null);
+        tmpPages[numPage] = DataManager.createPage(
+            getWikipedia(), pages[numPage].getTitle(), pages[numPage].getPageId(), null);
       }
-      MediaWiki mw = MediaWiki.getMediaWikiAccess(this);
+      MediaWiki mw = MediaWiki.getMediaWikiAccess(this, true);
       Integer count = Integer.valueOf(mw.replaceText(
           tmpPages, replacements, getWikipedia(),
           comment, description, automaticCW, forceCW, save, true));
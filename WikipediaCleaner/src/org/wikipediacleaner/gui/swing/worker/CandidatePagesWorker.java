@@ -0,0 +1,118 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.gui.swing.worker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.APIFactory;
+import org.wikipediacleaner.api.ContentsPrefetcher;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+import org.wikipediacleaner.api.data.DataManager;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.api.dump.TrigramIndex;
+import org.wikipediacleaner.api.dump.TrigramQuery;
+import org.wikipediacleaner.gui.swing.basic.BasicWindow;
+import org.wikipediacleaner.gui.swing.basic.BasicWorker;
+import org.wikipediacleaner.i18n.GT;
+
+/**
+ * SwingWorker for finding pages matching regular expressions with the trigram index of a dump.
+ * 
+ * Candidate pages given by the index are verified on their current contents.
+ */
+public class CandidatePagesWorker extends BasicWorker {
+
+  /** Number of pages for which contents are retrieved at once */
+  private final static int BATCH_SIZE = 50;
+
+  /** Dump file */
+  private final File dumpFile;
+
+  /** Regular expressions */
+  private final List<Pattern> patterns;
+
+  /** Pages matching at least one expression */
+  private final List<Page> pages;
+
+  /**
+   * @param wiki Wiki.
+   * @param window Window.
+   * @param dumpFile Dump file for which the trigram index has been built.
+   * @param patterns Regular expressions.
+   */
+  public CandidatePagesWorker(
+      EnumWikipedia wiki, BasicWindow window,
+      File dumpFile, List<Pattern> patterns) {
+    super(wiki, window);
+    this.dumpFile = dumpFile;
+    this.patterns = new ArrayList<Pattern>(patterns);
+    this.pages = new ArrayList<Page>();
+  }
+
+  /**
+   * @return Pages matching at least one expression.
+   */
+  public List<Page> getPages() {
+    return pages;
+  }
+
+  /* (non-Javadoc)
+   * @see org.wikipediacleaner.gui.swing.utils.SwingWorker#construct()
+   */
+  @Override
+  public Object construct() {
+    setText(GT._("Searching candidate pages"));
+    TrigramIndex index = TrigramIndex.open(getWikipedia(), dumpFile);
+    if (index == null) {
+      return new APIException("No trigram index for " + dumpFile.getName());
+    }
+    int[] candidates = index.getCandidates(TrigramQuery.create(patterns));
+    if (candidates == null) {
+      return new APIException("Expressions without enough literal text for the trigram index");
+    }
+    List<Page> tmpPages = new ArrayList<Page>(candidates.length);
+    for (int candidate : candidates) {
+      tmpPages.add(DataManager.getPage(
+          getWikipedia(), index.getTitle(candidate), null, null, null));
+    }
+
+    // Verify candidates on their current contents
+    ContentsPrefetcher prefetcher = new ContentsPrefetcher(
+        getWikipedia(), APIFactory.getAPI(), tmpPages, BATCH_SIZE, 2, this);
+    prefetcher.start();
+    try {
+      int count = 0;
+      List<Page> batch = prefetcher.next();
+      while ((batch != null) && shouldContinue()) {
+        for (Page page : batch) {
+          String contents = page.getContents();
+          if (contents != null) {
+            for (Pattern pattern : patterns) {
+              if (pattern.matcher(contents).find()) {
+                pages.add(page);
+                break;
+              }
+            }
+          }
+        }
+        count += batch.size();
+        setText(GT._(
+            "Verifying candidate pages ({0}/{1})",
+            new Object[] { Integer.valueOf(count), Integer.valueOf(tmpPages.size()) }));
+        batch = prefetcher.next();
+      }
+    } finally {
+      prefetcher.stop();
+    }
+    return null;
+  }
+}
@@ -122,14 +122,21 @@ public class UpdateDabWarningTools extends UpdateWarningTools {
   @Override
   protected boolean retrievePageInformation(
       List<Page> pages) throws APIException {
-    MediaWiki mw = MediaWiki.getMediaWikiAccess(worker);
+    MediaWiki mw = MediaWiki.getMediaWikiAccess(worker, true);
 
     // Retrieving links in each page
+    boolean contentsRetrieved = false;
     if (!linksAvailable) {
-      for (Page page : pages) {
-        mw.retrieveAllLinks(wiki, page, Namespace.MAIN, null, false, false);
+      if (!getContentsAvailable() && hasHighLimits()) {
+        // Contents and links of all pages in a few requests
+        api.retrieveContentsAndLinks(wiki, pages, Namespace.MAIN);
+        contentsRetrieved = true;
+      } else {
+        for (Page page : pages) {
+          mw.retrieveAllLinks(wiki, page, Namespace.MAIN, null, false, false);
+        }
+        mw.block(true);
       }
-      mw.block(true);
       if (shouldStop()) {
         return false;
       }
@@ -138,7 +145,18 @@ public class UpdateDabWarningTools extends UpdateWarningTools {
     // Retrieving disambiguation information in each page
     boolean hasDisambiguationLink = false;
     if (!dabInformationAvailable) {
-      if (!wiki.isDisambiguationPagesLoaded()) {
+      if (contentsRetrieved) {
+        for (Page page : pages) {
+          for (Page link : page.getLinks()) {
+            if (Boolean.TRUE.equals(link.isDisambiguationPage())) {
+              dabPages.put(link.getTitle(), link);
+              hasDisambiguationLink = true;
+            } else {
+              nonDabPages.put(link.getTitle(), link);
+            }
+          }
+        }
+      } else if (!wiki.isDisambiguationPagesLoaded()) {
         List<Page> tmpPages = new ArrayList<Page>();
         for (Page page : pages) {
           for (int numLink = 0; numLink < page.getLinks().size(); numLink++) {
@@ -184,7 +202,7 @@ public class UpdateDabWarningTools extends UpdateWarningTools {
     }
 
     // Retrieving page contents
-    if (hasDisambiguationLink && !getContentsAvailable()) {
+    if (hasDisambiguationLink && !getContentsAvailable() && !contentsRetrieved) {
       List<Page> tmpPages = new ArrayList<Page>();
       for (Page page : pages) {
         boolean toAdd = false;
@@ -127,61 +127,65 @@ public class UpdateDabWarningWorker extends UpdateWarningWorker {
       }
       String lastTitle = null;
       int countUnsaved = 0;
-      while (!warningPages.isEmpty()) {
-        // Creating sublist
-        List<Page> sublist = tools.extractSublist(warningPages, 10, false);
-        if (sublist.isEmpty()) {
-          displayStats(stats, startTime);
-          return Integer.valueOf(stats.getUpdatedPagesCount());
-        }
-        countUnsaved += sublist.size();
-
-        // Update warning
-        boolean finish = false;
-        while (!finish) {
-          finish = true;
-          try {
-            lastTitle = sublist.get(sublist.size() - 1).getTitle();
-            tools.updateWarning(sublist, null, null, stats);
-          } catch (APIException e) {
-            if (getWindow() != null) {
-              int answer = getWindow().displayYesNoWarning(GT._(
-                  "An error occurred when updating disambiguation warnings. Do you want to continue ?\n\n" +
-                  "Error: {0}", e.getMessage()));
-              if (answer != JOptionPane.YES_OPTION) {
-                return e;
+      UpdateWarningPrefetcher prefetcher = new UpdateWarningPrefetcher(tools, warningPages);
+      prefetcher.start();
+      try {
+        UpdateWarningPrefetcher.Batch batch = null;
+        while ((batch = prefetcher.next()) != null) {
+          countUnsaved += batch.getSize();
+
+          // Update warning
+          boolean finish = false;
+          while (!finish) {
+            finish = true;
+            try {
+              lastTitle = batch.getLastTitle();
+              batch.updateWarning(stats);
+            } catch (APIException e) {
+              if (getWindow() != null) {
+                int answer = getWindow().displayYesNoWarning(GT._(
+                    "An error occurred when updating disambiguation warnings. Do you want to continue ?\n\n" +
+                    "Error: {0}", e.getMessage()));
+                if (answer != JOptionPane.YES_OPTION) {
+                  return e;
+                }
+                finish = false;
               }
-              finish = false;
+            }
+            if (shouldStop() || (countUnsaved > 1000)) {
+              Configuration config = Configuration.getConfiguration();
+              config.setString(null, ConfigurationValueString.LAST_DAB_WARNING, lastTitle);
+              countUnsaved = 0;
+            }
+            if (shouldStop()) {
+              displayStats(stats, startTime);
+              return Integer.valueOf(stats.getUpdatedPagesCount());
             }
           }
-          if (shouldStop() || (countUnsaved > 1000)) {
-            Configuration config = Configuration.getConfiguration();
-            config.setString(null, ConfigurationValueString.LAST_DAB_WARNING, lastTitle);
-            countUnsaved = 0;
-          }
-          if (shouldStop()) {
-            displayStats(stats, startTime);
-            return Integer.valueOf(stats.getUpdatedPagesCount());
-          }
-        }
 
-        if (stats.getUpdatedPagesCount() > lastCount) {
-          lastCount = stats.getUpdatedPagesCount();
-          /*if (getWindow() != null) {
-            int answer = getWindow().displayYesNoWarning(
-                "This feature is currently under development, please check the modification.\n" +
-                "Do you want to continue ?");
-            if (answer != JOptionPane.YES_OPTION) {
+          if (stats.getUpdatedPagesCount() > lastCount) {
+            lastCount = stats.getUpdatedPagesCount();
+            /*if (getWindow() != null) {
+              int answer = getWindow().displayYesNoWarning(
+                  "This feature is currently under development, please check the modification.\n" +
+                  "Do you want to continue ?");
+              if (answer != JOptionPane.YES_OPTION) {
+                return Integer.valueOf(lastCount);
+              }
+            } else {
               return Integer.valueOf(lastCount);
-            }
-          } else {
-            return Integer.valueOf(lastCount);
-          }*/
+            }*/
+          }
         }
-      }
-      if (warningPages.isEmpty()) {
-        Configuration config = Configuration.getConfiguration();
-        config.setString(null, ConfigurationValueString.LAST_DAB_WARNING, (String) null);
+        if (prefetcher.isComplete()) {
+          Configuration config = Configuration.getConfiguration();
+          config.setString(null, ConfigurationValueString.LAST_DAB_WARNING, (String) null);
+          if (getJournal() != null) {
+            getJournal().finish();
+          }
+        }
+      } finally {
+        prefetcher.stop();
       }
     } catch (APIException e) {
       return e;
@@ -87,7 +87,7 @@ public class UpdateDuplicateArgsWarningTools extends UpdateWarningTools {
 
     // Retrieving page contents
     if (!getContentsAvailable()) {
-      MediaWiki mw = MediaWiki.getMediaWikiAccess(worker);
+      MediaWiki mw = MediaWiki.getMediaWikiAccess(worker, true);
       mw.retrieveContents(wiki, pages, true, false, false, true);
     }
 
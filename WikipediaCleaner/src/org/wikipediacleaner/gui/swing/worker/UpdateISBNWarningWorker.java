@@ -107,60 +107,62 @@ public class UpdateISBNWarningWorker extends UpdateWarningWorker {
         tools.setSimulation(true);
       }
       String lastTitle = null;
-      while (!warningPages.isEmpty()) {
-        // Creating sublist
-        List<Page> sublist = tools.extractSublist(warningPages, 10, false);
-        if (sublist.isEmpty()) {
-          errors = tools.getErrorsMap();
-          displayResult(stats, startTime, errors);
-          return Integer.valueOf(stats.getUpdatedPagesCount());
-        }
-
-        // Update warning
-        boolean finish = false;
-        while (!finish) {
-          finish = true;
-          try {
-            lastTitle = sublist.get(sublist.size() - 1).getTitle();
-            tools.updateWarning(sublist, null, null, stats);
-          } catch (APIException e) {
-            if (getWindow() != null) {
-              int answer = getWindow().displayYesNoWarning(GT._(
-                  "An error occurred when updating {1} warnings. Do you want to continue ?\n\n" +
-                  "Error: {0}",
-                  new Object[] { e.getMessage(), "ISBN" } ));
-              if (answer != JOptionPane.YES_OPTION) {
-                return e;
+      UpdateWarningPrefetcher prefetcher = new UpdateWarningPrefetcher(tools, warningPages);
+      prefetcher.start();
+      try {
+        UpdateWarningPrefetcher.Batch batch = null;
+        while ((batch = prefetcher.next()) != null) {
+          // Update warning
+          boolean finish = false;
+          while (!finish) {
+            finish = true;
+            try {
+              lastTitle = batch.getLastTitle();
+              batch.updateWarning(stats);
+            } catch (APIException e) {
+              if (getWindow() != null) {
+                int answer = getWindow().displayYesNoWarning(GT._(
+                    "An error occurred when updating {1} warnings. Do you want to continue ?\n\n" +
+                    "Error: {0}",
+                    new Object[] { e.getMessage(), "ISBN" } ));
+                if (answer != JOptionPane.YES_OPTION) {
+                  return e;
+                }
+                finish = false;
               }
-              finish = false;
+            }
+            if (shouldStop()) {
+              Configuration config = Configuration.getConfiguration();
+              config.setString(null, ConfigurationValueString.LAST_ISBN_WARNING, lastTitle);
+              displayResult(stats, startTime, null);
+              return Integer.valueOf(stats.getUpdatedPagesCount());
             }
           }
-          if (shouldStop()) {
-            Configuration config = Configuration.getConfiguration();
-            config.setString(null, ConfigurationValueString.LAST_ISBN_WARNING, lastTitle);
-            displayResult(stats, startTime, null);
-            return Integer.valueOf(stats.getUpdatedPagesCount());
-          }
-        }
 
-        if (stats.getUpdatedPagesCount() > lastCount) {
-          lastCount = stats.getUpdatedPagesCount();
-          /*if (getWindow() != null) {
-            int answer = getWindow().displayYesNoWarning(
-                "This feature is currently under development, please check the modification.\n" +
-                "Do you want to continue ?");
-            if (answer != JOptionPane.YES_OPTION) {
+          if (stats.getUpdatedPagesCount() > lastCount) {
+            lastCount = stats.getUpdatedPagesCount();
+            /*if (getWindow() != null) {
+              int answer = getWindow().displayYesNoWarning(
+                  "This feature is currently under development, please check the modification.\n" +
+                  "Do you want to continue ?");
+              if (answer != JOptionPane.YES_OPTION) {
+                return Integer.valueOf(lastCount);
+              }
+            } else {
               return Integer.valueOf(lastCount);
-            }
-          } else {
-            return Integer.valueOf(lastCount);
-          }*/
+            }*/
+          }
         }
-      }
-      errors = tools.getErrorsMap();
-      if (warningPages.isEmpty()) {
-        Configuration config = Configuration.getConfiguration();
-        config.setString(null, ConfigurationValueString.LAST_ISBN_WARNING, (String) null);
+        errors = tools.getErrorsMap();
+        if (prefetcher.isComplete()) {
+          Configuration config = Configuration.getConfiguration();
+          config.setString(null, ConfigurationValueString.LAST_ISBN_WARNING, (String) null);
+          if (getJournal() != null) {
+            getJournal().finish();
+          }
+        }
+      } finally {
+        prefetcher.stop();
       }
     } catch (APIException e) {
       return e;
@@ -311,7 +313,7 @@ public class UpdateISBNWarningWorker extends UpdateWarningWorker {
 
         if (updatePage) {
           try {
-            Page page = DataManager.getPage(wiki, pageName, null, null, null);
+            Page page = DataManager.createPage(wiki, pageName, null, null);
             API api = APIFactory.getAPI();
             api.retrieveContents(wiki, Collections.singletonList(page), false, false);
             String contents = page.getContents();
@@ -0,0 +1,269 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.gui.swing.worker;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.APIException;
+import org.wikipediacleaner.api.data.Page;
+import org.wikipediacleaner.gui.swing.worker.UpdateWarningTools.PreparedPages;
+import org.wikipediacleaner.gui.swing.worker.UpdateWarningTools.Stats;
+
+
+/**
+ * Retrieve in advance the information needed to update warnings.
+ *
+ * A background thread splits the list of pages into sub lists and retrieves
+ * the information of the next sub lists (links, contents, talk pages, ...)
+ * while the warnings of the current one are being analyzed and updated.
+ * Only a few sub lists are prepared in advance, and sub lists are given back
+ * in the order of the list, so the last processed title is still a valid
+ * point to resume from.
+ * Edits are still made by the thread updating the warnings, with the usual
+ * throttling.
+ * Tools keep information between sub lists (disambiguation pages, ...), so
+ * sub lists are never prepared by both threads at the same time.
+ */
+public class UpdateWarningPrefetcher implements Runnable {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(UpdateWarningPrefetcher.class);
+
+  /** Default number of sub lists prepared in advance */
+  public final static int DEFAULT_PREFETCH = 2;
+
+  /** Delay in milliseconds between checks for a stop when the queue is full */
+  private final static long OFFER_DELAY = 500;
+
+  /** Tools for updating warnings */
+  final UpdateWarningTools tools;
+
+  /** List of pages (extracted pages are removed from the list) */
+  private final LinkedList<Page> pages;
+
+  /** Sub lists prepared in advance */
+  private final BlockingQueue<Batch> queue;
+
+  /** Lock held while preparing a sub list */
+  private final Object prepareLock;
+
+  /** Marker for the end of the list */
+  private final Batch end;
+
+  /** True when the prefetch should stop */
+  private volatile boolean stopped;
+
+  /** True when all the sub lists have been given back */
+  private boolean complete;
+
+  /**
+   * A sub list of pages.
+   */
+  public class Batch {
+
+    /** Pages of the sub list */
+    private final List<Page> pages;
+
+    /** Title of the last page of the sub list */
+    private final String lastTitle;
+
+    /** Prepared pages */
+    private PreparedPages prepared;
+
+    /** True when the prepared pages have been used */
+    private boolean used;
+
+    /** Error while preparing the pages */
+    private APIException exception;
+
+    /**
+     * @param pages Pages of the sub list.
+     */
+    Batch(List<Page> pages) {
+      this.pages = new ArrayList<Page>(pages);
+      this.lastTitle = pages.isEmpty() ? null : pages.get(pages.size() - 1).getTitle();
+    }
+
+    /**
+     * @return Number of pages in the sub list.
+     */
+    public int getSize() {
+      return pages.size();
+    }
+
+    /**
+     * @return Title of the last page of the sub list.
+     */
+    public String getLastTitle() {
+      return lastTitle;
+    }
+
+    /**
+     * Update warning for the pages of the sub list.
+     *
+     * The first call uses the information retrieved in advance,
+     * the next calls (after an error) retrieve it again.
+     *
+     * @param stats Statistics.
+     * @throws APIException
+     */
+    public void updateWarning(Stats stats) throws APIException {
+      if (!used) {
+        used = true;
+        if (exception != null) {
+          throw exception;
+        }
+        PreparedPages tmpPrepared = prepared;
+        prepared = null;
+        tools.updateWarning(tmpPrepared, null, null, stats);
+        return;
+      }
+      PreparedPages tmpPrepared = null;
+      synchronized (prepareLock) {
+        tmpPrepared = tools.preparePages(new ArrayList<Page>(pages));
+      }
+      tools.updateWarning(tmpPrepared, null, null, stats);
+    }
+  }
+
+  /**
+   * @param tools Tools for updating warnings.
+   * @param pages List of pages (extracted pages are removed from the list).
+   */
+  public UpdateWarningPrefetcher(UpdateWarningTools tools, LinkedList<Page> pages) {
+    this(tools, pages, DEFAULT_PREFETCH);
+  }
+
+  /**
+   * @param tools Tools for updating warnings.
+   * @param pages List of pages (extracted pages are removed from the list).
+   * @param prefetch Number of sub lists prepared in advance.
+   */
+  public UpdateWarningPrefetcher(
+      UpdateWarningTools tools, LinkedList<Page> pages, int prefetch) {
+    this.tools = tools;
+    this.pages = pages;
+    this.queue = new ArrayBlockingQueue<Batch>(Math.max(1, prefetch));
+    this.prepareLock = new Object();
+    this.end = new Batch(new ArrayList<Page>());
+    this.stopped = false;
+    this.complete = false;
+  }
+
+  /**
+   * Start retrieving information in the background.
+   *
+   * The list of pages mustn't be used by the caller after this.
+   */
+  public void start() {
+    Thread thread = new Thread(this, "UpdateWarningPrefetcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stop retrieving information.
+   */
+  public void stop() {
+    stopped = true;
+    queue.clear();
+  }
+
+  /**
+   * @return Next sub list, in the order of the list (null at the end of the list).
+   */
+  public Batch next() {
+    if (complete) {
+      return null;
+    }
+    try {
+      Batch batch = queue.take();
+      if (batch == end) {
+        complete = !stopped;
+        return null;
+      }
+      return batch;
+    } catch (InterruptedException e) {
+      stopped = true;
+      return null;
+    }
+  }
+
+  /**
+   * @return True if all the sub lists have been given back.
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Retrieve information of the sub lists.
+   *
+   * @see java.lang.Runnable#run()
+   */
+  @Override
+  public void run() {
+    try {
+      while (!stopped && !pages.isEmpty()) {
+        if (tools.shouldStop()) {
+          stopped = true;
+          break;
+        }
+        List<Page> sublist = tools.extractSublist(pages, tools.getSublistSize(), false);
+        if (sublist.isEmpty()) {
+          continue;
+        }
+        Batch batch = new Batch(sublist);
+        try {
+          synchronized (prepareLock) {
+            batch.prepared = tools.preparePages(sublist);
+          }
+        } catch (APIException e) {
+          batch.exception = e;
+        } catch (RuntimeException e) {
+          log.error("Error preparing pages for warning update", e);
+          batch.exception = new APIException(e.getMessage(), e);
+        }
+        if (!put(batch)) {
+          return;
+        }
+      }
+    } finally {
+      put(end);
+    }
+  }
+
+  /**
+   * Add a sub list to the queue, waiting for room.
+   *
+   * @param batch Sub list.
+   * @return True if the sub list has been added.
+   */
+  private boolean put(Batch batch) {
+    try {
+      while (!queue.offer(batch, OFFER_DELAY, TimeUnit.MILLISECONDS)) {
+        if (stopped && (batch != end)) {
+          return false;
+        }
+        if (stopped) {
+          queue.clear();
+        }
+      }
+      return true;
+    } catch (InterruptedException e) {
+      return false;
+    }
+  }
+}
@@ -45,6 +45,7 @@ import org.wikipediacleaner.gui.swing.basic.Utilities;
 import org.wikipediacleaner.i18n.GT;
 import org.wikipediacleaner.utils.Configuration;
 import org.wikipediacleaner.utils.ConfigurationValueString;
+import org.wikipediacleaner.utils.JobJournal;
 
 
 /**
@@ -175,21 +176,60 @@ public abstract class UpdateWarningTools {
       Map<String, String> creators,
       Map<String, List<String>> modifiers,
       Stats stats) throws APIException {
+    updateWarning(preparePages(pages), creators, modifiers, stats);
+  }
+
+  /**
+   * Pages with the information needed to update their warnings.
+   */
+  public static class PreparedPages {
+
+    /** List of pages */
+    final List<Page> pages;
+
+    /** Talk page of each page */
+    final Map<Page, Page> mapTalkPages;
+
+    /** "To do" sub page of each page */
+    final Map<Page, Page> mapTodoSubpages;
+
+    /**
+     * @param pages List of pages.
+     */
+    PreparedPages(List<Page> pages) {
+      this.pages = pages;
+      this.mapTalkPages = new HashMap<Page, Page>();
+      this.mapTodoSubpages = new HashMap<Page, Page>();
+    }
+  }
+
+  /**
+   * Retrieve the information needed to update warning for a list of pages.
+   * 
+   * Only read requests (and purges) are made, so this can be done
+   * in advance while warnings of other pages are being updated.
+   * 
+   * @param pages List of pages.
+   * @return Prepared pages (null if nothing has to be updated).
+   * @throws APIException
+   */
+  public PreparedPages preparePages(List<Page> pages) throws APIException {
     if ((pages == null) || (pages.isEmpty())) {
-      return;
+      return null;
     }
 
     // Retrieve information in the pages
     if (!retrievePageInformation(pages)) {
-      return;
+      return null;
     }
 
     // Deal with non encyclopedic pages
     manageNonEncyclopedicPages(pages);
 
     // Load talk pages and "To do" sub pages
-    Map<Page, Page> mapTalkPages = new HashMap<Page, Page>();
-    Map<Page, Page> mapTodoSubpages = new HashMap<Page, Page>();
+    PreparedPages prepared = new PreparedPages(pages);
+    Map<Page, Page> mapTalkPages = prepared.mapTalkPages;
+    Map<Page, Page> mapTodoSubpages = prepared.mapTodoSubpages;
     for (Page page : pages) {
       Page talkPage = page.getTalkPage();
       mapTalkPages.put(page, talkPage);
@@ -200,7 +240,7 @@ public abstract class UpdateWarningTools {
       }
     }
     if (canUpdateWarning()) {
-      MediaWiki mw = MediaWiki.getMediaWikiAccess(worker);
+      MediaWiki mw = MediaWiki.getMediaWikiAccess(worker, true);
       if (section0) {
         mw.retrieveSectionContents(wiki, mapTalkPages.values(), 0, false);
       } else {
@@ -208,23 +248,49 @@ public abstract class UpdateWarningTools {
       }
       mw.retrieveContents(wiki, mapTodoSubpages.values(), true, false, false, false);
       if (mw.shouldStop()) {
-        return;
+        return null;
       }
     }
+    return prepared;
+  }
+
+  /**
+   * Update warning for a list of prepared pages.
+   * 
+   * @param prepared Prepared pages.
+   * @param creators For each page title, user who has created the page.
+   * @param modifiers For each page title, users who have modified the page.
+   * @param stats Statistics.
+   * @throws APIException
+   */
+  public void updateWarning(
+      PreparedPages prepared,
+      Map<String, String> creators,
+      Map<String, List<String>> modifiers,
+      Stats stats) throws APIException {
+    if (prepared == null) {
+      return;
+    }
 
     // Update warning
-    for (Page page : pages) {
+    for (Page page : prepared.pages) {
       PageAnalysis pageAnalysis = page.getAnalysis(page.getContents(), true);
       boolean updated = updateWarning(
           pageAnalysis, page.getRevisionId(),
-          mapTalkPages.get(page),
-          mapTodoSubpages.get(page),
+          prepared.mapTalkPages.get(page),
+          prepared.mapTodoSubpages.get(page),
           (creators != null) ? creators.get(page.getTitle()) : null,
           (modifiers != null) ? modifiers.get(page.getTitle()) : null,
           stats);
       if (updated) {
         // log.debug("Page " + page.getTitle() + " has been updated.");
       }
+      JobJournal journal = getJournal();
+      if (journal != null) {
+        journal.record(
+            page.getTitle(),
+            updated ? JobJournal.Outcome.UPDATED : JobJournal.Outcome.DONE);
+      }
       if (stats != null) {
         stats.addAnalyzedPage(page);
         if (updated) {
@@ -327,6 +393,9 @@ public abstract class UpdateWarningTools {
       }
     }
 
+    // Work on snapshots, pages may be retrieved again by other threads
+    talkPage = talkPage.snapshotPage();
+
     // "To do" sub-page
     String todoSubpageAttr = configuration.getString(WPCConfigurationString.TODO_SUBPAGE);
     if (todoSubpageAttr != null) {
@@ -337,6 +406,7 @@ public abstract class UpdateWarningTools {
         setText(GT._("Retrieving page contents - {0}", todoSubpage.getTitle()));
         api.retrieveContents(wiki, Collections.singletonList(todoSubpage), false, false);
       }
+      todoSubpage = todoSubpage.snapshotPage();
 
       // If we force the use of "To do" sub-page, the warning must be on it
       if ((page.getNamespace() != null) &&
@@ -1338,7 +1408,7 @@ public abstract class UpdateWarningTools {
     // Retrieve user talk page name
     Namespace userTalkNS = wiki.getWikiConfiguration().getNamespace(Namespace.USER_TALK);
     String userTalk = userTalkNS.getTitle() + ":" + user;
-    Page userTalkPage = DataManager.getPage(analysis.getWikipedia(), userTalk, null, null, null);
+    Page userTalkPage = DataManager.createPage(analysis.getWikipedia(), userTalk, null, null);
 
     // Add message
     try {
@@ -1592,8 +1662,34 @@ public abstract class UpdateWarningTools {
     }
   }
 
+  /**
+   * @return Journal of the work done (may be null).
+   */
+  protected JobJournal getJournal() {
+    return (worker != null) ? worker.getJournal() : null;
+  }
+
+  /**
+   * @return True if the user can use higher limits in API queries.
+   */
+  protected boolean hasHighLimits() {
+    User user = wiki.getConnection().getUser();
+    return (user != null) && user.hasRight(User.RIGHT_APIHIGHLIMITS);
+  }
+
+  /**
+   * @return Number of pages to process together.
+   */
+  public int getSublistSize() {
+    if (hasHighLimits()) {
+      return Math.max(10, api.getMaxPagesPerQuery());
+    }
+    return 10;
+  }
+
   /**
    * Extract a sub list of pages from a list.
+   * Pages already processed according to the journal are skipped.
    * 
    * @param list List (extracted pages are removed from the list).
    * @param max Maximum number of pages.
@@ -1605,8 +1701,12 @@ public abstract class UpdateWarningTools {
       return null;
     }
     List<Page> sublist = new ArrayList<Page>(Math.min(max, list.size()));
+    JobJournal journal = getJournal();
     while ((sublist.size() < max) && !list.isEmpty()) {
       Page page = list.removeFirst();
+      if ((journal != null) && journal.isCompleted(page.getTitle())) {
+        continue;
+      }
       if (talkPages || page.isArticle()) {
         sublist.add(page);
       }
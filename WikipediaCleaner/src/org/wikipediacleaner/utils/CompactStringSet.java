@@ -0,0 +1,243 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+
+/**
+ * Compact set of strings, for large sets only used for membership tests.
+ *
+ * Only a 64 bits fingerprint of each string is kept, in an open addressing
+ * table, so a set of several hundred thousands titles uses a few MB instead
+ * of tens of MB for a <code>HashSet&lt;String&gt;</code>.
+ * The strings themselves can't be retrieved, and two different strings
+ * may have the same fingerprint, but the probability is negligible.
+ */
+public class CompactStringSet {
+
+  /** Value of empty slots */
+  private final static long EMPTY = 0;
+
+  /** Minimum capacity of the table */
+  private final static int MIN_CAPACITY = 16;
+
+  /** Fingerprints, in an open addressing table with linear probing */
+  private long[] table;
+
+  /** Number of fingerprints in the table */
+  private int size;
+
+  /**
+   * Create an empty set.
+   */
+  public CompactStringSet() {
+    this(0);
+  }
+
+  /**
+   * @param expectedSize Expected number of strings.
+   */
+  public CompactStringSet(int expectedSize) {
+    this.table = new long[getCapacity(expectedSize)];
+    this.size = 0;
+  }
+
+  /**
+   * @param other Set to be copied.
+   */
+  public CompactStringSet(CompactStringSet other) {
+    this.table = other.table.clone();
+    this.size = other.size;
+  }
+
+  /**
+   * @return Number of strings in the set.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param value String.
+   * @return True if the set contains the string.
+   */
+  public boolean contains(String value) {
+    if (value == null) {
+      return false;
+    }
+    return (findSlot(fingerprint(value)) >= 0);
+  }
+
+  /**
+   * @param value String to be added.
+   * @return True if the set didn't contain the string.
+   */
+  public boolean add(String value) {
+    if (value == null) {
+      return false;
+    }
+    return addFingerprint(fingerprint(value));
+  }
+
+  /**
+   * @param value String to be removed.
+   * @return True if the set contained the string.
+   */
+  public boolean remove(String value) {
+    if (value == null) {
+      return false;
+    }
+    int slot = findSlot(fingerprint(value));
+    if (slot < 0) {
+      return false;
+    }
+
+    // Shift back the following entries of the cluster
+    int mask = table.length - 1;
+    int hole = slot;
+    int current = slot;
+    for (;;) {
+      current = (current + 1) & mask;
+      long fingerprint = table[current];
+      if (fingerprint == EMPTY) {
+        break;
+      }
+      int ideal = (int) fingerprint & mask;
+      if (((current - ideal) & mask) >= ((current - hole) & mask)) {
+        table[hole] = fingerprint;
+        hole = current;
+      }
+    }
+    table[hole] = EMPTY;
+    size--;
+    return true;
+  }
+
+  /**
+   * Write the set to a stream.
+   *
+   * @param output Output stream.
+   * @throws IOException
+   */
+  public void write(DataOutputStream output) throws IOException {
+    output.writeInt(size);
+    for (long fingerprint : table) {
+      if (fingerprint != EMPTY) {
+        output.writeLong(fingerprint);
+      }
+    }
+  }
+
+  /**
+   * Read a set from a stream.
+   *
+   * @param input Input stream.
+   * @return Set.
+   * @throws IOException
+   */
+  public static CompactStringSet read(DataInputStream input) throws IOException {
+    int count = input.readInt();
+    if (count < 0) {
+      throw new IOException("Invalid size: " + count);
+    }
+    CompactStringSet set = new CompactStringSet(count);
+    for (int i = 0; i < count; i++) {
+      long fingerprint = input.readLong();
+      if (fingerprint == EMPTY) {
+        throw new IOException("Invalid fingerprint");
+      }
+      set.addFingerprint(fingerprint);
+    }
+    return set;
+  }
+
+  /**
+   * @param fingerprint Fingerprint to be added.
+   * @return True if the set didn't contain the fingerprint.
+   */
+  private boolean addFingerprint(long fingerprint) {
+    int mask = table.length - 1;
+    int slot = (int) fingerprint & mask;
+    while (table[slot] != EMPTY) {
+      if (table[slot] == fingerprint) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = fingerprint;
+    size++;
+    if (table.length < getCapacity(size)) {
+      resize(getCapacity(size));
+    }
+    return true;
+  }
+
+  /**
+   * @param fingerprint Fingerprint.
+   * @return Slot of the fingerprint in the table (-1 if not found).
+   */
+  private int findSlot(long fingerprint) {
+    int mask = table.length - 1;
+    int slot = (int) fingerprint & mask;
+    while (table[slot] != EMPTY) {
+      if (table[slot] == fingerprint) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * @param capacity New capacity of the table.
+   */
+  private void resize(int capacity) {
+    long[] oldTable = table;
+    table = new long[capacity];
+    size = 0;
+    for (long fingerprint : oldTable) {
+      if (fingerprint != EMPTY) {
+        addFingerprint(fingerprint);
+      }
+    }
+  }
+
+  /**
+   * @param count Number of fingerprints.
+   * @return Capacity of the table for this number of fingerprints (load factor under 2/3).
+   */
+  private static int getCapacity(int count) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < count + count / 2 + 1) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /**
+   * @param value String.
+   * @return Fingerprint of the string (never EMPTY).
+   */
+  private static long fingerprint(String value) {
+    // FNV-1a on the characters, then a final mix so that low bits are usable
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return (hash == EMPTY) ? 1 : hash;
+  }
+}
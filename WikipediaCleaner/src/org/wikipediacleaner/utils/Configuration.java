@@ -26,6 +26,7 @@ import java.util.prefs.Preferences;
 import javax.swing.JOptionPane;
 
 import org.wikipediacleaner.WikipediaCleaner;
+import org.wikipediacleaner.api.APIFactory;
 import org.wikipediacleaner.api.constants.EnumLanguage;
 import org.wikipediacleaner.api.constants.EnumWikipedia;
 import org.wikipediacleaner.api.impl.MediaWikiAPI;
@@ -306,6 +307,7 @@ public class Configuration implements WindowListener {
    */
   public void updateConfiguration() {
     MediaWikiAPI.updateConfiguration();
+    APIFactory.updateConfiguration();
   }
 
   // ==========================================================================
@@ -43,6 +43,7 @@ public enum ConfigurationValueBoolean {
   DUMP_CHECK_WIKI("DumpCheckWiki", false),
   DUMP_ON_WIKI("DumpOnWiki", false),
   IGNORE_DAB_USER_NS("IgnoreDabUserNS", false),
+  LINK_GRAPH("LinkGraph", false),
   FORCE_HTTP_API("ForceHttpApi", false),
   FORCE_WATCH("ForceWatch", false),
   REMEMBER_LAST_PAGE("RememberLastPage", true),
@@ -60,6 +61,7 @@ public enum ConfigurationValueBoolean {
   UPDATE_DAB_WARNING("UpdateDabWarning", true),
   UPDATE_DAB_WARNING_ALL("UpdateDabWarningAll", true),
   UPDATE_DAB_WARNING_ENCY("UpdateDabWarningEncyclo", true),
+  VIRTUAL_THREADS("VirtualThreads", false),
   WIKICLEANER_COMMENT("WikiCleanerComment", true);
 
   /**
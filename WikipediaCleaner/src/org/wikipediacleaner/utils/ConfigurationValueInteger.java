@@ -20,17 +20,24 @@ public enum ConfigurationValueInteger {
   CHECK_BOT_NB_PAGES("CheckBotNbPages", 100),
   CHECK_NB_ERRORS("CheckNbErrors", 100),
   CONFIG_VERSION("ConfigurationVersion", 1),
+  CONTENTS_CACHE_SIZE("ContentsCacheSize", 0),
   EDITOR_FONT_SIZE("EditorFontSize", 12),
   FONT_SIZE("FontSize", 0),
+  HTTP_CONNECTION_TIMEOUT("HttpConnectionTimeout", 30),
+  HTTP_CONNECTIONS("HttpConnections", 0),
+  HTTP_CONNECTIONS_PER_HOST("HttpConnectionsPerHost", 0),
+  HTTP_SOCKET_TIMEOUT("HttpSocketTimeout", 60),
   INTERROG_THREAD("InterrogationThreads", 30),
   MAXIMUM_PAGES("MaximumPages", 20),
   MAX_CATEGORY_MEMBERS("MaxCategoryMembers", 1000),
   MAX_DAYS_ABUSE_LOG("MaxDaysAbuseLog", 7),
   MAX_EDITS_PER_MINUTE("MaxEditsPerMinute", 0),
   MAX_EMBEDDED_IN("MaxEmbeddedIn", 1000),
+  MAX_LAG("MaxLag", 0),
   MAX_PAGES_WITH_PROP("MaxPagesWithProp", 1000),
   MAX_PROTECTED_TITLES("MaxProtectedTitles", 1000),
   MAX_QUERY_PAGE("MaxQueryPage", 1000),
+  MAX_READS_PER_SECOND("MaxReadsPerSecond", 0),
   MAX_SEARCH("MaxSearch", 1000),
   MENU_SIZE("MenuSize", 30),
   PLAF_TYPE("LookAndFeelType", ConfigurationConstants.VALUE_PLAF_TYPE_WPCLEANER),
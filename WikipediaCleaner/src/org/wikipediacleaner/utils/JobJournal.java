@@ -0,0 +1,416 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wikipediacleaner.api.constants.EnumWikipedia;
+
+
+/**
+ * Append-only journal of the work done by a long running job.
+ *
+ * Each processed element (usually a page) is recorded with its outcome,
+ * and optionally some data, so that a job interrupted before its end
+ * can skip the elements already processed when it's started again.
+ * Records are buffered in memory and appended to the file by batches:
+ * after a crash, only the last records are lost and processed again.
+ * The journal is deleted when the job is finished, and ignored when
+ * it's too old.
+ */
+public class JobJournal {
+
+  /** Logger */
+  private final static Log log = LogFactory.getLog(JobJournal.class);
+
+  /**
+   * Outcome of the processing of an element.
+   */
+  public static enum Outcome {
+    /** Processed, nothing to change */
+    DONE,
+    /** Processed and modified */
+    UPDATED,
+    /** Processing failed, to be done again */
+    FAILED;
+  }
+
+  /** Version of the file format */
+  private final static int VERSION = 1;
+
+  /** Maximum age in milliseconds of a journal to be used */
+  private final static long MAX_AGE = 7L * 24 * 60 * 60 * 1000;
+
+  /** Number of records triggering a write to the file */
+  private final static int FLUSH_COUNT = 500;
+
+  /** Delay in milliseconds triggering a write to the file */
+  private final static long FLUSH_DELAY = 10000;
+
+  /** Maximum length of a data value */
+  private final static int MAX_DATA_LENGTH = 10000;
+
+  /**
+   * Open the journal of a job, creating it if needed.
+   *
+   * @param wiki Wiki.
+   * @param job Job description (action and its arguments).
+   * @return Journal of the job.
+   */
+  public static JobJournal open(EnumWikipedia wiki, String job) {
+    File directory = new File(new File(System.getProperty("user.home"), ".wpcleaner"), "journal");
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; (i < job.length()) && (name.length() < 100); i++) {
+      char currentChar = job.charAt(i);
+      if (Character.isLetterOrDigit(currentChar) || (currentChar == '-') || (currentChar == '.')) {
+        name.append(currentChar);
+      } else {
+        name.append('_');
+      }
+    }
+    name.append('-');
+    name.append(Integer.toHexString(job.hashCode()));
+    name.append(".jnl");
+    JobJournal journal = new JobJournal(
+        new File(new File(directory, wiki.name().toLowerCase()), name.toString()));
+    journal.load();
+    return journal;
+  }
+
+  /** File of the journal */
+  private final File file;
+
+  /** Keys of the elements already processed */
+  private final CompactStringSet completed;
+
+  /** Data recorded for the elements already processed */
+  private final Map<String, List<String>> data;
+
+  /** Records not yet written to the file */
+  private final ByteArrayOutputStream buffer;
+
+  /** Number of records not yet written to the file */
+  private int pendingCount;
+
+  /** Last time the records have been written to the file */
+  private long lastFlush;
+
+  /** True when the journal has been finished or closed */
+  private boolean closed;
+
+  /**
+   * @param file File of the journal.
+   */
+  private JobJournal(File file) {
+    this.file = file;
+    this.completed = new CompactStringSet();
+    this.data = new HashMap<String, List<String>>();
+    this.buffer = new ByteArrayOutputStream();
+    this.pendingCount = 0;
+    this.lastFlush = System.currentTimeMillis();
+    this.closed = false;
+  }
+
+  /**
+   * @param key Key of an element.
+   * @return True if the element has already been processed.
+   */
+  public synchronized boolean isCompleted(String key) {
+    return completed.contains(key);
+  }
+
+  /**
+   * @return Number of elements already processed.
+   */
+  public synchronized int getCompletedCount() {
+    return completed.size();
+  }
+
+  /**
+   * @return Data recorded for the elements already processed.
+   */
+  public synchronized Map<String, List<String>> getData() {
+    return new HashMap<String, List<String>>(data);
+  }
+
+  /**
+   * Record the processing of an element.
+   *
+   * @param key Key of the element.
+   * @param outcome Outcome of the processing.
+   */
+  public void record(String key, Outcome outcome) {
+    record(key, outcome, null);
+  }
+
+  /**
+   * Record the processing of an element.
+   *
+   * @param key Key of the element.
+   * @param outcome Outcome of the processing.
+   * @param values Data for the element (may be null).
+   */
+  public synchronized void record(String key, Outcome outcome, List<String> values) {
+    if ((key == null) || (outcome == null) || closed) {
+      return;
+    }
+    try {
+      ByteArrayOutputStream recordBuffer = new ByteArrayOutputStream();
+      writeRecord(new DataOutputStream(recordBuffer), key, outcome, values);
+      recordBuffer.writeTo(buffer);
+    } catch (IOException e) {
+      log.warn("Unable to record " + key + ": " + e.getMessage());
+      return;
+    }
+    updateState(key, outcome, values);
+    pendingCount++;
+    if ((pendingCount >= FLUSH_COUNT) ||
+        (System.currentTimeMillis() - lastFlush >= FLUSH_DELAY)) {
+      flush();
+    }
+  }
+
+  /**
+   * Write the pending records to the file.
+   */
+  public synchronized void flush() {
+    lastFlush = System.currentTimeMillis();
+    if (pendingCount == 0) {
+      return;
+    }
+    FileOutputStream output = null;
+    try {
+      boolean exists = file.isFile();
+      if (!exists) {
+        file.getParentFile().mkdirs();
+      }
+      output = new FileOutputStream(file, true);
+      if (!exists) {
+        DataOutputStream header = new DataOutputStream(output);
+        header.writeInt(VERSION);
+        header.writeLong(System.currentTimeMillis());
+        header.flush();
+      }
+      buffer.writeTo(output);
+    } catch (IOException e) {
+      log.warn("Unable to write " + file + ": " + e.getMessage());
+    } finally {
+      if (output != null) {
+        try {
+          output.close();
+        } catch (IOException e) {
+          // Nothing to do
+        }
+      }
+    }
+    buffer.reset();
+    pendingCount = 0;
+  }
+
+  /**
+   * Close the journal, the job may be started again later.
+   */
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    flush();
+    closed = true;
+  }
+
+  /**
+   * Finish the journal, the job has been completely done.
+   */
+  public synchronized void finish() {
+    closed = true;
+    buffer.reset();
+    pendingCount = 0;
+    if (file.isFile() && !file.delete()) {
+      log.warn("Unable to delete " + file);
+    }
+  }
+
+  /**
+   * Load the records of a previous execution of the job.
+   */
+  private void load() {
+    if (!file.isFile()) {
+      return;
+    }
+    long validLength = 0;
+    DataInputStream input = null;
+    try {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      if ((input.readInt() != VERSION) ||
+          (System.currentTimeMillis() - input.readLong() > MAX_AGE)) {
+        input.close();
+        input = null;
+        log.info("Ignoring old journal " + file);
+        file.delete();
+        return;
+      }
+      validLength = 12;
+      for (;;) {
+        int outcomeIndex = input.read();
+        if (outcomeIndex < 0) {
+          break;
+        }
+        Outcome outcome = Outcome.values()[outcomeIndex];
+        String key = input.readUTF();
+        int count = input.readUnsignedShort();
+        List<String> values = null;
+        if (count > 0) {
+          values = new ArrayList<String>(count);
+          for (int i = 0; i < count; i++) {
+            values.add(input.readUTF());
+          }
+        }
+        updateState(key, outcome, values);
+        validLength += getRecordLength(key, values);
+      }
+    } catch (EOFException e) {
+      // Last record incomplete, it will be overwritten
+    } catch (IOException e) {
+      log.warn("Unable to read " + file + ": " + e.getMessage());
+    } catch (ArrayIndexOutOfBoundsException e) {
+      log.warn("Invalid record in " + file);
+    } finally {
+      if (input != null) {
+        try {
+          input.close();
+        } catch (IOException e) {
+          // Nothing to do
+        }
+      }
+    }
+
+    // Remove an incomplete record at the end of the file
+    if (file.isFile() && (file.length() > validLength)) {
+      RandomAccessFile raf = null;
+      try {
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(validLength);
+      } catch (IOException e) {
+        log.warn("Unable to truncate " + file + ": " + e.getMessage());
+      } finally {
+        if (raf != null) {
+          try {
+            raf.close();
+          } catch (IOException e) {
+            // Nothing to do
+          }
+        }
+      }
+    }
+    if (completed.size() > 0) {
+      log.info("Resuming job with " + completed.size() + " elements already processed");
+    }
+  }
+
+  /**
+   * @param key Key of the element.
+   * @param outcome Outcome of the processing.
+   * @param values Data for the element (may be null).
+   */
+  private void updateState(String key, Outcome outcome, List<String> values) {
+    if (outcome == Outcome.FAILED) {
+      completed.remove(key);
+      data.remove(key);
+      return;
+    }
+    completed.add(key);
+    if ((values != null) && !values.isEmpty()) {
+      data.put(key, Collections.unmodifiableList(new ArrayList<String>(values)));
+    } else {
+      data.remove(key);
+    }
+  }
+
+  /**
+   * @param output Output stream.
+   * @param key Key of the element.
+   * @param outcome Outcome of the processing.
+   * @param values Data for the element (may be null).
+   * @throws IOException
+   */
+  private static void writeRecord(
+      DataOutputStream output,
+      String key, Outcome outcome, List<String> values) throws IOException {
+    output.write(outcome.ordinal());
+    output.writeUTF(key);
+    int count = (values != null) ? Math.min(values.size(), 0xFFFF) : 0;
+    output.writeShort(count);
+    for (int i = 0; i < count; i++) {
+      output.writeUTF(truncate(values.get(i)));
+    }
+  }
+
+  /**
+   * @param key Key of the element.
+   * @param values Data for the element (may be null).
+   * @return Length of the record in the file.
+   */
+  private static long getRecordLength(String key, List<String> values) {
+    long length = 1 + 2 + getUTFLength(key) + 2;
+    if (values != null) {
+      for (String value : values) {
+        length += 2 + getUTFLength(value);
+      }
+    }
+    return length;
+  }
+
+  /**
+   * @param value Value.
+   * @return Value truncated so that it can be written.
+   */
+  private static String truncate(String value) {
+    if (value == null) {
+      return "";
+    }
+    if (value.length() > MAX_DATA_LENGTH) {
+      return value.substring(0, MAX_DATA_LENGTH);
+    }
+    return value;
+  }
+
+  /**
+   * @param value Value.
+   * @return Length of the value in modified UTF-8.
+   */
+  private static int getUTFLength(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if ((c >= 0x0001) && (c <= 0x007F)) {
+        length++;
+      } else if (c > 0x07FF) {
+        length += 3;
+      } else {
+        length += 2;
+      }
+    }
+    return length;
+  }
+}
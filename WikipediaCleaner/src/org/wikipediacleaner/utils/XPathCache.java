@@ -0,0 +1,68 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jdom2.filter.Filter;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
+
+
+/**
+ * Cache of compiled XPath expressions.
+ *
+ * Compiling an XPath expression is much more expensive than evaluating it,
+ * so expressions are compiled only once and then reused.
+ * Compiled expressions can't be shared between threads (the JDOM navigator
+ * keeps a state during evaluation), so each thread has its own cache.
+ * Only constant expressions should be used, the cache is never emptied.
+ */
+public class XPathCache {
+
+  /** Compiled expressions for each thread, indexed by filter and expression */
+  private final static ThreadLocal<Map<Filter<?>, Map<String, XPathExpression<?>>>> cache =
+      new ThreadLocal<Map<Filter<?>, Map<String, XPathExpression<?>>>>() {
+
+        @Override
+        protected Map<Filter<?>, Map<String, XPathExpression<?>>> initialValue() {
+          return new HashMap<Filter<?>, Map<String, XPathExpression<?>>>();
+        }
+      };
+
+  /**
+   * Retrieve a compiled XPath expression, compiling it if needed.
+   *
+   * @param expression XPath expression.
+   * @param filter Filter for the results of the expression.
+   * @return Compiled expression.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> XPathExpression<T> compile(String expression, Filter<T> filter) {
+    Map<Filter<?>, Map<String, XPathExpression<?>>> filters = cache.get();
+    Map<String, XPathExpression<?>> expressions = filters.get(filter);
+    if (expressions == null) {
+      expressions = new HashMap<String, XPathExpression<?>>();
+      filters.put(filter, expressions);
+    }
+    XPathExpression<T> result = (XPathExpression<T>) expressions.get(expression);
+    if (result == null) {
+      result = XPathFactory.instance().compile(expression, filter);
+      expressions.put(expression, result);
+    }
+    return result;
+  }
+
+  /**
+   * Utility class.
+   */
+  private XPathCache() {
+    // Nothing to do
+  }
+}
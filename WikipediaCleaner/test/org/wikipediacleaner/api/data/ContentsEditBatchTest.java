@@ -0,0 +1,128 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Test class for ContentsEditBatch.
+ */
+public class ContentsEditBatchTest {
+
+  @Test
+  public void testAdjacentEdits() {
+    ContentsEditBatch batch = new ContentsEditBatch("abcdef");
+    assertTrue(batch.addReplacement(0, 2, "AB"));
+    assertTrue(batch.addReplacement(2, 4, "[CD]"));
+    assertTrue(batch.addReplacement(4, 4, "+"));
+    assertTrue(batch.addRemoval(5, 6));
+    assertFalse(batch.hasOverlaps());
+    assertEquals(4, batch.getEditsCount());
+    assertEquals("AB[CD]+e", batch.apply());
+  }
+
+  @Test
+  public void testEditsAddedInAnyOrder() {
+    ContentsEditBatch batch = new ContentsEditBatch("one two three");
+    assertTrue(batch.addReplacement(8, 13, "3"));
+    assertTrue(batch.addReplacement(0, 3, "1"));
+    assertTrue(batch.addReplacement(4, 7, "2"));
+    assertEquals("1 2 3", batch.apply());
+    List<ContentsEditBatch.Edit> edits = batch.getEdits();
+    assertEquals(0, edits.get(0).getBeginIndex());
+    assertEquals(4, edits.get(1).getBeginIndex());
+    assertEquals(8, edits.get(2).getBeginIndex());
+  }
+
+  @Test
+  public void testOverlappingEdits() {
+    ContentsEditBatch batch = new ContentsEditBatch("abcdef");
+    assertTrue(batch.addReplacement(1, 4, "X"));
+    assertFalse(batch.addReplacement(0, 2, "Y"));
+    assertFalse(batch.addReplacement(3, 5, "Y"));
+    assertFalse(batch.addReplacement(2, 3, "Y"));
+    assertFalse(batch.addReplacement(0, 6, "Y"));
+    assertFalse(batch.addReplacement(1, 1, "Y"));
+    assertTrue(batch.hasOverlaps());
+    assertEquals(5, batch.getOverlaps().size());
+    assertEquals(1, batch.getEditsCount());
+    assertEquals("aXef", batch.apply());
+  }
+
+  @Test
+  public void testInsertionsAtSamePosition() {
+    ContentsEditBatch batch = new ContentsEditBatch("abc");
+    assertTrue(batch.addReplacement(1, 1, "X"));
+    assertFalse(batch.addReplacement(1, 1, "Y"));
+    assertEquals("aXbc", batch.apply());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testNegativeBegin() {
+    new ContentsEditBatch("abc").addReplacement(-1, 1, "X");
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testEndAfterContents() {
+    new ContentsEditBatch("abc").addReplacement(1, 4, "X");
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testEndBeforeBegin() {
+    new ContentsEditBatch("abc").addReplacement(2, 1, "X");
+  }
+
+  @Test
+  public void testRejectedGroup() {
+    ContentsEditBatch batch = new ContentsEditBatch("abcdef");
+    assertTrue(batch.addReplacement(2, 3, "C"));
+    List<ContentsEditBatch.Edit> group = new ArrayList<ContentsEditBatch.Edit>();
+    group.add(new ContentsEditBatch.Edit(0, 1, "A"));
+    group.add(new ContentsEditBatch.Edit(2, 4, "Z"));
+    assertFalse(batch.addReplacements(group));
+    assertEquals(1, batch.getEditsCount());
+    assertFalse(batch.hasOverlaps());
+    assertEquals("abCdef", batch.apply());
+  }
+
+  @Test
+  public void testAcceptedGroup() {
+    ContentsEditBatch batch = new ContentsEditBatch("abcdef");
+    assertTrue(batch.addReplacement(2, 3, "C"));
+    List<ContentsEditBatch.Edit> group = new ArrayList<ContentsEditBatch.Edit>();
+    group.add(new ContentsEditBatch.Edit(0, 1, "A"));
+    group.add(new ContentsEditBatch.Edit(4, 6, "EF"));
+    assertTrue(batch.addReplacements(group));
+    assertEquals(3, batch.getEditsCount());
+    assertEquals("AbCdEF", batch.apply());
+  }
+
+  @Test
+  public void testIsModifying() {
+    ContentsEditBatch batch = new ContentsEditBatch("abc");
+    assertFalse(batch.isModifying());
+    assertTrue(batch.addReplacement(0, 1, "a"));
+    assertFalse(batch.isModifying());
+    assertTrue(batch.addReplacement(2, 3, "C"));
+    assertTrue(batch.isModifying());
+  }
+
+  @Test
+  public void testNoEdit() {
+    ContentsEditBatch batch = new ContentsEditBatch("abc");
+    assertTrue(batch.isEmpty());
+    assertEquals("abc", batch.apply());
+    assertEquals("", new ContentsEditBatch(null).apply());
+  }
+}
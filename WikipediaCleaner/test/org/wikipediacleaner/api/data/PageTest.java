@@ -0,0 +1,69 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2013  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.data;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+
+/**
+ * Test class for Page.
+ */
+public class PageTest {
+
+  @Test
+  public void testSnapshotNotModifiedByRetrieval() {
+    Page page = new Page(null, "Title");
+    page.setLastRevision("First", "1", "2016-01-01T00:00:00Z");
+    page.setStartTimestamp("2016-01-02T00:00:00Z");
+    Page snapshot = page.snapshotPage();
+
+    page.setLastRevision("Second", "2", "2016-01-03T00:00:00Z");
+    page.setStartTimestamp("2016-01-04T00:00:00Z");
+    assertEquals("First", snapshot.getContents());
+    assertEquals(Integer.valueOf(1), snapshot.getRevisionId());
+    assertEquals("2016-01-01T00:00:00Z", snapshot.getContentsTimestamp());
+    assertEquals("2016-01-02T00:00:00Z", snapshot.getStartTimestamp());
+    assertEquals("Second", page.getContents());
+    assertEquals(Integer.valueOf(2), page.getRevisionId());
+  }
+
+  @Test
+  public void testSnapshotConsistentDuringRetrieval() throws InterruptedException {
+    final Page page = new Page(null, "Title");
+    page.setLastRevision("0", "0", "0");
+    Thread retrieval = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 1; i <= 100000; i++) {
+          String value = Integer.toString(i);
+          page.setLastRevision(value, value, value);
+        }
+      }
+    };
+    retrieval.start();
+    while (retrieval.isAlive()) {
+      Page snapshot = page.snapshotPage();
+      assertEquals(snapshot.getContents(), snapshot.getRevisionId().toString());
+      assertEquals(snapshot.getContents(), snapshot.getContentsTimestamp());
+    }
+    retrieval.join();
+  }
+
+  @Test
+  public void testRevisionId() {
+    Page page = new Page(null, "Title");
+    page.setRevisionId("\"123\"");
+    assertEquals(Integer.valueOf(123), page.getRevisionId());
+    page.setRevisionId("abc");
+    assertEquals(Integer.valueOf(-1), page.getRevisionId());
+    page.setRevisionId(null);
+    assertEquals(Integer.valueOf(-1), page.getRevisionId());
+  }
+}
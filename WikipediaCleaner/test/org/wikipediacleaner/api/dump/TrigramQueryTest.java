@@ -0,0 +1,122 @@
+/*
+ *  WPCleaner: A tool to help on Wikipedia maintenance tasks.
+ *  Copyright (C) 2016  Nicolas Vervelle
+ *
+ *  See README.txt file for licensing information.
+ */
+
+package org.wikipediacleaner.api.dump;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+
+/**
+ * Test class for TrigramQuery.
+ */
+public class TrigramQueryTest {
+
+  @Test
+  public void testLiterals() {
+    assertBranches("quick\\s+brown", branch("quick", "brown"));
+    assertBranches("abc+def", branch("abc", "def"));
+    assertBranches("\\{\\{[Cc]ite web", branch("ite web"));
+  }
+
+  @Test
+  public void testAlternations() {
+    assertBranches("(?i)hello|cite", branch("hello"), branch("cite"));
+    assertBranches("(?:abc|def)ghi", branch("ghi"));
+    assertBranches("(abc)(def|xyz)", branch("abc"));
+    assertNull(TrigramQuery.create(Pattern.compile("abc|d")));
+  }
+
+  @Test
+  public void testOptionalGroups() {
+    assertBranches("foo(bar)?baz", branch("foo", "baz"));
+    assertBranches("foo(?:bar)*baz", branch("foo", "baz"));
+    assertBranches("foo(?<name>bar)+baz", branch("foo", "bar", "baz"));
+    assertNull(TrigramQuery.create(Pattern.compile("(abc)?")));
+  }
+
+  @Test
+  public void testQuotes() {
+    assertBranches("\\Qa.b.c\\E", branch("a.b.c"));
+    assertBranches("x\\Q(y)\\E+z", branch("x(y)"));
+    assertBranches("\\Qabc", branch("abc"));
+    assertBranches("a.b.c", Pattern.LITERAL, branch("a.b.c"));
+  }
+
+  @Test
+  public void testLookarounds() {
+    assertBranches("(?<=abc)def", branch("def"));
+    assertBranches("(?<!abc)def", branch("def"));
+    assertBranches("abc(?=def)", branch("abc"));
+    assertBranches("abc(?!def)", branch("abc"));
+  }
+
+  @Test
+  public void testBoundedQuantifiers() {
+    assertBranches("x{0,2}yyyz", branch("yyyz"));
+    assertBranches("abcx{0,}defg", branch("abc", "defg"));
+    assertBranches("abcx{1,}defg", branch("abcx", "defg"));
+    assertBranches("abc(def){0,}ghi", branch("abc", "ghi"));
+    assertBranches("abc(def){2}ghi", branch("abc", "def", "ghi"));
+  }
+
+  @Test
+  public void testNoPreSelection() {
+    assertNull(TrigramQuery.create(Pattern.compile("a.b")));
+    assertNull(TrigramQuery.create(Pattern.compile("[a-z]+")));
+    assertNull(TrigramQuery.create(Pattern.compile("(?x)abc")));
+    assertNull(TrigramQuery.create(Pattern.compile("abc", Pattern.COMMENTS)));
+    assertNull(TrigramQuery.create((Pattern) null));
+  }
+
+  @Test
+  public void testSeveralPatterns() {
+    List<Pattern> patterns = new ArrayList<Pattern>();
+    patterns.add(Pattern.compile("abc"));
+    patterns.add(Pattern.compile("def|ghi"));
+    TrigramQuery query = TrigramQuery.create(patterns);
+    assertNotNull(query);
+    assertEquals(Arrays.asList(branch("abc"), branch("def"), branch("ghi")), query.getBranches());
+    patterns.add(Pattern.compile("a.b"));
+    assertNull(TrigramQuery.create(patterns));
+  }
+
+  /**
+   * @param literals Literals.
+   * @return Branch.
+   */
+  private static List<String> branch(String... literals) {
+    return Arrays.asList(literals);
+  }
+
+  /**
+   * @param regex Regular expression.
+   * @param expected Expected branches.
+   */
+  @SafeVarargs
+  private static void assertBranches(String regex, List<String>... expected) {
+    assertBranches(regex, 0, expected);
+  }
+
+  /**
+   * @param regex Regular expression.
+   * @param flags Flags for the regular expression.
+   * @param expected Expected branches.
+   */
+  @SafeVarargs
+  private static void assertBranches(String regex, int flags, List<String>... expected) {
+    TrigramQuery query = TrigramQuery.create(Pattern.compile(regex, flags));
+    assertNotNull("No query for " + regex, query);
+    assertEquals(regex, Arrays.asList(expected), query.getBranches());
+  }
+}